@@ -0,0 +1,83 @@
+package io.sease.rre.benchmarks;
+
+import io.sease.rre.core.domain.metrics.LatencySamples;
+import io.sease.rre.core.domain.metrics.impl.AveragedMetric;
+import io.sease.rre.core.domain.metrics.impl.LatencyMetric;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.IntStream.range;
+
+/**
+ * Measures the aggregation of the query-level metrics at the upper levels (i.e. query group, topic, corpus and
+ * evaluation): each aggregated metric collects one value per query and version, then it provides the averaged
+ * (or, for latency metrics, the percentiles of the collected samples) value of each version.
+ * The aggregation doesn't depend on the hits or on the judgments of the queries, so it is parameterised only by the
+ * number of aggregated queries and versions.
+ *
+ * @author agazzarini
+ * @since 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AggregationBenchmark {
+    @Param({"10", "100", "1000"})
+    public int queries;
+
+    @Param({"1", "10"})
+    public int versions;
+
+    private List<String> versionNames;
+    private List<BigDecimal> values;
+    private long[] latencies;
+
+    /**
+     * Generates the collected (metric and latency) values.
+     */
+    @Setup
+    public void generate() {
+        final Random random = new Random(42);
+        versionNames = range(0, versions).mapToObj(index -> "v1." + index).collect(toList());
+        values = range(0, queries).mapToObj(index -> BigDecimal.valueOf(random.nextInt(10001), 4)).collect(toList());
+        latencies = range(0, queries).mapToLong(index -> random.nextInt(100_000_000)).toArray();
+    }
+
+    @Benchmark
+    public void averagedMetric(final Blackhole blackhole) {
+        final AveragedMetric metric = new AveragedMetric("P");
+        versionNames.forEach(version -> values.forEach(value -> metric.collect(version, value)));
+        versionNames.forEach(version -> blackhole.consume(metric.valueFactory(version).value()));
+    }
+
+    @Benchmark
+    public void latencyMetrics(final Blackhole blackhole) {
+        final LatencySamples samples = new LatencySamples();
+        versionNames.forEach(version -> {
+            for (final long latency : latencies) {
+                samples.collect(version, latency);
+            }
+        });
+        LatencyMetric.latencyMetrics(samples).forEach(metric ->
+                versionNames.forEach(version -> blackhole.consume(metric.valueFactory(version).value())));
+    }
+}
@@ -0,0 +1,170 @@
+package io.sease.rre.benchmarks;
+
+import io.sease.rre.benchmarks.generator.FixtureGenerator;
+import io.sease.rre.core.Engine;
+import io.sease.rre.core.domain.Evaluation;
+import io.sease.rre.persistence.PersistenceConfiguration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static java.util.Arrays.asList;
+
+/**
+ * Measures the whole evaluation process ({@link Engine#evaluate(Map)}) over the ratings generated by the
+ * {@link FixtureGenerator} (queries of a group share the judgments), against a
+ * {@link SyntheticSearchPlatform}, so the scalability of the engine, of the domain model and of the persistence can
+ * be observed without the noise of a real search platform.
+ * Besides the evaluation time, the benchmark reports the evaluated queries per second and the peak heap usage
+ * (through the {@link EvaluationProfiler}) and the allocation rate (through the JMH GC profiler). Both profilers are
+ * enabled when the benchmark is launched through its own main method, e.g.
+ * java -cp benchmarks.jar io.sease.rre.benchmarks.EngineBenchmark -p queries=100000
+ * The evaluation output is persisted, as usual, by the default (JSON) persistence handler; the collected hits are
+ * kept on heap or, if hitStore is true, appended to a memory-mapped file (see {@link Engine#HIT_STORE_FOLDER}).
+ *
+ * @author agazzarini
+ * @since 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = "-Dlog4j.configurationFile=log4j2-benchmarks.xml")
+public class EngineBenchmark {
+    private final static int QUERIES_PER_GROUP = 10;
+    private final static int GROUPS_PER_TOPIC = 100;
+    private final static int QUERIES_PER_RATINGS_SET = 10_000;
+    private final static int DOCS = 1000;
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int queries;
+
+    @Param({"10"})
+    public int hitsPerQuery;
+
+    @Param({"10"})
+    public int judgedDocsPerQuery;
+
+    @Param({"2"})
+    public int versions;
+
+    @Param({"false", "true"})
+    public boolean hitStore;
+
+    private Path root;
+    private Engine engine;
+    private Map<String, Object> configuration;
+
+    /**
+     * Generates the fixtures and creates the engine.
+     *
+     * @throws IOException in case of I/O failure.
+     */
+    @Setup
+    public void setUp() throws IOException {
+        root = Files.createTempDirectory("rre-benchmark");
+        new FixtureGenerator(root.toFile())
+                .docs(DOCS)
+                .vocabularySize(Math.max(1, DOCS / Math.max(1, judgedDocsPerQuery)))
+                .versions(versions)
+                .queries(queries)
+                .queriesPerGroup(QUERIES_PER_GROUP)
+                .groupsPerTopic(GROUPS_PER_TOPIC)
+                .queriesPerRatingsSet(QUERIES_PER_RATINGS_SET)
+                .judgedDocsPerGroup(judgedDocsPerQuery)
+                .generate();
+
+        engine = new Engine(
+                new SyntheticSearchPlatform(hitsPerQuery, DOCS),
+                new File(root.toFile(), "configuration_sets").getAbsolutePath(),
+                null,
+                new File(root.toFile(), "ratings").getAbsolutePath(),
+                new File(root.toFile(), "templates").getAbsolutePath(),
+                asList(
+                        "io.sease.rre.core.domain.metrics.impl.Precision",
+                        "io.sease.rre.core.domain.metrics.impl.Recall",
+                        "io.sease.rre.core.domain.metrics.impl.PrecisionAtOne",
+                        "io.sease.rre.core.domain.metrics.impl.PrecisionAtTwo",
+                        "io.sease.rre.core.domain.metrics.impl.PrecisionAtThree",
+                        "io.sease.rre.core.domain.metrics.impl.PrecisionAtTen",
+                        "io.sease.rre.core.domain.metrics.impl.ReciprocalRank",
+                        "io.sease.rre.core.domain.metrics.impl.AveragePrecision",
+                        "io.sease.rre.core.domain.metrics.impl.NDCGAtTen",
+                        "io.sease.rre.core.domain.metrics.impl.F1"),
+                new String[]{"*", "score"},
+                null,
+                null,
+                null,
+                PersistenceConfiguration.DEFAULT_CONFIG);
+
+        configuration = new HashMap<>();
+        configuration.put(Engine.ENGINE_METRICS_FILE, new File(root.toFile(), "engine-metrics.json").getAbsolutePath());
+        if (hitStore) {
+            configuration.put(Engine.HIT_STORE_FOLDER, new File(root.toFile(), "hits").getAbsolutePath());
+        }
+    }
+
+    /**
+     * Removes the generated files.
+     *
+     * @throws IOException in case of I/O failure.
+     */
+    @TearDown
+    public void tearDown() throws IOException {
+        try (final Stream<Path> files = Files.walk(root)) {
+            files.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    @Benchmark
+    public Evaluation evaluate() {
+        try (final Evaluation evaluation = engine.evaluate(configuration)) {
+            return evaluation;
+        }
+    }
+
+    /**
+     * Runs this benchmark, with the GC and the peak heap profilers.
+     * Any JMH command line option can be used (e.g. -p queries=1000,10000 -jvmArgs -Xmx8g).
+     *
+     * @param args the JMH command line options.
+     * @throws RunnerException            in case of benchmark failure.
+     * @throws CommandLineOptionException in case of invalid command line options.
+     */
+    public static void main(final String[] args) throws RunnerException, CommandLineOptionException {
+        new Runner(
+                new OptionsBuilder()
+                        .parent(new CommandLineOptions(args))
+                        .include(EngineBenchmark.class.getSimpleName())
+                        .addProfiler(GCProfiler.class)
+                        .addProfiler(EvaluationProfiler.class)
+                        .build())
+                .run();
+    }
+}
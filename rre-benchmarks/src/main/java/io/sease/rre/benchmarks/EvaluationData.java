@@ -0,0 +1,86 @@
+package io.sease.rre.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static io.sease.rre.Field.DEFAULT_ID_FIELD_NAME;
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.IntStream.range;
+
+/**
+ * Supertype layer for all benchmarks which evaluate a single query: it provides the search hits returned by each
+ * version and the judgments (i.e. the relevant documents) of the query, shaped by the benchmark parameters.
+ * Hits and judgments are randomly (but reproducibly) generated: judged documents are drawn from a pool which is twice
+ * the size of the hits, so roughly half of them are actually returned, and their gain ranges between 1 and 3.
+ *
+ * @author agazzarini
+ * @since 1.0
+ */
+@State(Scope.Benchmark)
+public abstract class EvaluationData {
+    @Param({"10", "100", "1000"})
+    public int hitsPerQuery;
+
+    @Param({"10", "100"})
+    public int judgedDocsPerQuery;
+
+    @Param({"1", "10"})
+    public int versions;
+
+    protected List<String> versionNames;
+    protected Map<String, List<Map<String, Object>>> hits;
+    protected ObjectNode relevantDocuments;
+
+    /**
+     * Generates the benchmark data.
+     */
+    @Setup
+    public void generate() {
+        final Random random = new Random(42);
+
+        versionNames = range(0, versions).mapToObj(index -> "v1." + index).collect(toList());
+
+        hits = new HashMap<>();
+        versionNames.forEach(version -> {
+            final List<Map<String, Object>> versionHits = new ArrayList<>(hitsPerQuery);
+            random.ints(0, hitsPerQuery * 2).distinct().limit(hitsPerQuery).forEach(id -> versionHits.add(hit(id)));
+            hits.put(version, versionHits);
+        });
+
+        relevantDocuments = new ObjectMapper().createObjectNode();
+        random.ints(0, Math.max(hitsPerQuery, judgedDocsPerQuery) * 2)
+                .distinct()
+                .limit(judgedDocsPerQuery)
+                .forEach(id -> relevantDocuments.putObject(id(id)).put("gain", 1 + random.nextInt(3)));
+    }
+
+    /**
+     * Returns the total hits of a query response, which is always greater than the returned hits.
+     *
+     * @return the total hits of a query response.
+     */
+    protected long totalHits() {
+        return hitsPerQuery * 10L;
+    }
+
+    private Map<String, Object> hit(final int id) {
+        final Map<String, Object> hit = new HashMap<>();
+        hit.put(DEFAULT_ID_FIELD_NAME, id(id));
+        hit.put("title", "Document " + id);
+        return hit;
+    }
+
+    private String id(final int id) {
+        return "doc" + id;
+    }
+}
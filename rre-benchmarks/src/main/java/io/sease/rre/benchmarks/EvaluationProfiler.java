@@ -0,0 +1,70 @@
+package io.sease.rre.benchmarks;
+
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.infra.IterationParams;
+import org.openjdk.jmh.profile.InternalProfiler;
+import org.openjdk.jmh.results.AggregationPolicy;
+import org.openjdk.jmh.results.IterationResult;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.ScalarResult;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.Optional.ofNullable;
+
+/**
+ * A JMH profiler which reports, for each iteration of an evaluation benchmark:
+ *
+ * <ul>
+ * <li>the peak heap usage, as the sum of the peak usage of the heap memory pools (e.g. eden, survivor and old
+ * generation). Since the pools don't necessarily reach their peak at the same time, the value is an upper bound;</li>
+ * <li>the evaluated queries per second, if the benchmark declares the number of evaluated queries through a
+ * "queries" parameter and runs in single shot mode (i.e. the score is the time of a whole evaluation).</li>
+ * </ul>
+ *
+ * @author agazzarini
+ * @since 1.0
+ */
+public class EvaluationProfiler implements InternalProfiler {
+    public static final String QUERIES_PARAM = "queries";
+
+    @Override
+    public void beforeIteration(final BenchmarkParams benchmarkParams, final IterationParams iterationParams) {
+        ManagementFactory.getMemoryPoolMXBeans().forEach(MemoryPoolMXBean::resetPeakUsage);
+    }
+
+    @Override
+    public Collection<? extends Result> afterIteration(final BenchmarkParams benchmarkParams, final IterationParams iterationParams, final IterationResult result) {
+        final List<Result> results = new ArrayList<>();
+
+        final long peak =
+                ManagementFactory.getMemoryPoolMXBeans().stream()
+                        .filter(pool -> pool.getType() == MemoryType.HEAP)
+                        .mapToLong(pool -> pool.getPeakUsage().getUsed())
+                        .sum();
+        results.add(new ScalarResult("heap.peak", peak / (1024d * 1024d), "MB", AggregationPolicy.MAX));
+
+        ofNullable(benchmarkParams.getParam(QUERIES_PARAM))
+                .map(Long::parseLong)
+                .filter(queries -> result.getPrimaryResult().getScore() > 0)
+                .ifPresent(queries -> {
+                    final double seconds =
+                            result.getPrimaryResult().getScore()
+                                    * benchmarkParams.getTimeUnit().toNanos(1)
+                                    / TimeUnit.SECONDS.toNanos(1);
+                    results.add(new ScalarResult("queries.rate", queries / seconds, "queries/s", AggregationPolicy.AVG));
+                });
+        return results;
+    }
+
+    @Override
+    public String getDescription() {
+        return "Evaluation peak heap and throughput";
+    }
+}
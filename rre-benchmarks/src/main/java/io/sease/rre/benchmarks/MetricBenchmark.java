@@ -0,0 +1,77 @@
+package io.sease.rre.benchmarks;
+
+import io.sease.rre.Func;
+import io.sease.rre.core.domain.metrics.Metric;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static io.sease.rre.Field.DEFAULT_ID_FIELD_NAME;
+
+/**
+ * Measures the computation of each (leaf) metric for a single query, as it happens in the engine: a new metric
+ * instance is prepared with the query judgments, then it collects the hits of each version and finally it provides
+ * its values.
+ *
+ * @author agazzarini
+ * @since 1.0
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MetricBenchmark extends EvaluationData {
+    private final static String METRICS_PACKAGE = "io.sease.rre.core.domain.metrics.impl.";
+
+    @Param({
+            "AveragePrecision",
+            "F0_5",
+            "F1",
+            "F2",
+            "NDCGAtTen",
+            "Precision",
+            "PrecisionAtOne",
+            "PrecisionAtTwo",
+            "PrecisionAtThree",
+            "PrecisionAtTen",
+            "Recall",
+            "ReciprocalRank"})
+    public String metric;
+
+    private Class<? extends Metric> definition;
+
+    /**
+     * Resolves the benchmarked metric definition.
+     */
+    @Setup
+    public void resolveMetric() {
+        definition = Func.newMetricDefinition(METRICS_PACKAGE + metric);
+    }
+
+    @Benchmark
+    public void computeMetric(final Blackhole blackhole) throws Exception {
+        final Metric instance = definition.newInstance();
+        instance.setIdFieldName(DEFAULT_ID_FIELD_NAME);
+        instance.setRelevantDocuments(relevantDocuments);
+        instance.setVersions(versionNames);
+
+        versionNames.forEach(version -> {
+            instance.setTotalHits(totalHits(), version);
+            final AtomicInteger rank = new AtomicInteger(1);
+            hits.get(version).forEach(hit -> instance.collect(hit, rank.getAndIncrement(), version));
+        });
+
+        versionNames.forEach(version -> blackhole.consume(instance.valueFactory(version).value()));
+    }
+}
@@ -0,0 +1,81 @@
+package io.sease.rre.benchmarks;
+
+import io.sease.rre.core.domain.Query;
+import io.sease.rre.core.domain.metrics.Metric;
+import io.sease.rre.core.domain.metrics.impl.*;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static io.sease.rre.Field.DEFAULT_ID_FIELD_NAME;
+import static java.util.Arrays.asList;
+
+/**
+ * Measures the whole hits collection of a query evaluation (i.e. {@link Query#collect(java.util.Map, int, String)}),
+ * with all the available metrics: each hit is dispatched to every metric and it is also retained, together with its
+ * judgment, in the query results.
+ *
+ * @author agazzarini
+ * @since 1.0
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QueryCollectBenchmark extends EvaluationData {
+
+    @Benchmark
+    public void collect(final Blackhole blackhole) {
+        final Query query = new Query();
+        query.setName("benchmark");
+        query.setIdFieldName(DEFAULT_ID_FIELD_NAME);
+        query.setRelevantDocuments(relevantDocuments);
+        query.prepare(metrics());
+
+        versionNames.forEach(version -> {
+            query.setTotalHits(totalHits(), version);
+            final AtomicInteger rank = new AtomicInteger(1);
+            hits.get(version).forEach(hit -> query.collect(hit, rank.getAndIncrement(), version));
+        });
+
+        query.getMetrics().values().forEach(metric ->
+                versionNames.forEach(version -> blackhole.consume(metric.valueFactory(version).value())));
+    }
+
+    /**
+     * Returns a new instance of all the available (leaf) metrics, ready for collecting the query hits.
+     *
+     * @return a new instance of all the available (leaf) metrics.
+     */
+    private List<Metric> metrics() {
+        final List<Metric> metrics = asList(
+                new AveragePrecision(),
+                new F0_5(),
+                new F1(),
+                new F2(),
+                new NDCGAtTen(),
+                new Precision(),
+                new PrecisionAtOne(),
+                new PrecisionAtTwo(),
+                new PrecisionAtThree(),
+                new PrecisionAtTen(),
+                new Recall(),
+                new ReciprocalRank());
+        metrics.forEach(metric -> {
+            metric.setIdFieldName(DEFAULT_ID_FIELD_NAME);
+            metric.setRelevantDocuments(relevantDocuments);
+            metric.setVersions(versionNames);
+        });
+        return metrics;
+    }
+}
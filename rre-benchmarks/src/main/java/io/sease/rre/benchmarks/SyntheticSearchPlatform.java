@@ -0,0 +1,105 @@
+package io.sease.rre.benchmarks;
+
+import io.sease.rre.search.api.QueryOrSearchResponse;
+import io.sease.rre.search.api.SearchPlatform;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static io.sease.rre.Field.DEFAULT_ID_FIELD_NAME;
+
+/**
+ * An in-memory {@link SearchPlatform} which answers every query, with near-zero latency, with a configurable number of
+ * synthetic hits, so the cost of the RRE engine (i.e. evaluation, domain model and persistence) can be measured
+ * independently of a real search platform.
+ * The hits of a query are drawn from a pool of documents, starting from a position which depends on the query (and
+ * on the target index), so different queries and different versions return different (but reproducible) results.
+ *
+ * @author agazzarini
+ * @since 1.0
+ */
+public class SyntheticSearchPlatform implements SearchPlatform {
+    private final int hitsPerQuery;
+    private final int docs;
+
+    /**
+     * Builds a new synthetic search platform.
+     *
+     * @param hitsPerQuery the number of hits returned for each query.
+     * @param docs         the size of the documents pool (i.e. the identifiers of the returned documents range
+     *                     between 0 and docs - 1).
+     */
+    public SyntheticSearchPlatform(final int hitsPerQuery, final int docs) {
+        this.hitsPerQuery = hitsPerQuery;
+        this.docs = docs;
+    }
+
+    @Override
+    public void beforeStart(final Map<String, Object> configuration) {
+        // Nothing to be done here
+    }
+
+    @Override
+    public void load(final File corpus, final File configFolder, final String targetIndexName) {
+        // Nothing to be done here
+    }
+
+    @Override
+    public void start() {
+        // Nothing to be done here
+    }
+
+    @Override
+    public void afterStart() {
+        // Nothing to be done here
+    }
+
+    @Override
+    public void beforeStop() {
+        // Nothing to be done here
+    }
+
+    @Override
+    public QueryOrSearchResponse executeQuery(final String indexName, final String query, final String[] fields, final int maxRows) {
+        final int rows = Math.min(hitsPerQuery, maxRows);
+        final int offset = Math.floorMod(31 * query.hashCode() + indexName.hashCode(), docs);
+        final List<Map<String, Object>> hits = new ArrayList<>(rows);
+        for (int rank = 0; rank < rows; rank++) {
+            final int id = (offset + rank * 7) % docs;
+            final Map<String, Object> hit = new HashMap<>();
+            hit.put(DEFAULT_ID_FIELD_NAME, String.valueOf(id));
+            hit.put("title", "Document " + id);
+            hit.put("score", (float) (rows - rank));
+            hits.add(hit);
+        }
+        return new QueryOrSearchResponse(docs, hits, 0);
+    }
+
+    @Override
+    public String getName() {
+        return "Synthetic";
+    }
+
+    @Override
+    public boolean isRefreshRequired() {
+        return false;
+    }
+
+    @Override
+    public boolean isSearchPlatformFile(final String indexName, final File file) {
+        return file.isDirectory() && file.getName().equals(indexName);
+    }
+
+    @Override
+    public boolean isCorporaRequired() {
+        return false;
+    }
+
+    @Override
+    public void close() {
+        // Nothing to be done here
+    }
+}
@@ -0,0 +1,545 @@
+package io.sease.rre.benchmarks.generator;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static java.util.Optional.ofNullable;
+import static java.util.stream.Collectors.joining;
+
+/**
+ * Generates, at a configurable scale, a complete set of RRE fixtures with a realistic shape: a corpus (Solr JSON or
+ * Elasticsearch bulk NDJSON), the configuration sets, the query templates and the ratings (with topics, query
+ * groups, placeholders and graded judgments).
+ * The output folder has the same layout of the src/etc folder of an RRE project (i.e. configuration_sets,
+ * corpora, templates and ratings), so it can be used for driving load, memory and throughput tests.
+ *
+ * The generation is entirely determined by the parameters (including the seed):
+ *
+ * <ul>
+ * <li>document texts are drawn from a {@link Vocabulary}; the title of the document n always starts with the
+ * term (n % vocabulary size), so the documents matching a given term are known without indexing the corpus;</li>
+ * <li>each query group is built around a (head) term: its queries contain that term and its judged documents are
+ * (some of) the documents whose title starts with that term, with a gain between 1 and 3;</li>
+ * <li>configuration sets differ in the text analysis: odd versions add stemming.</li>
+ * </ul>
+ *
+ * @author agazzarini
+ * @since 1.0
+ */
+public class FixtureGenerator {
+    /**
+     * The target search platform, which determines the corpus format and the configuration sets layout.
+     */
+    public enum Platform {
+        SOLR, ELASTICSEARCH
+    }
+
+    public final static String ONLY_Q_TEMPLATE = "only_q.json";
+    public final static String FILTER_BY_CATEGORY_TEMPLATE = "filter_by_category.json";
+
+    private final static int CATEGORIES = 20;
+    private final static int FILTERED_QUERY_EVERY = 4;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final File outputFolder;
+
+    private Platform platform = Platform.SOLR;
+    private String indexName = "core1";
+    private int docs = 10_000;
+    private int vocabularySize = 1000;
+    private int versions = 2;
+    private int queries = 1000;
+    private int queriesPerGroup = 10;
+    private int groupsPerTopic = 10;
+    private int queriesPerRatingsSet = 10_000;
+    private int judgedDocsPerGroup = 10;
+    private long seed = 42;
+
+    /**
+     * Builds a new generator which writes in the given folder.
+     *
+     * @param outputFolder the output folder.
+     */
+    public FixtureGenerator(final File outputFolder) {
+        this.outputFolder = outputFolder;
+    }
+
+    /**
+     * Sets the target search platform (default Solr).
+     *
+     * @param platform the target search platform.
+     * @return this generator.
+     */
+    public FixtureGenerator platform(final Platform platform) {
+        this.platform = platform;
+        return this;
+    }
+
+    /**
+     * Sets the index name (default core1).
+     *
+     * @param indexName the index name.
+     * @return this generator.
+     */
+    public FixtureGenerator indexName(final String indexName) {
+        this.indexName = indexName;
+        return this;
+    }
+
+    /**
+     * Sets the number of documents of the corpus (default 10000).
+     *
+     * @param docs the number of documents.
+     * @return this generator.
+     */
+    public FixtureGenerator docs(final int docs) {
+        this.docs = docs;
+        return this;
+    }
+
+    /**
+     * Sets the number of distinct terms of the documents and the queries (default 1000).
+     *
+     * @param vocabularySize the number of distinct terms.
+     * @return this generator.
+     */
+    public FixtureGenerator vocabularySize(final int vocabularySize) {
+        this.vocabularySize = vocabularySize;
+        return this;
+    }
+
+    /**
+     * Sets the number of configuration sets (default 2).
+     *
+     * @param versions the number of configuration sets.
+     * @return this generator.
+     */
+    public FixtureGenerator versions(final int versions) {
+        this.versions = versions;
+        return this;
+    }
+
+    /**
+     * Sets the overall number of queries (default 1000).
+     *
+     * @param queries the overall number of queries.
+     * @return this generator.
+     */
+    public FixtureGenerator queries(final int queries) {
+        this.queries = queries;
+        return this;
+    }
+
+    /**
+     * Sets the number of queries of each query group (default 10).
+     *
+     * @param queriesPerGroup the number of queries of each query group.
+     * @return this generator.
+     */
+    public FixtureGenerator queriesPerGroup(final int queriesPerGroup) {
+        this.queriesPerGroup = queriesPerGroup;
+        return this;
+    }
+
+    /**
+     * Sets the number of query groups of each topic (default 10).
+     *
+     * @param groupsPerTopic the number of query groups of each topic.
+     * @return this generator.
+     */
+    public FixtureGenerator groupsPerTopic(final int groupsPerTopic) {
+        this.groupsPerTopic = groupsPerTopic;
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of queries of each ratings file (default 10000).
+     *
+     * @param queriesPerRatingsSet the maximum number of queries of each ratings file.
+     * @return this generator.
+     */
+    public FixtureGenerator queriesPerRatingsSet(final int queriesPerRatingsSet) {
+        this.queriesPerRatingsSet = queriesPerRatingsSet;
+        return this;
+    }
+
+    /**
+     * Sets the (maximum) number of judged documents of each query group (default 10).
+     *
+     * @param judgedDocsPerGroup the number of judged documents of each query group.
+     * @return this generator.
+     */
+    public FixtureGenerator judgedDocsPerGroup(final int judgedDocsPerGroup) {
+        this.judgedDocsPerGroup = judgedDocsPerGroup;
+        return this;
+    }
+
+    /**
+     * Sets the seed of the random numbers generators (default 42).
+     *
+     * @param seed the seed.
+     * @return this generator.
+     */
+    public FixtureGenerator seed(final long seed) {
+        this.seed = seed;
+        return this;
+    }
+
+    /**
+     * Generates the fixtures.
+     *
+     * @throws IOException in case of I/O failure.
+     */
+    public void generate() throws IOException {
+        if (docs <= 0 || versions <= 0 || queries < 0 || queriesPerGroup <= 0 || groupsPerTopic <= 0 || queriesPerRatingsSet <= 0) {
+            throw new IllegalArgumentException("Invalid generator parameters: sizes must be greater than 0.");
+        }
+
+        final Vocabulary vocabulary = new Vocabulary(vocabularySize, seed);
+
+        writeConfigurationSets();
+        writeCorpus(vocabulary);
+        writeTemplates();
+        writeRatings(vocabulary);
+    }
+
+    /**
+     * Returns the name of the generated corpus file.
+     *
+     * @return the name of the generated corpus file.
+     */
+    public String corpusFileName() {
+        return indexName + (platform == Platform.SOLR ? ".json" : ".bulk");
+    }
+
+    /**
+     * Writes out the configuration sets (one for each version).
+     *
+     * @throws IOException in case of I/O failure.
+     */
+    private void writeConfigurationSets() throws IOException {
+        for (int version = 0; version < versions; version++) {
+            final File versionFolder = new File(outputFolder, "configuration_sets/v1." + version);
+            final boolean stemming = version % 2 == 1;
+            if (platform == Platform.SOLR) {
+                final File conf = new File(versionFolder, indexName + "/conf");
+                write(new File(versionFolder, "solr.xml"), "<solr/>");
+                write(new File(conf, "solrconfig.xml"), resource("solr/solrconfig.xml"));
+                write(new File(conf, "schema.xml"),
+                        resource("solr/schema.xml").replace("${filters}", stemming ? "\n                <filter class=\"solr.PorterStemFilterFactory\"/>" : ""));
+            } else {
+                write(new File(versionFolder, "index-shape.json"),
+                        resource("elasticsearch/index-shape.json").replace("${filters}", stemming ? ",\n            \"porter_stem\"" : ""));
+            }
+        }
+    }
+
+    /**
+     * Writes out the corpus: a JSON array of documents for Solr, a bulk (NDJSON) file for Elasticsearch.
+     *
+     * @param vocabulary the vocabulary.
+     * @throws IOException in case of I/O failure.
+     */
+    private void writeCorpus(final Vocabulary vocabulary) throws IOException {
+        final File corpus = new File(outputFolder, "corpora/" + corpusFileName());
+        corpus.getParentFile().mkdirs();
+
+        if (platform == Platform.SOLR) {
+            try (final JsonGenerator generator = mapper.getFactory().createGenerator(corpus, JsonEncoding.UTF8)) {
+                generator.writeStartArray();
+                for (int id = 0; id < docs; id++) {
+                    generator.writeObject(document(id, vocabulary));
+                }
+                generator.writeEndArray();
+            }
+        } else {
+            try (final Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(corpus), StandardCharsets.UTF_8))) {
+                for (int id = 0; id < docs; id++) {
+                    final Map<String, Object> document = document(id, vocabulary);
+                    final Map<String, Object> action = new LinkedHashMap<>();
+                    action.put("_index", indexName);
+                    action.put("_type", "doc");
+                    action.put("_id", document.remove("id"));
+                    writer.write(mapper.writeValueAsString(Collections.singletonMap("index", action)));
+                    writer.write('\n');
+                    writer.write(mapper.writeValueAsString(document));
+                    writer.write('\n');
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes out the query templates: a plain full-text query and a full-text query filtered by category.
+     *
+     * @throws IOException in case of I/O failure.
+     */
+    private void writeTemplates() throws IOException {
+        final File templates = new File(outputFolder, "templates");
+        if (platform == Platform.SOLR) {
+            write(new File(templates, ONLY_Q_TEMPLATE), "{\n  \"q\": \"$query\"\n}");
+            write(new File(templates, FILTER_BY_CATEGORY_TEMPLATE), "{\n  \"q\": \"$query\",\n  \"fq\": \"category:$category\"\n}");
+        } else {
+            final String match = "{\"multi_match\": {\"query\": \"$query\", \"fields\": [\"title^2\", \"description\"]}}";
+            write(new File(templates, ONLY_Q_TEMPLATE), "{\n  \"query\": " + match + "\n}");
+            write(new File(templates, FILTER_BY_CATEGORY_TEMPLATE),
+                    "{\n  \"query\": {\n    \"bool\": {\n      \"must\": " + match + ",\n      \"filter\": {\"term\": {\"category\": \"$category\"}}\n    }\n  }\n}");
+        }
+    }
+
+    /**
+     * Writes out the ratings: each ratings set contains (at most) queriesPerRatingsSet queries, organised in topics
+     * and query groups.
+     *
+     * @param vocabulary the vocabulary.
+     * @throws IOException in case of I/O failure.
+     */
+    private void writeRatings(final Vocabulary vocabulary) throws IOException {
+        final File ratings = new File(outputFolder, "ratings");
+        ratings.mkdirs();
+
+        final Random random = new Random(seed);
+        int query = 0;
+        int group = 0;
+        for (int set = 0; set == 0 || query < queries; set++) {
+            try (final JsonGenerator generator = mapper.getFactory().createGenerator(new File(ratings, "ratings_" + set + ".json"), JsonEncoding.UTF8)) {
+                generator.useDefaultPrettyPrinter();
+                generator.writeStartObject();
+                generator.writeStringField("index", indexName);
+                generator.writeStringField("corpora_file", corpusFileName());
+                generator.writeStringField("id_field", platform == Platform.SOLR ? "id" : "_id");
+                generator.writeArrayFieldStart("topics");
+
+                final int setEnd = Math.min(queries, query + queriesPerRatingsSet);
+                for (int topic = 0; query < setEnd; topic++) {
+                    generator.writeStartObject();
+                    generator.writeStringField("description", "Topic " + set + "." + topic);
+                    generator.writeArrayFieldStart("query_groups");
+                    for (int i = 0; i < groupsPerTopic && query < setEnd; i++, group++) {
+                        query += writeQueryGroup(generator, vocabulary, random, group, Math.min(queriesPerGroup, setEnd - query));
+                    }
+                    generator.writeEndArray();
+                    generator.writeEndObject();
+                }
+                generator.writeEndArray();
+                generator.writeEndObject();
+            }
+        }
+    }
+
+    /**
+     * Writes out a query group.
+     * Query strings are unique within a group, so the group could contain less queries than requested if the
+     * vocabulary is very small.
+     *
+     * @param generator  the JSON generator.
+     * @param vocabulary the vocabulary.
+     * @param random     the random numbers generator.
+     * @param group      the group ordinal.
+     * @param howMany    the number of queries of the group.
+     * @return the number of written queries.
+     * @throws IOException in case of I/O failure.
+     */
+    private int writeQueryGroup(
+            final JsonGenerator generator,
+            final Vocabulary vocabulary,
+            final Random random,
+            final int group,
+            final int howMany) throws IOException {
+        final int head = group % vocabulary.size();
+        final String headTerm = vocabulary.term(head);
+
+        // The documents whose title starts with the head term are head, head + V, head + 2V...
+        final List<Integer> candidates = new ArrayList<>();
+        for (int id = head; id < docs; id += vocabulary.size()) {
+            candidates.add(id);
+        }
+        Collections.shuffle(candidates, random);
+        final List<Integer> judged = candidates.subList(0, Math.min(judgedDocsPerGroup, candidates.size()));
+
+        generator.writeStartObject();
+        generator.writeStringField("name", "Group " + group + " (" + headTerm + ")");
+        generator.writeStringField("description", "Searches on \"" + headTerm + "\"");
+        generator.writeArrayFieldStart("queries");
+        final Set<String> queryStrings = new LinkedHashSet<>();
+        queryStrings.add(headTerm);
+        for (int attempts = 0; queryStrings.size() < howMany && attempts < howMany * 100; attempts++) {
+            final String additionalTerms = vocabulary.text(random, 1 + random.nextInt(2));
+            queryStrings.add(random.nextBoolean() ? headTerm + " " + additionalTerms : additionalTerms + " " + headTerm);
+        }
+
+        int ordinal = 0;
+        for (final String queryString : queryStrings) {
+            final boolean filtered = !judged.isEmpty() && ordinal++ % FILTERED_QUERY_EVERY == FILTERED_QUERY_EVERY - 1;
+            generator.writeStartObject();
+            generator.writeStringField("template", filtered ? FILTER_BY_CATEGORY_TEMPLATE : ONLY_Q_TEMPLATE);
+            generator.writeObjectFieldStart("placeholders");
+            generator.writeStringField("$query", queryString);
+            if (filtered) {
+                generator.writeStringField("$category", category(documentRandom(judged.get(0))));
+            }
+            generator.writeEndObject();
+            generator.writeEndObject();
+        }
+        generator.writeEndArray();
+
+        generator.writeObjectFieldStart("relevant_documents");
+        for (int i = 0; i < judged.size(); i++) {
+            generator.writeObjectFieldStart(String.valueOf(judged.get(i)));
+            generator.writeNumberField("gain", i == 0 ? 3 : 1 + random.nextInt(3));
+            generator.writeEndObject();
+        }
+        generator.writeEndObject();
+        generator.writeEndObject();
+        return queryStrings.size();
+    }
+
+    /**
+     * Generates the document with the given identifier.
+     * A document only depends on its identifier (and on the generator seed), so it can be generated again when its
+     * attributes are needed (e.g. the category of a judged document).
+     *
+     * @param id         the document identifier.
+     * @param vocabulary the vocabulary.
+     * @return the document with the given identifier.
+     */
+    private Map<String, Object> document(final int id, final Vocabulary vocabulary) {
+        final Random random = documentRandom(id);
+        final Map<String, Object> document = new LinkedHashMap<>();
+        document.put("id", String.valueOf(id));
+        document.put("category", category(random));
+        document.put("title", vocabulary.term(id % vocabulary.size()) + " " + vocabulary.text(random, 2 + random.nextInt(5)));
+        document.put("description", vocabulary.text(random, 15 + random.nextInt(26)));
+        document.put("price", 1 + random.nextInt(1000));
+        return document;
+    }
+
+    private Random documentRandom(final int id) {
+        return new Random(seed ^ (id * 0x9E3779B97F4A7C15L));
+    }
+
+    /**
+     * Draws a category; lower categories are more frequent.
+     *
+     * @param random the random numbers generator.
+     * @return a category.
+     */
+    private String category(final Random random) {
+        return "category" + Math.min(random.nextInt(CATEGORIES), random.nextInt(CATEGORIES));
+    }
+
+    private String resource(final String name) throws IOException {
+        try (final InputStream stream = getClass().getResourceAsStream("/fixtures/" + name)) {
+            if (stream == null) {
+                throw new IOException("Unable to find the fixture resource " + name);
+            }
+            try (final BufferedReader reader = new BufferedReader(new InputStreamReader(stream, StandardCharsets.UTF_8))) {
+                return reader.lines().collect(joining("\n"));
+            }
+        }
+    }
+
+    private void write(final File file, final String content) throws IOException {
+        file.getParentFile().mkdirs();
+        try (final Writer writer = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8)) {
+            writer.write(content);
+            writer.write('\n');
+        }
+    }
+
+    /**
+     * Generates the fixtures from the command line, e.g.
+     * java -cp benchmarks.jar io.sease.rre.benchmarks.generator.FixtureGenerator --output target/fixtures
+     * --platform elasticsearch --docs 1000000 --queries 100000 --versions 4
+     *
+     * @param args the command line options.
+     * @throws IOException in case of I/O failure.
+     */
+    public static void main(final String[] args) throws IOException {
+        final Map<String, String> options = new LinkedHashMap<>();
+        for (int i = 0; i < args.length; i += 2) {
+            if (!args[i].startsWith("--") || i + 1 >= args.length) {
+                usage();
+                return;
+            }
+            options.put(args[i].substring(2), args[i + 1]);
+        }
+
+        final String output = options.remove("output");
+        if (output == null) {
+            usage();
+            return;
+        }
+
+        final FixtureGenerator generator = new FixtureGenerator(new File(output));
+        options.forEach((name, value) -> {
+            switch (name) {
+                case "platform":
+                    generator.platform(Platform.valueOf(value.toUpperCase()));
+                    break;
+                case "index":
+                    generator.indexName(value);
+                    break;
+                case "docs":
+                    generator.docs(Integer.parseInt(value));
+                    break;
+                case "vocabulary":
+                    generator.vocabularySize(Integer.parseInt(value));
+                    break;
+                case "versions":
+                    generator.versions(Integer.parseInt(value));
+                    break;
+                case "queries":
+                    generator.queries(Integer.parseInt(value));
+                    break;
+                case "queries-per-group":
+                    generator.queriesPerGroup(Integer.parseInt(value));
+                    break;
+                case "groups-per-topic":
+                    generator.groupsPerTopic(Integer.parseInt(value));
+                    break;
+                case "queries-per-ratings-set":
+                    generator.queriesPerRatingsSet(Integer.parseInt(value));
+                    break;
+                case "judged-docs-per-group":
+                    generator.judgedDocsPerGroup(Integer.parseInt(value));
+                    break;
+                case "seed":
+                    generator.seed(Long.parseLong(value));
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: --" + name);
+            }
+        });
+
+        generator.generate();
+        System.out.println("RRE: fixtures generated in " + new File(output).getAbsolutePath() + " (" + ofNullable(options.get("platform")).orElse("solr") + ")");
+    }
+
+    private static void usage() {
+        System.out.println(
+                "Usage: FixtureGenerator --output <folder> [--platform solr|elasticsearch] [--index <name>] [--docs <n>] " +
+                        "[--vocabulary <n>] [--versions <n>] [--queries <n>] [--queries-per-group <n>] [--groups-per-topic <n>] " +
+                        "[--queries-per-ratings-set <n>] [--judged-docs-per-group <n>] [--seed <n>]");
+    }
+}
@@ -0,0 +1,102 @@
+package io.sease.rre.benchmarks.generator;
+
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * A synthetic vocabulary, whose terms are sampled with a Zipfian distribution, like the terms of a natural
+ * language: a few terms are very frequent, most of them are rare.
+ * Terms are pronounceable (i.e. sequences of syllables) and the vocabulary is entirely determined by its size and seed.
+ *
+ * @author agazzarini
+ * @since 1.0
+ */
+public class Vocabulary {
+    private final static String[] CONSONANTS = {"b", "c", "d", "f", "g", "l", "m", "n", "p", "r", "s", "t", "v", "z"};
+    private final static String[] VOWELS = {"a", "e", "i", "o", "u"};
+
+    private final String[] terms;
+    private final double[] cumulativeWeights;
+
+    /**
+     * Builds a new vocabulary.
+     *
+     * @param size the number of terms.
+     * @param seed the seed used for generating the terms.
+     */
+    public Vocabulary(final int size, final long seed) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("The vocabulary size must be greater than 0.");
+        }
+
+        final Random random = new Random(seed);
+        final Set<String> words = new LinkedHashSet<>();
+        while (words.size() < size) {
+            final StringBuilder word = new StringBuilder();
+            final int syllables = 2 + random.nextInt(3);
+            for (int i = 0; i < syllables; i++) {
+                word.append(CONSONANTS[random.nextInt(CONSONANTS.length)]).append(VOWELS[random.nextInt(VOWELS.length)]);
+            }
+            words.add(word.toString());
+        }
+        this.terms = words.toArray(new String[0]);
+
+        this.cumulativeWeights = new double[size];
+        double total = 0;
+        for (int rank = 0; rank < size; rank++) {
+            total += 1d / (rank + 1);
+            cumulativeWeights[rank] = total;
+        }
+    }
+
+    /**
+     * Returns the term at the given position.
+     *
+     * @param index the term position (i.e. its frequency rank).
+     * @return the term at the given position.
+     */
+    public String term(final int index) {
+        return terms[index];
+    }
+
+    /**
+     * Returns the number of terms of this vocabulary.
+     *
+     * @return the number of terms of this vocabulary.
+     */
+    public int size() {
+        return terms.length;
+    }
+
+    /**
+     * Samples a term.
+     *
+     * @param random the random numbers generator.
+     * @return a term, chosen with a Zipfian distribution.
+     */
+    public String sample(final Random random) {
+        final double point = random.nextDouble() * cumulativeWeights[cumulativeWeights.length - 1];
+        final int index = Arrays.binarySearch(cumulativeWeights, point);
+        return terms[Math.min(terms.length - 1, index >= 0 ? index : -index - 1)];
+    }
+
+    /**
+     * Samples a sequence of terms.
+     *
+     * @param random the random numbers generator.
+     * @param length the number of terms.
+     * @return a sequence of terms, separated by a whitespace.
+     */
+    public String text(final Random random, final int length) {
+        final StringBuilder text = new StringBuilder();
+        for (int i = 0; i < length; i++) {
+            if (i > 0) {
+                text.append(' ');
+            }
+            text.append(sample(random));
+        }
+        return text.toString();
+    }
+}
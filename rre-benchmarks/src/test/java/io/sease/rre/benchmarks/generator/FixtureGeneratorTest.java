@@ -0,0 +1,115 @@
+package io.sease.rre.benchmarks.generator;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.sease.rre.benchmarks.SyntheticSearchPlatform;
+import io.sease.rre.core.Engine;
+import io.sease.rre.core.domain.Evaluation;
+import io.sease.rre.persistence.PersistenceConfiguration;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static java.util.Collections.singletonList;
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for the {@link FixtureGenerator} class.
+ */
+public class FixtureGeneratorTest {
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    @Test
+    public void generate_writesTheSolrProjectLayout() throws Exception {
+        final File output = tempFolder.newFolder();
+        new FixtureGenerator(output).docs(50).vocabularySize(10).versions(3).queries(25).queriesPerGroup(5).groupsPerTopic(2).generate();
+
+        assertTrue(new File(output, "configuration_sets/v1.0/core1/conf/solrconfig.xml").exists());
+        assertFalse(read(new File(output, "configuration_sets/v1.0/core1/conf/schema.xml")).contains("PorterStem"));
+        assertTrue(read(new File(output, "configuration_sets/v1.1/core1/conf/schema.xml")).contains("PorterStem"));
+        assertTrue(new File(output, "configuration_sets/v1.2/solr.xml").exists());
+        assertTrue(new File(output, "templates/" + FixtureGenerator.FILTER_BY_CATEGORY_TEMPLATE).exists());
+        assertEquals(50, new ObjectMapper().readTree(new File(output, "corpora/core1.json")).size());
+
+        final JsonNode ratings = new ObjectMapper().readTree(new File(output, "ratings/ratings_0.json"));
+        assertEquals("core1.json", ratings.get("corpora_file").asText());
+        assertEquals(3, ratings.get("topics").size());
+
+        final JsonNode group = ratings.get("topics").get(0).get("query_groups").get(0);
+        final String headTerm = group.get("queries").get(0).get("placeholders").get("$query").asText();
+        group.get("queries").forEach(query -> assertTrue(query.get("placeholders").get("$query").asText().contains(headTerm)));
+        group.get("relevant_documents").fields().forEachRemaining(judgment -> {
+            assertEquals(0, Integer.parseInt(judgment.getKey()) % 10);
+            assertTrue(judgment.getValue().get("gain").asInt() >= 1 && judgment.getValue().get("gain").asInt() <= 3);
+        });
+    }
+
+    @Test
+    public void generate_writesTheElasticsearchBulkCorpus() throws Exception {
+        final File output = tempFolder.newFolder();
+        new FixtureGenerator(output).platform(FixtureGenerator.Platform.ELASTICSEARCH).indexName("products").docs(20).queries(10).generate();
+
+        final List<String> lines = Files.readAllLines(new File(output, "corpora/products.bulk").toPath());
+        assertEquals(40, lines.size());
+        assertEquals("0", new ObjectMapper().readTree(lines.get(0)).get("index").get("_id").asText());
+        assertNull(new ObjectMapper().readTree(lines.get(1)).get("id"));
+        assertTrue(new File(output, "configuration_sets/v1.1/index-shape.json").exists());
+        assertEquals("_id", new ObjectMapper().readTree(new File(output, "ratings/ratings_0.json")).get("id_field").asText());
+    }
+
+    @Test
+    public void generate_isReproducible() throws Exception {
+        final File first = tempFolder.newFolder();
+        final File second = tempFolder.newFolder();
+        new FixtureGenerator(first).docs(100).queries(100).queriesPerRatingsSet(40).generate();
+        new FixtureGenerator(second).docs(100).queries(100).queriesPerRatingsSet(40).generate();
+
+        for (final String name : new String[]{"corpora/core1.json", "ratings/ratings_0.json", "ratings/ratings_2.json"}) {
+            assertEquals(read(new File(first, name)), read(new File(second, name)));
+        }
+        assertFalse(new File(first, "ratings/ratings_3.json").exists());
+    }
+
+    @Test
+    public void generatedRatingsCanBeEvaluated() throws Exception {
+        final File output = tempFolder.newFolder();
+        new FixtureGenerator(output).docs(100).vocabularySize(20).queries(30).queriesPerRatingsSet(20).generate();
+
+        final Evaluation evaluation = new Engine(
+                new SyntheticSearchPlatform(10, 100),
+                new File(output, "configuration_sets").getAbsolutePath(),
+                null,
+                new File(output, "ratings").getAbsolutePath(),
+                new File(output, "templates").getAbsolutePath(),
+                singletonList("io.sease.rre.core.domain.metrics.impl.Precision"),
+                new String[]{"*", "score"},
+                null,
+                null,
+                null,
+                PersistenceConfiguration.DEFAULT_CONFIG).evaluate(configuration());
+
+        final int queries = evaluation.getChildren().stream()
+                .flatMap(corpus -> corpus.getChildren().stream())
+                .flatMap(topic -> topic.getChildren().stream())
+                .mapToInt(group -> group.getChildren().size())
+                .sum();
+        assertEquals(30, queries);
+    }
+
+    private Map<String, Object> configuration() {
+        final Map<String, Object> configuration = new HashMap<>();
+        configuration.put(Engine.ENGINE_METRICS_FILE, new File(tempFolder.getRoot(), "engine-metrics.json").getAbsolutePath());
+        return configuration;
+    }
+
+    private String read(final File file) throws Exception {
+        return new String(Files.readAllBytes(file.toPath()), "UTF-8");
+    }
+}
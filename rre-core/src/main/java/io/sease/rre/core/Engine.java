@@ -3,13 +3,23 @@ package io.sease.rre.core;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.sease.rre.CorpusUtils;
 import io.sease.rre.Field;
 import io.sease.rre.Func;
+import io.sease.rre.core.benchmark.Benchmark;
+import io.sease.rre.core.benchmark.BenchmarkReport;
+import io.sease.rre.core.benchmark.LoadGenerator;
+import io.sease.rre.core.benchmark.LoadTestReport;
+import io.sease.rre.core.benchmark.QueryProfiler;
+import io.sease.rre.core.benchmark.RenderedQuery;
 import io.sease.rre.core.domain.*;
 import io.sease.rre.core.domain.metrics.Metric;
+import io.sease.rre.core.instrumentation.MetricsRegistry;
 import io.sease.rre.persistence.PersistenceConfiguration;
 import io.sease.rre.persistence.PersistenceHandler;
 import io.sease.rre.persistence.PersistenceManager;
+import io.sease.rre.search.api.CacheStats;
+import io.sease.rre.search.api.IndexStats;
 import io.sease.rre.search.api.QueryOrSearchResponse;
 import io.sease.rre.search.api.SearchPlatform;
 import org.apache.logging.log4j.LogManager;
@@ -18,11 +28,11 @@ import org.apache.logging.log4j.Logger;
 import java.io.*;
 import java.nio.file.Files;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipInputStream;
 
 import static io.sease.rre.Field.*;
 import static io.sease.rre.Func.*;
@@ -43,6 +53,34 @@ import static java.util.stream.Collectors.toList;
 public class Engine {
     private final static Logger LOGGER = LogManager.getLogger(Engine.class);
 
+    /**
+     * The configuration key of the number of queries which are profiled for each version (0 disables profiling).
+     */
+    public static final String PROFILE_QUERIES = "profile.queries";
+
+    /**
+     * The configuration key of the profiled queries selection strategy ("slowest" or "sample").
+     */
+    public static final String PROFILE_STRATEGY = "profile.strategy";
+
+    /**
+     * The configuration key of the file where the engine execution metrics are written.
+     */
+    public static final String ENGINE_METRICS_FILE = "engine.metrics.file";
+
+    /**
+     * The default file where the engine execution metrics are written.
+     */
+    public static final String DEFAULT_ENGINE_METRICS_FILE = "target/rre/engine-metrics.json";
+
+    /**
+     * The configuration key of the folder where the collected hits are appended to a memory-mapped file, instead of
+     * being kept on heap (see {@link MappedHitStore}). If not set, the hits are kept on heap.
+     * The file is deleted once the evaluation has been persisted, so the hits of the returned evaluation can't be read
+     * after that.
+     */
+    public static final String HIT_STORE_FOLDER = "hit.store.folder";
+
     private final File configurationsFolder;
     private final File corporaFolder;
     private final File ratingsFolder;
@@ -63,9 +101,14 @@ public class Engine {
     private List<String> versions;
     private String versionTimestamp = null;
 
+    private final Map<String, String> loadedCorpora = new HashMap<>();
+    private final Map<String, Long> loadTimes = new HashMap<>();
+
     private final PersistenceManager persistenceManager;
     private final PersistenceConfiguration persistenceConfiguration;
 
+    private final MetricsRegistry engineMetrics = new MetricsRegistry();
+
     /**
      * Builds a new {@link Engine} instance with the given data.
      *
@@ -110,7 +153,7 @@ public class Engine {
                         .collect(toList());
 
         this.persistenceConfiguration = persistenceConfiguration;
-        this.persistenceManager = new PersistenceManager();
+        this.persistenceManager = new PersistenceManager(engineMetrics);
         initialisePersistenceManager();
 
         initialiseFileUpdateChecker(checksumFilepath);
@@ -152,32 +195,51 @@ public class Engine {
     /**
      * Executes the evaluation process.
      *
+     * If a hit store has been configured (see {@link #HIT_STORE_FOLDER}), the hits of the returned evaluation are read
+     * from the store, which is closed (and deleted) when the evaluation is closed.
+     *
      * @param configuration the engine configuration.
      * @return the evaluation result.
      */
     @SuppressWarnings("unchecked")
     public Evaluation evaluate(final Map<String, Object> configuration) {
+        final long start = System.nanoTime();
+        engineMetrics.clear();
+        engineMetrics.gauge("heap.used.bytes", () -> Runtime.getRuntime().totalMemory() - Runtime.getRuntime().freeMemory());
+        engineMetrics.gauge("versions", () -> ofNullable(versions).map(List::size).orElse(0));
+        final MappedHitStore hitStore = hitStore(configuration);
+        boolean completed = false;
         try {
             LOGGER.info("RRE: New evaluation session is starting...");
 
-            platform.beforeStart(configuration);
+            loadedCorpora.clear();
+            loadTimes.clear();
+
+            engineMetrics.time("platform.start", () -> platform.beforeStart(configuration));
             persistenceManager.beforeStart();
 
             LOGGER.info("RRE: Search Platform in use: " + platform.getName());
             LOGGER.info("RRE: Starting " + platform.getName() + "...");
 
-            platform.start();
+            engineMetrics.time("platform.start", platform::start);
             persistenceManager.start();
 
             LOGGER.info("RRE: " + platform.getName() + " Search Platform successfully started.");
 
-            platform.afterStart();
+            engineMetrics.time("platform.start", platform::afterStart);
 
             final Evaluation evaluation = new Evaluation();
-            final List<Query> queries = new ArrayList<>();
+            evaluation.setHitStore(hitStore);
+            final QueryProfiler profiler = profiler(configuration);
+
+            // The query phase of a corpus spans all the ratings sets which target it, so its cache statistics are
+            // summarised once, between the snapshot taken on its first ratings set and the end of the query phase.
+            final Map<Corpus, String> corpusIndexes = new LinkedHashMap<>();
+            final Map<Corpus, Map<String, Map<String, Map<String, Number>>>> cacheStatsBefore = new HashMap<>();
 
             ratings().forEach(ratingsNode -> {
                 LOGGER.info("RRE: Ratings Set processing starts");
+                engineMetrics.increment("ratings.sets");
 
                 final String indexName =
                         requireNonNull(
@@ -200,7 +262,13 @@ public class Engine {
                 data.ifPresent(file -> LOGGER.info("RRE: Test Collection => " + file.getAbsolutePath()));
                 prepareData(indexName, data.orElse(null));
 
-                final Corpus corpus = evaluation.findOrCreate(data.map(File::getName).orElse(indexName), Corpus::new);
+                final Corpus corpus = evaluation.findOrCreate(data.map(CorpusUtils::name).orElse(indexName), Corpus::new);
+                final Map<String, Map<String, Map<String, Number>>> corpusCacheStatsBefore = cacheStatsBefore.computeIfAbsent(corpus, c -> new HashMap<>());
+                corpusIndexes.put(corpus, indexName);
+                engineMetrics.time("platform.stats", () -> versions.forEach(version -> {
+                    corpus.setIndexStats(persistVersion(version), indexStats(indexName, version));
+                    corpusCacheStatsBefore.computeIfAbsent(version, v -> cacheStats(indexName, version));
+                }));
                 all(ratingsNode, TOPICS)
                         .forEach(topicNode -> {
                             final Topic topic = corpus.findOrCreate(name(topicNode), Topic::new);
@@ -224,39 +292,192 @@ public class Engine {
                                                     final Query queryEvaluation = group.findOrCreate(queryString, Query::new);
                                                     queryEvaluation.setIdFieldName(idFieldName);
                                                     queryEvaluation.setRelevantDocuments(relevantDocuments);
-
-                                                    queries.add(queryEvaluation);
+                                                    queryEvaluation.setHitStore(hitStore);
 
                                                     queryEvaluation.prepare(availableMetrics(availableMetricsDefs, idFieldName, relevantDocuments, versions));
 
                                                     versions.forEach(version -> {
                                                         final AtomicInteger rank = new AtomicInteger(1);
+                                                        final String searchQuery = engineMetrics.time("query.render", () -> query(queryNode, sharedTemplate, version));
+                                                        final int maxRows = Math.max(10, relevantDocuments.size());
+                                                        final long queryStart = System.nanoTime();
                                                         final QueryOrSearchResponse response =
                                                                 platform.executeQuery(
                                                                         indexFqdn(indexName, version),
-                                                                        query(queryNode, sharedTemplate, version),
+                                                                        searchQuery,
                                                                         fields,
-                                                                        Math.max(10, relevantDocuments.size()));
-                                                        queryEvaluation.setTotalHits(response.totalHits(), persistVersion(version));
-                                                        response.hits().forEach(hit -> queryEvaluation.collect(hit, rank.getAndIncrement(), persistVersion(version)));
+                                                                        maxRows)
+                                                                        .withClientLatency(System.nanoTime() - queryStart);
+                                                        engineMetrics.timer("query.execute").record(response.clientLatencyNanos());
+                                                        final long collectStart = System.nanoTime();
+                                                        if (response.isFailed()) {
+                                                            engineMetrics.increment("queries.failed");
+                                                            LOGGER.warn("RRE: query " + queryEvaluation.getName() + " failed on version " + version + ": " + response.failure());
+                                                            queryEvaluation.setFailed(response.failure(), persistVersion(version));
+                                                        } else {
+                                                            queryEvaluation.setLatency(response.serverLatencyMs(), response.clientLatencyNanos(), persistVersion(version));
+                                                            profiler.add(
+                                                                    queryEvaluation,
+                                                                    persistVersion(version),
+                                                                    new RenderedQuery(version, indexFqdn(indexName, version), searchQuery, fields, maxRows),
+                                                                    response.clientLatencyNanos());
+                                                            queryEvaluation.setTotalHits(response.totalHits(), persistVersion(version));
+                                                            response.hits().forEach(hit -> queryEvaluation.collect(hit, rank.getAndIncrement(), persistVersion(version)));
+                                                            engineMetrics.increment("hits.collected", response.hits().size());
+                                                        }
+                                                        engineMetrics.timer("metrics.collect").record(System.nanoTime() - collectStart);
+                                                        engineMetrics.increment("queries.executed");
                                                     });
 
                                                     // Persist the query result
                                                     persistenceManager.recordQuery(queryEvaluation);
+
+                                                    // Aggregate the query metrics as soon as possible, so they can be released
+                                                    engineMetrics.time("metrics.notify", queryEvaluation::notifyCollectedMetrics);
                                                 });
                                     });
                         });
             });
 
-            queries.forEach(Query::notifyCollectedMetrics);
+            engineMetrics.time("platform.stats", () ->
+                    cacheStatsBefore.forEach((corpus, before) ->
+                            before.forEach((version, snapshot) ->
+                                    corpus.setCacheStats(
+                                            persistVersion(version),
+                                            CacheStats.summary(snapshot, cacheStats(corpusIndexes.get(corpus), version))))));
 
+            engineMetrics.time("query.profile", profiler::run);
+
+            engineMetrics.time("metrics.notify", () -> evaluation.getChildren().forEach(Corpus::notifyPlatformStats));
+
+            completed = true;
             return evaluation;
         } finally {
-            platform.beforeStop();
+            engineMetrics.time("platform.stop", platform::beforeStop);
             persistenceManager.beforeStop();
             LOGGER.info("RRE: " + platform.getName() + " Search Platform shutdown procedure executed.");
             LOGGER.info("RRE: Stopping persistence manager");
             persistenceManager.stop();
+            if (!completed) {
+                ofNullable(hitStore).ifPresent(MappedHitStore::close);
+            }
+
+            engineMetrics.timer("evaluation").record(System.nanoTime() - start);
+            reportMetrics(configuration);
+        }
+    }
+
+    /**
+     * Returns the execution metrics (i.e. the time spent in each phase) of the last evaluation.
+     *
+     * @return the execution metrics of the last evaluation.
+     */
+    public MetricsRegistry getEngineMetrics() {
+        return engineMetrics;
+    }
+
+    /**
+     * Logs the phase breakdown of the evaluation, and writes the execution metrics to the configured file.
+     *
+     * @param configuration the engine configuration.
+     */
+    private void reportMetrics(final Map<String, Object> configuration) {
+        LOGGER.info("RRE: evaluation phases breakdown:" + engineMetrics.breakdown("evaluation"));
+
+        final File file =
+                new File(ofNullable(configuration.get(ENGINE_METRICS_FILE))
+                        .map(String::valueOf)
+                        .orElse(DEFAULT_ENGINE_METRICS_FILE));
+        try {
+            engineMetrics.write(file);
+        } catch (final IOException exception) {
+            LOGGER.error("Unable to write the engine metrics to " + file.getAbsolutePath() + " :: " + exception.getMessage());
+        }
+    }
+
+    /**
+     * Executes a latency benchmark over the ratings queries.
+     * After loading all versions, the queries are executed (without being measured) the given number of warmup
+     * iterations, then the queries of each version are executed the given number of iterations, recording their
+     * latency and the throughput.
+     *
+     * @param configuration    the engine configuration.
+     * @param warmupIterations the number of warmup iterations.
+     * @param iterations       the number of measured iterations.
+     * @return the benchmark report.
+     */
+    public BenchmarkReport benchmark(final Map<String, Object> configuration, final int warmupIterations, final int iterations) {
+        LOGGER.info("RRE: New benchmark session is starting...");
+        return execute(configuration, queries -> new Benchmark(platform, warmupIterations, iterations).run(queries));
+    }
+
+    /**
+     * Executes an open-loop load test over the ratings queries.
+     * After loading all versions, the queries of each version are replayed at the given rate, for the given duration,
+     * measuring the achieved throughput, the error rate and the latency distribution.
+     *
+     * @param configuration   the engine configuration.
+     * @param targetQps       the target rate, in queries per second.
+     * @param concurrency     the maximum number of concurrent queries.
+     * @param durationSeconds the duration of the test for each version, in seconds.
+     * @return the load test report.
+     * @see LoadGenerator
+     */
+    public LoadTestReport loadTest(final Map<String, Object> configuration, final double targetQps, final int concurrency, final int durationSeconds) {
+        LOGGER.info("RRE: New load test session is starting...");
+        return execute(configuration, queries -> new LoadGenerator(platform, targetQps, concurrency, durationSeconds).run(queries));
+    }
+
+    /**
+     * Starts the search platform, loads all versions and executes the given workload (e.g. a benchmark) over the
+     * ratings queries, rendered for each version.
+     *
+     * @param configuration the engine configuration.
+     * @param workload      the workload.
+     * @param <T>           the workload result type.
+     * @return the workload result.
+     */
+    private <T> T execute(final Map<String, Object> configuration, final Function<List<RenderedQuery>, T> workload) {
+        try {
+            loadedCorpora.clear();
+
+            platform.beforeStart(configuration);
+            LOGGER.info("RRE: Starting " + platform.getName() + "...");
+            platform.start();
+            platform.afterStart();
+
+            final List<RenderedQuery> queries = new ArrayList<>();
+            ratings().forEach(ratingsNode -> {
+                final String indexName =
+                        requireNonNull(
+                                ratingsNode.get(INDEX_NAME),
+                                "WARNING!!! \"" + INDEX_NAME + "\" attribute not found!").asText();
+
+                prepareData(indexName, data(ratingsNode).orElse(null));
+
+                all(ratingsNode, TOPICS)
+                        .flatMap(topicNode -> all(topicNode, QUERY_GROUPS))
+                        .forEach(groupNode -> {
+                            final Optional<String> sharedTemplate = ofNullable(groupNode.get("template")).map(JsonNode::asText);
+                            final int maxRows = Math.max(10, relevantDocuments(groupNode.get(RELEVANT_DOCUMENTS)).size());
+                            all(groupNode, QUERIES)
+                                    .forEach(queryNode ->
+                                            versions.forEach(version ->
+                                                    queries.add(
+                                                            new RenderedQuery(
+                                                                    version,
+                                                                    indexFqdn(indexName, version),
+                                                                    query(queryNode, sharedTemplate, version),
+                                                                    fields,
+                                                                    maxRows))));
+                        });
+            });
+
+            LOGGER.info("RRE: " + queries.size() + " queries rendered for versions " + String.join(",", ofNullable(versions).orElse(emptyList())));
+            return workload.apply(queries);
+        } finally {
+            platform.beforeStop();
+            LOGGER.info("RRE: " + platform.getName() + " Search Platform shutdown procedure executed.");
         }
     }
 
@@ -271,8 +492,8 @@ public class Engine {
                                     ratingsNode.get(CORPORA_FILENAME),
                                     "WARNING!!! \"" + CORPORA_FILENAME + "\" attribute not found!").asText());
 
-            if (corporaFile.getName().endsWith(".zip")) {
-                retFile = unzipAndGet(corporaFile);
+            if (CorpusUtils.isCompressed(corporaFile) && !platform.isCompressedCorporaSupported()) {
+                retFile = extractAndGet(corporaFile);
             } else {
                 retFile = corporaFile;
             }
@@ -287,36 +508,34 @@ public class Engine {
         return Optional.ofNullable(retFile);
     }
 
-    private File unzipAndGet(final File corporaFile) {
+    /**
+     * Extracts a compressed corpora file, for those platforms which cannot read it directly.
+     * Extracted files are cached under the system temporary folder, keyed by the archive checksum, so the same
+     * archive is not extracted again on subsequent runs.
+     *
+     * @param corporaFile the compressed corpora file.
+     * @return the extracted corpora file.
+     */
+    private File extractAndGet(final File corporaFile) {
         LOGGER.info("RRE: found a compressed corpora file: " + corporaFile.getAbsolutePath());
 
-        final File outputFolder = new File(System.getProperty("java.io.tmpdir"));
-
-        LOGGER.info("RRE: uncompressing corpora file under: " + outputFolder.getAbsolutePath());
-
-        try (final ZipInputStream zInputStream = new ZipInputStream(new FileInputStream((corporaFile)))) {
-            ZipEntry entry = zInputStream.getNextEntry();
-            while (entry != null) {
-                if (entry.getName().endsWith(".json")) {
-                    LOGGER.info("RRE: found a corpora candidate within the archive: " + entry.getName());
-
-                    final File outputFile = new File(outputFolder, entry.getName());
-                    try (final BufferedOutputStream bos = new BufferedOutputStream(new FileOutputStream(outputFile))) {
-                        final byte[] buffer = new byte[1024];
-                        int read;
-                        while ((read = zInputStream.read(buffer)) != -1) {
-                            bos.write(buffer, 0, read);
-                        }
-                        return outputFile;
-                    }
-                }
+        try {
+            final File outputFolder = CorpusUtils.cacheFolder(corporaFile);
+            final File cachedFile = new File(outputFolder, CorpusUtils.name(corporaFile));
+            if (cachedFile.canRead()) {
+                LOGGER.info("RRE: using the already uncompressed corpora file: " + cachedFile.getAbsolutePath());
+                return cachedFile;
+            }
 
-                zInputStream.closeEntry();
-                entry = zInputStream.getNextEntry();
+            LOGGER.info("RRE: uncompressing corpora file under: " + outputFolder.getAbsolutePath());
+            final long start = System.nanoTime();
+            try {
+                return CorpusUtils.extract(corporaFile, outputFolder);
+            } finally {
+                engineMetrics.timer("corpus.extract").record(System.nanoTime() - start);
             }
-            throw new IllegalArgumentException("Unable to find a valid dataset within the compressed corpora file: " + corporaFile.getAbsolutePath());
         } catch (final IOException exception) {
-            throw new IllegalArgumentException("Unable to read the compressed corpora file: " + corporaFile.getAbsolutePath());
+            throw new IllegalArgumentException("Unable to read the compressed corpora file: " + corporaFile.getAbsolutePath(), exception);
         }
     }
 
@@ -421,6 +640,8 @@ public class Engine {
 
     /**
      * Loads the ratings associated with the given name.
+     * The ratings sets are processed in file name order, so the sequence of loads into the search platform is
+     * predictable.
      *
      * @return the ratings / judgements for this evaluation suite.
      */
@@ -429,10 +650,11 @@ public class Engine {
                 requireNonNull(
                         ratingsFolder.listFiles(ONLY_JSON_FILES),
                         "Unable to find the ratings folder.");
+        Arrays.sort(ratingsFiles);
 
         LOGGER.info("RRE: found " + ratingsFiles.length + " ratings sets.");
 
-        return stream(ratingsFiles).map(Func::toJson);
+        return stream(ratingsFiles).map(file -> engineMetrics.time("ratings.parse", () -> Func.toJson(file)));
     }
 
     /**
@@ -476,8 +698,17 @@ public class Engine {
                 .filter(versionFolder -> (folderHasChanged(versionFolder) || corporaChanged || platform.isRefreshRequired()))
                 .flatMap(versionFolder -> stream(safe(versionFolder.listFiles(ONLY_NON_HIDDEN_FILES))))
                 .filter(file -> platform.isSearchPlatformFile(indexName, file))
+                .filter(file -> isNotLoadedYet(indexFqdn(indexName, file.getParentFile().getName()), data))
                 .peek(file -> LOGGER.info("RRE: Loading the Test Collection into " + platform.getName() + ", configuration version " + file.getParentFile().getName()))
-                .forEach(fileOrFolder -> platform.load(data, fileOrFolder, indexFqdn(indexName, fileOrFolder.getParentFile().getName())));
+                .forEach(fileOrFolder -> {
+                    final String indexFqdn = indexFqdn(indexName, fileOrFolder.getParentFile().getName());
+                    final long start = System.nanoTime();
+                    platform.load(data, fileOrFolder, indexFqdn);
+                    final long elapsed = System.nanoTime() - start;
+                    engineMetrics.timer("platform.load").record(elapsed);
+                    engineMetrics.increment("indexes.loaded");
+                    loadTimes.put(indexFqdn, TimeUnit.NANOSECONDS.toMillis(elapsed));
+                });
 
         LOGGER.info("RRE: " + platform.getName() + " has been correctly loaded.");
 
@@ -500,14 +731,111 @@ public class Engine {
         LOGGER.info("RRE: target versions are " + String.join(",", versions));
     }
 
+    /**
+     * Returns the statistics of the given index version, as provided by the search platform, plus the time it took
+     * to load the index (if it has been loaded within the current evaluation session).
+     *
+     * @param indexName the index name.
+     * @param version   the version.
+     * @return the statistics of the given index version.
+     */
+    private Map<String, Number> indexStats(final String indexName, final String version) {
+        final String indexFqdn = indexFqdn(indexName, version);
+        final Map<String, Number> stats = new LinkedHashMap<>();
+        try {
+            stats.putAll(platform.indexStats(indexFqdn));
+        } catch (final RuntimeException exception) {
+            LOGGER.warn("RRE: unable to collect the statistics of " + indexFqdn + " :: " + exception.getMessage());
+        }
+        ofNullable(loadTimes.get(indexFqdn)).ifPresent(time -> stats.put(IndexStats.LOAD_TIME_MS, time));
+        return stats;
+    }
+
+    /**
+     * Builds the query profiler, according to the given configuration.
+     *
+     * @param configuration the engine configuration.
+     * @return the query profiler.
+     */
+    private QueryProfiler profiler(final Map<String, Object> configuration) {
+        final int queriesPerVersion =
+                ofNullable(configuration.get(PROFILE_QUERIES))
+                        .map(String::valueOf)
+                        .map(Integer::parseInt)
+                        .orElse(0);
+        final QueryProfiler.Strategy strategy =
+                ofNullable(configuration.get(PROFILE_STRATEGY))
+                        .map(value -> QueryProfiler.Strategy.valueOf(String.valueOf(value).trim().toUpperCase()))
+                        .orElse(QueryProfiler.Strategy.SLOWEST);
+        return new QueryProfiler(platform, queriesPerVersion, strategy);
+    }
+
+    /**
+     * Creates the store of the collected hits, if it has been configured.
+     *
+     * @param configuration the engine configuration.
+     * @return the store of the collected hits, null if the hits have to be kept on heap.
+     */
+    private MappedHitStore hitStore(final Map<String, Object> configuration) {
+        return ofNullable(configuration.get(HIT_STORE_FOLDER))
+                .map(String::valueOf)
+                .filter(folder -> !folder.trim().isEmpty())
+                .map(folder -> {
+                    final MappedHitStore store = new MappedHitStore(new File(folder));
+                    LOGGER.info("RRE: collected hits are stored in " + store.getFile().getAbsolutePath());
+                    return store;
+                })
+                .orElse(null);
+    }
+
+    /**
+     * Returns a snapshot of the cache statistics of the given index version, as provided by the search platform.
+     *
+     * @param indexName the index name.
+     * @param version   the version.
+     * @return the cache statistics of the given index version.
+     */
+    private Map<String, Map<String, Number>> cacheStats(final String indexName, final String version) {
+        final String indexFqdn = indexFqdn(indexName, version);
+        try {
+            return platform.cacheStats(indexFqdn);
+        } catch (final RuntimeException exception) {
+            LOGGER.warn("RRE: unable to collect the cache statistics of " + indexFqdn + " :: " + exception.getMessage());
+            return Collections.emptyMap();
+        }
+    }
+
+    /**
+     * Checks whether the given index (and version) currently holds the given corpus, within the current evaluation
+     * session, marking it as holding the corpus if that isn't the case. Several ratings sets can target the same
+     * index: in that case the platform doesn't need to reload the same data again, unless another corpus has been
+     * loaded into the index in the meantime.
+     *
+     * @param indexFqdn the FDQN of the target index (i.e. including the version).
+     * @param data      the dataset, if any.
+     * @return true if the index doesn't hold the given corpus.
+     */
+    private boolean isNotLoadedYet(final String indexFqdn, final File data) {
+        final String corpus = ofNullable(data).map(File::getAbsolutePath).orElse("");
+        if (!corpus.equals(loadedCorpora.put(indexFqdn, corpus))) {
+            return true;
+        }
+
+        LOGGER.info("RRE: " + indexFqdn + " has been already loaded in this session, skipping.");
+        return false;
+    }
+
     private boolean folderHasChanged(File folder) {
         boolean ret = true;
 
         if (fileUpdateChecker != null) {
+            final long start = System.nanoTime();
             try {
                 ret = fileUpdateChecker.directoryHasChanged(folder.getAbsolutePath());
             } catch (IOException e) {
                 LOGGER.warn("Could not check file update status for " + folder + " :: " + e.getMessage());
+            } finally {
+                engineMetrics.timer("checksum").record(System.nanoTime() - start);
             }
         }
 
@@ -516,10 +844,13 @@ public class Engine {
 
     private void flushFileChecksums() {
         if (fileUpdateChecker != null) {
+            final long start = System.nanoTime();
             try {
                 fileUpdateChecker.writeChecksums();
             } catch (IOException e) {
                 LOGGER.error("Could not write file checksums :: " + e.getMessage());
+            } finally {
+                engineMetrics.timer("checksum").record(System.nanoTime() - start);
             }
         }
     }
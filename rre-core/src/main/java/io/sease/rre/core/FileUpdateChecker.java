@@ -5,11 +5,22 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import java.io.*;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
 import java.util.*;
+import java.util.zip.CRC32;
+
+import static java.util.stream.Collectors.toList;
 
 /**
  * Manager class to track updates to configuration files.
+ * <p>
+ * Alongside the directory checksums, a per-file manifest (path, size,
+ * modification time and content digest) is kept in a sibling file, so that
+ * only the files whose metadata changed since the last run need to be read
+ * again. Directory checksums are then derived from the manifest entries.
  *
  * @author Matt Pearce (matt@flax.co.uk)
  */
@@ -17,8 +28,15 @@ public class FileUpdateChecker {
 
     private final static Logger LOGGER = LogManager.getLogger(FileUpdateChecker.class);
 
+    static final String MANIFEST_SUFFIX = ".manifest";
+
+    /* Files larger than this are mapped (and digested) in several regions. */
+    private static final long MAX_MAPPED_REGION_SIZE = 64 * 1024 * 1024;
+
     private final File checksumFile;
+    private final File manifestFile;
     private final Map<String, String> checksums;
+    private final Map<String, FileEntry> manifest;
 
     /**
      * Initialise the class with a checksum file. The checksums are read
@@ -31,7 +49,9 @@ public class FileUpdateChecker {
      */
     public FileUpdateChecker(String checksumFilepath) throws IOException {
         this.checksumFile = new File(checksumFilepath);
+        this.manifestFile = new File(checksumFilepath + MANIFEST_SUFFIX);
         checksums = readChecksums();
+        manifest = readManifest();
     }
 
     /**
@@ -45,7 +65,7 @@ public class FileUpdateChecker {
     public boolean directoryHasChanged(String directoryPath) throws IOException {
         boolean ret = true;
 
-        String dirHash = hashDirectory(directoryPath, true);
+        String dirHash = hashDirectory(directoryPath, true, manifest);
         if (checksums.containsKey(directoryPath)) {
             ret = !checksums.get(directoryPath).equals(dirHash);
         }
@@ -79,8 +99,36 @@ public class FileUpdateChecker {
         return sums;
     }
 
+    private Map<String, FileEntry> readManifest() throws IOException {
+        Map<String, FileEntry> entries = new HashMap<>();
+
+        if (manifestFile.exists()) {
+            try (BufferedReader br = new BufferedReader(new FileReader(manifestFile))) {
+                String line;
+                while ((line = br.readLine()) != null) {
+                    if (!line.trim().isEmpty()) {
+                        // The path goes last, so it may safely contain commas
+                        String[] parts = line.split(",", 4);
+                        if (parts.length != 4) {
+                            LOGGER.warn("Could not read manifest line [" + line + "]");
+                        } else {
+                            try {
+                                entries.put(parts[3], new FileEntry(Long.parseLong(parts[0]), Long.parseLong(parts[1]), parts[2]));
+                            } catch (NumberFormatException e) {
+                                LOGGER.warn("Could not read manifest line [" + line + "]");
+                            }
+                        }
+                    }
+                }
+            }
+        }
+
+        return entries;
+    }
+
     /**
-     * Write the current checksums to the checksum file.
+     * Write the current checksums to the checksum file, and the per-file
+     * digests to the manifest file.
      *
      * @throws IOException if the file cannot be written.
      */
@@ -92,6 +140,11 @@ public class FileUpdateChecker {
                 checksums.forEach((dir, sum) -> pw.println(dir + "," + sum));
                 pw.flush();
             }
+
+            try (PrintWriter pw = new PrintWriter(new BufferedWriter(new FileWriter(manifestFile)))) {
+                manifest.forEach((path, entry) -> pw.println(entry.size + "," + entry.lastModified + "," + entry.digest + "," + path));
+                pw.flush();
+            }
         }
     }
 
@@ -99,8 +152,6 @@ public class FileUpdateChecker {
      * Create a hash for the given directory, including all files and
      * directories contained inside, optionally including or excluding
      * hidden files.
-     * <p>
-     * Code taken from this Stackoverflow answer: https://stackoverflow.com/a/46899517
      *
      * @param directoryPath      the path to the directory to be hashed.
      * @param includeHiddenFiles should hidden files be included?
@@ -110,22 +161,64 @@ public class FileUpdateChecker {
      *                     read.
      */
     static String hashDirectory(String directoryPath, boolean includeHiddenFiles) throws IOException {
+        return hashDirectory(directoryPath, includeHiddenFiles, new HashMap<>());
+    }
+
+    /**
+     * Create a hash for the given directory, using (and updating) the given
+     * manifest. Files whose size and modification time match their manifest
+     * entry are not read; the others are digested in parallel.
+     * <p>
+     * The directory hash is computed over the sorted relative paths, sizes
+     * and digests of its files, so it changes whenever a file is added,
+     * removed, renamed or modified.
+     *
+     * @param directoryPath      the path to the directory to be hashed.
+     * @param includeHiddenFiles should hidden files be included?
+     * @param manifest           the per-file manifest, keyed by absolute path.
+     * @return a string containing the hash of the directory.
+     * @throws IOException if the directory or any of its files cannot be
+     *                     read.
+     */
+    static String hashDirectory(String directoryPath, boolean includeHiddenFiles, Map<String, FileEntry> manifest) throws IOException {
         File directory = new File(directoryPath);
 
         if (!directory.isDirectory()) {
             throw new IllegalArgumentException("Not a directory");
         }
 
-        Vector<FileInputStream> fileStreams = new Vector<>();
-        collectFiles(directory, fileStreams, includeHiddenFiles);
+        List<File> files = new ArrayList<>();
+        collectFiles(directory, files, includeHiddenFiles);
 
-        try (SequenceInputStream sequenceInputStream = new SequenceInputStream(fileStreams.elements())) {
-            return DigestUtils.md5Hex(sequenceInputStream);
+        final List<FileEntry> entries;
+        try {
+            entries = files.parallelStream()
+                    .map(file -> fileEntry(file, manifest.get(file.getAbsolutePath())))
+                    .collect(toList());
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
         }
+
+        // Refresh the manifest, dropping the files which are no longer there
+        final String directoryPrefix = directory.getAbsolutePath() + File.separator;
+        manifest.keySet().removeIf(path -> path.startsWith(directoryPrefix));
+
+        final StringBuilder signature = new StringBuilder();
+        for (int i = 0; i < files.size(); i++) {
+            final File file = files.get(i);
+            final FileEntry entry = entries.get(i);
+            manifest.put(file.getAbsolutePath(), entry);
+            signature.append(file.getAbsolutePath().substring(directoryPrefix.length()))
+                    .append(',').append(entry.size)
+                    .append(',').append(entry.digest)
+                    .append('\n');
+        }
+
+        return DigestUtils.md5Hex(signature.toString());
     }
 
     private static void collectFiles(File directory,
-                                     List<FileInputStream> fileInputStreams,
+                                     List<File> collected,
                                      boolean includeHiddenFiles) throws IOException {
         File[] files = directory.listFiles();
 
@@ -135,12 +228,70 @@ public class FileUpdateChecker {
             for (File file : files) {
                 if (includeHiddenFiles || !Files.isHidden(file.toPath())) {
                     if (file.isDirectory()) {
-                        collectFiles(file, fileInputStreams, includeHiddenFiles);
+                        collectFiles(file, collected, includeHiddenFiles);
                     } else {
-                        fileInputStreams.add(new FileInputStream(file));
+                        collected.add(file);
                     }
                 }
             }
         }
     }
+
+    /**
+     * Returns the manifest entry for the given file, reusing the previous
+     * entry if the file size and modification time have not changed.
+     *
+     * @param file     the file.
+     * @param previous the entry recorded on a previous run, if any.
+     * @return the up-to-date manifest entry for the file.
+     */
+    private static FileEntry fileEntry(File file, FileEntry previous) {
+        final long size = file.length();
+        final long lastModified = file.lastModified();
+        if (previous != null && previous.size == size && previous.lastModified == lastModified) {
+            return previous;
+        }
+
+        try {
+            return new FileEntry(size, lastModified, digest(file));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Computes a (non-cryptographic) digest of the file content, reading it
+     * through memory-mapped regions.
+     *
+     * @param file the file.
+     * @return the hex-encoded digest.
+     * @throws IOException if the file cannot be read.
+     */
+    static String digest(File file) throws IOException {
+        final CRC32 crc = new CRC32();
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            final long size = channel.size();
+            for (long position = 0; position < size; position += MAX_MAPPED_REGION_SIZE) {
+                final MappedByteBuffer region =
+                        channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(MAX_MAPPED_REGION_SIZE, size - position));
+                crc.update(region);
+            }
+        }
+        return Long.toHexString(crc.getValue());
+    }
+
+    /**
+     * A manifest entry: the metadata and content digest of a single file.
+     */
+    static final class FileEntry {
+        final long size;
+        final long lastModified;
+        final String digest;
+
+        FileEntry(long size, long lastModified, String digest) {
+            this.size = size;
+            this.lastModified = lastModified;
+            this.digest = digest;
+        }
+    }
 }
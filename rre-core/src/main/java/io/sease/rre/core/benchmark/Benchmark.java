@@ -0,0 +1,92 @@
+package io.sease.rre.core.benchmark;
+
+import io.sease.rre.search.api.QueryOrSearchResponse;
+import io.sease.rre.search.api.SearchPlatform;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static java.util.stream.Collectors.groupingBy;
+import static java.util.stream.Collectors.toList;
+
+/**
+ * A latency benchmark over the ratings queries.
+ * Single-shot timings are noisy, because caches and JIT are cold: for that reason, the benchmark first executes all
+ * queries (of all versions) a number of times without measuring them, then it executes the queries of each version
+ * a number of times, recording their latency in a histogram.
+ *
+ * @author agazzarini
+ * @since 1.0
+ */
+public class Benchmark {
+    private final static Logger LOGGER = LogManager.getLogger(Benchmark.class);
+
+    private final SearchPlatform platform;
+    private final int warmupIterations;
+    private final int iterations;
+
+    /**
+     * Builds a new benchmark.
+     *
+     * @param platform         the search platform.
+     * @param warmupIterations the number of (not measured) warmup iterations over all queries.
+     * @param iterations       the number of measured iterations over the queries of each version.
+     */
+    public Benchmark(final SearchPlatform platform, final int warmupIterations, final int iterations) {
+        this.platform = platform;
+        this.warmupIterations = Math.max(0, warmupIterations);
+        this.iterations = Math.max(1, iterations);
+    }
+
+    /**
+     * Runs this benchmark over the given queries.
+     *
+     * @param queries the (rendered) queries of all versions.
+     * @return the benchmark report.
+     */
+    public BenchmarkReport run(final List<RenderedQuery> queries) {
+        for (int iteration = 1; iteration <= warmupIterations; iteration++) {
+            LOGGER.info("RRE: benchmark warmup iteration " + iteration + "/" + warmupIterations);
+            queries.forEach(query -> query.execute(platform));
+        }
+
+        final Map<String, List<RenderedQuery>> queriesByVersion =
+                queries.stream().collect(groupingBy(RenderedQuery::getVersion, LinkedHashMap::new, toList()));
+
+        final BenchmarkReport report = new BenchmarkReport(warmupIterations, iterations);
+        queriesByVersion.forEach((version, versionQueries) -> {
+            LOGGER.info("RRE: benchmarking version " + version + " (" + versionQueries.size() + " queries, " + iterations + " iterations)");
+
+            final LatencyHistogram latency = new LatencyHistogram();
+            long failures = 0;
+            final long start = System.nanoTime();
+            for (int iteration = 0; iteration < iterations; iteration++) {
+                for (final RenderedQuery query : versionQueries) {
+                    final long queryStart = System.nanoTime();
+                    final QueryOrSearchResponse response = query.execute(platform);
+                    final long elapsed = System.nanoTime() - queryStart;
+                    if (response.isFailed()) {
+                        failures++;
+                    } else {
+                        latency.record(elapsed);
+                    }
+                }
+            }
+
+            final BenchmarkReport.VersionBenchmark result =
+                    new BenchmarkReport.VersionBenchmark(
+                            versionQueries.size(),
+                            (long) versionQueries.size() * iterations,
+                            failures,
+                            System.nanoTime() - start,
+                            latency);
+            report.add(version, result);
+
+            LOGGER.info("RRE: version " + version + " => " + result.throughput() + " qps, p50 " + latency.getP50() + " ms, p99 " + latency.getP99() + " ms, " + failures + " failures");
+        });
+        return report;
+    }
+}
@@ -0,0 +1,147 @@
+package io.sease.rre.core.benchmark;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The result of a latency benchmark: the latency distribution and the throughput of each version.
+ *
+ * @author agazzarini
+ * @since 1.0
+ */
+public class BenchmarkReport {
+    @JsonProperty("warmup-iterations")
+    private final int warmupIterations;
+
+    @JsonProperty("iterations")
+    private final int iterations;
+
+    @JsonProperty("versions")
+    private final Map<String, VersionBenchmark> versions = new LinkedHashMap<>();
+
+    /**
+     * The benchmark result of a single version.
+     *
+     * @author agazzarini
+     * @since 1.0
+     */
+    public static class VersionBenchmark {
+        @JsonProperty("queries")
+        private final int queries;
+
+        @JsonProperty("executions")
+        private final long executions;
+
+        @JsonProperty("failures")
+        private final long failures;
+
+        @JsonProperty("elapsed-ms")
+        private final long elapsedMs;
+
+        @JsonProperty("latency-ms")
+        private final LatencyHistogram latency;
+
+        /**
+         * Builds a new version benchmark result.
+         *
+         * @param queries      the number of distinct queries.
+         * @param executions   the number of executed queries (i.e. queries * iterations).
+         * @param failures     the number of failed executions.
+         * @param elapsedNanos the overall execution time, in nanoseconds.
+         * @param latency      the latency histogram of the successful executions.
+         */
+        public VersionBenchmark(
+                final int queries,
+                final long executions,
+                final long failures,
+                final long elapsedNanos,
+                final LatencyHistogram latency) {
+            this.queries = queries;
+            this.executions = executions;
+            this.failures = failures;
+            this.elapsedMs = TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+            this.latency = latency;
+        }
+
+        /**
+         * Returns the throughput of this version, in queries per second.
+         *
+         * @return the throughput of this version, in queries per second.
+         */
+        @JsonProperty("throughput-qps")
+        public BigDecimal throughput() {
+            return elapsedMs == 0
+                    ? BigDecimal.ZERO
+                    : BigDecimal.valueOf(executions * 1000).divide(BigDecimal.valueOf(elapsedMs), 2, RoundingMode.HALF_UP);
+        }
+
+        /**
+         * Returns the number of failed executions.
+         *
+         * @return the number of failed executions.
+         */
+        public long failures() {
+            return failures;
+        }
+
+        /**
+         * Returns the latency histogram of the successful executions.
+         *
+         * @return the latency histogram of the successful executions.
+         */
+        public LatencyHistogram latency() {
+            return latency;
+        }
+    }
+
+    /**
+     * Builds a new (empty) benchmark report.
+     *
+     * @param warmupIterations the number of warmup iterations.
+     * @param iterations       the number of measured iterations.
+     */
+    public BenchmarkReport(final int warmupIterations, final int iterations) {
+        this.warmupIterations = warmupIterations;
+        this.iterations = iterations;
+    }
+
+    /**
+     * Adds the benchmark result of the given version.
+     *
+     * @param version the version.
+     * @param result  the benchmark result of the given version.
+     */
+    public void add(final String version, final VersionBenchmark result) {
+        versions.put(version, result);
+    }
+
+    /**
+     * Returns the benchmark results, per version.
+     *
+     * @return the benchmark results, per version.
+     */
+    public Map<String, VersionBenchmark> getVersions() {
+        return versions;
+    }
+
+    /**
+     * Writes out this report, in JSON format.
+     *
+     * @param file the output file.
+     * @throws IOException in case of I/O failure.
+     */
+    public void write(final File file) throws IOException {
+        if (file.getParentFile() != null) {
+            file.getParentFile().mkdirs();
+        }
+        new ObjectMapper().writerWithDefaultPrettyPrinter().writeValue(file, this);
+    }
+}
@@ -0,0 +1,182 @@
+package io.sease.rre.core.benchmark;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.math.BigDecimal;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A latency histogram with a fixed relative precision, in the style of HdrHistogram: values are recorded in
+ * logarithmic buckets (one per power of two), each one divided into linear sub-buckets, so the memory footprint
+ * doesn't depend on the number of samples and each recorded value is accurate within ~1.6%.
+ * Values are recorded with a microsecond resolution, up to one hour; larger values are recorded as one hour.
+ *
+ * @author agazzarini
+ * @since 1.0
+ */
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 6;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final long MAX_VALUE = TimeUnit.HOURS.toMicros(1);
+
+    private final long[] counts = new long[index(MAX_VALUE) + 1];
+    private long count;
+    private long sum;
+    private long min = Long.MAX_VALUE;
+    private long max;
+
+    /**
+     * Records a latency sample.
+     *
+     * @param latencyNanos the latency, in nanoseconds.
+     */
+    public synchronized void record(final long latencyNanos) {
+        final long value = Math.min(MAX_VALUE, Math.max(0, TimeUnit.NANOSECONDS.toMicros(latencyNanos)));
+        counts[index(value)]++;
+        count++;
+        sum += value;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    /**
+     * Returns the number of recorded samples.
+     *
+     * @return the number of recorded samples.
+     */
+    @JsonProperty("count")
+    public synchronized long getCount() {
+        return count;
+    }
+
+    /**
+     * Returns the minimum recorded latency, in milliseconds.
+     *
+     * @return the minimum recorded latency, in milliseconds.
+     */
+    @JsonProperty("min")
+    public synchronized BigDecimal getMin() {
+        return millis(count == 0 ? 0 : min);
+    }
+
+    /**
+     * Returns the maximum recorded latency, in milliseconds.
+     *
+     * @return the maximum recorded latency, in milliseconds.
+     */
+    @JsonProperty("max")
+    public synchronized BigDecimal getMax() {
+        return millis(max);
+    }
+
+    /**
+     * Returns the mean of the recorded latencies, in milliseconds.
+     *
+     * @return the mean of the recorded latencies, in milliseconds.
+     */
+    @JsonProperty("mean")
+    public synchronized BigDecimal getMean() {
+        return millis(count == 0 ? 0 : Math.round((double) sum / count));
+    }
+
+    @JsonProperty("p50")
+    public BigDecimal getP50() {
+        return percentile(50);
+    }
+
+    @JsonProperty("p90")
+    public BigDecimal getP90() {
+        return percentile(90);
+    }
+
+    @JsonProperty("p95")
+    public BigDecimal getP95() {
+        return percentile(95);
+    }
+
+    @JsonProperty("p99")
+    public BigDecimal getP99() {
+        return percentile(99);
+    }
+
+    @JsonProperty("p999")
+    public BigDecimal getP999() {
+        return percentile(99.9);
+    }
+
+    /**
+     * Returns the given percentile of the recorded latencies (nearest rank), in milliseconds.
+     * The returned value is the upper bound of the bucket which contains the percentile, capped to the maximum
+     * recorded value.
+     *
+     * @param percentile the percentile, between 0 and 100.
+     * @return the given percentile of the recorded latencies, in milliseconds.
+     */
+    public synchronized BigDecimal percentile(final double percentile) {
+        if (count == 0) {
+            return millis(0);
+        }
+
+        final long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+        long seen = 0;
+        for (int index = 0; index < counts.length; index++) {
+            seen += counts[index];
+            if (seen >= rank) {
+                return millis(Math.min(max, highestEquivalentValue(index)));
+            }
+        }
+        return millis(max);
+    }
+
+    /**
+     * Returns the latency distribution: the upper bound (in milliseconds) of each non-empty bucket, with the
+     * corresponding number of samples.
+     *
+     * @return the latency distribution.
+     */
+    @JsonProperty("distribution")
+    public synchronized Map<String, Long> getDistribution() {
+        final Map<String, Long> distribution = new LinkedHashMap<>();
+        for (int index = 0; index < counts.length; index++) {
+            if (counts[index] > 0) {
+                distribution.put(millis(highestEquivalentValue(index)).toPlainString(), counts[index]);
+            }
+        }
+        return distribution;
+    }
+
+    /**
+     * Returns the index of the bucket which holds the given value.
+     *
+     * @param value the value, in microseconds.
+     * @return the index of the bucket which holds the given value.
+     */
+    static int index(final long value) {
+        if (value < 2 * SUB_BUCKETS) {
+            return (int) value;
+        }
+        final int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return (shift + 1) * SUB_BUCKETS + (int) (value >> shift) - SUB_BUCKETS;
+    }
+
+    /**
+     * Returns the highest value which falls in the given bucket.
+     *
+     * @param index the bucket index.
+     * @return the highest value which falls in the given bucket, in microseconds.
+     */
+    static long highestEquivalentValue(final int index) {
+        if (index < 2 * SUB_BUCKETS) {
+            return index;
+        }
+        final int shift = index / SUB_BUCKETS - 1;
+        final long subBucket = index % SUB_BUCKETS + SUB_BUCKETS;
+        return ((subBucket + 1) << shift) - 1;
+    }
+
+    private static BigDecimal millis(final long micros) {
+        return BigDecimal.valueOf(micros, 3);
+    }
+}
@@ -0,0 +1,146 @@
+package io.sease.rre.core.benchmark;
+
+import io.sease.rre.search.api.SearchPlatform;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import static java.util.stream.Collectors.groupingBy;
+import static java.util.stream.Collectors.toList;
+
+/**
+ * An open-loop load generator, which replays the ratings queries against each version at a target rate.
+ * Each request has an intended start time, determined by the target rate and independent of the previous responses;
+ * the latency of a request is measured from its intended start time, so a platform which isn't able to sustain the
+ * target rate (or a saturated pool of workers) is not hidden by the load generator slowing down (i.e. the timings
+ * are not affected by coordinated omission). The service time (i.e. measured from the actual start time) is
+ * recorded as well.
+ *
+ * @author agazzarini
+ * @since 1.0
+ */
+public class LoadGenerator {
+    private final static Logger LOGGER = LogManager.getLogger(LoadGenerator.class);
+
+    private final SearchPlatform platform;
+    private final double targetQps;
+    private final int concurrency;
+    private final int durationSeconds;
+
+    /**
+     * Builds a new load generator.
+     *
+     * @param platform        the search platform.
+     * @param targetQps       the target rate, in queries per second.
+     * @param concurrency     the maximum number of concurrent queries.
+     * @param durationSeconds the duration of the test for each version, in seconds.
+     */
+    public LoadGenerator(final SearchPlatform platform, final double targetQps, final int concurrency, final int durationSeconds) {
+        if (targetQps <= 0 || concurrency <= 0 || durationSeconds <= 0) {
+            throw new IllegalArgumentException("Target QPS, concurrency and duration must be positive.");
+        }
+        this.platform = platform;
+        this.targetQps = targetQps;
+        this.concurrency = concurrency;
+        this.durationSeconds = durationSeconds;
+    }
+
+    /**
+     * Runs the load test over the given queries, one version at a time.
+     *
+     * @param queries the (rendered) queries of all versions.
+     * @return the load test report.
+     */
+    public LoadTestReport run(final List<RenderedQuery> queries) {
+        final Map<String, List<RenderedQuery>> queriesByVersion =
+                queries.stream().collect(groupingBy(RenderedQuery::getVersion, LinkedHashMap::new, toList()));
+
+        final LoadTestReport report = new LoadTestReport(targetQps, concurrency, durationSeconds);
+        final ExecutorService workers = Executors.newFixedThreadPool(concurrency);
+        try {
+            queriesByVersion.forEach((version, versionQueries) -> {
+                LOGGER.info("RRE: load test on version " + version + " (" + targetQps + " qps, " + concurrency + " concurrent queries, " + durationSeconds + " seconds)");
+
+                final LoadTestReport.VersionLoadTest result = run(workers, versionQueries);
+                report.add(version, result);
+
+                LOGGER.info("RRE: version " + version + " => " + result.throughput() + " qps, p50 " + result.latency().getP50() + " ms, p99 " + result.latency().getP99() + " ms, " + result.errors() + " errors");
+            });
+        } finally {
+            workers.shutdownNow();
+        }
+        return report;
+    }
+
+    /**
+     * Runs the load test over the queries of a single version.
+     *
+     * @param workers the workers pool.
+     * @param queries the queries of the version.
+     * @return the load test result of the version.
+     */
+    private LoadTestReport.VersionLoadTest run(final ExecutorService workers, final List<RenderedQuery> queries) {
+        final long requests = Math.max(1, Math.round(targetQps * durationSeconds));
+        final double intervalNanos = TimeUnit.SECONDS.toNanos(1) / targetQps;
+
+        final LatencyHistogram latency = new LatencyHistogram();
+        final LatencyHistogram serviceTime = new LatencyHistogram();
+        final AtomicLong next = new AtomicLong();
+        final AtomicLong errors = new AtomicLong();
+        final AtomicLong end = new AtomicLong();
+
+        final long start = System.nanoTime();
+        final List<Future<?>> futures = new ArrayList<>(concurrency);
+        for (int worker = 0; worker < concurrency; worker++) {
+            futures.add(workers.submit(() -> {
+                for (long request = next.getAndIncrement(); request < requests; request = next.getAndIncrement()) {
+                    final long intendedStart = start + (long) (request * intervalNanos);
+                    for (long wait = intendedStart - System.nanoTime(); wait > 0; wait = intendedStart - System.nanoTime()) {
+                        LockSupport.parkNanos(wait);
+                    }
+
+                    final long actualStart = System.nanoTime();
+                    boolean failed;
+                    try {
+                        failed = queries.get((int) (request % queries.size())).execute(platform).isFailed();
+                    } catch (final RuntimeException exception) {
+                        failed = true;
+                    }
+                    final long completion = System.nanoTime();
+
+                    if (failed) {
+                        errors.incrementAndGet();
+                    } else {
+                        latency.record(completion - intendedStart);
+                        serviceTime.record(completion - actualStart);
+                    }
+                    end.accumulateAndGet(completion, Math::max);
+                }
+            }));
+        }
+
+        for (final Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (final InterruptedException exception) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException(exception);
+            } catch (final ExecutionException exception) {
+                throw new RuntimeException(exception.getCause());
+            }
+        }
+
+        return new LoadTestReport.VersionLoadTest(requests, errors.get(), end.get() - start, latency, serviceTime);
+    }
+}
@@ -0,0 +1,173 @@
+package io.sease.rre.core.benchmark;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The result of a load test: the achieved throughput, the error rate and the latency distribution of each version.
+ *
+ * @author agazzarini
+ * @since 1.0
+ */
+public class LoadTestReport {
+    @JsonProperty("target-qps")
+    private final double targetQps;
+
+    @JsonProperty("concurrency")
+    private final int concurrency;
+
+    @JsonProperty("duration-seconds")
+    private final int durationSeconds;
+
+    @JsonProperty("versions")
+    private final Map<String, VersionLoadTest> versions = new LinkedHashMap<>();
+
+    /**
+     * The load test result of a single version.
+     *
+     * @author agazzarini
+     * @since 1.0
+     */
+    public static class VersionLoadTest {
+        @JsonProperty("requests")
+        private final long requests;
+
+        @JsonProperty("errors")
+        private final long errors;
+
+        @JsonProperty("elapsed-ms")
+        private final long elapsedMs;
+
+        @JsonProperty("latency-ms")
+        private final LatencyHistogram latency;
+
+        @JsonProperty("service-time-ms")
+        private final LatencyHistogram serviceTime;
+
+        /**
+         * Builds a new version load test result.
+         *
+         * @param requests     the number of sent requests.
+         * @param errors       the number of failed requests.
+         * @param elapsedNanos the overall execution time, in nanoseconds.
+         * @param latency      the latency histogram (i.e. measured from the intended start time) of the successful requests.
+         * @param serviceTime  the service time histogram (i.e. measured from the actual start time) of the successful requests.
+         */
+        public VersionLoadTest(
+                final long requests,
+                final long errors,
+                final long elapsedNanos,
+                final LatencyHistogram latency,
+                final LatencyHistogram serviceTime) {
+            this.requests = requests;
+            this.errors = errors;
+            this.elapsedMs = TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+            this.latency = latency;
+            this.serviceTime = serviceTime;
+        }
+
+        /**
+         * Returns the achieved throughput, in (successful) queries per second.
+         *
+         * @return the achieved throughput, in queries per second.
+         */
+        @JsonProperty("achieved-qps")
+        public BigDecimal throughput() {
+            return elapsedMs == 0
+                    ? BigDecimal.ZERO
+                    : BigDecimal.valueOf((requests - errors) * 1000).divide(BigDecimal.valueOf(elapsedMs), 2, RoundingMode.HALF_UP);
+        }
+
+        /**
+         * Returns the error rate, i.e. the ratio between the failed and the sent requests.
+         *
+         * @return the error rate.
+         */
+        @JsonProperty("error-rate")
+        public BigDecimal errorRate() {
+            return requests == 0
+                    ? BigDecimal.ZERO
+                    : BigDecimal.valueOf(errors).divide(BigDecimal.valueOf(requests), 4, RoundingMode.HALF_UP);
+        }
+
+        /**
+         * Returns the number of failed requests.
+         *
+         * @return the number of failed requests.
+         */
+        public long errors() {
+            return errors;
+        }
+
+        /**
+         * Returns the latency histogram (i.e. measured from the intended start time) of the successful requests.
+         *
+         * @return the latency histogram of the successful requests.
+         */
+        public LatencyHistogram latency() {
+            return latency;
+        }
+
+        /**
+         * Returns the service time histogram (i.e. measured from the actual start time) of the successful requests.
+         *
+         * @return the service time histogram of the successful requests.
+         */
+        public LatencyHistogram serviceTime() {
+            return serviceTime;
+        }
+    }
+
+    /**
+     * Builds a new (empty) load test report.
+     *
+     * @param targetQps       the target rate, in queries per second.
+     * @param concurrency     the maximum number of concurrent queries.
+     * @param durationSeconds the duration of the test for each version, in seconds.
+     */
+    public LoadTestReport(final double targetQps, final int concurrency, final int durationSeconds) {
+        this.targetQps = targetQps;
+        this.concurrency = concurrency;
+        this.durationSeconds = durationSeconds;
+    }
+
+    /**
+     * Adds the load test result of the given version.
+     *
+     * @param version the version.
+     * @param result  the load test result of the given version.
+     */
+    public void add(final String version, final VersionLoadTest result) {
+        versions.put(version, result);
+    }
+
+    /**
+     * Returns the load test results, per version.
+     *
+     * @return the load test results, per version.
+     */
+    public Map<String, VersionLoadTest> getVersions() {
+        return versions;
+    }
+
+    /**
+     * Writes out this report, in JSON format.
+     *
+     * @param file the output file.
+     * @throws IOException in case of I/O failure.
+     */
+    public void write(final File file) throws IOException {
+        if (file.getParentFile() != null) {
+            file.getParentFile().mkdirs();
+        }
+        new ObjectMapper().writerWithDefaultPrettyPrinter().writeValue(file, this);
+    }
+}
@@ -0,0 +1,132 @@
+package io.sease.rre.core.benchmark;
+
+import io.sease.rre.core.domain.Query;
+import io.sease.rre.search.api.SearchPlatform;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static java.util.stream.Collectors.groupingBy;
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Profiles a sample of the evaluated queries of each version, through the platform profiling facilities (e.g.
+ * Elasticsearch profile API, Solr debug=timing), and stores the per-component timing breakdown in the query
+ * results, so the heaviest components and clauses of a slow version are visible in the evaluation output.
+ * The profiled queries are either the slowest ones (by client latency) or a random (but reproducible) sample.
+ *
+ * @author agazzarini
+ * @since 1.0
+ */
+public class QueryProfiler {
+    private final static Logger LOGGER = LogManager.getLogger(QueryProfiler.class);
+
+    /**
+     * How the profiled queries are selected.
+     */
+    public enum Strategy {
+        SLOWEST, SAMPLE
+    }
+
+    /**
+     * An executed query, candidate for profiling.
+     */
+    private static class Candidate {
+        private final Query query;
+        private final String persistVersion;
+        private final RenderedQuery renderedQuery;
+        private final long latencyNanos;
+
+        private Candidate(final Query query, final String persistVersion, final RenderedQuery renderedQuery, final long latencyNanos) {
+            this.query = query;
+            this.persistVersion = persistVersion;
+            this.renderedQuery = renderedQuery;
+            this.latencyNanos = latencyNanos;
+        }
+    }
+
+    private final SearchPlatform platform;
+    private final int queriesPerVersion;
+    private final Strategy strategy;
+    private final List<Candidate> candidates = new ArrayList<>();
+
+    /**
+     * Builds a new query profiler.
+     *
+     * @param platform          the search platform.
+     * @param queriesPerVersion the number of queries which will be profiled for each version (0 disables profiling).
+     * @param strategy          how the profiled queries are selected.
+     */
+    public QueryProfiler(final SearchPlatform platform, final int queriesPerVersion, final Strategy strategy) {
+        this.platform = platform;
+        this.queriesPerVersion = Math.max(0, queriesPerVersion);
+        this.strategy = strategy;
+    }
+
+    /**
+     * Returns true if this profiler has been configured for profiling at least one query per version.
+     *
+     * @return true if this profiler is enabled.
+     */
+    public boolean isEnabled() {
+        return queriesPerVersion > 0;
+    }
+
+    /**
+     * Adds an executed query to the profiling candidates.
+     *
+     * @param query          the query evaluation.
+     * @param persistVersion the version, as it is persisted in the query results.
+     * @param renderedQuery  the query, rendered for the version.
+     * @param latencyNanos   the (client) execution time of the query, in nanoseconds.
+     */
+    public void add(final Query query, final String persistVersion, final RenderedQuery renderedQuery, final long latencyNanos) {
+        if (isEnabled()) {
+            candidates.add(new Candidate(query, persistVersion, renderedQuery, latencyNanos));
+        }
+    }
+
+    /**
+     * Profiles the selected queries of each version, storing the timing breakdown in their results.
+     */
+    public void run() {
+        final Map<String, List<Candidate>> candidatesByVersion =
+                candidates.stream().collect(groupingBy(candidate -> candidate.renderedQuery.getVersion(), LinkedHashMap::new, toList()));
+
+        candidatesByVersion.forEach((version, versionCandidates) -> {
+            final List<Candidate> selected = select(versionCandidates);
+            LOGGER.info("RRE: profiling " + selected.size() + " queries on version " + version);
+
+            selected.forEach(candidate -> {
+                final Map<String, Number> profile = candidate.renderedQuery.profile(platform);
+                if (!profile.isEmpty()) {
+                    candidate.query.setProfile(profile, candidate.persistVersion);
+                }
+            });
+        });
+        candidates.clear();
+    }
+
+    /**
+     * Selects the queries which will be profiled, among the given candidates of a version.
+     *
+     * @param versionCandidates the candidates of a version.
+     * @return the selected candidates.
+     */
+    private List<Candidate> select(final List<Candidate> versionCandidates) {
+        final List<Candidate> sorted = new ArrayList<>(versionCandidates);
+        if (strategy == Strategy.SLOWEST) {
+            sorted.sort(Comparator.comparingLong((Candidate candidate) -> candidate.latencyNanos).reversed());
+        } else {
+            Collections.shuffle(sorted, new Random(versionCandidates.size()));
+        }
+        return sorted.subList(0, Math.min(queriesPerVersion, sorted.size()));
+    }
+}
@@ -0,0 +1,85 @@
+package io.sease.rre.core.benchmark;
+
+import io.sease.rre.search.api.QueryOrSearchResponse;
+import io.sease.rre.search.api.SearchPlatform;
+
+import java.util.Map;
+
+/**
+ * A ratings query, rendered through its template for a given version, ready to be executed against the
+ * corresponding target index.
+ *
+ * @author agazzarini
+ * @since 1.0
+ */
+public class RenderedQuery {
+    private final String version;
+    private final String indexName;
+    private final String query;
+    private final String[] fields;
+    private final int maxRows;
+
+    /**
+     * Builds a new rendered query.
+     *
+     * @param version   the configuration version.
+     * @param indexName the FQDN of the target index (i.e. including the version).
+     * @param query     the query, as it results from the template rendering.
+     * @param fields    the fields to retrieve with each result.
+     * @param maxRows   the maximum number of results.
+     */
+    public RenderedQuery(final String version, final String indexName, final String query, final String[] fields, final int maxRows) {
+        this.version = version;
+        this.indexName = indexName;
+        this.query = query;
+        this.fields = fields;
+        this.maxRows = maxRows;
+    }
+
+    /**
+     * Executes this query against the given search platform.
+     *
+     * @param platform the search platform.
+     * @return the query response.
+     */
+    public QueryOrSearchResponse execute(final SearchPlatform platform) {
+        return platform.executeQuery(indexName, query, fields, maxRows);
+    }
+
+    /**
+     * Executes this query against the given search platform, with the platform profiling enabled.
+     *
+     * @param platform the search platform.
+     * @return the execution time of each component or query clause, in milliseconds.
+     */
+    public Map<String, Number> profile(final SearchPlatform platform) {
+        return platform.profile(indexName, query, fields, maxRows);
+    }
+
+    /**
+     * Returns the configuration version of this query.
+     *
+     * @return the configuration version of this query.
+     */
+    public String getVersion() {
+        return version;
+    }
+
+    /**
+     * Returns the FQDN of the target index.
+     *
+     * @return the FQDN of the target index.
+     */
+    public String getIndexName() {
+        return indexName;
+    }
+
+    /**
+     * Returns the rendered query.
+     *
+     * @return the rendered query.
+     */
+    public String getQuery() {
+        return query;
+    }
+}
@@ -2,7 +2,10 @@ package io.sease.rre.core.domain;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
 
+import java.math.BigDecimal;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Object representation of the documents which compose the test collection.
@@ -11,8 +14,42 @@ import java.util.List;
  * @since 1.0
  */
 public class Corpus extends DomainMember<Topic> {
+    private final Map<String, Map<String, Number>> platformStats = new LinkedHashMap<>();
+
     @JsonProperty("topics")
     public List<Topic> getChildren() {
         return super.getChildren();
     }
+
+    /**
+     * Sets the statistics of the index which holds this corpus, for the given version.
+     *
+     * @param version the version.
+     * @param stats   the index statistics.
+     */
+    public void setIndexStats(final String version, final Map<String, Number> stats) {
+        platformStats.computeIfAbsent(version, v -> new LinkedHashMap<>()).putAll(stats);
+    }
+
+    /**
+     * Sets the cache statistics (i.e. the activity of the caches during the query phase of all the ratings sets which
+     * target this corpus) of the index which holds this corpus, for the given version.
+     *
+     * @param version the version.
+     * @param stats   the cache statistics summary.
+     */
+    public void setCacheStats(final String version, final Map<String, Number> stats) {
+        platformStats.computeIfAbsent(version, v -> new LinkedHashMap<>()).putAll(stats);
+    }
+
+    /**
+     * Adds the index and cache statistics to the metrics of this corpus, as version-level metrics.
+     * The statistics are added once the query metrics have been collected, so they follow the relevance metrics
+     * in the evaluation output.
+     */
+    public void notifyPlatformStats() {
+        platformStats.forEach((version, stats) ->
+                stats.forEach((name, value) -> metric(name).collect(version, new BigDecimal(value.toString()))));
+        platformStats.clear();
+    }
 }
@@ -1,9 +1,15 @@
 package io.sease.rre.core.domain;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import io.sease.rre.core.domain.metrics.LatencyLog;
+import io.sease.rre.core.domain.metrics.LatencySamples;
+import io.sease.rre.core.domain.metrics.LatencyStatistics;
 import io.sease.rre.core.domain.metrics.Metric;
+import io.sease.rre.core.domain.metrics.MetricsStore;
 import io.sease.rre.core.domain.metrics.impl.AveragedMetric;
+import io.sease.rre.core.domain.metrics.impl.LatencyMetric;
 
 import java.math.BigDecimal;
 import java.util.*;
@@ -19,13 +25,22 @@ import static java.util.Optional.ofNullable;
  * @since 1.0
  */
 public abstract class DomainMember<C extends DomainMember> {
-    @JsonProperty("metrics")
     protected final Map<String, Metric> metrics = new LinkedHashMap<>();
+    @JsonProperty("failed-queries")
+    @JsonInclude(JsonInclude.Include.NON_EMPTY)
+    protected final Map<String, Integer> failedQueries = new LinkedHashMap<>();
     private final Map<String, C> childrenLookupCache = new HashMap<>();
     private final List<C> children = new ArrayList<>();
 
     private String name;
     private DomainMember parent;
+    private boolean metricsNotified;
+
+    private MetricsStore store;
+    private int row = -1;
+    private LatencyLog latencyLog;
+    private LatencySamples latency;
+    private LatencyLog.Ranges descendantsLatency;
 
     /**
      * Adds the given child to this entity.
@@ -90,15 +105,28 @@ public abstract class DomainMember<C extends DomainMember> {
     }
 
     /**
-     * Collects a leaf metric data (which has been just computed).
+     * Returns the {@link MetricsStore} which holds the metric values of the whole tree this entity belongs to.
+     * The store is owned by the root entity (e.g. the evaluation) and it is created on demand.
+     *
+     * @return the {@link MetricsStore} which holds the metric values of this entity.
+     */
+    private MetricsStore store() {
+        if (store == null) {
+            store = parent != null ? parent.store() : new MetricsStore();
+        }
+        return store;
+    }
+
+    /**
+     * Returns the row of this entity in the {@link MetricsStore}, which is allocated on demand.
      *
-     * @param version the version associated with the metric.
-     * @param value   the metric value.
-     * @param name    the metric name.
+     * @return the row of this entity in the {@link MetricsStore}.
      */
-    private void collectLeafMetric(final String version, final BigDecimal value, final String name) {
-        metric(name).collect(version, value);
-        ofNullable(parent).ifPresent(p -> p.collectLeafMetric(version, value, name));
+    private int row() {
+        if (row < 0) {
+            row = store().addRow(parent != null ? parent.row() : -1);
+        }
+        return row;
     }
 
     /**
@@ -107,23 +135,172 @@ public abstract class DomainMember<C extends DomainMember> {
      * @param name the metric name.
      * @return the {@link AveragedMetric} instance associated with the given name.
      */
-    private AveragedMetric metric(final String name) {
+    protected AveragedMetric metric(final String name) {
         return (AveragedMetric) metrics.computeIfAbsent(name, k -> new AveragedMetric(name));
     }
 
+    /**
+     * Collects a latency sample on this entity, which is propagated to the ancestors on the next notification.
+     *
+     * @param version the version associated with the sample.
+     * @param nanos   the query execution time, in nanoseconds.
+     */
+    protected void collectLatency(final String version, final long nanos) {
+        latency().collect(version, nanos);
+    }
+
+    /**
+     * Returns the latency samples collected by this entity, which are created on demand.
+     *
+     * @return the latency samples collected by this entity.
+     */
+    private LatencySamples latency() {
+        if (latency == null) {
+            latency = new LatencySamples();
+        }
+        return latency;
+    }
+
+    /**
+     * Returns the {@link LatencyLog} which holds the latency samples of the whole tree this entity belongs to.
+     * The log is owned by the root entity (e.g. the evaluation) and it is created on demand.
+     *
+     * @return the {@link LatencyLog} which holds the latency samples of the whole tree.
+     */
+    private LatencyLog latencyLog() {
+        if (latencyLog == null) {
+            latencyLog = parent != null ? parent.latencyLog() : new LatencyLog();
+        }
+        return latencyLog;
+    }
+
+    /**
+     * Records a query failure (i.e. a query which couldn't be executed) for the given version.
+     * The failure is counted on this entity and on all its ancestors.
+     *
+     * @param version the version associated with the failure.
+     */
+    protected void collectFailure(final String version) {
+        failedQueries.merge(version, 1, Integer::sum);
+        ofNullable(parent).ifPresent(p -> p.collectFailure(version));
+    }
+
+    /**
+     * Returns true if the metrics of the given version are not meaningful (e.g. the query failed) and therefore
+     * they don't have to be propagated to the parent.
+     *
+     * @param version the version.
+     * @return true if the metrics of the given version don't have to be propagated to the parent.
+     */
+    protected boolean isFailed(final String version) {
+        return false;
+    }
+
+    /**
+     * Propagates the metrics of this entity to its ancestors.
+     * The propagation happens only once, even if several components (e.g. the engine and the persistence handlers)
+     * notify the collected metrics, so the samples collected by the ancestors are never duplicated.
+     * Once notified, the values of the metrics are moved into the {@link MetricsStore}, so the metric instances
+     * (and the state they need for computing their values) can be released. Latency samples are appended to the
+     * {@link LatencyLog} instead, because the percentiles need all of them: each ancestor refers to the range of the
+     * log which holds them.
+     */
     public void notifyCollectedMetrics() {
-        metrics.values().stream()
-                .flatMap(metric -> metric.getVersions().entrySet().stream())
-                .forEach(entry ->
-                        ofNullable(parent)
-                                .ifPresent(p -> p.collectLeafMetric(
-                                        entry.getKey(),
-                                        entry.getValue().value(),
-                                        entry.getValue().owner().getName())));
+        if (metricsNotified) {
+            return;
+        }
+        metricsNotified = true;
+
+        if (latency != null && parent != null) {
+            final LatencyLog log = latencyLog();
+            latency.versions().stream()
+                    .filter(version -> !isFailed(version))
+                    .forEach(version -> {
+                        final int from = log.size(version);
+                        latency.forEach(version, nanos -> log.append(version, nanos));
+                        parent.addLatency(version, from, log.size(version));
+                    });
+        }
+
+        final Iterator<Metric> iterator = metrics.values().iterator();
+        while (iterator.hasNext()) {
+            final Metric metric = iterator.next();
+            metric.getVersions().forEach((version, valueFactory) -> {
+                final BigDecimal value = valueFactory.value();
+                store().set(row(), metric.getName(), version, value);
+                if (parent != null && !isFailed(version)) {
+                    store().collect(parent.row(), metric.getName(), version, value);
+                }
+            });
+            iterator.remove();
+        }
+    }
+
+    /**
+     * Adds the latency samples of a descendant, held by the given range of the {@link LatencyLog}, to this entity and
+     * to all its ancestors.
+     *
+     * @param version the version.
+     * @param from    the position of the first sample in the log (inclusive).
+     * @param to      the position of the last sample in the log (exclusive).
+     */
+    private void addLatency(final String version, final int from, final int to) {
+        if (descendantsLatency == null) {
+            descendantsLatency = latencyLog().ranges();
+        }
+        descendantsLatency.add(version, from, to);
+        ofNullable(parent).ifPresent(p -> p.addLatency(version, from, to));
+    }
+
+    /**
+     * Starts a new collection of the metrics of this entity (e.g. a query which is evaluated again), which will be
+     * propagated to the ancestors on the next notification.
+     * If the metrics have already been notified, the state still owned by this entity (e.g. the latency samples, which
+     * have already been propagated) is discarded as well.
+     */
+    protected void resetCollectedMetrics() {
+        if (metricsNotified) {
+            metrics.clear();
+            latency = null;
+            metricsNotified = false;
+        }
     }
 
+    /**
+     * Returns the metrics of this entity: the values held by the {@link MetricsStore} first, followed by the
+     * latency metrics and by the metric instances owned by this entity (e.g. index statistics).
+     * Note that the returned map is a snapshot: changes to it are not reflected on this entity (see
+     * {@link #addMetric(Metric)}).
+     *
+     * @return the metrics of this entity, by name.
+     */
+    @JsonProperty("metrics")
     public Map<String, Metric> getMetrics() {
-        return metrics;
+        final Map<String, Metric> result = row < 0 ? new LinkedHashMap<>() : store.metrics(row);
+        final LatencyStatistics latencyStatistics = latency != null ? latency : descendantsLatency;
+        ofNullable(latencyStatistics).ifPresent(samples ->
+                LatencyMetric.latencyMetrics(samples).forEach(metric -> result.put(metric.getName(), metric)));
+        result.putAll(metrics);
+        return result;
+    }
+
+    /**
+     * Adds the given metric to this entity.
+     *
+     * @param metric the metric.
+     */
+    public void addMetric(final Metric metric) {
+        metrics.put(metric.getName(), metric);
+    }
+
+    /**
+     * Returns the number of failed queries, per version.
+     *
+     * @return the number of failed queries, per version.
+     */
+    @JsonIgnore
+    public Map<String, Integer> getFailedQueries() {
+        return failedQueries;
     }
 
     @JsonIgnore
@@ -7,13 +7,19 @@ import java.util.Date;
 import java.util.List;
 import java.util.Locale;
 
+import static java.util.Optional.ofNullable;
+
 /**
  * The evaluation result.
+ * If the collected hits have been appended to a {@link MappedHitStore}, the evaluation owns the store: it must be
+ * closed once it has been consumed (e.g. written out), and its hits can no longer be read after that.
  *
  * @author agazzarini
  * @since 1.0
  */
-public class Evaluation extends DomainMember<Corpus> {
+public class Evaluation extends DomainMember<Corpus> implements AutoCloseable {
+    private MappedHitStore hitStore;
+
     @JsonProperty("corpora")
     public List<Corpus> getChildren() {
         return super.getChildren();
@@ -25,4 +31,21 @@ public class Evaluation extends DomainMember<Corpus> {
     public Evaluation() {
         setName("Ranking Evaluation Report - created on " + DateFormat.getDateInstance(DateFormat.FULL, Locale.ENGLISH).format(new Date()));
     }
+
+    /**
+     * Sets the store where the hits of this evaluation have been appended. The store is closed with this evaluation.
+     *
+     * @param hitStore the hits store, null if the hits are kept on heap.
+     */
+    public void setHitStore(final MappedHitStore hitStore) {
+        this.hitStore = hitStore;
+    }
+
+    /**
+     * Closes the store of the collected hits, if any.
+     */
+    @Override
+    public void close() {
+        ofNullable(hitStore).ifPresent(MappedHitStore::close);
+    }
 }
\ No newline at end of file
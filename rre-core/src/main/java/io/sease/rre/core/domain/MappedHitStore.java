@@ -0,0 +1,221 @@
+package io.sease.rre.core.domain;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An append-only store of search hits, backed by a memory-mapped file, so the hits collected during a (large)
+ * evaluation don't live on the heap: the {@link MutableQueryOrSearchResponse} instances only keep the offsets of their
+ * hits, which are decoded again (e.g. by the persistence handlers) when they are read.
+ * <p>
+ * Each hit is stored as a record made up of its rank, its gain (-1 if the hit is not relevant) and its (display) fields,
+ * encoded as JSON. The relevance markers added by the {@link Query} ("_isRelevant" and "_gain") are not encoded: they
+ * are rebuilt from the gain when the hit is read.
+ * The file is mapped in fixed-size segments; a record never spans two segments.
+ * <p>
+ * The store is not thread-safe and its file is deleted when the store is closed (or when the JVM exits, if the store
+ * is never closed): hits can no longer be read after that.
+ *
+ * @author agazzarini
+ * @since 1.0
+ */
+public class MappedHitStore implements AutoCloseable {
+    public final static int DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+
+    private final static String IS_RELEVANT = "_isRelevant";
+    private final static String GAIN = "_gain";
+    private final static int HEADER_SIZE = 3 * Integer.BYTES;
+    private final static TypeReference<LinkedHashMap<String, Object>> HIT_TYPE = new TypeReference<LinkedHashMap<String, Object>>() {};
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final List<MappedByteBuffer> segments = new ArrayList<>();
+    private final int segmentSize;
+    private final File file;
+    private final FileChannel channel;
+
+    private MappedByteBuffer current;
+    private boolean closed;
+
+    /**
+     * Builds a new store, whose file is created in the given folder.
+     *
+     * @param folder the folder where the hits file is created.
+     */
+    public MappedHitStore(final File folder) {
+        this(folder, DEFAULT_SEGMENT_SIZE);
+    }
+
+    /**
+     * Builds a new store, whose file is created in the given folder and mapped in segments of the given size.
+     *
+     * @param folder      the folder where the hits file is created.
+     * @param segmentSize the size of each mapped segment, in bytes (i.e. the maximum size of an encoded hit).
+     */
+    public MappedHitStore(final File folder, final int segmentSize) {
+        if (segmentSize <= HEADER_SIZE) {
+            throw new IllegalArgumentException("The segment size must be greater than " + HEADER_SIZE + " bytes.");
+        }
+
+        this.segmentSize = segmentSize;
+        try {
+            Files.createDirectories(folder.toPath());
+            this.file = File.createTempFile("rre-hits-", ".bin", folder);
+            this.file.deleteOnExit();
+            this.channel = new RandomAccessFile(file, "rw").getChannel();
+        } catch (final IOException exception) {
+            throw new UncheckedIOException("Unable to create the hits file in " + folder.getAbsolutePath(), exception);
+        }
+    }
+
+    /**
+     * Appends the given hit to this store.
+     *
+     * @param hit  the hit.
+     * @param rank the hit rank.
+     * @return the offset of the stored hit.
+     */
+    public long append(final Map<String, Object> hit, final int rank) {
+        final Map<String, Object> fields = new LinkedHashMap<>(hit);
+        final Object gain = fields.remove(GAIN);
+        fields.remove(IS_RELEVANT);
+
+        final byte[] encoded;
+        try {
+            encoded = mapper.writeValueAsBytes(fields);
+        } catch (final IOException exception) {
+            throw new UncheckedIOException("Unable to encode the hit " + hit, exception);
+        }
+
+        final int size = HEADER_SIZE + encoded.length;
+        if (size > segmentSize) {
+            throw new IllegalArgumentException("The hit " + hit + " (" + size + " bytes) exceeds the segment size (" + segmentSize + " bytes).");
+        }
+
+        if (current == null || current.remaining() < size) {
+            current = map(segments.size());
+            segments.add(current);
+        }
+
+        final long offset = (long) (segments.size() - 1) * segmentSize + current.position();
+        current.putInt(rank);
+        current.putInt(gain instanceof Number ? ((Number) gain).intValue() : -1);
+        current.putInt(encoded.length);
+        current.put(encoded);
+        return offset;
+    }
+
+    /**
+     * Reads the hit stored at the given offset.
+     *
+     * @param offset the offset of the hit, as returned by {@link #append(Map, int)}.
+     * @return the hit stored at the given offset.
+     */
+    public Map<String, Object> read(final long offset) {
+        final ByteBuffer record = segment(offset).duplicate();
+        record.position((int) (offset % segmentSize));
+        record.getInt();
+        final int gain = record.getInt();
+        final byte[] encoded = new byte[record.getInt()];
+        record.get(encoded);
+
+        try {
+            final Map<String, Object> hit = mapper.readValue(encoded, HIT_TYPE);
+            if (gain >= 0) {
+                hit.put(IS_RELEVANT, true);
+                hit.put(GAIN, gain);
+            }
+            return hit;
+        } catch (final IOException exception) {
+            throw new UncheckedIOException("Unable to decode the hit at offset " + offset, exception);
+        }
+    }
+
+    /**
+     * Returns the rank of the hit stored at the given offset, without decoding its fields.
+     *
+     * @param offset the offset of the hit, as returned by {@link #append(Map, int)}.
+     * @return the rank of the hit stored at the given offset.
+     */
+    public int rank(final long offset) {
+        return segment(offset).getInt((int) (offset % segmentSize));
+    }
+
+    /**
+     * Returns the gain of the hit stored at the given offset, without decoding its fields.
+     *
+     * @param offset the offset of the hit, as returned by {@link #append(Map, int)}.
+     * @return the gain of the hit stored at the given offset, -1 if the hit is not relevant.
+     */
+    public int gain(final long offset) {
+        return segment(offset).getInt((int) (offset % segmentSize) + Integer.BYTES);
+    }
+
+    /**
+     * Returns the file which backs this store.
+     *
+     * @return the file which backs this store.
+     */
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * Closes this store and deletes its file.
+     * Note that the mapped segments are released by the garbage collector.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        segments.clear();
+        current = null;
+        try {
+            channel.close();
+            Files.deleteIfExists(file.toPath());
+        } catch (final IOException exception) {
+            throw new UncheckedIOException("Unable to delete the hits file " + file.getAbsolutePath(), exception);
+        }
+    }
+
+    /**
+     * Returns the segment which holds the given offset.
+     *
+     * @param offset the offset of a hit.
+     * @return the segment which holds the given offset.
+     */
+    private MappedByteBuffer segment(final long offset) {
+        if (closed) {
+            throw new IllegalStateException("The hits store has been closed.");
+        }
+        return segments.get((int) (offset / segmentSize));
+    }
+
+    /**
+     * Maps the segment at the given position.
+     *
+     * @param index the segment position.
+     * @return the mapped segment.
+     */
+    private MappedByteBuffer map(final int index) {
+        try {
+            return channel.map(FileChannel.MapMode.READ_WRITE, (long) index * segmentSize, segmentSize);
+        } catch (final IOException exception) {
+            throw new UncheckedIOException("Unable to map the hits file " + file.getAbsolutePath(), exception);
+        }
+    }
+}
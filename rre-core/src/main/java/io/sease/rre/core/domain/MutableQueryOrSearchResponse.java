@@ -1,22 +1,55 @@
 package io.sease.rre.core.domain;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import io.sease.rre.core.domain.metrics.HitsCollector;
 
+import java.math.BigDecimal;
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 
 /**
  * A search response whcih gradually collects a set of search hits.
  * The prefix "Mutable" is because the RRE core classes contain a similar class which is supposed to be Immutable.
+ * If a {@link MappedHitStore} is available, the hits are appended to the store and this response only keeps their
+ * offsets.
  *
  * @author agazzarini
  * @since 1.0
  */
 public class MutableQueryOrSearchResponse implements HitsCollector {
+    private final static long[] NO_OFFSETS = {};
+
+    private final MappedHitStore hitStore;
     private long totalHits;
-    private List<Map<String, Object>> hits = new ArrayList<>();
+    private List<Map<String, Object>> hits;
+    private long[] offsets = NO_OFFSETS;
+    private int storedHits;
+    private String failure;
+    private Long serverLatencyMs;
+    private BigDecimal clientLatencyMs;
+    private Map<String, Number> profile;
+
+    /**
+     * Builds a new response, which keeps its hits on heap.
+     */
+    public MutableQueryOrSearchResponse() {
+        this(null);
+    }
+
+    /**
+     * Builds a new response, which appends its hits to the given store.
+     *
+     * @param hitStore the hits store, null if the hits have to be kept on heap.
+     */
+    public MutableQueryOrSearchResponse(final MappedHitStore hitStore) {
+        this.hitStore = hitStore;
+        this.hits = hitStore == null ? new ArrayList<>() : null;
+    }
 
     /**
      * Returns the total hits number associated with this response.
@@ -30,17 +63,127 @@ public class MutableQueryOrSearchResponse implements HitsCollector {
 
     /**
      * Returns the current hits window.
+     * If the hits have been appended to a {@link MappedHitStore}, the returned list reads (and decodes) each hit
+     * from the store on demand.
      *
      * @return the current hits window.
      */
     @JsonProperty("hits")
     public List<Map<String, Object>> hits() {
-        return hits;
+        if (hitStore == null) {
+            return hits;
+        }
+
+        return new AbstractList<Map<String, Object>>() {
+            @Override
+            public Map<String, Object> get(final int index) {
+                if (index >= storedHits) {
+                    throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + storedHits);
+                }
+                return hitStore.read(offsets[index]);
+            }
+
+            @Override
+            public int size() {
+                return storedHits;
+            }
+        };
+    }
+
+    /**
+     * Returns the failure reason, if the query couldn't be executed.
+     *
+     * @return the failure reason, null if the query has been successfully executed.
+     */
+    @JsonProperty("failure")
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public String failure() {
+        return failure;
+    }
+
+    /**
+     * Returns true if the query couldn't be executed.
+     *
+     * @return true if the query couldn't be executed.
+     */
+    @JsonIgnore
+    public boolean isFailed() {
+        return failure != null;
+    }
+
+    /**
+     * Marks this response as failed.
+     *
+     * @param failure the failure reason.
+     */
+    public void setFailure(final String failure) {
+        this.failure = failure;
+    }
+
+    /**
+     * Returns the execution time reported by the search platform (e.g. Solr QTime, Elasticsearch took).
+     *
+     * @return the server-side latency in milliseconds, null if the platform doesn't report it.
+     */
+    @JsonProperty("server-latency-ms")
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public Long serverLatencyMs() {
+        return serverLatencyMs;
+    }
+
+    /**
+     * Returns the execution time measured by the client.
+     *
+     * @return the client-side latency in milliseconds, null if it hasn't been measured.
+     */
+    @JsonProperty("client-latency-ms")
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public BigDecimal clientLatencyMs() {
+        return clientLatencyMs;
+    }
+
+    /**
+     * Sets the execution time of this response.
+     *
+     * @param serverLatencyMs    the execution time reported by the search platform, in milliseconds (negative if unknown).
+     * @param clientLatencyNanos the execution time measured by the client, in nanoseconds (negative if unknown).
+     */
+    public void setLatency(final long serverLatencyMs, final long clientLatencyNanos) {
+        this.serverLatencyMs = serverLatencyMs >= 0 ? serverLatencyMs : null;
+        this.clientLatencyMs = clientLatencyNanos >= 0 ? BigDecimal.valueOf(clientLatencyNanos, 6) : null;
+    }
+
+    /**
+     * Returns the profiled execution time of each component or query clause, if this query has been profiled.
+     *
+     * @return the execution time of each component or query clause in milliseconds, null if the query hasn't been profiled.
+     */
+    @JsonProperty("profile")
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public Map<String, Number> profile() {
+        return profile;
+    }
+
+    /**
+     * Sets the profiled execution time of each component or query clause.
+     *
+     * @param profile the execution time of each component or query clause, in milliseconds.
+     */
+    public void setProfile(final Map<String, Number> profile) {
+        this.profile = profile;
     }
 
     @Override
     public void collect(final Map<String, Object> hit, final int rank, final String version) {
-        hits.add(hit);
+        if (hitStore == null) {
+            hits.add(hit);
+            return;
+        }
+
+        if (storedHits == offsets.length) {
+            offsets = Arrays.copyOf(offsets, Math.max(10, offsets.length * 2));
+        }
+        offsets[storedHits++] = hitStore.append(hit, rank);
     }
 
     @Override
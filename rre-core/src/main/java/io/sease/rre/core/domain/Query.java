@@ -25,6 +25,7 @@ import static java.util.stream.Collectors.toMap;
 public class Query extends DomainMember<Query> implements HitsCollector {
     protected String idFieldName = DEFAULT_ID_FIELD_NAME;
     protected JsonNode relevantDocuments;
+    private MappedHitStore hitStore;
 
     @Override
     public DomainMember setName(final String query) {
@@ -44,10 +45,13 @@ public class Query extends DomainMember<Query> implements HitsCollector {
      * Populates this query instance with the available metrics.
      * Note that those metrics instances are empty (i.e. no value) at this time. Before getting their values, the
      * search results accumulation phase needs to be executed.
+     * A query can be prepared again (e.g. the same query string listed twice in a query group): the new metrics are
+     * then notified to the parent as well.
      *
      * @param metrics the metrics instances associated with this instance.
      */
     public void prepare(final List<Metric> metrics) {
+        resetCollectedMetrics();
         this.metrics.putAll(
                 metrics.stream()
                         .map(metric -> new AbstractMap.SimpleEntry<>(metric.getName(), metric))
@@ -60,7 +64,7 @@ public class Query extends DomainMember<Query> implements HitsCollector {
     @Override
     public void setTotalHits(final long totalHits, final String version) {
         metrics.values().forEach(metric -> metric.setTotalHits(totalHits, version));
-        results.computeIfAbsent(version, v -> new MutableQueryOrSearchResponse()).setTotalHits(totalHits, version);
+        results.computeIfAbsent(version, v -> new MutableQueryOrSearchResponse(hitStore)).setTotalHits(totalHits, version);
     }
 
     @Override
@@ -72,7 +76,51 @@ public class Query extends DomainMember<Query> implements HitsCollector {
             hit.put("_gain", Func.gainOrRatingNode(jNode).map(JsonNode::asInt).orElse(2));
         });
 
-        results.computeIfAbsent(version, v -> new MutableQueryOrSearchResponse()).collect(hit, rank, version);
+        results.computeIfAbsent(version, v -> new MutableQueryOrSearchResponse(hitStore)).collect(hit, rank, version);
+    }
+
+    /**
+     * Marks this query as failed for the given version (i.e. the query couldn't be executed).
+     * The failure is accounted separately, and the metrics of the failed version are excluded from the aggregated
+     * (i.e. parent) metrics, so a failure doesn't count as a query without results.
+     *
+     * @param reason  the failure reason.
+     * @param version the version associated with the failure.
+     */
+    public void setFailed(final String reason, final String version) {
+        results.computeIfAbsent(version, v -> new MutableQueryOrSearchResponse(hitStore)).setFailure(reason);
+        collectFailure(version);
+    }
+
+    /**
+     * Records the execution time of this query for the given version.
+     * The client-side latency is also collected as a latency sample, from which the latency metrics (mean, p50, p95,
+     * p99) are derived at query, query group, topic, corpus and evaluation level.
+     *
+     * @param serverLatencyMs    the execution time reported by the search platform, in milliseconds (negative if unknown).
+     * @param clientLatencyNanos the execution time measured by the client, in nanoseconds (negative if unknown).
+     * @param version            the version associated with the latency.
+     */
+    public void setLatency(final long serverLatencyMs, final long clientLatencyNanos, final String version) {
+        results.computeIfAbsent(version, v -> new MutableQueryOrSearchResponse(hitStore)).setLatency(serverLatencyMs, clientLatencyNanos);
+        if (clientLatencyNanos >= 0) {
+            collectLatency(version, clientLatencyNanos);
+        }
+    }
+
+    /**
+     * Records the profiled execution time of each component or query clause of this query, for the given version.
+     *
+     * @param profile the execution time of each component or query clause, in milliseconds.
+     * @param version the version associated with the profile.
+     */
+    public void setProfile(final Map<String, Number> profile, final String version) {
+        results.computeIfAbsent(version, v -> new MutableQueryOrSearchResponse(hitStore)).setProfile(profile);
+    }
+
+    @Override
+    protected boolean isFailed(final String version) {
+        return ofNullable(results.get(version)).map(MutableQueryOrSearchResponse::isFailed).orElse(false);
     }
 
     /**
@@ -137,4 +185,14 @@ public class Query extends DomainMember<Query> implements HitsCollector {
     public void setRelevantDocuments(final JsonNode relevantDocuments) {
         this.relevantDocuments = relevantDocuments;
     }
-}
\ No newline at end of file
+
+    /**
+     * Sets the store where the collected hits are appended, instead of being kept on heap.
+     * The store must be set before collecting the search results.
+     *
+     * @param hitStore the hits store, null if the hits have to be kept on heap.
+     */
+    public void setHitStore(final MappedHitStore hitStore) {
+        this.hitStore = hitStore;
+    }
+}
@@ -0,0 +1,167 @@
+package io.sease.rre.core.domain.metrics;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * An append-only log of the latency samples of a whole evaluation tree, owned by the root entity (like the
+ * {@link MetricsStore}).
+ * Once notified, the samples of a query are appended to the log once, and each ancestor of the query (query group,
+ * topic, corpus, evaluation) refers to the range of the log which holds them (see {@link Ranges}), so the samples
+ * are not copied at each level of the tree. Since the queries are notified one after the other, the ranges of an
+ * entity are usually contiguous and they are merged in a single one.
+ * <p>
+ * The statistics of the ranges are exact: the mean is computed from the sum of the samples, which is accumulated
+ * when a range is added, while the percentiles are computed on demand, by sorting a (temporary) copy of the samples.
+ *
+ * @author agazzarini
+ * @since 1.0
+ */
+public class LatencyLog {
+    private final Map<String, Column> columns = new HashMap<>();
+
+    /**
+     * The samples of a single version.
+     *
+     * @author agazzarini
+     * @since 1.0
+     */
+    private static class Column {
+        private long[] nanos = new long[16];
+        private int size;
+    }
+
+    /**
+     * The latency samples of an entity, made up of ranges of the log.
+     *
+     * @author agazzarini
+     * @since 1.0
+     */
+    public class Ranges implements LatencyStatistics {
+        private final Map<String, VersionRanges> ranges = new LinkedHashMap<>();
+
+        /**
+         * Adds the samples between the given positions of the log.
+         *
+         * @param version the version.
+         * @param from    the position of the first sample (inclusive).
+         * @param to      the position of the last sample (exclusive).
+         */
+        public void add(final String version, final int from, final int to) {
+            if (from < to) {
+                ranges.computeIfAbsent(version, v -> new VersionRanges()).add(columns.get(version).nanos, from, to);
+            }
+        }
+
+        @Override
+        public Set<String> versions() {
+            return ranges.keySet();
+        }
+
+        @Override
+        public int size(final String version) {
+            final VersionRanges target = ranges.get(version);
+            return target != null ? target.size : 0;
+        }
+
+        @Override
+        public BigDecimal mean(final String version) {
+            final VersionRanges target = ranges.get(version);
+            return target != null ? LatencySamples.mean(target.sum, target.size) : BigDecimal.ZERO;
+        }
+
+        @Override
+        public BigDecimal percentile(final String version, final int percentile) {
+            final VersionRanges target = ranges.get(version);
+            if (target == null) {
+                return BigDecimal.ZERO;
+            }
+
+            final long[] log = columns.get(version).nanos;
+            final long[] sorted = new long[target.size];
+            int size = 0;
+            for (int i = 0; i < target.count; i += 2) {
+                final int length = target.bounds[i + 1] - target.bounds[i];
+                System.arraycopy(log, target.bounds[i], sorted, size, length);
+                size += length;
+            }
+            Arrays.sort(sorted);
+            return LatencySamples.percentile(sorted, size, percentile);
+        }
+    }
+
+    /**
+     * The ranges of a single version, stored as (from, to) pairs.
+     *
+     * @author agazzarini
+     * @since 1.0
+     */
+    private static class VersionRanges {
+        private int[] bounds = new int[2];
+        private int count;
+        private int size;
+        private long sum;
+
+        /**
+         * Adds the given range, merging it with the last one if they are contiguous.
+         *
+         * @param log  the samples of the version.
+         * @param from the position of the first sample (inclusive).
+         * @param to   the position of the last sample (exclusive).
+         */
+        private void add(final long[] log, final int from, final int to) {
+            if (count > 0 && bounds[count - 1] == from) {
+                bounds[count - 1] = to;
+            } else {
+                if (count == bounds.length) {
+                    bounds = Arrays.copyOf(bounds, bounds.length * 2);
+                }
+                bounds[count++] = from;
+                bounds[count++] = to;
+            }
+
+            for (int i = from; i < to; i++) {
+                sum += log[i];
+            }
+            size += to - from;
+        }
+    }
+
+    /**
+     * Appends a new latency sample.
+     *
+     * @param version the version associated with the sample.
+     * @param nanos   the query execution time, in nanoseconds.
+     */
+    public void append(final String version, final long nanos) {
+        final Column column = columns.computeIfAbsent(version, v -> new Column());
+        if (column.size == column.nanos.length) {
+            column.nanos = Arrays.copyOf(column.nanos, column.size * 2);
+        }
+        column.nanos[column.size++] = nanos;
+    }
+
+    /**
+     * Returns the number of samples of the given version, which is also the position of the next appended sample.
+     *
+     * @param version the version.
+     * @return the number of samples of the given version.
+     */
+    public int size(final String version) {
+        final Column column = columns.get(version);
+        return column != null ? column.size : 0;
+    }
+
+    /**
+     * Returns a new, empty, set of ranges of this log.
+     *
+     * @return a new, empty, set of ranges of this log.
+     */
+    public Ranges ranges() {
+        return new Ranges();
+    }
+}
@@ -0,0 +1,135 @@
+package io.sease.rre.core.domain.metrics;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.LongConsumer;
+
+import static io.sease.rre.Calculator.divide;
+
+/**
+ * The latency samples (i.e. the query execution times measured on the client side) collected by a query.
+ * Each version has a single, dense, array of samples (in nanoseconds) from which all the latency statistics (the mean
+ * and the percentiles) are derived, so a query doesn't keep a copy of its samples for each statistic.
+ * <p>
+ * The samples of a version are sorted (in place) the first time a percentile is requested after a change.
+ *
+ * @author agazzarini
+ * @since 1.0
+ */
+public class LatencySamples implements LatencyStatistics {
+    /**
+     * The samples of a single version.
+     *
+     * @author agazzarini
+     * @since 1.0
+     */
+    private static class Samples {
+        private long[] nanos = new long[0];
+        private int size;
+        private long sum;
+        private boolean sorted = true;
+
+        /**
+         * Adds the given sample.
+         *
+         * @param value the sample, in nanoseconds.
+         */
+        private void add(final long value) {
+            if (size == nanos.length) {
+                nanos = Arrays.copyOf(nanos, Math.max(1, nanos.length * 2));
+            }
+            nanos[size++] = value;
+            sum += value;
+            sorted = false;
+        }
+    }
+
+    private final Map<String, Samples> samples = new LinkedHashMap<>();
+
+    /**
+     * Collects a new latency sample.
+     *
+     * @param version the version associated with the sample.
+     * @param nanos   the query execution time, in nanoseconds.
+     */
+    public void collect(final String version, final long nanos) {
+        samples.computeIfAbsent(version, v -> new Samples()).add(nanos);
+    }
+
+    /**
+     * Passes each sample of the given version to the given consumer.
+     *
+     * @param version  the version.
+     * @param consumer the consumer of the samples (in nanoseconds).
+     */
+    public void forEach(final String version, final LongConsumer consumer) {
+        final Samples target = samples.get(version);
+        if (target != null) {
+            for (int i = 0; i < target.size; i++) {
+                consumer.accept(target.nanos[i]);
+            }
+        }
+    }
+
+    @Override
+    public Set<String> versions() {
+        return samples.keySet();
+    }
+
+    @Override
+    public int size(final String version) {
+        final Samples target = samples.get(version);
+        return target != null ? target.size : 0;
+    }
+
+    @Override
+    public BigDecimal mean(final String version) {
+        final Samples target = samples.get(version);
+        return target != null ? mean(target.sum, target.size) : BigDecimal.ZERO;
+    }
+
+    @Override
+    public BigDecimal percentile(final String version, final int percentile) {
+        final Samples target = samples.get(version);
+        if (target == null) {
+            return BigDecimal.ZERO;
+        }
+
+        if (!target.sorted) {
+            Arrays.sort(target.nanos, 0, target.size);
+            target.sorted = true;
+        }
+        return percentile(target.nanos, target.size, percentile);
+    }
+
+    /**
+     * Returns the mean of the given samples.
+     *
+     * @param sum  the sum of the samples, in nanoseconds.
+     * @param size the number of samples.
+     * @return the mean, in milliseconds, zero if there are no samples.
+     */
+    static BigDecimal mean(final long sum, final int size) {
+        return size == 0 ? BigDecimal.ZERO : divide(BigDecimal.valueOf(sum, 6), size);
+    }
+
+    /**
+     * Returns the given (nearest-rank) percentile of the given samples.
+     *
+     * @param sorted     the samples, in nanoseconds, sorted in ascending order.
+     * @param size       the number of samples.
+     * @param percentile the percentile (e.g. 95).
+     * @return the percentile, in milliseconds, zero if there are no samples.
+     */
+    static BigDecimal percentile(final long[] sorted, final int size, final int percentile) {
+        if (size == 0) {
+            return BigDecimal.ZERO;
+        }
+        final int rank = (int) Math.ceil(percentile / 100d * size);
+        return BigDecimal.valueOf(sorted[Math.max(0, rank - 1)], 6).setScale(4, RoundingMode.CEILING);
+    }
+}
@@ -0,0 +1,46 @@
+package io.sease.rre.core.domain.metrics;
+
+import java.math.BigDecimal;
+import java.util.Set;
+
+/**
+ * A source of latency statistics (i.e. the statistics of the query execution times measured on the client side),
+ * versioned like the metrics.
+ * All statistics are expressed in milliseconds.
+ *
+ * @author agazzarini
+ * @since 1.0
+ */
+public interface LatencyStatistics {
+    /**
+     * Returns the versions which have at least one sample.
+     *
+     * @return the versions which have at least one sample.
+     */
+    Set<String> versions();
+
+    /**
+     * Returns the number of samples of the given version.
+     *
+     * @param version the version.
+     * @return the number of samples of the given version.
+     */
+    int size(String version);
+
+    /**
+     * Returns the mean of the samples of the given version.
+     *
+     * @param version the version.
+     * @return the mean latency, in milliseconds, zero if there are no samples.
+     */
+    BigDecimal mean(String version);
+
+    /**
+     * Returns the given (nearest-rank) percentile of the samples of the given version.
+     *
+     * @param version    the version.
+     * @param percentile the percentile (e.g. 95).
+     * @return the percentile latency, in milliseconds, zero if there are no samples.
+     */
+    BigDecimal percentile(String version, int percentile);
+}
@@ -0,0 +1,249 @@
+package io.sease.rre.core.domain.metrics;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static io.sease.rre.Calculator.divide;
+
+/**
+ * A compact, columnar store of the metric values of an evaluation tree.
+ * Each domain entity (evaluation, corpus, topic, query group, query) is a row of the store, which also records the
+ * row of its parent. Each (metric, version) pair is a column, made up of dense primitive arrays indexed by row, so the
+ * values of the whole tree don't need a {@link Metric}, a {@link ValueFactory} and a {@link BigDecimal} for each
+ * entity, metric and version.
+ * <p>
+ * A cell holds either an exact value (i.e. the metric value of a query) or the mean of the values collected by the
+ * descendants of its row. Sums are accumulated as doubles, with a compensated (Kahan) summation, and they are rounded
+ * to the largest scale of the collected values before the division, so the mean is the same that would be computed
+ * with {@link BigDecimal} arithmetic.
+ * <p>
+ * The {@link Metric} instances of a row are materialised on demand (see {@link #metrics(int)}): they are views over
+ * the store and they hold no value.
+ *
+ * @author agazzarini
+ * @since 1.0
+ */
+public class MetricsStore {
+    private final static int EXACT = -1;
+    private final static int MAX_SCALE = 15;
+    private final static int INITIAL_CAPACITY = 16;
+
+    /**
+     * The values of a (metric, version) pair, for all rows.
+     *
+     * @author agazzarini
+     * @since 1.0
+     */
+    private static class Column {
+        private double[] sums = new double[0];
+        private double[] compensations = new double[0];
+        private int[] counts = new int[0];
+        private byte[] scales = new byte[0];
+
+        /**
+         * Makes sure this column can hold the given row.
+         *
+         * @param row the row.
+         */
+        private void ensureCapacity(final int row) {
+            if (row >= counts.length) {
+                final int capacity = Math.max(Math.max(INITIAL_CAPACITY, row + 1), counts.length * 2);
+                sums = Arrays.copyOf(sums, capacity);
+                compensations = Arrays.copyOf(compensations, capacity);
+                counts = Arrays.copyOf(counts, capacity);
+                scales = Arrays.copyOf(scales, capacity);
+            }
+        }
+
+        /**
+         * Returns true if the given row has a value.
+         *
+         * @param row the row.
+         * @return true if the given row has a value.
+         */
+        private boolean contains(final int row) {
+            return row < counts.length && counts[row] != 0;
+        }
+
+        /**
+         * Returns the value of the given row.
+         *
+         * @param row the row.
+         * @return the value of the given row, zero if the row has no value.
+         */
+        private BigDecimal value(final int row) {
+            if (!contains(row)) {
+                return BigDecimal.ZERO;
+            }
+
+            final BigDecimal sum =
+                    new BigDecimal(sums[row])
+                            .subtract(new BigDecimal(compensations[row]))
+                            .setScale(scales[row], RoundingMode.HALF_EVEN);
+            return counts[row] == EXACT ? sum : divide(sum, counts[row]);
+        }
+    }
+
+    /**
+     * A {@link Metric} view over a row of the store.
+     *
+     * @author agazzarini
+     * @since 1.0
+     */
+    private static class StoredMetric extends Metric {
+        private final Map<String, Column> columns;
+        private final int row;
+
+        /**
+         * Builds a new view over the values of the given metric, for the given row.
+         *
+         * @param name    the metric name.
+         * @param columns the columns of the metric, per version.
+         * @param row     the row.
+         */
+        private StoredMetric(final String name, final Map<String, Column> columns, final int row) {
+            super(name);
+            this.columns = columns;
+            this.row = row;
+        }
+
+        @Override
+        public ValueFactory createValueFactory(final String version) {
+            final Column column = columns.get(version);
+            return new ValueFactory(this, version) {
+                @Override
+                public BigDecimal value() {
+                    return column.value(row);
+                }
+
+                @Override
+                public void collect(final Map<String, Object> hit, final int rank, final String version) {
+                    // Noop
+                }
+            };
+        }
+    }
+
+    private final Map<String, Map<String, Column>> columns = new LinkedHashMap<>();
+    private int[] parents = new int[INITIAL_CAPACITY];
+    private int rows;
+
+    /**
+     * Adds a new row to this store.
+     *
+     * @param parent the row of the parent entity, a negative value if the entity has no parent.
+     * @return the new row.
+     */
+    public int addRow(final int parent) {
+        if (rows == parents.length) {
+            parents = Arrays.copyOf(parents, rows * 2);
+        }
+        parents[rows] = parent;
+        return rows++;
+    }
+
+    /**
+     * Returns the number of rows of this store.
+     *
+     * @return the number of rows of this store.
+     */
+    public int size() {
+        return rows;
+    }
+
+    /**
+     * Sets the (exact) value of a metric, for the given row and version.
+     * The value is not propagated to the ancestors of the row.
+     *
+     * @param row     the row.
+     * @param metric  the metric name.
+     * @param version the version associated with the value.
+     * @param value   the metric value.
+     */
+    public void set(final int row, final String metric, final String version, final BigDecimal value) {
+        final Column column = column(metric, version);
+        column.ensureCapacity(row);
+        column.sums[row] = value.doubleValue();
+        column.compensations[row] = 0;
+        column.counts[row] = EXACT;
+        column.scales[row] = (byte) scale(value);
+    }
+
+    /**
+     * Collects a metric value on the given row and on all its ancestors, which will then provide the mean of the
+     * collected values.
+     *
+     * @param row     the row.
+     * @param metric  the metric name.
+     * @param version the version associated with the value.
+     * @param value   the collected value.
+     */
+    public void collect(final int row, final String metric, final String version, final BigDecimal value) {
+        final Column column = column(metric, version);
+        final double addend = value.doubleValue();
+        final int scale = scale(value);
+        for (int current = row; current >= 0; current = parents[current]) {
+            column.ensureCapacity(current);
+            final double compensated = addend - column.compensations[current];
+            final double sum = column.sums[current] + compensated;
+            column.compensations[current] = (sum - column.sums[current]) - compensated;
+            column.sums[current] = sum;
+            column.counts[current]++;
+            column.scales[current] = (byte) Math.max(column.scales[current], scale);
+        }
+    }
+
+    /**
+     * Returns the metrics of the given row, in the order they have been added to this store.
+     * The returned metrics are views over the store.
+     *
+     * @param row the row.
+     * @return the metrics of the given row, by name.
+     */
+    public Map<String, Metric> metrics(final int row) {
+        final Map<String, Metric> metrics = new LinkedHashMap<>();
+        columns.forEach((name, versions) -> {
+            final List<String> available = new ArrayList<>(versions.size());
+            versions.forEach((version, column) -> {
+                if (column.contains(row)) {
+                    available.add(version);
+                }
+            });
+
+            if (!available.isEmpty()) {
+                final Metric metric = new StoredMetric(name, versions, row);
+                metric.setVersions(available);
+                metrics.put(name, metric);
+            }
+        });
+        return metrics;
+    }
+
+    /**
+     * Returns the column of the given metric and version.
+     *
+     * @param metric  the metric name.
+     * @param version the version.
+     * @return the column of the given metric and version.
+     */
+    private Column column(final String metric, final String version) {
+        return columns
+                .computeIfAbsent(metric, k -> new LinkedHashMap<>())
+                .computeIfAbsent(version, k -> new Column());
+    }
+
+    /**
+     * Returns the scale which is used for storing the given value.
+     *
+     * @param value the value.
+     * @return the scale which is used for storing the given value.
+     */
+    private int scale(final BigDecimal value) {
+        return Math.min(MAX_SCALE, Math.max(0, value.scale()));
+    }
+}
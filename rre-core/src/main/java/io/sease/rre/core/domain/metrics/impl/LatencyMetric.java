@@ -0,0 +1,126 @@
+package io.sease.rre.core.domain.metrics.impl;
+
+import io.sease.rre.core.domain.metrics.LatencyLog;
+import io.sease.rre.core.domain.metrics.LatencySamples;
+import io.sease.rre.core.domain.metrics.LatencyStatistics;
+import io.sease.rre.core.domain.metrics.Metric;
+import io.sease.rre.core.domain.metrics.ValueFactory;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import static java.util.Arrays.asList;
+
+/**
+ * A latency metric: a statistic (the mean or a percentile) of the query execution times, in milliseconds, measured
+ * on the client side.
+ * Differently from the relevance metrics, a latency statistic cannot be computed by averaging the values of the
+ * children (e.g. the mean of the p95 values is not the p95 value), so the statistics are computed over all the latency
+ * samples of the queries. A latency metric holds no sample: it is a view over the {@link LatencyStatistics} of the
+ * entity it belongs to, i.e. the {@link LatencySamples} of a query or, at upper levels, the ranges of the
+ * {@link LatencyLog} of the evaluation which hold the samples of its queries.
+ * <p>
+ * The values are exact at every level: there's no loss of precision like with a histogram. The trade-off is the
+ * memory needed by the log, which keeps each sample once (8 bytes for each query and version), regardless of the depth
+ * of the tree, and the time needed for computing a percentile above the query level, which sorts a temporary copy of
+ * the samples of the entity each time.
+ *
+ * @author agazzarini
+ * @since 1.0
+ */
+public class LatencyMetric extends Metric {
+    public static final String MEAN = "Latency mean (ms)";
+    public static final String P50 = "Latency p50 (ms)";
+    public static final String P95 = "Latency p95 (ms)";
+    public static final String P99 = "Latency p99 (ms)";
+
+    private static final int MEAN_PERCENTILE = 0;
+
+    private final int percentile;
+    private final LatencyStatistics samples;
+
+    /**
+     * A {@link ValueFactory} which computes the statistic over the latency samples.
+     *
+     * @author agazzarini
+     * @since 1.0
+     */
+    class SamplesValueFactory extends ValueFactory {
+        private final String version;
+
+        /**
+         * Builds a new (Metric) valueFactory with the given (metric) owner.
+         *
+         * @param owner the owner metric.
+         */
+        private SamplesValueFactory(final Metric owner, final String version) {
+            super(owner, version);
+            this.version = version;
+        }
+
+        @Override
+        public BigDecimal value() {
+            return percentile == MEAN_PERCENTILE
+                    ? samples.mean(version)
+                    : samples.percentile(version, percentile);
+        }
+
+        @Override
+        public void collect(final Map<String, Object> hit, final int rank, final String version) {
+            // Noop
+        }
+    }
+
+    /**
+     * Builds a new {@link LatencyMetric} instance, which has a value for each version of the given samples.
+     *
+     * @param name       the metric name.
+     * @param percentile the percentile computed by this metric, 0 for the mean.
+     * @param samples    the latency samples this metric is computed from.
+     */
+    public LatencyMetric(final String name, final int percentile, final LatencyStatistics samples) {
+        super(name);
+        this.percentile = percentile;
+        this.samples = samples;
+    }
+
+    /**
+     * Returns an instance of each available latency metric (i.e. mean, p50, p95, p99), computed from the given samples.
+     *
+     * @param samples the latency samples.
+     * @return an instance of each available latency metric.
+     */
+    public static List<LatencyMetric> latencyMetrics(final LatencyStatistics samples) {
+        return asList(
+                new LatencyMetric(MEAN, MEAN_PERCENTILE, samples),
+                new LatencyMetric(P50, 50, samples),
+                new LatencyMetric(P95, 95, samples),
+                new LatencyMetric(P99, 99, samples));
+    }
+
+    /**
+     * Returns the latency samples this metric is computed from.
+     *
+     * @return the latency samples this metric is computed from.
+     */
+    public LatencyStatistics samples() {
+        return samples;
+    }
+
+    @Override
+    public Map<String, ValueFactory> getVersions() {
+        samples.versions().forEach(version -> values.computeIfAbsent(version, this::createValueFactory));
+        return values;
+    }
+
+    @Override
+    public ValueFactory valueFactory(final String version) {
+        return getVersions().get(version);
+    }
+
+    @Override
+    public ValueFactory createValueFactory(final String version) {
+        return new SamplesValueFactory(this, version);
+    }
+}
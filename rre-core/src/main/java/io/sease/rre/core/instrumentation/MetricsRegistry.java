@@ -0,0 +1,256 @@
+package io.sease.rre.core.instrumentation;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import static java.util.Optional.ofNullable;
+
+/**
+ * A lightweight registry of the execution metrics (timers, counters and gauges) of the RRE engine, used for
+ * breaking down the evaluation time into its phases (e.g. ratings parsing, index loading, query execution,
+ * persistence). Phases may be nested (e.g. query execution happens within the evaluation), so the shares of the
+ * phases don't sum up to the whole.
+ * The registry is thread-safe.
+ *
+ * @author agazzarini
+ * @since 1.0
+ */
+public class MetricsRegistry {
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> counters = new ConcurrentHashMap<>();
+    private final Map<String, Supplier<? extends Number>> gauges = new ConcurrentHashMap<>();
+
+    /**
+     * Accumulates the execution time of a phase.
+     *
+     * @author agazzarini
+     * @since 1.0
+     */
+    public static class Timer {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final AtomicLong maxNanos = new AtomicLong();
+
+        /**
+         * Records an execution of the phase.
+         *
+         * @param nanos the execution time, in nanoseconds.
+         */
+        public void record(final long nanos) {
+            count.increment();
+            totalNanos.add(nanos);
+            maxNanos.accumulateAndGet(nanos, Math::max);
+        }
+
+        /**
+         * Returns the number of recorded executions.
+         *
+         * @return the number of recorded executions.
+         */
+        @JsonProperty("count")
+        public long getCount() {
+            return count.sum();
+        }
+
+        /**
+         * Returns the overall execution time, in milliseconds.
+         *
+         * @return the overall execution time, in milliseconds.
+         */
+        @JsonProperty("total-ms")
+        public BigDecimal getTotalMs() {
+            return millis(totalNanos.sum());
+        }
+
+        /**
+         * Returns the mean execution time, in milliseconds.
+         *
+         * @return the mean execution time, in milliseconds.
+         */
+        @JsonProperty("mean-ms")
+        public BigDecimal getMeanMs() {
+            final long executions = count.sum();
+            return executions == 0 ? BigDecimal.ZERO : millis(totalNanos.sum() / executions);
+        }
+
+        /**
+         * Returns the maximum execution time, in milliseconds.
+         *
+         * @return the maximum execution time, in milliseconds.
+         */
+        @JsonProperty("max-ms")
+        public BigDecimal getMaxMs() {
+            return millis(maxNanos.get());
+        }
+
+        private static BigDecimal millis(final long nanos) {
+            return BigDecimal.valueOf(nanos, 6).setScale(3, RoundingMode.HALF_UP);
+        }
+    }
+
+    /**
+     * Returns the timer associated with the given name, creating it if it doesn't exist.
+     *
+     * @param name the timer name.
+     * @return the timer associated with the given name.
+     */
+    public Timer timer(final String name) {
+        return timers.computeIfAbsent(name, k -> new Timer());
+    }
+
+    /**
+     * Executes the given task, recording its execution time in the given timer.
+     *
+     * @param name the timer name.
+     * @param task the task.
+     * @param <T>  the task result type.
+     * @return the task result.
+     */
+    public <T> T time(final String name, final Supplier<T> task) {
+        final long start = System.nanoTime();
+        try {
+            return task.get();
+        } finally {
+            timer(name).record(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Executes the given task, recording its execution time in the given timer.
+     *
+     * @param name the timer name.
+     * @param task the task.
+     */
+    public void time(final String name, final Runnable task) {
+        final long start = System.nanoTime();
+        try {
+            task.run();
+        } finally {
+            timer(name).record(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Increments the given counter by one.
+     *
+     * @param name the counter name.
+     */
+    public void increment(final String name) {
+        increment(name, 1);
+    }
+
+    /**
+     * Increments the given counter.
+     *
+     * @param name  the counter name.
+     * @param delta the increment.
+     */
+    public void increment(final String name, final long delta) {
+        counters.computeIfAbsent(name, k -> new LongAdder()).add(delta);
+    }
+
+    /**
+     * Registers a gauge, i.e. a value which is read when the metrics are reported.
+     *
+     * @param name  the gauge name.
+     * @param gauge the gauge value supplier.
+     */
+    public void gauge(final String name, final Supplier<? extends Number> gauge) {
+        gauges.put(name, gauge);
+    }
+
+    /**
+     * Returns the timers, sorted by name.
+     *
+     * @return the timers, sorted by name.
+     */
+    @JsonProperty("timers")
+    public Map<String, Timer> getTimers() {
+        return new TreeMap<>(timers);
+    }
+
+    /**
+     * Returns the current value of the counters, sorted by name.
+     *
+     * @return the current value of the counters, sorted by name.
+     */
+    @JsonProperty("counters")
+    public Map<String, Long> getCounters() {
+        final Map<String, Long> values = new TreeMap<>();
+        counters.forEach((name, counter) -> values.put(name, counter.sum()));
+        return values;
+    }
+
+    /**
+     * Returns the current value of the gauges, sorted by name.
+     *
+     * @return the current value of the gauges, sorted by name.
+     */
+    @JsonProperty("gauges")
+    public Map<String, Number> getGauges() {
+        final Map<String, Number> values = new TreeMap<>();
+        gauges.forEach((name, gauge) -> values.put(name, gauge.get()));
+        return values;
+    }
+
+    /**
+     * Removes all metrics from this registry.
+     */
+    public void clear() {
+        timers.clear();
+        counters.clear();
+        gauges.clear();
+    }
+
+    /**
+     * Returns a human readable breakdown of the timers, sorted by total time, with the share of each phase on the
+     * total time of the given (root) phase.
+     *
+     * @param root the name of the timer which measures the whole execution.
+     * @return a human readable breakdown of the timers.
+     */
+    public String breakdown(final String root) {
+        final BigDecimal total = ofNullable(timers.get(root)).map(Timer::getTotalMs).orElse(BigDecimal.ZERO);
+        final StringBuilder builder = new StringBuilder();
+        timers.entrySet().stream()
+                .sorted((a, b) -> b.getValue().getTotalMs().compareTo(a.getValue().getTotalMs()))
+                .forEach(entry -> {
+                    final Timer timer = entry.getValue();
+                    builder.append(String.format("%n  %-24s %12s ms %6s%% %10d calls %10s ms/call",
+                            entry.getKey(),
+                            timer.getTotalMs(),
+                            total.signum() == 0
+                                    ? "-"
+                                    : timer.getTotalMs().multiply(BigDecimal.valueOf(100)).divide(total, 1, RoundingMode.HALF_UP),
+                            timer.getCount(),
+                            timer.getMeanMs()));
+                });
+        getCounters().forEach((name, value) -> builder.append(String.format("%n  %-24s %12d", name, value)));
+        getGauges().forEach((name, value) -> builder.append(String.format("%n  %-24s %12s", name, value)));
+        return builder.toString();
+    }
+
+    /**
+     * Writes out the metrics of this registry, in JSON format.
+     *
+     * @param file the output file.
+     * @throws IOException in case of I/O failure.
+     */
+    public void write(final File file) throws IOException {
+        if (file.getParentFile() != null) {
+            file.getParentFile().mkdirs();
+        }
+        new ObjectMapper().writerWithDefaultPrettyPrinter().writeValue(file, this);
+    }
+}
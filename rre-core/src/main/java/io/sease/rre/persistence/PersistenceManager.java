@@ -1,6 +1,7 @@
 package io.sease.rre.persistence;
 
 import io.sease.rre.core.domain.Query;
+import io.sease.rre.core.instrumentation.MetricsRegistry;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
@@ -19,6 +20,9 @@ import java.util.Map;
  * method, then registered using {@link #registerHandler(PersistenceHandler)}.
  * <p>
  * Most other methods apply to all registered handlers.
+ * <p>
+ * The time spent in each phase (start, query recording, stop) is recorded
+ * in a {@link MetricsRegistry}.
  *
  * @author Matt Pearce (matt@flax.co.uk)
  */
@@ -27,6 +31,15 @@ public class PersistenceManager {
     private static final Logger LOGGER = LogManager.getLogger(PersistenceManager.class);
 
     private final List<PersistenceHandler> handlers = new ArrayList<>();
+    private final MetricsRegistry metrics;
+
+    public PersistenceManager() {
+        this(new MetricsRegistry());
+    }
+
+    public PersistenceManager(MetricsRegistry metrics) {
+        this.metrics = metrics;
+    }
 
     public void registerHandler(PersistenceHandler handler) {
         LOGGER.info("Registering handler " + handler.getName() + " -> " + handler.getClass().getCanonicalName());
@@ -34,6 +47,10 @@ public class PersistenceManager {
     }
 
     public void beforeStart() {
+        metrics.time("persistence.start", this::beforeStartHandlers);
+    }
+
+    private void beforeStartHandlers() {
         for (Iterator<PersistenceHandler> it = handlers.iterator(); it.hasNext(); ) {
             PersistenceHandler h = it.next();
             try {
@@ -49,6 +66,10 @@ public class PersistenceManager {
     }
 
     public void start() {
+        metrics.time("persistence.start", this::startHandlers);
+    }
+
+    private void startHandlers() {
         for (Iterator<PersistenceHandler> it = handlers.iterator(); it.hasNext(); ) {
             PersistenceHandler h = it.next();
             try {
@@ -69,14 +90,14 @@ public class PersistenceManager {
     }
 
     public void recordQuery(Query query) {
-        handlers.parallelStream().forEach(h -> h.recordQuery(query));
+        metrics.time("persistence.record", () -> handlers.parallelStream().forEach(h -> h.recordQuery(query)));
     }
 
     public void beforeStop() {
-        handlers.parallelStream().forEach(PersistenceHandler::beforeStop);
+        metrics.time("persistence.stop", () -> handlers.parallelStream().forEach(PersistenceHandler::beforeStop));
     }
 
     public void stop() {
-        handlers.parallelStream().forEach(PersistenceHandler::stop);
+        metrics.time("persistence.stop", () -> handlers.parallelStream().forEach(PersistenceHandler::stop));
     }
 }
@@ -0,0 +1,88 @@
+package io.sease.rre.core.domain.metrics.impl;
+
+import io.sease.rre.core.domain.metrics.LatencyLog;
+import io.sease.rre.core.domain.metrics.LatencySamples;
+import org.junit.Test;
+
+import java.util.List;
+
+import static io.sease.rre.core.TestData.A_VERSION;
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Latency metrics Test Case.
+ *
+ * @author agazzarini
+ * @since 1.0
+ */
+public class LatencyMetricTestCase {
+    /**
+     * The mean and the percentiles are computed over all the collected samples.
+     */
+    @Test
+    public void statisticsAreComputedOverAllSamples() {
+        final LatencySamples samples = new LatencySamples();
+        for (int latency = 100; latency >= 1; latency--) {
+            samples.collect(A_VERSION, latency * 1_000_000L);
+        }
+        final List<LatencyMetric> metrics = LatencyMetric.latencyMetrics(samples);
+
+        assertEquals(50.5, value(metrics, LatencyMetric.MEAN), 0);
+        assertEquals(50, value(metrics, LatencyMetric.P50), 0);
+        assertEquals(95, value(metrics, LatencyMetric.P95), 0);
+        assertEquals(99, value(metrics, LatencyMetric.P99), 0);
+    }
+
+    /**
+     * Above the query level, the statistics are computed over the ranges of the log which hold the samples, and they
+     * are the same computed over the samples themselves.
+     */
+    @Test
+    public void statisticsOfTheLogRangesAreExact() {
+        final LatencyLog log = new LatencyLog();
+        final LatencyLog.Ranges parent = log.ranges();
+        final LatencySamples all = new LatencySamples();
+        for (int latency = 100; latency >= 1; latency--) {
+            final int from = log.size(A_VERSION);
+            log.append(A_VERSION, latency * 1_000_000L);
+            all.collect(A_VERSION, latency * 1_000_000L);
+            // Samples of another entity, which are not part of the parent ranges
+            log.append(A_VERSION, 1_000_000_000L);
+            parent.add(A_VERSION, from, from + 1);
+        }
+        final List<LatencyMetric> metrics = LatencyMetric.latencyMetrics(parent);
+
+        assertEquals(100, parent.size(A_VERSION));
+        for (final String name : asList(LatencyMetric.MEAN, LatencyMetric.P50, LatencyMetric.P95, LatencyMetric.P99)) {
+            assertEquals(value(LatencyMetric.latencyMetrics(all), name), value(metrics, name), 0);
+        }
+        assertEquals(50.5, value(metrics, LatencyMetric.MEAN), 0);
+        assertEquals(95, value(metrics, LatencyMetric.P95), 0);
+    }
+
+    /**
+     * The statistics are views over the samples, so they reflect the samples collected later.
+     */
+    @Test
+    public void statisticsShareTheSameSamples() {
+        final LatencySamples samples = new LatencySamples();
+        final List<LatencyMetric> metrics = LatencyMetric.latencyMetrics(samples);
+        samples.collect(A_VERSION, 30_000_000L);
+        samples.collect(A_VERSION, 10_000_000L);
+
+        assertEquals(20, value(metrics, LatencyMetric.MEAN), 0);
+        assertEquals(10, value(metrics, LatencyMetric.P50), 0);
+        assertEquals(30, value(metrics, LatencyMetric.P99), 0);
+        assertTrue(metrics.stream().allMatch(metric -> metric.samples() == samples));
+    }
+
+    private double value(final List<LatencyMetric> metrics, final String name) {
+        return metrics.stream()
+                .filter(metric -> metric.getName().equals(name))
+                .findFirst()
+                .map(metric -> metric.valueFactory(A_VERSION).value().doubleValue())
+                .orElseThrow(IllegalArgumentException::new);
+    }
+}
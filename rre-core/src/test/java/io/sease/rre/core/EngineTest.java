@@ -0,0 +1,462 @@
+package io.sease.rre.core;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.sease.rre.core.benchmark.BenchmarkReport;
+import io.sease.rre.core.benchmark.LoadTestReport;
+import io.sease.rre.core.domain.Evaluation;
+import io.sease.rre.core.domain.Query;
+import io.sease.rre.core.domain.metrics.Metric;
+import io.sease.rre.core.instrumentation.MetricsRegistry;
+import io.sease.rre.core.domain.metrics.impl.LatencyMetric;
+import io.sease.rre.persistence.PersistenceConfiguration;
+import io.sease.rre.persistence.impl.JsonPersistenceHandler;
+import io.sease.rre.search.api.CacheStats;
+import io.sease.rre.search.api.IndexStats;
+import io.sease.rre.search.api.QueryOrSearchResponse;
+import io.sease.rre.search.api.SearchPlatform;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.*;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+import static java.util.Collections.singletonList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for the {@link Engine} class.
+ */
+public class EngineTest {
+
+    private static final String INDEX_NAME = "core1";
+    private static final String CORPUS_NAME = "corpus.json";
+    private static final long SERVER_LATENCY_MS = 3;
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    private File configurationsFolder;
+    private File corporaFolder;
+    private File ratingsFolder;
+    private File templatesFolder;
+
+    private CountingPlatform platform;
+
+    @Before
+    public void setUp() throws Exception {
+        configurationsFolder = tempFolder.newFolder("configuration_sets");
+        corporaFolder = tempFolder.newFolder("corpora");
+        ratingsFolder = tempFolder.newFolder("ratings");
+        templatesFolder = tempFolder.newFolder("templates");
+
+        new File(configurationsFolder, "v1.0/" + INDEX_NAME).mkdirs();
+        new File(configurationsFolder, "v1.1/" + INDEX_NAME).mkdirs();
+
+        write(new File(corporaFolder, CORPUS_NAME), "[{\"id\": \"1\"}]");
+        write(new File(templatesFolder, "only_q.json"), "{\"q\": \"$query\"}");
+
+        platform = new CountingPlatform();
+    }
+
+    @Test
+    public void evaluate_loadsEachTargetOnlyOnce_whenRatingsSetsShareTheSameIndex() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            write(new File(ratingsFolder, "ratings_" + i + ".json"), ratings("query" + i));
+        }
+
+        engine().evaluate(configuration());
+
+        assertEquals(2, platform.loads.size());
+        assertEquals(new HashSet<>(Arrays.asList("core1_v1.0", "core1_v1.1")), new HashSet<>(platform.loads));
+        assertEquals(10, platform.queries);
+    }
+
+    @Test
+    public void evaluate_reloadsTargets_whenRatingsSetsUseDifferentCorpora() throws Exception {
+        write(new File(corporaFolder, "another_corpus.json"), "[{\"id\": \"2\"}]");
+        write(new File(ratingsFolder, "ratings_1.json"), ratings("query1"));
+        write(new File(ratingsFolder, "ratings_2.json"), ratings("query2").replace(CORPUS_NAME, "another_corpus.json"));
+
+        engine().evaluate(configuration());
+
+        assertEquals(4, platform.loads.size());
+    }
+
+    @Test
+    public void evaluate_reloadsTargets_whenAnotherCorpusHasBeenLoadedInTheMeantime() throws Exception {
+        write(new File(corporaFolder, "another_corpus.json"), "[{\"id\": \"2\"}]");
+        write(new File(ratingsFolder, "ratings_1.json"), ratings("query1"));
+        write(new File(ratingsFolder, "ratings_2.json"), ratings("query2").replace(CORPUS_NAME, "another_corpus.json"));
+        write(new File(ratingsFolder, "ratings_3.json"), ratings("query3"));
+
+        engine().evaluate(configuration());
+
+        assertEquals(6, platform.loads.size());
+        final List<String> corpora = new ArrayList<>();
+        platform.corpora.forEach(corpus -> corpora.add(corpus.getName()));
+        assertEquals(
+                Arrays.asList(CORPUS_NAME, CORPUS_NAME, "another_corpus.json", "another_corpus.json", CORPUS_NAME, CORPUS_NAME),
+                corpora);
+    }
+
+    @Test
+    public void evaluate_extractsCompressedCorpora_whenPlatformCannotReadThem() throws Exception {
+        try (final OutputStream out = new GZIPOutputStream(new FileOutputStream(new File(corporaFolder, CORPUS_NAME + ".gz")))) {
+            out.write("[{\"id\": \"1\"}]".getBytes(StandardCharsets.UTF_8));
+        }
+        write(new File(ratingsFolder, "ratings_1.json"), ratings("query1").replace(CORPUS_NAME, CORPUS_NAME + ".gz"));
+
+        final Evaluation evaluation = engine().evaluate(configuration());
+
+        assertEquals(2, platform.corpora.size());
+        platform.corpora.forEach(corpus -> {
+            assertEquals(CORPUS_NAME, corpus.getName());
+            assertTrue(corpus.canRead());
+        });
+        assertEquals(CORPUS_NAME, evaluation.getChildren().get(0).getName());
+    }
+
+    @Test
+    public void evaluate_accountsFailedQueriesSeparately() throws Exception {
+        write(new File(ratingsFolder, "ratings_1.json"), ratings("query1"));
+        write(new File(ratingsFolder, "ratings_2.json"), ratings("query2"));
+        platform.failures.add("query2");
+
+        final Evaluation evaluation = engine().evaluate(configuration());
+
+        assertEquals(1, evaluation.getFailedQueries().get("v1.0").intValue());
+        assertEquals(1, evaluation.getFailedQueries().get("v1.1").intValue());
+        // Failed queries don't count as queries without results
+        assertEquals(BigDecimal.ONE, evaluation.getMetrics().get("P@1").getVersions().get("v1.0").value().stripTrailingZeros());
+    }
+
+    @Test
+    public void evaluate_aggregatesQueryLatencies() throws Exception {
+        write(new File(ratingsFolder, "ratings_1.json"), ratings("query1"));
+        write(new File(ratingsFolder, "ratings_2.json"), ratings("query2"));
+
+        final Evaluation evaluation = engine().evaluate(configuration());
+
+        final Query query = (Query) evaluation.getChildren().get(0).getChildren().get(0).getChildren().get(0).getChildren().get(0);
+        assertEquals(Long.valueOf(SERVER_LATENCY_MS), query.getResults().get("v1.0").serverLatencyMs());
+        assertNotNull(query.getResults().get("v1.0").clientLatencyMs());
+
+        final LatencyMetric p95 = (LatencyMetric) evaluation.getMetrics().get(LatencyMetric.P95);
+        assertEquals(2, p95.samples().size("v1.0"));
+        assertEquals(2, p95.samples().size("v1.1"));
+        assertTrue(evaluation.getMetrics().containsKey("P@1"));
+    }
+
+    @Test
+    public void evaluate_persistsTheHitsAppendedToTheHitStore() throws Exception {
+        write(new File(ratingsFolder, "ratings_1.json"), ratings("query1"));
+        final File hitStoreFolder = new File(tempFolder.getRoot(), "hits");
+
+        final Map<String, Object> configuration = configuration();
+        configuration.put(Engine.HIT_STORE_FOLDER, hitStoreFolder.getAbsolutePath());
+        final Evaluation evaluation = engine().evaluate(configuration);
+
+        // The returned evaluation can be written out (like the evaluate mojos do) until it is closed
+        final ObjectMapper mapper = new ObjectMapper();
+        final JsonNode written = mapper.readTree(mapper.writeValueAsBytes(evaluation));
+        evaluation.close();
+
+        for (final JsonNode evaluationNode : Arrays.asList(mapper.readTree(new File(JsonPersistenceHandler.DEFAULT_OUTPUT_FILE)), written)) {
+            final JsonNode query = evaluationNode.at("/corpora/0/topics/0/query-groups/0/query-evaluations/0");
+            for (final String version : Arrays.asList("v1.0", "v1.1")) {
+                final JsonNode hit = query.get("results").get(version).get("hits").get(0);
+                assertEquals("1", hit.get("id").asText());
+                assertEquals(3, hit.get("_gain").asInt());
+            }
+        }
+        assertEquals(0, hitStoreFolder.listFiles().length);
+    }
+
+    @Test
+    public void evaluate_addsIndexStatsToTheCorpusMetrics() throws Exception {
+        write(new File(ratingsFolder, "ratings_1.json"), ratings("query1"));
+
+        final Evaluation evaluation = engine().evaluate(configuration());
+
+        final Map<String, Metric> metrics = evaluation.getChildren().get(0).getMetrics();
+        assertEquals(0, new BigDecimal(1).compareTo(metrics.get(IndexStats.DOCS).valueFactory("v1.0").value()));
+        assertEquals(0, new BigDecimal(1).compareTo(metrics.get(IndexStats.DOCS).valueFactory("v1.1").value()));
+        assertTrue(metrics.containsKey(IndexStats.LOAD_TIME_MS));
+
+        final List<String> names = new ArrayList<>(metrics.keySet());
+        assertTrue(names.indexOf("P@1") < names.indexOf(IndexStats.DOCS));
+        assertTrue(evaluation.getChildren().get(0).getChildren().get(0).getMetrics().keySet().stream().noneMatch(IndexStats.DOCS::equals));
+    }
+
+    @Test
+    public void evaluate_addsTheQueryPhaseCacheStatsToTheCorpusMetrics() throws Exception {
+        write(new File(ratingsFolder, "ratings_1.json"), ratings("query1"));
+        platform.queries = 10;
+
+        final Evaluation evaluation = engine().evaluate(configuration());
+
+        final Map<String, Metric> metrics = evaluation.getChildren().get(0).getMetrics();
+        final Metric hitRatio = metrics.get("filterCache " + CacheStats.HIT_RATIO);
+        assertEquals(0, new BigDecimal("0.5").compareTo(hitRatio.valueFactory("v1.0").value()));
+        assertEquals(0, new BigDecimal("0.5").compareTo(hitRatio.valueFactory("v1.1").value()));
+        assertEquals(0, new BigDecimal(12).compareTo(metrics.get("filterCache " + CacheStats.SIZE).valueFactory("v1.0").value()));
+    }
+
+    @Test
+    public void evaluate_summarisesTheCacheStatsOfAllRatingsSets_whenTheyShareTheSameCorpus() throws Exception {
+        write(new File(ratingsFolder, "ratings_1.json"), ratings("query1"));
+        write(new File(ratingsFolder, "ratings_2.json"), ratings("query2"));
+        platform.cached.add("query1");
+
+        final Evaluation evaluation = engine().evaluate(configuration());
+
+        // query1 hits the cache on both versions, query2 doesn't: 2 hits out of 4 lookups
+        assertEquals(1, evaluation.getChildren().size());
+        final Metric hitRatio = evaluation.getChildren().get(0).getMetrics().get("filterCache " + CacheStats.HIT_RATIO);
+        assertEquals(0, new BigDecimal("0.5").compareTo(hitRatio.valueFactory("v1.0").value()));
+        assertEquals(0, new BigDecimal("0.5").compareTo(hitRatio.valueFactory("v1.1").value()));
+    }
+
+    @Test
+    public void evaluate_profilesTheSlowestQueriesOfEachVersion() throws Exception {
+        write(new File(ratingsFolder, "ratings_1.json"), ratings("query1"));
+        write(new File(ratingsFolder, "ratings_2.json"), ratings("query2"));
+        platform.slow.add("query2");
+
+        final Map<String, Object> configuration = configuration();
+        configuration.put(Engine.PROFILE_QUERIES, 1);
+        configuration.put(Engine.PROFILE_STRATEGY, "slowest");
+        final Evaluation evaluation = engine().evaluate(configuration);
+
+        final List<Query> queries = evaluation.getChildren().get(0).getChildren().get(0).getChildren().get(0).getChildren();
+        assertEquals(2, queries.size());
+        for (final Query query : queries) {
+            for (final String version : Arrays.asList("v1.0", "v1.1")) {
+                if (query.getName().equals("query2")) {
+                    assertEquals(1.5, query.getResults().get(version).profile().get("process.query").doubleValue(), 0);
+                } else {
+                    assertNull(query.getResults().get(version).profile());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void evaluate_writesThePhaseBreakdown() throws Exception {
+        write(new File(ratingsFolder, "ratings_1.json"), ratings("query1"));
+        write(new File(ratingsFolder, "ratings_2.json"), ratings("query2"));
+        platform.failures.add("query2");
+
+        final Engine engine = engine();
+        engine.evaluate(configuration());
+
+        final MetricsRegistry metrics = engine.getEngineMetrics();
+        assertEquals(1, metrics.getTimers().get("evaluation").getCount());
+        assertEquals(4, metrics.getTimers().get("query.execute").getCount());
+        assertEquals(2, metrics.getTimers().get("platform.load").getCount());
+        assertEquals(2, metrics.getTimers().get("ratings.parse").getCount());
+        assertEquals(2, metrics.getTimers().get("persistence.record").getCount());
+        assertEquals(Long.valueOf(4), metrics.getCounters().get("queries.executed"));
+        assertEquals(Long.valueOf(2), metrics.getCounters().get("queries.failed"));
+        assertEquals(2, metrics.getGauges().get("versions").intValue());
+
+        final JsonNode report = new ObjectMapper().readTree(new File(tempFolder.getRoot(), "engine-metrics.json"));
+        assertEquals(4, report.get("timers").get("query.execute").get("count").asInt());
+        assertTrue(report.get("timers").has("persistence.stop"));
+    }
+
+    @Test
+    public void benchmark_executesEachQueryOncePerIteration() throws Exception {
+        write(new File(ratingsFolder, "ratings_1.json"), ratings("query1"));
+        write(new File(ratingsFolder, "ratings_2.json"), ratings("query2"));
+        platform.failures.add("query2");
+
+        final BenchmarkReport report = engine().benchmark(configuration(), 2, 5);
+
+        // 2 queries * 2 versions * (2 warmup + 5 measured iterations)
+        assertEquals(28, platform.queries);
+        assertEquals(new HashSet<>(Arrays.asList("v1.0", "v1.1")), report.getVersions().keySet());
+        report.getVersions().values().forEach(version -> {
+            assertEquals(5, version.failures());
+            assertEquals(5, version.latency().getCount());
+        });
+
+        final File output = new File(tempFolder.getRoot(), "rre/benchmark.json");
+        report.write(output);
+        assertTrue(output.length() > 0);
+    }
+
+    @Test
+    public void loadTest_sendsQueriesAtTheTargetRate() throws Exception {
+        write(new File(ratingsFolder, "ratings_1.json"), ratings("query1"));
+        write(new File(ratingsFolder, "ratings_2.json"), ratings("query2"));
+        platform.failures.add("query2");
+
+        final long start = System.nanoTime();
+        final LoadTestReport report = engine().loadTest(configuration(), 40, 2, 1);
+        final long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        // Open loop: 40 requests per version, evenly spaced over one second
+        assertTrue(elapsedMs >= 1900);
+        assertEquals(new HashSet<>(Arrays.asList("v1.0", "v1.1")), report.getVersions().keySet());
+        report.getVersions().values().forEach(version -> {
+            assertEquals(20, version.errors());
+            assertEquals(20, version.latency().getCount());
+            assertEquals(20, version.serviceTime().getCount());
+            assertEquals(0.5, version.errorRate().doubleValue(), 0);
+            assertTrue(version.latency().getMax().compareTo(version.serviceTime().getMax()) >= 0);
+        });
+    }
+
+    private Engine engine() {
+        return new Engine(
+                platform,
+                configurationsFolder.getAbsolutePath(),
+                corporaFolder.getAbsolutePath(),
+                ratingsFolder.getAbsolutePath(),
+                templatesFolder.getAbsolutePath(),
+                singletonList("io.sease.rre.core.domain.metrics.impl.PrecisionAtOne"),
+                new String[]{"*", "score"},
+                null,
+                null,
+                null,
+                PersistenceConfiguration.DEFAULT_CONFIG);
+    }
+
+    private Map<String, Object> configuration() {
+        final Map<String, Object> configuration = new HashMap<>();
+        configuration.put("forceRefresh", false);
+        configuration.put(Engine.ENGINE_METRICS_FILE, new File(tempFolder.getRoot(), "engine-metrics.json").getAbsolutePath());
+        return configuration;
+    }
+
+    private String ratings(final String query) {
+        return "{" +
+                "\"index\": \"" + INDEX_NAME + "\"," +
+                "\"corpora_file\": \"" + CORPUS_NAME + "\"," +
+                "\"id_field\": \"id\"," +
+                "\"topics\": [{" +
+                "  \"description\": \"A topic\"," +
+                "  \"query_groups\": [{" +
+                "    \"name\": \"A group\"," +
+                "    \"queries\": [{\"template\": \"only_q.json\", \"placeholders\": {\"$query\": \"" + query + "\"}}]," +
+                "    \"relevant_documents\": {\"1\": {\"gain\": 3}}" +
+                "  }]" +
+                "}]" +
+                "}";
+    }
+
+    private void write(final File file, final String content) throws IOException {
+        try (final PrintWriter pw = new PrintWriter(new FileWriter(file))) {
+            pw.println(content);
+        }
+    }
+
+    /**
+     * A search platform which always requires a refresh, and records the load requests it receives.
+     */
+    private static class CountingPlatform implements SearchPlatform {
+        private final List<String> loads = new ArrayList<>();
+        private final List<File> corpora = new ArrayList<>();
+        private final Set<String> failures = new HashSet<>();
+        private final Set<String> slow = new HashSet<>();
+        private final Set<String> cached = new HashSet<>();
+        private int queries;
+        private int hits;
+
+        @Override
+        public void beforeStart(final Map<String, Object> configuration) {
+        }
+
+        @Override
+        public void load(final File corpus, final File configFolder, final String targetIndexName) {
+            loads.add(targetIndexName);
+            corpora.add(corpus);
+        }
+
+        @Override
+        public void start() {
+        }
+
+        @Override
+        public void afterStart() {
+        }
+
+        @Override
+        public void beforeStop() {
+        }
+
+        @Override
+        public QueryOrSearchResponse executeQuery(final String indexName, final String query, final String[] fields, final int maxRows) {
+            queries++;
+            if (cached.stream().anyMatch(query::contains)) {
+                hits++;
+            }
+            if (slow.stream().anyMatch(query::contains)) {
+                try {
+                    TimeUnit.MILLISECONDS.sleep(20);
+                } catch (final InterruptedException exception) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            if (failures.stream().anyMatch(query::contains)) {
+                return QueryOrSearchResponse.failed("Query rejected");
+            }
+            return new QueryOrSearchResponse(1, singletonList(new HashMap<>(Collections.singletonMap("id", "1"))), SERVER_LATENCY_MS);
+        }
+
+        @Override
+        public Map<String, Number> indexStats(final String indexName) {
+            return Collections.singletonMap(IndexStats.DOCS, corpora.isEmpty() ? 0 : 1);
+        }
+
+        @Override
+        public Map<String, Map<String, Number>> cacheStats(final String indexName) {
+            final Map<String, Number> stats = new HashMap<>();
+            stats.put(CacheStats.LOOKUPS, queries);
+            // Unless some queries are marked as cached, half of the lookups are hits
+            stats.put(CacheStats.HITS, cached.isEmpty() ? queries / 2 : hits);
+            stats.put(CacheStats.SIZE, queries);
+            return Collections.singletonMap("filterCache", stats);
+        }
+
+        @Override
+        public Map<String, Number> profile(final String indexName, final String query, final String[] fields, final int maxRows) {
+            return Collections.singletonMap("process.query", 1.5);
+        }
+
+        @Override
+        public String getName() {
+            return "Counting platform";
+        }
+
+        @Override
+        public boolean isRefreshRequired() {
+            return true;
+        }
+
+        @Override
+        public boolean isSearchPlatformFile(final String indexName, final File file) {
+            return file.isDirectory() && file.getName().equals(indexName);
+        }
+
+        @Override
+        public boolean isCorporaRequired() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
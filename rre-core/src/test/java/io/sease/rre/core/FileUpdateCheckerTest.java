@@ -69,6 +69,65 @@ public class FileUpdateCheckerTest {
         assertFalse(checker.directoryHasChanged(existingDirPath));
     }
 
+    @Test
+    public void directoryHasChanged_returnsTrueForModifiedFileInDirectory() throws Exception {
+        File checksumFile = tempFolder.newFile("checksums.csv");
+
+        Map<String, String> checksums = initialiseChecksumFile(checksumFile, 1);
+        String existingDirPath = checksums.keySet().iterator().next();
+        File existingFile = new File(existingDirPath, "tmp.txt");
+        try (final PrintWriter pw = new PrintWriter(new FileWriter(existingFile))) {
+            pw.println("Modified");
+        }
+        existingFile.setLastModified(existingFile.lastModified() + 10000);
+
+        FileUpdateChecker checker = new FileUpdateChecker(checksumFile.getAbsolutePath());
+
+        assertTrue(checker.directoryHasChanged(existingDirPath));
+    }
+
+    @Test
+    public void directoryHasChanged_returnsFalseWhenReloadedFromManifest() throws Exception {
+        File checksumFile = tempFolder.newFile("checksums.csv");
+        File testDir = tempFolder.newFolder();
+        try (final PrintWriter pw = new PrintWriter(new FileWriter(new File(testDir, "tmp.txt")))) {
+            pw.println("Test");
+        }
+
+        FileUpdateChecker checker = new FileUpdateChecker(checksumFile.getAbsolutePath());
+        assertTrue(checker.directoryHasChanged(testDir.getAbsolutePath()));
+        checker.writeChecksums();
+
+        assertTrue(new File(checksumFile.getAbsolutePath() + FileUpdateChecker.MANIFEST_SUFFIX).exists());
+
+        FileUpdateChecker reloaded = new FileUpdateChecker(checksumFile.getAbsolutePath());
+        assertFalse(reloaded.directoryHasChanged(testDir.getAbsolutePath()));
+    }
+
+    @Test
+    public void directoryHasChanged_skipsFilesWithUnchangedMetadata() throws Exception {
+        File checksumFile = tempFolder.newFile("checksums.csv");
+        File testDir = tempFolder.newFolder();
+        File testFile = new File(testDir, "tmp.txt");
+        try (final PrintWriter pw = new PrintWriter(new FileWriter(testFile))) {
+            pw.println("AAAA");
+        }
+
+        FileUpdateChecker checker = new FileUpdateChecker(checksumFile.getAbsolutePath());
+        checker.directoryHasChanged(testDir.getAbsolutePath());
+        checker.writeChecksums();
+
+        // Same size and modification time: the file must not be read again
+        long lastModified = testFile.lastModified();
+        try (final PrintWriter pw = new PrintWriter(new FileWriter(testFile))) {
+            pw.println("BBBB");
+        }
+        testFile.setLastModified(lastModified);
+
+        FileUpdateChecker reloaded = new FileUpdateChecker(checksumFile.getAbsolutePath());
+        assertFalse(reloaded.directoryHasChanged(testDir.getAbsolutePath()));
+    }
+
     private Map<String, String> initialiseChecksumFile(File checksumFile, int testDirCount) throws IOException {
         Map<String, String> checksums = new HashMap<>();
         for (int i = 0; i < testDirCount; i ++) {
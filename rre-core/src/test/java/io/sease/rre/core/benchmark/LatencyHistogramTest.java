@@ -0,0 +1,49 @@
+package io.sease.rre.core.benchmark;
+
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for the {@link LatencyHistogram} class.
+ */
+public class LatencyHistogramTest {
+
+    @Test
+    public void bucketsAreContiguous() {
+        for (long value = 0; value < 1_000_000; value++) {
+            final int index = LatencyHistogram.index(value);
+            assertTrue(value <= LatencyHistogram.highestEquivalentValue(index));
+            assertTrue(index == 0 || value > LatencyHistogram.highestEquivalentValue(index - 1));
+        }
+    }
+
+    @Test
+    public void percentilesAreAccurateWithinTheBucketPrecision() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        for (int millis = 1; millis <= 1000; millis++) {
+            histogram.record(TimeUnit.MILLISECONDS.toNanos(millis));
+        }
+
+        assertEquals(1000, histogram.getCount());
+        assertEquals(new BigDecimal("1.000"), histogram.getMin());
+        assertEquals(new BigDecimal("1000.000"), histogram.getMax());
+        assertEquals(500.5, histogram.getMean().doubleValue(), 0.001);
+        assertEquals(500, histogram.getP50().doubleValue(), 500 * 0.016);
+        assertEquals(990, histogram.getP99().doubleValue(), 990 * 0.016);
+        assertTrue(histogram.getP99().compareTo(histogram.getMax()) <= 0);
+    }
+
+    @Test
+    public void emptyHistogramReportsZero() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getP95().signum());
+        assertTrue(histogram.getDistribution().isEmpty());
+    }
+}
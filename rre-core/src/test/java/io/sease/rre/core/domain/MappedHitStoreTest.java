@@ -0,0 +1,107 @@
+package io.sease.rre.core.domain;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * {@link MappedHitStore} test case.
+ *
+ * @author agazzarini
+ * @since 1.0
+ */
+public class MappedHitStoreTest {
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    private MappedHitStore cut;
+
+    @Before
+    public void setUp() {
+        cut = new MappedHitStore(tempFolder.getRoot(), 256);
+    }
+
+    @After
+    public void tearDown() {
+        cut.close();
+    }
+
+    @Test
+    public void storedHitsAreReadBack() {
+        final Map<String, Object> relevant = hit("1", "A relevant document");
+        relevant.put("_isRelevant", true);
+        relevant.put("_gain", 3);
+        final Map<String, Object> notRelevant = hit("2", "Another document");
+
+        final long first = cut.append(relevant, 1);
+        final long second = cut.append(notRelevant, 2);
+
+        assertEquals(relevant, cut.read(first));
+        assertEquals(notRelevant, cut.read(second));
+        assertEquals(1, cut.rank(first));
+        assertEquals(3, cut.gain(first));
+        assertEquals(2, cut.rank(second));
+        assertEquals(-1, cut.gain(second));
+    }
+
+    @Test
+    public void hitsSpanSeveralSegments() {
+        final List<Long> offsets = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            offsets.add(cut.append(hit(String.valueOf(i), "Document " + i), i + 1));
+        }
+
+        for (int i = 0; i < 100; i++) {
+            assertEquals(hit(String.valueOf(i), "Document " + i), cut.read(offsets.get(i)));
+            assertEquals(i + 1, cut.rank(offsets.get(i)));
+        }
+        assertTrue(cut.getFile().length() > 256);
+    }
+
+    @Test
+    public void responseReadsItsHitsFromTheStore() {
+        final MutableQueryOrSearchResponse response = new MutableQueryOrSearchResponse(cut);
+        for (int i = 0; i < 15; i++) {
+            response.collect(hit(String.valueOf(i), "Document " + i), i + 1, "v1.0");
+        }
+
+        assertEquals(15, response.hits().size());
+        assertEquals(hit("14", "Document 14"), response.hits().get(14));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void hitsLargerThanASegmentAreRejected() {
+        final StringBuilder title = new StringBuilder();
+        for (int i = 0; i < 300; i++) {
+            title.append('x');
+        }
+        cut.append(hit("1", title.toString()), 1);
+    }
+
+    @Test
+    public void fileIsDeletedOnClose() {
+        cut.append(hit("1", "A document"), 1);
+        cut.close();
+
+        assertFalse(cut.getFile().exists());
+    }
+
+    private Map<String, Object> hit(final String id, final String title) {
+        final Map<String, Object> hit = new LinkedHashMap<>();
+        hit.put("id", id);
+        hit.put("title", title);
+        hit.put("score", 1.5);
+        return hit;
+    }
+}
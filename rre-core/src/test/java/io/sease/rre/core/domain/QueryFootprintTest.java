@@ -0,0 +1,208 @@
+package io.sease.rre.core.domain;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.sease.rre.core.domain.metrics.Metric;
+import io.sease.rre.core.domain.metrics.impl.*;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.openjdk.jol.info.GraphLayout;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.IntStream.range;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Measures the retained heap of a {@link Query} evaluation (i.e. its metrics, the per-version value factories and
+ * the collected hits), for a range of versions, metrics and hits per query, and checks it against the budgets
+ * recorded in footprint-budgets.properties (bytes per query, keyed by versions.metrics.hits, with a "notified."
+ * prefix for the queries whose metrics have been notified).
+ * When the domain model footprint changes on purpose, the budgets must be recorded again: the measured values of all
+ * scenarios are reported in the failure message.
+ */
+public class QueryFootprintTest {
+    private final static int QUERIES = 20;
+    private final static int JUDGED_DOCS = 10;
+
+    private final static int[] VERSIONS = {1, 4, 8};
+    private final static int[] METRICS = {1, 10};
+    private final static int[] HITS = {10, 50};
+    private final static String NOTIFIED = "notified.";
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    @Test
+    public void queryFootprintIsWithinTheRecordedBudget() throws Exception {
+        assertWithinBudget("", false);
+    }
+
+    /**
+     * Once notified, the metric values of a query are moved into the {@link io.sease.rre.core.domain.metrics.MetricsStore}
+     * of its tree: the footprint includes the query share of the store.
+     */
+    @Test
+    public void notifiedQueryFootprintIsWithinTheRecordedBudget() throws Exception {
+        assertWithinBudget(NOTIFIED, true);
+    }
+
+    /**
+     * The metrics of a notified query (i.e. its share of the store) cost a fraction of the collected ones.
+     */
+    @Test
+    public void notifiedQueriesReleaseTheirMetrics() {
+        final long collected = bytesPerQuery(4, 10, 10, null, false);
+        final long notified = bytesPerQuery(4, 10, 10, null, true);
+        final long collectedMetrics = collected - bytesPerQuery(4, 1, 10, null, false);
+        final long notifiedMetrics = notified - bytesPerQuery(4, 1, 10, null, true);
+
+        final String message =
+                "Query footprint (4 versions, 10 metrics, 10 hits): " + collected + " bytes/query collected (" + collectedMetrics + " for 9 additional metrics), "
+                        + notified + " bytes/query notified (" + notifiedMetrics + " for 9 additional metrics)";
+        assertTrue(message, notified < collected);
+        assertTrue(message, notifiedMetrics * 3 < collectedMetrics);
+    }
+
+    @Test
+    public void footprintGrowsWithTheCollectedHits() {
+        assertTrue(bytesPerQuery(1, 1, 50, null, false) > bytesPerQuery(1, 1, 10, null, false));
+    }
+
+    @Test
+    public void hitStoreKeepsTheCollectedHitsOffHeap() {
+        try (final MappedHitStore hitStore = new MappedHitStore(tempFolder.getRoot())) {
+            final long onHeap = bytesPerQuery(4, 10, 50, null, false);
+            final long offHeap = bytesPerQuery(4, 10, 50, hitStore, false);
+
+            assertTrue(
+                    "Query footprint (4 versions, 10 metrics, 50 hits): " + onHeap + " bytes/query on heap, " + offHeap + " bytes/query with the hit store",
+                    offHeap * 4 < onHeap);
+        }
+    }
+
+    /**
+     * Measures the footprint of all scenarios and checks it against the recorded budgets.
+     *
+     * @param prefix   the prefix of the budget keys.
+     * @param notified true if the queries are notified before being measured.
+     */
+    private void assertWithinBudget(final String prefix, final boolean notified) throws Exception {
+        final Properties budgets = new Properties();
+        try (final InputStream stream = getClass().getResourceAsStream("/footprint-budgets.properties")) {
+            budgets.load(stream);
+        }
+
+        final StringBuilder report = new StringBuilder(String.format("%n%10s %10s %10s %14s %14s", "versions", "metrics", "hits", "bytes/query", "budget"));
+        final List<String> overBudget = new ArrayList<>();
+        for (final int versions : VERSIONS) {
+            for (final int metrics : METRICS) {
+                for (final int hits : HITS) {
+                    final String scenario = prefix + versions + "." + metrics + "." + hits;
+                    final long footprint = bytesPerQuery(versions, metrics, hits, null, notified);
+                    final String budget = budgets.getProperty(scenario);
+
+                    report.append(String.format("%n%10d %10d %10d %14d %14s", versions, metrics, hits, footprint, budget));
+                    if (budget == null || footprint > Long.parseLong(budget)) {
+                        overBudget.add(scenario + " => " + footprint + " bytes/query (budget " + budget + ")");
+                    }
+                }
+            }
+        }
+
+        if (!overBudget.isEmpty()) {
+            fail("Query footprint exceeds the recorded budget: " + overBudget + report);
+        }
+    }
+
+    /**
+     * Returns the average retained heap of a query evaluation, measured over a set of queries which share the same
+     * judgments (like the queries of a query group). The judgments are excluded from the measure.
+     * Notified queries are created under a {@link QueryGroup}, which is measured as well: the measure includes the
+     * {@link io.sease.rre.core.domain.metrics.MetricsStore} (and the latency log) of the group, which hold the values
+     * of the notified queries.
+     *
+     * @param versions the number of versions.
+     * @param metrics  the number of metrics.
+     * @param hits     the number of hits collected for each version.
+     * @param hitStore the store where the hits are appended, null if the hits are kept on heap.
+     * @param notified true if the collected metrics of each query are notified.
+     * @return the average retained heap of a query evaluation, in bytes.
+     */
+    private long bytesPerQuery(final int versions, final int metrics, final int hits, final MappedHitStore hitStore, final boolean notified) {
+        final List<String> versionNames = range(0, versions).mapToObj(index -> "v1." + index).collect(toList());
+
+        final ObjectNode judgments = new ObjectMapper().createObjectNode();
+        range(0, JUDGED_DOCS).forEach(index -> judgments.putObject(String.valueOf(index * 2)).put("gain", 1 + index % 3));
+
+        final QueryGroup group = new QueryGroup();
+        group.setName("group");
+        final List<Query> queries = new ArrayList<>();
+        for (int index = 0; index < QUERIES; index++) {
+            final Query query = notified ? group.findOrCreate("query " + index, Query::new) : new Query();
+            query.setName("query " + index);
+            query.setRelevantDocuments(judgments);
+            query.setHitStore(hitStore);
+            query.prepare(metrics(metrics, judgments, versionNames));
+
+            for (final String version : versionNames) {
+                query.setTotalHits(hits * 10, version);
+                for (int rank = 1; rank <= hits; rank++) {
+                    query.collect(hit(index * hits + rank), rank, version);
+                }
+                query.setLatency(3, 3_500_000, version);
+            }
+            if (notified) {
+                query.notifyCollectedMetrics();
+            }
+            queries.add(query);
+        }
+
+        final long total = GraphLayout.parseInstance(notified ? new Object[]{group} : queries.toArray()).totalSize();
+        final long shared =
+                (hitStore == null
+                        ? GraphLayout.parseInstance(judgments)
+                        : GraphLayout.parseInstance(judgments, hitStore)).totalSize();
+        return (total - shared) / QUERIES;
+    }
+
+    private List<Metric> metrics(final int howMany, final ObjectNode judgments, final List<String> versions) {
+        final List<Metric> metrics =
+                howMany == 1
+                        ? singletonList(new Precision())
+                        : asList(
+                        new Precision(),
+                        new Recall(),
+                        new PrecisionAtOne(),
+                        new PrecisionAtTwo(),
+                        new PrecisionAtThree(),
+                        new PrecisionAtTen(),
+                        new ReciprocalRank(),
+                        new AveragePrecision(),
+                        new NDCGAtTen(),
+                        new F1());
+        metrics.forEach(metric -> {
+            metric.setRelevantDocuments(judgments);
+            metric.setVersions(versions);
+        });
+        return metrics;
+    }
+
+    private Map<String, Object> hit(final int id) {
+        final Map<String, Object> hit = new HashMap<>();
+        hit.put("id", String.valueOf(id % 40));
+        hit.put("title", "Document " + id);
+        hit.put("score", 1.5f);
+        return hit;
+    }
+}
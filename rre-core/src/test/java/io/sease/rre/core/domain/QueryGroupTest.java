@@ -0,0 +1,72 @@
+package io.sease.rre.core.domain;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.sease.rre.core.domain.metrics.Metric;
+import io.sease.rre.core.domain.metrics.impl.LatencyMetric;
+import io.sease.rre.core.domain.metrics.impl.Precision;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static io.sease.rre.core.TestData.A_VERSION;
+import static java.util.Collections.singletonList;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * {@link QueryGroup} test case.
+ *
+ * @author agazzarini
+ * @since 1.0
+ */
+public class QueryGroupTest {
+    private QueryGroup cut;
+    private ObjectNode judgments;
+
+    @Before
+    public void setUp() {
+        cut = new QueryGroup();
+        cut.setName("group");
+
+        judgments = new ObjectMapper().createObjectNode();
+        judgments.putObject("1").put("gain", 3);
+    }
+
+    /**
+     * A query listed twice in the same group is evaluated (and notified) twice: the group aggregates both
+     * evaluations, while the query reports the last one.
+     */
+    @Test
+    public void duplicateQueriesAreAggregatedOnce_forEachEvaluation() {
+        evaluate("fender", "1", 2_000_000);
+        evaluate("fender", "2", 4_000_000);
+
+        assertEquals(1, cut.getChildren().size());
+        assertEquals(0, value(cut.getChildren().get(0).getMetrics(), "P"), 0);
+        assertEquals(0.5, value(cut.getMetrics(), "P"), 0);
+        assertEquals(3, value(cut.getMetrics(), LatencyMetric.MEAN), 0);
+    }
+
+    private void evaluate(final String queryString, final String hitId, final long latencyNanos) {
+        final Query query = cut.findOrCreate(queryString, Query::new);
+        query.setRelevantDocuments(judgments);
+
+        final Metric precision = new Precision();
+        precision.setRelevantDocuments(judgments);
+        precision.setVersions(singletonList(A_VERSION));
+        query.prepare(singletonList(precision));
+
+        final Map<String, Object> hit = new HashMap<>();
+        hit.put("id", hitId);
+        query.setTotalHits(1, A_VERSION);
+        query.collect(hit, 1, A_VERSION);
+        query.setLatency(1, latencyNanos, A_VERSION);
+        query.notifyCollectedMetrics();
+    }
+
+    private double value(final Map<String, Metric> metrics, final String name) {
+        return metrics.get(name).valueFactory(A_VERSION).value().doubleValue();
+    }
+}
@@ -0,0 +1,88 @@
+package io.sease.rre.core.domain.metrics;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.Random;
+
+import static io.sease.rre.Calculator.divide;
+import static io.sease.rre.Calculator.sum;
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * {@link MetricsStore} test case.
+ *
+ * @author agazzarini
+ * @since 1.0
+ */
+public class MetricsStoreTest {
+    private MetricsStore cut;
+
+    @Before
+    public void setUp() {
+        cut = new MetricsStore();
+    }
+
+    /**
+     * The mean computed by the store must be the same computed with {@link BigDecimal} arithmetic.
+     */
+    @Test
+    public void meanIsTheSameComputedWithBigDecimals() {
+        final int root = cut.addRow(-1);
+        final int child = cut.addRow(root);
+
+        final Random random = new Random(42);
+        BigDecimal expected = BigDecimal.ZERO;
+        final int samples = 200_000;
+        for (int i = 0; i < samples; i++) {
+            final BigDecimal value = BigDecimal.valueOf(random.nextInt(10_001), 4);
+            expected = sum(expected, value);
+            cut.collect(child, "P", "v1.0", value);
+        }
+
+        assertEquals(divide(expected, samples), value(child, "P", "v1.0"));
+        assertEquals(divide(expected, samples), value(root, "P", "v1.0"));
+    }
+
+    @Test
+    public void exactValuesAreNotPropagated() {
+        final int root = cut.addRow(-1);
+        final int query = cut.addRow(root);
+
+        cut.set(query, "RR", "v1.0", BigDecimal.ONE);
+        cut.set(query, "P", "v1.0", new BigDecimal("0.3333"));
+
+        assertEquals(BigDecimal.ONE, value(query, "RR", "v1.0"));
+        assertEquals(new BigDecimal("0.3333"), value(query, "P", "v1.0"));
+        assertTrue(cut.metrics(root).isEmpty());
+    }
+
+    @Test
+    public void metricsOnlyIncludeTheCollectedValues() {
+        final int root = cut.addRow(-1);
+        final int first = cut.addRow(root);
+        final int second = cut.addRow(root);
+
+        cut.collect(first, "P", "v1.0", BigDecimal.ONE);
+        cut.collect(first, "P", "v1.1", BigDecimal.ZERO);
+        cut.collect(second, "R", "v1.0", BigDecimal.ONE);
+
+        final Map<String, Metric> metrics = cut.metrics(root);
+        assertEquals(asList("P", "R"), asList(metrics.keySet().toArray()));
+        assertEquals(asList("v1.0", "v1.1"), asList(metrics.get("P").getVersions().keySet().toArray()));
+        assertEquals(asList("v1.0"), asList(metrics.get("R").getVersions().keySet().toArray()));
+
+        assertFalse(cut.metrics(first).containsKey("R"));
+        assertFalse(cut.metrics(second).containsKey("P"));
+        assertEquals(3, cut.size());
+    }
+
+    private BigDecimal value(final int row, final String metric, final String version) {
+        return cut.metrics(row).get(metric).valueFactory(version).value();
+    }
+}
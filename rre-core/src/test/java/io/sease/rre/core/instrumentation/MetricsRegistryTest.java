@@ -0,0 +1,58 @@
+package io.sease.rre.core.instrumentation;
+
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for the {@link MetricsRegistry} class.
+ */
+public class MetricsRegistryTest {
+
+    @Test
+    public void timerAccumulatesExecutions() {
+        final MetricsRegistry registry = new MetricsRegistry();
+        registry.timer("phase").record(TimeUnit.MILLISECONDS.toNanos(10));
+        registry.timer("phase").record(TimeUnit.MILLISECONDS.toNanos(30));
+
+        final MetricsRegistry.Timer timer = registry.getTimers().get("phase");
+        assertEquals(2, timer.getCount());
+        assertEquals(new BigDecimal("40.000"), timer.getTotalMs());
+        assertEquals(new BigDecimal("20.000"), timer.getMeanMs());
+        assertEquals(new BigDecimal("30.000"), timer.getMaxMs());
+    }
+
+    @Test
+    public void timeRecordsTheTask_evenWhenItFails() {
+        final MetricsRegistry registry = new MetricsRegistry();
+        assertEquals("result", registry.time("phase", () -> "result"));
+        try {
+            registry.time("phase", (Runnable) () -> {
+                throw new IllegalStateException();
+            });
+        } catch (final IllegalStateException expected) {
+            // Nothing to be done here
+        }
+
+        assertEquals(2, registry.getTimers().get("phase").getCount());
+    }
+
+    @Test
+    public void breakdownReportsTheShareOfEachPhase() {
+        final MetricsRegistry registry = new MetricsRegistry();
+        registry.timer("evaluation").record(TimeUnit.MILLISECONDS.toNanos(200));
+        registry.timer("query.execute").record(TimeUnit.MILLISECONDS.toNanos(50));
+        registry.increment("queries.executed", 3);
+        registry.gauge("versions", () -> 2);
+
+        final String breakdown = registry.breakdown("evaluation");
+        assertTrue(breakdown.indexOf("evaluation") < breakdown.indexOf("query.execute"));
+        assertTrue(breakdown.contains("25.0%"));
+        assertEquals(Long.valueOf(3), registry.getCounters().get("queries.executed"));
+        assertEquals(2, registry.getGauges().get("versions").intValue());
+    }
+}
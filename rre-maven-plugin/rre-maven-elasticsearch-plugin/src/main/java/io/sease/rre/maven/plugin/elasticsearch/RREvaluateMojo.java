@@ -2,6 +2,8 @@ package io.sease.rre.maven.plugin.elasticsearch;
 
 import io.sease.rre.core.Engine;
 import io.sease.rre.persistence.PersistenceConfiguration;
+import io.sease.rre.search.api.RecordingSearchPlatform;
+import io.sease.rre.search.api.ReplaySearchPlatform;
 import io.sease.rre.search.api.SearchPlatform;
 import io.sease.rre.search.api.impl.Elasticsearch;
 import org.apache.maven.plugin.AbstractMojo;
@@ -17,6 +19,7 @@ import java.net.URLClassLoader;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Supplier;
 
 /**
  * RREvalutation Mojo (Apache Solr binding).
@@ -45,9 +48,15 @@ public class RREvaluateMojo extends AbstractMojo {
     @Parameter(name = "data-folder", defaultValue = "target/elasticsearch/data")
     private String dataFolder;
 
+    @Parameter(name = "snapshots-folder", defaultValue = "target/elasticsearch/snapshots")
+    private String snapshotsFolder;
+
     @Parameter(name = "force-refresh", defaultValue = "true")
     private boolean forceRefresh;
 
+    @Parameter(name = "incremental-load", defaultValue = "false")
+    private boolean incrementalLoad;
+
     @Parameter(name = "checksum-file")
     private String checksumFile;
 
@@ -69,6 +78,21 @@ public class RREvaluateMojo extends AbstractMojo {
     @Parameter(name = "port", defaultValue = "9200")
     private int port;
 
+    @Parameter(name = "record-file")
+    private String recordFile;
+
+    @Parameter(name = "replay-file")
+    private String replayFile;
+
+    @Parameter(name = "profile-queries", defaultValue = "0")
+    private int profileQueries;
+
+    @Parameter(name = "profile-strategy", defaultValue = "slowest")
+    private String profileStrategy;
+
+    @Parameter(name = "hit-store-folder")
+    private String hitStoreFolder;
+
     @Parameter(name = "persistence")
     private PersistenceConfiguration persistence = PersistenceConfiguration.DEFAULT_CONFIG;
 
@@ -89,7 +113,7 @@ public class RREvaluateMojo extends AbstractMojo {
                             urls,
                             Thread.currentThread().getContextClassLoader()));
 
-        try (final SearchPlatform platform = new Elasticsearch()) {
+        try (final SearchPlatform platform = platform(Elasticsearch::new)) {
             final Engine engine = new Engine(
                     platform,
                     configurationsFolder,
@@ -106,11 +130,18 @@ public class RREvaluateMojo extends AbstractMojo {
             final Map<String, Object> configuration = new HashMap<>();
             configuration.put("path.home", "/tmp");
             configuration.put("path.data", dataFolder);
+            configuration.put("path.repo", snapshotsFolder);
             configuration.put("network.host", port);
             configuration.put("plugins", plugins);
             configuration.put("forceRefresh", forceRefresh);
-
-            engine.evaluate(configuration);
+            configuration.put("incrementalLoad", incrementalLoad);
+            configuration.put(Engine.PROFILE_QUERIES, profileQueries);
+            configuration.put(Engine.PROFILE_STRATEGY, profileStrategy);
+            if (hitStoreFolder != null && !hitStoreFolder.isEmpty()) {
+                configuration.put(Engine.HIT_STORE_FOLDER, hitStoreFolder);
+            }
+
+            engine.evaluate(configuration).close();
         } catch (final IOException exception) {
             throw new MojoExecutionException(exception.getMessage(), exception);
         }
@@ -120,4 +151,21 @@ public class RREvaluateMojo extends AbstractMojo {
     PersistenceConfiguration getPersistence() {
         return persistence;
     }
-}
\ No newline at end of file
+
+    /**
+     * Returns the search platform used for the evaluation: a replay of a previous recording (if a replay file has
+     * been configured), or a new platform instance, which optionally records its responses.
+     *
+     * @param factory the search platform factory.
+     * @return the search platform used for the evaluation.
+     * @throws IOException if the recording (or replay) file cannot be opened.
+     */
+    private SearchPlatform platform(final Supplier<SearchPlatform> factory) throws IOException {
+        if (replayFile != null && !replayFile.isEmpty()) {
+            return new ReplaySearchPlatform(new File(replayFile));
+        }
+        return recordFile != null && !recordFile.isEmpty()
+                ? new RecordingSearchPlatform(factory.get(), new File(recordFile))
+                : factory.get();
+    }
+}
@@ -0,0 +1,98 @@
+package io.sease.rre.maven.plugin.external.elasticsearch;
+
+import io.sease.rre.core.Engine;
+import io.sease.rre.persistence.PersistenceConfiguration;
+import io.sease.rre.search.api.SearchPlatform;
+import io.sease.rre.search.api.impl.ExternalElasticsearch;
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * RRE Benchmark Mojo (External Elasticsearch settings).
+ *
+ * @author Matt Pearce (matt@flax.co.uk)
+ */
+@Mojo(name = "benchmark", inheritByDefault = false, defaultPhase = LifecyclePhase.PACKAGE, threadSafe = true)
+public class RREBenchmarkMojo extends AbstractMojo {
+
+    @Parameter( defaultValue = "${project.compileClasspathElements}", readonly = true, required = true )
+    private List<String> compilePaths;
+
+    @Parameter(name = "configurations-folder", defaultValue = "${basedir}/src/etc/configuration_sets")
+    private String configurationsFolder;
+
+    @Parameter(name = "ratings-folder", defaultValue = "${basedir}/src/etc/ratings)")
+    private String ratingsFolder;
+
+    @Parameter(name = "templates-folder", defaultValue = "${basedir}/src/etc/templates")
+    private String templatesFolder;
+
+    @Parameter(name = "fields", defaultValue = "")
+    private String fields;
+
+    @Parameter(name = "include")
+    private List<String> include;
+
+    @Parameter(name = "exclude")
+    private List<String> exclude;
+
+    @Parameter(name = "warmup-iterations", defaultValue = "2")
+    private int warmupIterations;
+
+    @Parameter(name = "iterations", defaultValue = "10")
+    private int iterations;
+
+    @Parameter(name = "benchmark-file", defaultValue = "target/rre/benchmark.json")
+    private String benchmarkFile;
+
+    @Override
+    public void execute() throws MojoExecutionException {
+        final URL[] urls = compilePaths.stream()
+                .map(path -> {
+                    try {
+                        return new File(path).toURI().toURL();
+                    } catch (final Exception exception) {
+                        throw new IllegalArgumentException(exception);
+                    }})
+                .toArray(URL[]::new);
+
+        Thread.currentThread()
+                .setContextClassLoader(
+                        URLClassLoader.newInstance(
+                                urls,
+                                Thread.currentThread().getContextClassLoader()));
+
+        try (final SearchPlatform platform = new ExternalElasticsearch()) {
+            final Engine engine = new Engine(
+                    platform,
+                    configurationsFolder,
+                    null,
+                    ratingsFolder,
+                    templatesFolder,
+                    Collections.emptyList(),
+                    fields.split(","),
+                    exclude,
+                    include,
+                    null,
+                    PersistenceConfiguration.DEFAULT_CONFIG);
+
+            final Map<String, Object> configuration = Collections.emptyMap();
+
+            engine.benchmark(configuration, warmupIterations, iterations).write(new File(benchmarkFile));
+        } catch (final IOException exception) {
+            throw new MojoExecutionException(exception.getMessage(), exception);
+        }
+    }
+}
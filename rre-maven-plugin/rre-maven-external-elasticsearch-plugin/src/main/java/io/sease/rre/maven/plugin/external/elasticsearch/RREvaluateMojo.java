@@ -4,6 +4,8 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import io.sease.rre.core.Engine;
 import io.sease.rre.core.domain.Evaluation;
 import io.sease.rre.persistence.PersistenceConfiguration;
+import io.sease.rre.search.api.RecordingSearchPlatform;
+import io.sease.rre.search.api.ReplaySearchPlatform;
 import io.sease.rre.search.api.SearchPlatform;
 import io.sease.rre.search.api.impl.ExternalElasticsearch;
 import org.apache.maven.plugin.AbstractMojo;
@@ -16,10 +18,10 @@ import java.io.File;
 import java.io.IOException;
 import java.net.URL;
 import java.net.URLClassLoader;
-import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Supplier;
 
 /**
  * RRE Evaluation Mojo (External Elasticsearch settings).
@@ -53,6 +55,21 @@ public class RREvaluateMojo extends AbstractMojo {
     @Parameter(name = "exclude")
     private List<String> exclude;
 
+    @Parameter(name = "record-file")
+    private String recordFile;
+
+    @Parameter(name = "replay-file")
+    private String replayFile;
+
+    @Parameter(name = "profile-queries", defaultValue = "0")
+    private int profileQueries;
+
+    @Parameter(name = "profile-strategy", defaultValue = "slowest")
+    private String profileStrategy;
+
+    @Parameter(name = "hit-store-folder")
+    private String hitStoreFolder;
+
     @Parameter(name = "persistence")
     private PersistenceConfiguration persistence = PersistenceConfiguration.DEFAULT_CONFIG;
 
@@ -73,7 +90,7 @@ public class RREvaluateMojo extends AbstractMojo {
                                 urls,
                                 Thread.currentThread().getContextClassLoader()));
 
-        try (final SearchPlatform platform = new ExternalElasticsearch()) {
+        try (final SearchPlatform platform = platform(ExternalElasticsearch::new)) {
             final Engine engine = new Engine(
                     platform,
                     configurationsFolder,
@@ -87,9 +104,16 @@ public class RREvaluateMojo extends AbstractMojo {
                     null,
                     persistence);
 
-            final Map<String, Object> configuration = Collections.emptyMap();
+            final Map<String, Object> configuration = new HashMap<>();
+            configuration.put(Engine.PROFILE_QUERIES, profileQueries);
+            configuration.put(Engine.PROFILE_STRATEGY, profileStrategy);
+            if (hitStoreFolder != null && !hitStoreFolder.isEmpty()) {
+                configuration.put(Engine.HIT_STORE_FOLDER, hitStoreFolder);
+            }
 
-            write(engine.evaluate(configuration));
+            try (final Evaluation evaluation = engine.evaluate(configuration)) {
+                write(evaluation);
+            }
         } catch (final IOException exception) {
             throw new MojoExecutionException(exception.getMessage(), exception);
         }
@@ -108,4 +132,21 @@ public class RREvaluateMojo extends AbstractMojo {
         final ObjectMapper mapper = new ObjectMapper();
         mapper.writerWithDefaultPrettyPrinter().writeValue(new File(outputFolder, "evaluation.json"), evaluation);
     }
+
+    /**
+     * Returns the search platform used for the evaluation: a replay of a previous recording (if a replay file has
+     * been configured), or a new platform instance, which optionally records its responses.
+     *
+     * @param factory the search platform factory.
+     * @return the search platform used for the evaluation.
+     * @throws IOException if the recording (or replay) file cannot be opened.
+     */
+    private SearchPlatform platform(final Supplier<SearchPlatform> factory) throws IOException {
+        if (replayFile != null && !replayFile.isEmpty()) {
+            return new ReplaySearchPlatform(new File(replayFile));
+        }
+        return recordFile != null && !recordFile.isEmpty()
+                ? new RecordingSearchPlatform(factory.get(), new File(recordFile))
+                : factory.get();
+    }
 }
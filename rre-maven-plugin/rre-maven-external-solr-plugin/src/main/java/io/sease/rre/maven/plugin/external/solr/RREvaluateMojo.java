@@ -0,0 +1,153 @@
+package io.sease.rre.maven.plugin.external.solr;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.sease.rre.core.Engine;
+import io.sease.rre.core.domain.Evaluation;
+import io.sease.rre.persistence.PersistenceConfiguration;
+import io.sease.rre.search.api.RecordingSearchPlatform;
+import io.sease.rre.search.api.ReplaySearchPlatform;
+import io.sease.rre.search.api.SearchPlatform;
+import io.sease.rre.search.api.impl.ExternalApacheSolr;
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * RRE Evaluation Mojo (External Apache Solr settings).
+ *
+ * @author agazzarini
+ * @since 1.0
+ */
+@Mojo(name = "evaluate", inheritByDefault = false, defaultPhase = LifecyclePhase.PACKAGE, threadSafe = true)
+public class RREvaluateMojo extends AbstractMojo {
+
+    @Parameter( defaultValue = "${project.compileClasspathElements}", readonly = true, required = true )
+    private List<String> compilePaths;
+
+    @Parameter(name = "configurations-folder", defaultValue = "${basedir}/src/etc/configuration_sets")
+    private String configurationsFolder;
+
+    @Parameter(name = "ratings-folder", defaultValue = "${basedir}/src/etc/ratings)")
+    private String ratingsFolder;
+
+    @Parameter(name = "templates-folder", defaultValue = "${basedir}/src/etc/templates")
+    private String templatesFolder;
+
+    @Parameter(name = "metrics", defaultValue = "io.sease.rre.core.domain.metrics.impl.PrecisionAtOne,io.sease.rre.core.domain.metrics.impl.PrecisionAtTwo,io.sease.rre.core.domain.metrics.impl.PrecisionAtThree,io.sease.rre.core.domain.metrics.impl.PrecisionAtTen")
+    private List<String> metrics;
+
+    @Parameter(name = "fields", defaultValue = "")
+    private String fields;
+
+    @Parameter(name = "include")
+    private List<String> include;
+
+    @Parameter(name = "exclude")
+    private List<String> exclude;
+
+    @Parameter(name = "record-file")
+    private String recordFile;
+
+    @Parameter(name = "replay-file")
+    private String replayFile;
+
+    @Parameter(name = "profile-queries", defaultValue = "0")
+    private int profileQueries;
+
+    @Parameter(name = "profile-strategy", defaultValue = "slowest")
+    private String profileStrategy;
+
+    @Parameter(name = "hit-store-folder")
+    private String hitStoreFolder;
+
+    @Parameter(name = "persistence")
+    private PersistenceConfiguration persistence = PersistenceConfiguration.DEFAULT_CONFIG;
+
+    @Override
+    public void execute() throws MojoExecutionException {
+        final URL[] urls = compilePaths.stream()
+                .map(path -> {
+                    try {
+                        return new File(path).toURI().toURL();
+                    } catch (final Exception exception) {
+                        throw new IllegalArgumentException(exception);
+                    }})
+                .toArray(URL[]::new);
+
+        Thread.currentThread()
+                .setContextClassLoader(
+                        URLClassLoader.newInstance(
+                                urls,
+                                Thread.currentThread().getContextClassLoader()));
+
+        try (final SearchPlatform platform = platform(ExternalApacheSolr::new)) {
+            final Engine engine = new Engine(
+                    platform,
+                    configurationsFolder,
+                    null,
+                    ratingsFolder,
+                    templatesFolder,
+                    metrics,
+                    fields.split(","),
+                    exclude,
+                    include,
+                    null,
+                    persistence);
+
+            final Map<String, Object> configuration = new HashMap<>();
+            configuration.put(Engine.PROFILE_QUERIES, profileQueries);
+            configuration.put(Engine.PROFILE_STRATEGY, profileStrategy);
+            if (hitStoreFolder != null && !hitStoreFolder.isEmpty()) {
+                configuration.put(Engine.HIT_STORE_FOLDER, hitStoreFolder);
+            }
+
+            try (final Evaluation evaluation = engine.evaluate(configuration)) {
+                write(evaluation);
+            }
+        } catch (final IOException exception) {
+            throw new MojoExecutionException(exception.getMessage(), exception);
+        }
+    }
+
+    /**
+     * Writes out the evaluation result.
+     *
+     * @param evaluation the evaluation result.
+     * @throws IOException in case of I/O failure.
+     */
+    private void write(final Evaluation evaluation) throws IOException {
+        final File outputFolder = new File("target/rre");
+        outputFolder.mkdirs();
+
+        final ObjectMapper mapper = new ObjectMapper();
+        mapper.writerWithDefaultPrettyPrinter().writeValue(new File(outputFolder, "evaluation.json"), evaluation);
+    }
+
+    /**
+     * Returns the search platform used for the evaluation: a replay of a previous recording (if a replay file has
+     * been configured), or a new platform instance, which optionally records its responses.
+     *
+     * @param factory the search platform factory.
+     * @return the search platform used for the evaluation.
+     * @throws IOException if the recording (or replay) file cannot be opened.
+     */
+    private SearchPlatform platform(final Supplier<SearchPlatform> factory) throws IOException {
+        if (replayFile != null && !replayFile.isEmpty()) {
+            return new ReplaySearchPlatform(new File(replayFile));
+        }
+        return recordFile != null && !recordFile.isEmpty()
+                ? new RecordingSearchPlatform(factory.get(), new File(recordFile))
+                : factory.get();
+    }
+}
@@ -0,0 +1,99 @@
+package io.sease.rre.maven.plugin.solr;
+
+import io.sease.rre.core.Engine;
+import io.sease.rre.persistence.PersistenceConfiguration;
+import io.sease.rre.search.api.SearchPlatform;
+import io.sease.rre.search.api.impl.ApacheSolr;
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * RRE Benchmark Mojo (Apache Solr binding).
+ *
+ * @author agazzarini
+ * @since 1.0
+ */
+@Mojo(name = "benchmark", inheritByDefault = false, defaultPhase = LifecyclePhase.PACKAGE)
+public class RREBenchmarkMojo extends AbstractMojo {
+
+    @Parameter(name = "configurations-folder", defaultValue = "${basedir}/src/etc/configuration_sets")
+    private String configurationsFolder;
+
+    @Parameter(name = "corpora-folder", defaultValue = "${basedir}/src/etc/corpora")
+    private String corporaFolder;
+
+    @Parameter(name = "ratings-folder", defaultValue = "${basedir}/src/etc/ratings)")
+    private String ratingsFolder;
+
+    @Parameter(name = "templates-folder", defaultValue = "${basedir}/src/etc/templates")
+    private String templatesFolder;
+
+    @Parameter(name = "data-folder")
+    private String dataFolder;
+
+    @Parameter(name = "force-refresh", defaultValue = "true")
+    private boolean forceRefresh;
+
+    @Parameter(name = "incremental-load", defaultValue = "false")
+    private boolean incrementalLoad;
+
+    @Parameter(name = "checksum-file")
+    private String checksumFile;
+
+    @Parameter(name = "fields", defaultValue = "*,score")
+    private String fields;
+
+    @Parameter(name = "include")
+    private List<String> include;
+
+    @Parameter(name = "exclude")
+    private List<String> exclude;
+
+    @Parameter(name = "warmup-iterations", defaultValue = "2")
+    private int warmupIterations;
+
+    @Parameter(name = "iterations", defaultValue = "10")
+    private int iterations;
+
+    @Parameter(name = "benchmark-file", defaultValue = "target/rre/benchmark.json")
+    private String benchmarkFile;
+
+    @Override
+    public void execute() throws MojoExecutionException {
+        try (final SearchPlatform platform = new ApacheSolr()) {
+            final Engine engine = new Engine(
+                    platform,
+                    configurationsFolder,
+                    corporaFolder,
+                    ratingsFolder,
+                    templatesFolder,
+                    Collections.emptyList(),
+                    fields.split(","),
+                    exclude,
+                    include,
+                    checksumFile,
+                    PersistenceConfiguration.DEFAULT_CONFIG);
+
+            final Map<String, Object> configuration = new HashMap<>();
+            if (dataFolder != null && !dataFolder.isEmpty()) {
+                configuration.put("solr.home", dataFolder);
+            }
+            configuration.put("forceRefresh", forceRefresh);
+            configuration.put("incrementalLoad", incrementalLoad);
+
+            engine.benchmark(configuration, warmupIterations, iterations).write(new File(benchmarkFile));
+        } catch (final IOException exception) {
+            throw new MojoExecutionException(exception.getMessage(), exception);
+        }
+    }
+}
@@ -2,6 +2,8 @@ package io.sease.rre.maven.plugin.solr;
 
 import io.sease.rre.core.Engine;
 import io.sease.rre.persistence.PersistenceConfiguration;
+import io.sease.rre.search.api.RecordingSearchPlatform;
+import io.sease.rre.search.api.ReplaySearchPlatform;
 import io.sease.rre.search.api.SearchPlatform;
 import io.sease.rre.search.api.impl.ApacheSolr;
 import org.apache.maven.plugin.AbstractMojo;
@@ -10,10 +12,12 @@ import org.apache.maven.plugins.annotations.LifecyclePhase;
 import org.apache.maven.plugins.annotations.Mojo;
 import org.apache.maven.plugins.annotations.Parameter;
 
+import java.io.File;
 import java.io.IOException;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Supplier;
 
 /**
  * RREvalutation Mojo (Apache Solr binding).
@@ -42,6 +46,9 @@ public class RREvaluateMojo extends AbstractMojo {
     @Parameter(name = "force-refresh", defaultValue = "true")
     private boolean forceRefresh;
 
+    @Parameter(name = "incremental-load", defaultValue = "false")
+    private boolean incrementalLoad;
+
     @Parameter(name = "checksum-file")
     private String checksumFile;
 
@@ -57,12 +64,27 @@ public class RREvaluateMojo extends AbstractMojo {
     @Parameter(name = "exclude")
     private List<String> exclude;
 
+    @Parameter(name = "record-file")
+    private String recordFile;
+
+    @Parameter(name = "replay-file")
+    private String replayFile;
+
+    @Parameter(name = "profile-queries", defaultValue = "0")
+    private int profileQueries;
+
+    @Parameter(name = "profile-strategy", defaultValue = "slowest")
+    private String profileStrategy;
+
+    @Parameter(name = "hit-store-folder")
+    private String hitStoreFolder;
+
     @Parameter(name = "persistence")
     private PersistenceConfiguration persistence = PersistenceConfiguration.DEFAULT_CONFIG;
 
     @Override
     public void execute() throws MojoExecutionException {
-        try (final SearchPlatform platform = new ApacheSolr()) {
+        try (final SearchPlatform platform = platform(ApacheSolr::new)) {
             final Engine engine = new Engine(
                     platform,
                     configurationsFolder,
@@ -81,10 +103,33 @@ public class RREvaluateMojo extends AbstractMojo {
                 configuration.put("solr.home", dataFolder);
             }
             configuration.put("forceRefresh", forceRefresh);
+            configuration.put("incrementalLoad", incrementalLoad);
+            configuration.put(Engine.PROFILE_QUERIES, profileQueries);
+            configuration.put(Engine.PROFILE_STRATEGY, profileStrategy);
+            if (hitStoreFolder != null && !hitStoreFolder.isEmpty()) {
+                configuration.put(Engine.HIT_STORE_FOLDER, hitStoreFolder);
+            }
 
-            engine.evaluate(configuration);
+            engine.evaluate(configuration).close();
         } catch (final IOException exception) {
             throw new MojoExecutionException(exception.getMessage(), exception);
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Returns the search platform used for the evaluation: a replay of a previous recording (if a replay file has
+     * been configured), or a new platform instance, which optionally records its responses.
+     *
+     * @param factory the search platform factory.
+     * @return the search platform used for the evaluation.
+     * @throws IOException if the recording (or replay) file cannot be opened.
+     */
+    private SearchPlatform platform(final Supplier<SearchPlatform> factory) throws IOException {
+        if (replayFile != null && !replayFile.isEmpty()) {
+            return new ReplaySearchPlatform(new File(replayFile));
+        }
+        return recordFile != null && !recordFile.isEmpty()
+                ? new RecordingSearchPlatform(factory.get(), new File(recordFile))
+                : factory.get();
+    }
+}
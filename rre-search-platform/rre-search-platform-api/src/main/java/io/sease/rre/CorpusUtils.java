@@ -0,0 +1,232 @@
+package io.sease.rre;
+
+import com.github.luben.zstd.ZstdInputStream;
+
+import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Enumeration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.CRC32;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Utilities for reading corpora files, which can be plain or compressed (zip, gzip or zstd).
+ * A compressed corpus is decompressed on the fly while it is read, so there's no need to extract it first.
+ *
+ * @author agazzarini
+ * @since 1.0
+ */
+public abstract class CorpusUtils {
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final long MAX_MAPPED_REGION_SIZE = 64 * 1024 * 1024;
+
+    private static final String ZIP = ".zip";
+    private static final String GZIP = ".gz";
+    private static final String ZSTD = ".zst";
+
+    private static final int CACHE_RETENTION_DAYS = 30;
+    private static final Map<String, String> CHECKSUMS = new ConcurrentHashMap<>();
+    private static final AtomicBoolean CACHE_PRUNED = new AtomicBoolean();
+
+    /**
+     * Returns true if the given corpus file is compressed.
+     *
+     * @param corpus the corpus file.
+     * @return true if the given corpus file is compressed.
+     */
+    public static boolean isCompressed(final File corpus) {
+        final String name = corpus.getName();
+        return name.endsWith(ZIP) || name.endsWith(GZIP) || name.endsWith(ZSTD);
+    }
+
+    /**
+     * Opens the given corpus file, decompressing it (if needed) while it is read.
+     * In case of zip archives, the stream contains the first corpus candidate entry (i.e. a .json or .bulk file).
+     *
+     * @param corpus the corpus file.
+     * @return a stream with the (uncompressed) corpus content.
+     * @throws IOException in case of I/O failure or if a zip archive doesn't contain any corpus candidate.
+     */
+    public static InputStream open(final File corpus) throws IOException {
+        final InputStream input = new BufferedInputStream(new FileInputStream(corpus), BUFFER_SIZE);
+        try {
+            final String name = corpus.getName();
+            if (name.endsWith(ZIP)) {
+                final ZipInputStream zip = new ZipInputStream(input);
+                for (ZipEntry entry = zip.getNextEntry(); entry != null; entry = zip.getNextEntry()) {
+                    if (isCorpusCandidate(entry)) {
+                        return zip;
+                    }
+                    zip.closeEntry();
+                }
+                throw new IOException("Unable to find a valid dataset within the compressed corpora file: " + corpus.getAbsolutePath());
+            } else if (name.endsWith(GZIP)) {
+                return new BufferedInputStream(new GZIPInputStream(input, BUFFER_SIZE), BUFFER_SIZE);
+            } else if (name.endsWith(ZSTD)) {
+                return new BufferedInputStream(new ZstdInputStream(input), BUFFER_SIZE);
+            }
+            return input;
+        } catch (final IOException | RuntimeException exception) {
+            input.close();
+            throw exception;
+        }
+    }
+
+    /**
+     * Opens the given corpus file as a (UTF-8) character stream, decompressing it (if needed) while it is read.
+     *
+     * @param corpus the corpus file.
+     * @return a reader with the (uncompressed) corpus content.
+     * @throws IOException in case of I/O failure.
+     * @see #open(File)
+     */
+    public static BufferedReader reader(final File corpus) throws IOException {
+        return new BufferedReader(new InputStreamReader(open(corpus), StandardCharsets.UTF_8), BUFFER_SIZE);
+    }
+
+    /**
+     * Returns the name of the corpus contained in the given file.
+     * That is the name of the corpus entry for zip archives, the file name without the compression extension for
+     * gzip and zstd files, and the file name itself for plain files.
+     *
+     * @param corpus the corpus file.
+     * @return the name of the corpus contained in the given file.
+     */
+    public static String name(final File corpus) {
+        final String name = corpus.getName();
+        if (name.endsWith(ZIP)) {
+            try (final ZipFile zip = new ZipFile(corpus)) {
+                for (final Enumeration<? extends ZipEntry> entries = zip.entries(); entries.hasMoreElements(); ) {
+                    final ZipEntry entry = entries.nextElement();
+                    if (isCorpusCandidate(entry)) {
+                        return new File(entry.getName()).getName();
+                    }
+                }
+            } catch (final IOException exception) {
+                // Fall back to the archive name
+            }
+            return name;
+        } else if (name.endsWith(GZIP)) {
+            return name.substring(0, name.length() - GZIP.length());
+        } else if (name.endsWith(ZSTD)) {
+            return name.substring(0, name.length() - ZSTD.length());
+        }
+        return name;
+    }
+
+    /**
+     * Extracts the given (compressed) corpus in the given folder.
+     * The extraction goes through a temporary file, so a failure never leaves a partial corpus in the target folder.
+     *
+     * @param corpus       the corpus file.
+     * @param targetFolder the target folder.
+     * @return the extracted corpus file.
+     * @throws IOException in case of I/O failure.
+     */
+    public static File extract(final File corpus, final File targetFolder) throws IOException {
+        targetFolder.mkdirs();
+        final File target = new File(targetFolder, name(corpus));
+        final File tmp = File.createTempFile(target.getName(), ".part", targetFolder);
+        try (final InputStream input = open(corpus)) {
+            Files.copy(input, tmp.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            Files.move(tmp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            tmp.delete();
+        }
+        return target;
+    }
+
+    /**
+     * Returns the checksum of the given corpus file (CRC32 of the content, read through memory-mapped regions, plus
+     * the file length).
+     * The checksum is computed once per session: it is then reused as long as the corpus path, size and last
+     * modification time don't change.
+     *
+     * @param corpus the corpus file.
+     * @return the checksum of the given corpus file.
+     * @throws IOException in case of I/O failure.
+     */
+    public static String checksum(final File corpus) throws IOException {
+        final BasicFileAttributes attributes = Files.readAttributes(corpus.toPath(), BasicFileAttributes.class);
+        final String key = corpus.getAbsolutePath() + "|" + attributes.size() + "|" + attributes.lastModifiedTime();
+
+        final String checksum = CHECKSUMS.get(key);
+        if (checksum != null) {
+            return checksum;
+        }
+
+        final CRC32 crc = new CRC32();
+        try (final FileChannel channel = FileChannel.open(corpus.toPath(), StandardOpenOption.READ)) {
+            final long size = channel.size();
+            for (long position = 0; position < size; position += MAX_MAPPED_REGION_SIZE) {
+                crc.update(channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(MAX_MAPPED_REGION_SIZE, size - position)));
+            }
+        }
+
+        final String computed = Long.toHexString(crc.getValue()) + "-" + corpus.length();
+        CHECKSUMS.put(key, computed);
+        return computed;
+    }
+
+    /**
+     * Returns the folder where the files derived from the given corpus (e.g. the extracted or pre-converted corpus)
+     * are cached. The folder is keyed by the corpus checksum, so it changes as soon as the corpus changes.
+     * Each request marks the folder as used; once per session, the cache folders which haven't been used in the
+     * last 30 days (e.g. those of old corpus versions) are deleted.
+     *
+     * @param corpus the corpus file.
+     * @return the cache folder associated with the given corpus.
+     * @throws IOException in case of I/O failure.
+     */
+    public static File cacheFolder(final File corpus) throws IOException {
+        final File cacheRoot = new File(System.getProperty("java.io.tmpdir"), "rre-corpora");
+        final File cacheFolder = new File(cacheRoot, checksum(corpus));
+        if (cacheFolder.exists()) {
+            cacheFolder.setLastModified(System.currentTimeMillis());
+        }
+
+        if (CACHE_PRUNED.compareAndSet(false, true)) {
+            prune(cacheRoot, System.currentTimeMillis() - TimeUnit.DAYS.toMillis(CACHE_RETENTION_DAYS));
+        }
+        return cacheFolder;
+    }
+
+    /**
+     * Deletes the cache folders which haven't been used since the given time.
+     * A failure here is not fatal: the folders will be deleted by a subsequent session.
+     *
+     * @param cacheRoot the folder which contains the cache folders of all corpora.
+     * @param threshold the time (in milliseconds since the epoch) of the oldest use a folder must have to be kept.
+     */
+    static void prune(final File cacheRoot, final long threshold) {
+        final File[] cacheFolders = cacheRoot.listFiles(File::isDirectory);
+        if (cacheFolders == null) {
+            return;
+        }
+
+        for (final File cacheFolder : cacheFolders) {
+            if (cacheFolder.lastModified() < threshold) {
+                try {
+                    DirectoryUtils.deleteDirectory(cacheFolder);
+                } catch (final IOException exception) {
+                    // Ignore, the folder will be deleted by a subsequent session
+                }
+            }
+        }
+    }
+
+    private static boolean isCorpusCandidate(final ZipEntry entry) {
+        return !entry.isDirectory() && (entry.getName().endsWith(".json") || entry.getName().endsWith(".bulk"));
+    }
+}
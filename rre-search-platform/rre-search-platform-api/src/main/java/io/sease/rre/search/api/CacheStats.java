@@ -0,0 +1,70 @@
+package io.sease.rre.search.api;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static java.util.Optional.ofNullable;
+
+/**
+ * The names of the cache statistics which a {@link SearchPlatform} can provide, for each cache of a loaded index,
+ * through {@link SearchPlatform#cacheStats(String)}.
+ * Platforms report the raw counters (lookups, hits, evictions) as they are, usually cumulated since the cache has
+ * been created; the summary of a query phase is then computed as the difference between two snapshots, taken
+ * before and after the phase.
+ *
+ * @author agazzarini
+ * @since 1.0
+ */
+public abstract class CacheStats {
+    public static final String LOOKUPS = "lookups";
+    public static final String HITS = "hits";
+    public static final String EVICTIONS = "evictions";
+    public static final String SIZE = "size";
+    public static final String MEMORY_IN_BYTES = "memory (bytes)";
+    public static final String HIT_RATIO = "hit ratio";
+
+    /**
+     * Summarises the activity of each cache between the two given snapshots: the hit ratio and the evictions
+     * within the (query) phase, and the size of the cache at the end of the phase.
+     * If a counter decreased (i.e. the cache has been recreated in the meantime, like Solr does when a new searcher
+     * is opened) the counter of the second snapshot is used as it is.
+     *
+     * @param before the cache statistics snapshot taken before the phase.
+     * @param after  the cache statistics snapshot taken after the phase.
+     * @return the cache statistics summary, keyed by cache name and statistic name (e.g. "filterCache hit ratio").
+     */
+    public static Map<String, Number> summary(final Map<String, Map<String, Number>> before, final Map<String, Map<String, Number>> after) {
+        final Map<String, Number> summary = new LinkedHashMap<>();
+        after.forEach((cache, stats) -> {
+            final Map<String, Number> previous = ofNullable(before.get(cache)).orElse(Collections.emptyMap());
+            final long lookups = delta(previous, stats, LOOKUPS);
+            final long hits = delta(previous, stats, HITS);
+
+            summary.put(cache + " " + HIT_RATIO,
+                    lookups == 0
+                            ? BigDecimal.ZERO
+                            : BigDecimal.valueOf(hits).divide(BigDecimal.valueOf(lookups), 4, RoundingMode.HALF_UP));
+            summary.put(cache + " " + EVICTIONS, delta(previous, stats, EVICTIONS));
+            ofNullable(stats.get(SIZE)).ifPresent(size -> summary.put(cache + " " + SIZE, size));
+            ofNullable(stats.get(MEMORY_IN_BYTES)).ifPresent(memory -> summary.put(cache + " " + MEMORY_IN_BYTES, memory));
+        });
+        return summary;
+    }
+
+    /**
+     * Returns the increment of the given counter between the two snapshots.
+     *
+     * @param before the first snapshot.
+     * @param after  the second snapshot.
+     * @param name   the counter name.
+     * @return the increment of the given counter between the two snapshots.
+     */
+    private static long delta(final Map<String, Number> before, final Map<String, Number> after, final String name) {
+        final long current = ofNullable(after.get(name)).map(Number::longValue).orElse(0L);
+        final long previous = ofNullable(before.get(name)).map(Number::longValue).orElse(0L);
+        return current >= previous ? current - previous : current;
+    }
+}
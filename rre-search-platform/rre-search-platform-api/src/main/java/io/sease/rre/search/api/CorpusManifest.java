@@ -0,0 +1,185 @@
+package io.sease.rre.search.api;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.stream.Stream;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * The manifest of a corpus loaded in a given index: the checksum of the configuration used for creating the index,
+ * and a content hash for each loaded document, keyed by document id.
+ * Comparing the manifest of the previous load with the current one allows a platform to apply only the documents
+ * which have been added, updated or deleted, instead of rebuilding the whole index.
+ *
+ * @author agazzarini
+ * @since 1.0
+ */
+public class CorpusManifest {
+    private final String configurationChecksum;
+    private final Map<String, String> documents = new HashMap<>();
+
+    /**
+     * Builds a new (empty) manifest for an index created with the given configuration.
+     *
+     * @param configurationChecksum the checksum of the index configuration.
+     */
+    public CorpusManifest(final String configurationChecksum) {
+        this.configurationChecksum = configurationChecksum;
+    }
+
+    /**
+     * Records a document in this manifest.
+     *
+     * @param id      the document identifier.
+     * @param content the document content.
+     */
+    public void add(final String id, final byte[] content) {
+        documents.put(id, checksum(content));
+    }
+
+    /**
+     * Records a document in this manifest.
+     *
+     * @param id      the document identifier.
+     * @param content the document content.
+     */
+    public void add(final String id, final String content) {
+        add(id, content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Returns true if the index described by this manifest has been created using the given configuration.
+     *
+     * @param configurationChecksum the checksum of the configuration in use.
+     * @return true if the index described by this manifest has been created using the given configuration.
+     */
+    public boolean isCompatibleWith(final String configurationChecksum) {
+        return this.configurationChecksum != null && this.configurationChecksum.equals(configurationChecksum);
+    }
+
+    /**
+     * Returns true if the given document is new or has a different content in this manifest, compared with the
+     * previous one.
+     *
+     * @param previous the manifest of the previous load.
+     * @param id       the document identifier.
+     * @return true if the document needs to be (re)indexed.
+     */
+    public boolean hasChanged(final CorpusManifest previous, final String id) {
+        return !Objects.equals(documents.get(id), previous.documents.get(id));
+    }
+
+    /**
+     * Returns the identifiers of the documents which were in the previous manifest, but not in this one.
+     *
+     * @param previous the manifest of the previous load.
+     * @return the identifiers of the documents that need to be deleted.
+     */
+    public List<String> deletedSince(final CorpusManifest previous) {
+        return previous.documents.keySet().stream()
+                .filter(id -> !documents.containsKey(id))
+                .collect(toList());
+    }
+
+    /**
+     * Returns the number of documents in this manifest.
+     *
+     * @return the number of documents in this manifest.
+     */
+    public int size() {
+        return documents.size();
+    }
+
+    /**
+     * Writes this manifest to the given file.
+     *
+     * @param file the target file.
+     * @throws IOException in case of I/O failure.
+     */
+    public void write(final File file) throws IOException {
+        createParentFolder(file);
+        try (final PrintWriter writer = new PrintWriter(new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8)))) {
+            writer.println(configurationChecksum);
+            // The id goes last, so it may safely contain tabs
+            documents.forEach((id, checksum) -> writer.println(checksum + "\t" + id));
+        }
+    }
+
+    /**
+     * Reads the manifest stored in the given file.
+     * If the file doesn't exist, or it cannot be read, an empty manifest (not compatible with any configuration) is
+     * returned.
+     *
+     * @param file the manifest file.
+     * @return the manifest stored in the given file.
+     */
+    public static CorpusManifest read(final File file) {
+        if (!file.canRead()) {
+            return new CorpusManifest(null);
+        }
+
+        try (final BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+            final CorpusManifest manifest = new CorpusManifest(reader.readLine());
+            String line;
+            while ((line = reader.readLine()) != null) {
+                final int separator = line.indexOf('\t');
+                if (separator != -1) {
+                    manifest.documents.put(line.substring(separator + 1), line.substring(0, separator));
+                }
+            }
+            return manifest;
+        } catch (final IOException exception) {
+            return new CorpusManifest(null);
+        }
+    }
+
+    /**
+     * Computes the checksum of a configuration file or folder (including all its files).
+     *
+     * @param fileOrFolder the configuration file or folder.
+     * @return the checksum of the given configuration.
+     */
+    public static String checksum(final File fileOrFolder) {
+        final MessageDigest digest = md5();
+        final Path root = fileOrFolder.toPath();
+        try (final Stream<Path> paths = Files.walk(root)) {
+            for (final Path path : paths.filter(Files::isRegularFile).sorted().collect(toList())) {
+                digest.update(root.relativize(path).toString().getBytes(StandardCharsets.UTF_8));
+                digest.update(Files.readAllBytes(path));
+            }
+        } catch (final IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+        return hex(digest.digest());
+    }
+
+    private static String checksum(final byte[] content) {
+        return hex(md5().digest(content));
+    }
+
+    private static MessageDigest md5() {
+        try {
+            return MessageDigest.getInstance("MD5");
+        } catch (final NoSuchAlgorithmException exception) {
+            throw new IllegalStateException(exception);
+        }
+    }
+
+    private static String hex(final byte[] bytes) {
+        final StringBuilder builder = new StringBuilder(bytes.length * 2);
+        for (final byte b : bytes) {
+            builder.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return builder.toString();
+    }
+
+    private static void createParentFolder(final File file) {
+        Optional.ofNullable(file.getParentFile()).ifPresent(File::mkdirs);
+    }
+}
@@ -0,0 +1,21 @@
+package io.sease.rre.search.api;
+
+/**
+ * The names of the index statistics which a {@link SearchPlatform} can provide, for each loaded index, through
+ * {@link SearchPlatform#indexStats(String)}.
+ * The statistics are persisted, per version, together with the evaluation metrics, so configuration sets can be
+ * compared in terms of cost (e.g. index footprint) other than relevance.
+ *
+ * @author agazzarini
+ * @since 1.0
+ */
+public abstract class IndexStats {
+    public static final String DOCS = "Index docs";
+    public static final String DELETED_DOCS = "Index deleted docs";
+    public static final String SEGMENTS = "Index segments";
+    public static final String SIZE_IN_BYTES = "Index size (bytes)";
+    public static final String FIELDS = "Index fields";
+    public static final String TERMS = "Index terms";
+    public static final String LOAD_TIME_MS = "Index load time (ms)";
+    public static final String HEAP_USED_BYTES = "Heap used (bytes)";
+}
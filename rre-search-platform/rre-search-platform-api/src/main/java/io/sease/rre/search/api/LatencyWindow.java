@@ -0,0 +1,64 @@
+package io.sease.rre.search.api;
+
+import java.util.Arrays;
+
+/**
+ * A sliding window over the latencies of the most recent requests, used for computing latency percentiles (e.g.
+ * for deciding when a request is slow enough to be hedged).
+ *
+ * @author agazzarini
+ * @since 1.0
+ */
+public class LatencyWindow {
+    private final long[] latencies;
+    private int next;
+    private int size;
+
+    /**
+     * Builds a new window with the given capacity.
+     *
+     * @param capacity the number of (most recent) latencies kept in the window.
+     */
+    public LatencyWindow(final int capacity) {
+        this.latencies = new long[capacity];
+    }
+
+    /**
+     * Records a latency.
+     *
+     * @param latency the latency.
+     */
+    public synchronized void record(final long latency) {
+        latencies[next] = latency;
+        next = (next + 1) % latencies.length;
+        size = Math.min(size + 1, latencies.length);
+    }
+
+    /**
+     * Returns the number of latencies in the window.
+     *
+     * @return the number of latencies in the window.
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Returns the given percentile of the latencies in the window (nearest-rank method).
+     *
+     * @param percentile the percentile (e.g. 95).
+     * @return the given percentile of the latencies in the window, 0 if the window is empty.
+     */
+    public long percentile(final double percentile) {
+        final long[] sorted;
+        synchronized (this) {
+            if (size == 0) {
+                return 0;
+            }
+            sorted = Arrays.copyOf(latencies, size);
+        }
+        Arrays.sort(sorted);
+        final int rank = (int) Math.ceil(percentile / 100 * sorted.length);
+        return sorted[Math.max(0, Math.min(sorted.length, rank) - 1)];
+    }
+}
@@ -3,7 +3,9 @@ package io.sease.rre.search.api;
 import java.util.List;
 import java.util.Map;
 
+import static java.util.Collections.emptyList;
 import static java.util.Collections.unmodifiableList;
+import static java.util.Optional.ofNullable;
 
 /**
  * This is the result of a query / search execution.
@@ -12,8 +14,16 @@ import static java.util.Collections.unmodifiableList;
  * @since 1.0
  */
 public class QueryOrSearchResponse {
+    /**
+     * The latency value used when the latency is not available (e.g. a platform which doesn't report it).
+     */
+    public static final long UNKNOWN_LATENCY = -1;
+
     private final long totalHits;
     private final List<Map<String, Object>> hits;
+    private final String failure;
+    private final long serverLatencyMs;
+    private final long clientLatencyNanos;
 
     /**
      * Builds a new response with the given data.
@@ -22,8 +32,43 @@ public class QueryOrSearchResponse {
      * @param hits      the current hits window.
      */
     public QueryOrSearchResponse(final long totalHits, final List<Map<String, Object>> hits) {
+        this(totalHits, hits, UNKNOWN_LATENCY);
+    }
+
+    /**
+     * Builds a new response with the given data.
+     *
+     * @param totalHits       the total hits of this response.
+     * @param hits            the current hits window.
+     * @param serverLatencyMs the query execution time reported by the search platform (e.g. Solr QTime,
+     *                        Elasticsearch took), in milliseconds.
+     */
+    public QueryOrSearchResponse(final long totalHits, final List<Map<String, Object>> hits, final long serverLatencyMs) {
+        this(totalHits, hits, null, serverLatencyMs, UNKNOWN_LATENCY);
+    }
+
+    private QueryOrSearchResponse(
+            final long totalHits,
+            final List<Map<String, Object>> hits,
+            final String failure,
+            final long serverLatencyMs,
+            final long clientLatencyNanos) {
         this.totalHits = totalHits;
         this.hits = unmodifiableList(hits);
+        this.failure = failure;
+        this.serverLatencyMs = serverLatencyMs;
+        this.clientLatencyNanos = clientLatencyNanos;
+    }
+
+    /**
+     * Builds a new response for a query which couldn't be executed.
+     * Failed queries are accounted separately, so they don't affect the metrics as if they returned no results.
+     *
+     * @param reason the failure reason.
+     * @return a new response for a failed query.
+     */
+    public static QueryOrSearchResponse failed(final String reason) {
+        return new QueryOrSearchResponse(0, emptyList(), ofNullable(reason).orElse("Unknown failure"), UNKNOWN_LATENCY, UNKNOWN_LATENCY);
     }
 
     /**
@@ -43,4 +88,51 @@ public class QueryOrSearchResponse {
     public List<Map<String, Object>> hits() {
         return hits;
     }
-}
\ No newline at end of file
+
+    /**
+     * Returns true if the query couldn't be executed.
+     *
+     * @return true if the query couldn't be executed.
+     */
+    public boolean isFailed() {
+        return failure != null;
+    }
+
+    /**
+     * Returns the failure reason, if the query couldn't be executed.
+     *
+     * @return the failure reason, null if the query has been successfully executed.
+     */
+    public String failure() {
+        return failure;
+    }
+
+    /**
+     * Returns the query execution time reported by the search platform, in milliseconds.
+     *
+     * @return the server-side latency, {@link #UNKNOWN_LATENCY} if the platform doesn't report it.
+     */
+    public long serverLatencyMs() {
+        return serverLatencyMs;
+    }
+
+    /**
+     * Returns the query execution time measured by the client (i.e. including the network and the response parsing),
+     * in nanoseconds.
+     *
+     * @return the client-side latency, {@link #UNKNOWN_LATENCY} if it hasn't been measured.
+     */
+    public long clientLatencyNanos() {
+        return clientLatencyNanos;
+    }
+
+    /**
+     * Returns a copy of this response with the given client-side latency.
+     *
+     * @param clientLatencyNanos the query execution time measured by the client, in nanoseconds.
+     * @return a copy of this response with the given client-side latency.
+     */
+    public QueryOrSearchResponse withClientLatency(final long clientLatencyNanos) {
+        return new QueryOrSearchResponse(totalHits, hits, failure, serverLatencyMs, clientLatencyNanos);
+    }
+}
@@ -0,0 +1,151 @@
+package io.sease.rre.search.api;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Client-side throttling for the queries sent to a (remote) search platform: a token bucket limits the rate of the
+ * queries, while an adaptive (AIMD) controller limits the number of concurrent queries.
+ * Both limits are additively increased (up to the configured maximum) after each successful query, and
+ * multiplicatively decreased when the platform signals an overload (e.g. rejected requests) or the query latency
+ * exceeds the configured threshold. In this way, an evaluation runs as fast as the platform can safely sustain.
+ *
+ * @author agazzarini
+ * @since 1.0
+ */
+public class QueryThrottle {
+    private static final double DECREASE_FACTOR = 0.5;
+    private static final double RATE_INCREASE_STEPS = 100;
+    private static final double MIN_RATE = 1;
+
+    private final double maxRate;
+    private final int maxConcurrency;
+    private final long latencyThresholdNanos;
+
+    private double rate;
+    private double tokens;
+    private long lastRefill;
+
+    private double concurrencyLimit;
+    private int inFlight;
+
+    private long queries;
+    private long overloads;
+
+    /**
+     * Builds a new throttle.
+     *
+     * @param maxQps             the maximum number of queries per second, 0 (or negative) for no rate limit.
+     * @param maxConcurrency     the maximum number of concurrent queries, 0 (or negative) for no concurrency limit.
+     * @param latencyThresholdMs the latency (in milliseconds) above which a query is considered a sign of overload,
+     *                           0 (or negative) for ignoring the latency.
+     */
+    public QueryThrottle(final double maxQps, final int maxConcurrency, final long latencyThresholdMs) {
+        this.maxRate = maxQps > 0 ? maxQps : Double.POSITIVE_INFINITY;
+        this.maxConcurrency = maxConcurrency > 0 ? maxConcurrency : Integer.MAX_VALUE;
+        this.latencyThresholdNanos = latencyThresholdMs > 0 ? TimeUnit.MILLISECONDS.toNanos(latencyThresholdMs) : Long.MAX_VALUE;
+
+        this.rate = maxRate;
+        this.tokens = 1;
+        this.lastRefill = System.nanoTime();
+        this.concurrencyLimit = this.maxConcurrency;
+    }
+
+    /**
+     * Waits until a query can be sent, according to the current rate and concurrency limits.
+     * Each call must be followed by a {@link #release(long, boolean)} call, once the query has been executed.
+     *
+     * @throws InterruptedException if the calling thread is interrupted while waiting.
+     */
+    public void acquire() throws InterruptedException {
+        synchronized (this) {
+            while (inFlight >= (int) concurrencyLimit) {
+                wait();
+            }
+            inFlight++;
+        }
+
+        final long waitNanos = reserveToken();
+        if (waitNanos > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(waitNanos);
+            } catch (final InterruptedException exception) {
+                synchronized (this) {
+                    inFlight--;
+                    notifyAll();
+                }
+                throw exception;
+            }
+        }
+    }
+
+    /**
+     * Notifies the completion of a query, adjusting the limits according to its outcome.
+     *
+     * @param latencyNanos the query latency, in nanoseconds.
+     * @param overloaded   true if the platform signalled an overload (e.g. the query has been rejected).
+     */
+    public synchronized void release(final long latencyNanos, final boolean overloaded) {
+        inFlight--;
+        queries++;
+
+        if (overloaded || latencyNanos > latencyThresholdNanos) {
+            overloads++;
+            if (maxConcurrency != Integer.MAX_VALUE) {
+                concurrencyLimit = Math.max(1, concurrencyLimit * DECREASE_FACTOR);
+            }
+            if (!Double.isInfinite(maxRate)) {
+                rate = Math.max(Math.min(MIN_RATE, maxRate), rate * DECREASE_FACTOR);
+            }
+        } else {
+            concurrencyLimit = Math.min(maxConcurrency, concurrencyLimit + 1 / concurrencyLimit);
+            rate = Math.min(maxRate, rate + maxRate / RATE_INCREASE_STEPS);
+        }
+
+        notifyAll();
+    }
+
+    /**
+     * Takes a token from the bucket, returning how long the caller has to wait before it becomes available.
+     * The bucket holds up to one second of tokens, so short bursts are allowed after an idle period.
+     *
+     * @return how long (in nanoseconds) the caller has to wait before sending the query.
+     */
+    private synchronized long reserveToken() {
+        if (Double.isInfinite(rate)) {
+            return 0;
+        }
+
+        final long now = System.nanoTime();
+        tokens = Math.min(Math.max(1, rate), tokens + (now - lastRefill) * rate / TimeUnit.SECONDS.toNanos(1));
+        lastRefill = now;
+        tokens--;
+
+        return tokens >= 0 ? 0 : (long) (-tokens / rate * TimeUnit.SECONDS.toNanos(1));
+    }
+
+    /**
+     * Returns the current rate limit, in queries per second (infinite if there's no rate limit).
+     *
+     * @return the current rate limit, in queries per second.
+     */
+    public synchronized double getRate() {
+        return rate;
+    }
+
+    /**
+     * Returns the current concurrency limit.
+     *
+     * @return the current concurrency limit.
+     */
+    public synchronized int getConcurrencyLimit() {
+        return (int) concurrencyLimit;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return queries + " throttled queries, " +
+                overloads + " overload signals, " +
+                "current limits: " + (Double.isInfinite(rate) ? "unlimited" : String.format("%.1f", rate)) + " qps, " +
+                (maxConcurrency == Integer.MAX_VALUE ? "unlimited" : String.valueOf((int) concurrencyLimit)) + " concurrent queries";
+    }
+}
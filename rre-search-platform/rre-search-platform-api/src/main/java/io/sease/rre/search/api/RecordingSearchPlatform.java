@@ -0,0 +1,228 @@
+package io.sease.rre.search.api;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * A {@link SearchPlatform} decorator which records every executed query, together with its response, in a compact,
+ * append-only file. The recorded responses can be then served by a {@link ReplaySearchPlatform}, for re-running an
+ * evaluation (e.g. after a metric change or a ratings fix) without the search platform.
+ *
+ * The file starts with a magic number, followed by one record for each query:
+ *
+ * <ul>
+ *     <li>the query key (index, query, fields and rows), as length-prefixed UTF-8 bytes;</li>
+ *     <li>the total hits (long);</li>
+ *     <li>the query execution time reported by the search platform, in milliseconds (long);</li>
+ *     <li>the failure reason (boolean flag, followed by the reason, if the query failed);</li>
+ *     <li>the hits, as length-prefixed JSON bytes.</li>
+ * </ul>
+ *
+ * @author agazzarini
+ * @since 1.0
+ */
+public class RecordingSearchPlatform implements SearchPlatform {
+    static final int MAGIC = 0x52524532; // RRE2
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_FAILURE_LENGTH = 1024;
+
+    private final SearchPlatform delegate;
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final DataOutputStream out;
+
+    /**
+     * Builds a new recording decorator.
+     *
+     * @param delegate  the decorated search platform.
+     * @param recording the recording file; new records are appended if it already exists.
+     * @throws IOException if the recording file cannot be opened, or if it isn't a recording in the current format.
+     */
+    public RecordingSearchPlatform(final SearchPlatform delegate, final File recording) throws IOException {
+        this.delegate = delegate;
+
+        final boolean exists = recording.length() > 0;
+        if (exists) {
+            try (final DataInputStream in = new DataInputStream(new FileInputStream(recording))) {
+                checkMagic(in);
+            }
+        }
+        final File parent = recording.getAbsoluteFile().getParentFile();
+        if (parent != null) {
+            parent.mkdirs();
+        }
+        this.out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(recording, true), BUFFER_SIZE));
+        if (!exists) {
+            out.writeInt(MAGIC);
+        }
+    }
+
+    @Override
+    public void beforeStart(final Map<String, Object> configuration) {
+        delegate.beforeStart(configuration);
+    }
+
+    @Override
+    public void load(final File corpus, final File configFolder, final String targetIndexName) {
+        delegate.load(corpus, configFolder, targetIndexName);
+    }
+
+    @Override
+    public void start() {
+        delegate.start();
+    }
+
+    @Override
+    public void afterStart() {
+        delegate.afterStart();
+    }
+
+    @Override
+    public void beforeStop() {
+        delegate.beforeStop();
+    }
+
+    @Override
+    public QueryOrSearchResponse executeQuery(final String indexName, final String query, final String[] fields, final int maxRows) {
+        final QueryOrSearchResponse response = delegate.executeQuery(indexName, query, fields, maxRows);
+        try {
+            record(key(indexName, query, fields, maxRows), response);
+        } catch (final IOException exception) {
+            throw new RuntimeException(exception);
+        }
+        return response;
+    }
+
+    private synchronized void record(final String key, final QueryOrSearchResponse response) throws IOException {
+        final byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(keyBytes.length);
+        out.write(keyBytes);
+        out.writeLong(response.totalHits());
+        out.writeLong(response.serverLatencyMs());
+        out.writeBoolean(response.isFailed());
+        if (response.isFailed()) {
+            out.writeUTF(response.failure().length() > MAX_FAILURE_LENGTH ? response.failure().substring(0, MAX_FAILURE_LENGTH) : response.failure());
+        }
+        final byte[] hits = mapper.writeValueAsBytes(response.hits());
+        out.writeInt(hits.length);
+        out.write(hits);
+    }
+
+    @Override
+    public String getName() {
+        return delegate.getName() + " (recording)";
+    }
+
+    @Override
+    public boolean isRefreshRequired() {
+        return delegate.isRefreshRequired();
+    }
+
+    @Override
+    public boolean isSearchPlatformFile(final String indexName, final File file) {
+        return delegate.isSearchPlatformFile(indexName, file);
+    }
+
+    @Override
+    public boolean isCorporaRequired() {
+        return delegate.isCorporaRequired();
+    }
+
+    @Override
+    public boolean isCompressedCorporaSupported() {
+        return delegate.isCompressedCorporaSupported();
+    }
+
+    @Override
+    public Map<String, Number> indexStats(final String indexName) {
+        return delegate.indexStats(indexName);
+    }
+
+    @Override
+    public Map<String, Map<String, Number>> cacheStats(final String indexName) {
+        return delegate.cacheStats(indexName);
+    }
+
+    @Override
+    public Map<String, Number> profile(final String indexName, final String query, final String[] fields, final int maxRows) {
+        return delegate.profile(indexName, query, fields, maxRows);
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            synchronized (this) {
+                out.close();
+            }
+        } finally {
+            delegate.close();
+        }
+    }
+
+    /**
+     * Returns the key which identifies a query execution in a recording.
+     *
+     * @param indexName the index name.
+     * @param query     the query.
+     * @param fields    the requested fields.
+     * @param maxRows   the maximum number of requested rows.
+     * @return the key which identifies a query execution.
+     */
+    static String key(final String indexName, final String query, final String[] fields, final int maxRows) {
+        return indexName + '\u0000' + query + '\u0000' + String.join(",", fields) + '\u0000' + maxRows;
+    }
+
+    /**
+     * Reads the given recording, passing each record (key and raw response) to the given consumer.
+     * A truncated last record (e.g. a recording interrupted by a crash) is ignored.
+     *
+     * @param in       the recording stream.
+     * @param consumer the records consumer.
+     * @throws IOException in case of I/O failure or if the stream is not a recording.
+     */
+    static void read(final DataInputStream in, final BiConsumer<String, ReplaySearchPlatform.RecordedResponse> consumer) throws IOException {
+        checkMagic(in);
+        while (true) {
+            final int keyLength;
+            try {
+                keyLength = in.readInt();
+            } catch (final EOFException exception) {
+                return;
+            }
+            try {
+                final byte[] key = new byte[keyLength];
+                in.readFully(key);
+                final long totalHits = in.readLong();
+                final long serverLatencyMs = in.readLong();
+                final String failure = in.readBoolean() ? in.readUTF() : null;
+                final byte[] hits = new byte[in.readInt()];
+                in.readFully(hits);
+                consumer.accept(new String(key, StandardCharsets.UTF_8), new ReplaySearchPlatform.RecordedResponse(totalHits, serverLatencyMs, failure, hits));
+            } catch (final EOFException exception) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Reads the magic number at the beginning of a recording.
+     *
+     * @param in the recording stream.
+     * @throws IOException in case of I/O failure or if the stream is not a recording in the current format.
+     */
+    private static void checkMagic(final DataInputStream in) throws IOException {
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not a valid RRE recording (or it has been recorded by an older RRE version).");
+        }
+    }
+}
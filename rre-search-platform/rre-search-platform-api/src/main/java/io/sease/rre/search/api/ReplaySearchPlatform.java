@@ -0,0 +1,135 @@
+package io.sease.rre.search.api;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A {@link SearchPlatform} which serves the responses recorded by a {@link RecordingSearchPlatform}.
+ * There's nothing to start or load, so an evaluation can be re-run (e.g. after a metric change or a ratings fix)
+ * offline and deterministically. A query which hasn't been recorded is reported as failed.
+ * If the same query has been recorded more than once, the last response wins.
+ *
+ * @author agazzarini
+ * @since 1.0
+ */
+public class ReplaySearchPlatform implements SearchPlatform {
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final TypeReference<List<Map<String, Object>>> HITS = new TypeReference<List<Map<String, Object>>>() {};
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final Map<String, RecordedResponse> responses = new HashMap<>();
+
+    /**
+     * Builds a new replay platform.
+     *
+     * @param recording the recording file.
+     * @throws IOException if the recording file cannot be read.
+     */
+    public ReplaySearchPlatform(final File recording) throws IOException {
+        try (final DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(recording), BUFFER_SIZE))) {
+            RecordingSearchPlatform.read(in, responses::put);
+        }
+    }
+
+    @Override
+    public void beforeStart(final Map<String, Object> configuration) {
+        // No-op for this implementation
+    }
+
+    @Override
+    public void load(final File corpus, final File configFolder, final String targetIndexName) {
+        // No-op for this implementation
+    }
+
+    @Override
+    public void start() {
+        // No-op for this implementation
+    }
+
+    @Override
+    public void afterStart() {
+        // No-op for this implementation
+    }
+
+    @Override
+    public void beforeStop() {
+        // No-op for this implementation
+    }
+
+    @Override
+    public QueryOrSearchResponse executeQuery(final String indexName, final String query, final String[] fields, final int maxRows) {
+        final RecordedResponse response = responses.get(RecordingSearchPlatform.key(indexName, query, fields, maxRows));
+        if (response == null) {
+            return QueryOrSearchResponse.failed("No recorded response for query " + query + " on " + indexName);
+        } else if (response.failure != null) {
+            return QueryOrSearchResponse.failed(response.failure);
+        }
+
+        try {
+            // Hits are deserialized on each request, since the evaluation decorates them
+            return new QueryOrSearchResponse(response.totalHits, mapper.readValue(response.hits, HITS), response.serverLatencyMs);
+        } catch (final IOException exception) {
+            throw new RuntimeException(exception);
+        }
+    }
+
+    /**
+     * Returns the number of recorded responses.
+     *
+     * @return the number of recorded responses.
+     */
+    public int size() {
+        return responses.size();
+    }
+
+    @Override
+    public String getName() {
+        return "Replay";
+    }
+
+    @Override
+    public boolean isRefreshRequired() {
+        return false;
+    }
+
+    @Override
+    public boolean isSearchPlatformFile(final String indexName, final File file) {
+        return false;
+    }
+
+    @Override
+    public boolean isCorporaRequired() {
+        return false;
+    }
+
+    @Override
+    public void close() {
+        responses.clear();
+    }
+
+    /**
+     * A recorded response.
+     */
+    static class RecordedResponse {
+        private final long totalHits;
+        private final long serverLatencyMs;
+        private final String failure;
+        private final byte[] hits;
+
+        RecordedResponse(final long totalHits, final long serverLatencyMs, final String failure, final byte[] hits) {
+            this.totalHits = totalHits;
+            this.serverLatencyMs = serverLatencyMs;
+            this.failure = failure;
+            this.hits = hits;
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package io.sease.rre.search.api;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A bounded retry policy with (fully) jittered exponential backoff: the delay before the n-th retry is a random value
+ * between 0 and min(maxBackoff, initialBackoff * 2^n). The jitter spreads the retries of concurrent clients, so they
+ * don't hit an already struggling platform all at the same time.
+ *
+ * @author agazzarini
+ * @since 1.0
+ */
+public class RetryPolicy {
+    private final int maxRetries;
+    private final long initialBackoffMs;
+    private final long maxBackoffMs;
+
+    /**
+     * Builds a new retry policy.
+     *
+     * @param maxRetries       the maximum number of retries (0 means no retry).
+     * @param initialBackoffMs the backoff before the first retry, in milliseconds.
+     * @param maxBackoffMs     the maximum backoff, in milliseconds.
+     */
+    public RetryPolicy(final int maxRetries, final long initialBackoffMs, final long maxBackoffMs) {
+        this.maxRetries = Math.max(0, maxRetries);
+        this.initialBackoffMs = Math.max(0, initialBackoffMs);
+        this.maxBackoffMs = Math.max(this.initialBackoffMs, maxBackoffMs);
+    }
+
+    /**
+     * Returns true if another attempt is allowed after the given (failed) one.
+     *
+     * @param attempt the failed attempt (0 is the first one).
+     * @return true if another attempt is allowed.
+     */
+    public boolean canRetry(final int attempt) {
+        return attempt < maxRetries;
+    }
+
+    /**
+     * Returns the upper bound of the backoff after the given (failed) attempt.
+     *
+     * @param attempt the failed attempt (0 is the first one).
+     * @return the upper bound of the backoff, in milliseconds.
+     */
+    long backoffCeiling(final int attempt) {
+        return Math.min(maxBackoffMs, initialBackoffMs << Math.min(attempt, 30));
+    }
+
+    /**
+     * Waits before the next attempt.
+     *
+     * @param attempt the failed attempt (0 is the first one).
+     * @throws InterruptedException if the calling thread is interrupted while waiting.
+     */
+    public void backoff(final int attempt) throws InterruptedException {
+        final long ceiling = backoffCeiling(attempt);
+        if (ceiling > 0) {
+            TimeUnit.MILLISECONDS.sleep(ThreadLocalRandom.current().nextLong(ceiling + 1));
+        }
+    }
+}
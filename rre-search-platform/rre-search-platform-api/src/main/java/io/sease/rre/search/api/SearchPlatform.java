@@ -2,6 +2,7 @@ package io.sease.rre.search.api;
 
 import java.io.Closeable;
 import java.io.File;
+import java.util.Collections;
 import java.util.Map;
 
 /**
@@ -88,4 +89,55 @@ public interface SearchPlatform extends Closeable {
      * loaded in order to run.
      */
     boolean isCorporaRequired();
+
+    /**
+     * Can this platform read compressed (zip, gzip or zstd) corpora files directly?
+     * If not, compressed corpora are extracted before being passed to {@link #load(File, File, String)}.
+     *
+     * @return {@code true} if this platform can load compressed corpora files.
+     * @see io.sease.rre.CorpusUtils
+     */
+    default boolean isCompressedCorporaSupported() {
+        return false;
+    }
+
+    /**
+     * Returns the statistics (e.g. number of documents, segments, size on disk) of the given index.
+     * This is an optional hook: platforms which don't provide any statistic return an empty map.
+     *
+     * @param indexName the index name.
+     * @return the statistics of the given index, keyed by the names defined in {@link IndexStats}.
+     */
+    default Map<String, Number> indexStats(final String indexName) {
+        return Collections.emptyMap();
+    }
+
+    /**
+     * Returns the statistics of the caches (e.g. Solr filterCache, Elasticsearch request cache) of the given index.
+     * Counters are reported as they are: the Engine takes a snapshot before and after the query phase, and
+     * summarises the difference.
+     * This is an optional hook: platforms which don't provide any statistic return an empty map.
+     *
+     * @param indexName the index name.
+     * @return the statistics of each cache, keyed by cache name and then by the names defined in {@link CacheStats}.
+     */
+    default Map<String, Map<String, Number>> cacheStats(final String indexName) {
+        return Collections.emptyMap();
+    }
+
+    /**
+     * Executes the given query with the platform profiling enabled (e.g. Elasticsearch profile API, Solr
+     * debug=timing), and returns the execution time of each component or query clause.
+     * This is an optional hook, which is used only on a sample of queries: platforms which don't support profiling
+     * return an empty map.
+     *
+     * @param indexName the index name.
+     * @param query     the query.
+     * @param fields    the fields to return.
+     * @param maxRows   the maximum number of rows that will be returned.
+     * @return the execution time of each component or query clause, in milliseconds.
+     */
+    default Map<String, Number> profile(final String indexName, final String query, final String[] fields, final int maxRows) {
+        return Collections.emptyMap();
+    }
 }
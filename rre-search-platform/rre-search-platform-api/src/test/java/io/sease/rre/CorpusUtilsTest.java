@@ -0,0 +1,153 @@
+package io.sease.rre;
+
+import com.github.luben.zstd.ZstdOutputStream;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.attribute.FileTime;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.Assert.*;
+
+public class CorpusUtilsTest {
+
+    private static final String CORPUS = "[{\"id\": \"1\", \"title\": \"Fender Jazz Bass\"}]";
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    @Test
+    public void open_readsPlainFiles() throws Exception {
+        final File corpus = tempFolder.newFile("corpus.json");
+        Files.write(corpus.toPath(), CORPUS.getBytes(StandardCharsets.UTF_8));
+
+        assertFalse(CorpusUtils.isCompressed(corpus));
+        assertEquals(CORPUS, read(corpus));
+        assertEquals("corpus.json", CorpusUtils.name(corpus));
+    }
+
+    @Test
+    public void open_readsTheCorpusEntryOfZipArchives() throws Exception {
+        final File corpus = tempFolder.newFile("corpus.zip");
+        try (final ZipOutputStream zip = new ZipOutputStream(new FileOutputStream(corpus))) {
+            zip.putNextEntry(new ZipEntry("README.md"));
+            zip.write("Not a corpus".getBytes(StandardCharsets.UTF_8));
+            zip.closeEntry();
+            zip.putNextEntry(new ZipEntry("data/corpus.json"));
+            zip.write(CORPUS.getBytes(StandardCharsets.UTF_8));
+            zip.closeEntry();
+        }
+
+        assertTrue(CorpusUtils.isCompressed(corpus));
+        assertEquals(CORPUS, read(corpus));
+        assertEquals("corpus.json", CorpusUtils.name(corpus));
+    }
+
+    @Test(expected = IOException.class)
+    public void open_throwsException_whenZipArchiveDoesNotContainCorpus() throws Exception {
+        final File corpus = tempFolder.newFile("corpus.zip");
+        try (final ZipOutputStream zip = new ZipOutputStream(new FileOutputStream(corpus))) {
+            zip.putNextEntry(new ZipEntry("README.md"));
+            zip.write("Not a corpus".getBytes(StandardCharsets.UTF_8));
+            zip.closeEntry();
+        }
+
+        CorpusUtils.open(corpus).close();
+    }
+
+    @Test
+    public void open_readsGzipFiles() throws Exception {
+        final File corpus = tempFolder.newFile("corpus.bulk.gz");
+        try (final OutputStream out = new GZIPOutputStream(new FileOutputStream(corpus))) {
+            out.write(CORPUS.getBytes(StandardCharsets.UTF_8));
+        }
+
+        assertTrue(CorpusUtils.isCompressed(corpus));
+        assertEquals(CORPUS, read(corpus));
+        assertEquals("corpus.bulk", CorpusUtils.name(corpus));
+    }
+
+    @Test
+    public void open_readsZstdFiles() throws Exception {
+        final File corpus = tempFolder.newFile("corpus.json.zst");
+        try (final OutputStream out = new ZstdOutputStream(new FileOutputStream(corpus))) {
+            out.write(CORPUS.getBytes(StandardCharsets.UTF_8));
+        }
+
+        assertTrue(CorpusUtils.isCompressed(corpus));
+        assertEquals(CORPUS, read(corpus));
+        assertEquals("corpus.json", CorpusUtils.name(corpus));
+    }
+
+    @Test
+    public void extract_writesTheUncompressedCorpus() throws Exception {
+        final File corpus = tempFolder.newFile("corpus.json.gz");
+        try (final OutputStream out = new GZIPOutputStream(new FileOutputStream(corpus))) {
+            out.write(CORPUS.getBytes(StandardCharsets.UTF_8));
+        }
+        final File targetFolder = new File(tempFolder.getRoot(), "extracted");
+
+        final File extracted = CorpusUtils.extract(corpus, targetFolder);
+
+        assertEquals(new File(targetFolder, "corpus.json"), extracted);
+        assertEquals(CORPUS, read(extracted));
+        assertEquals(1, targetFolder.list().length);
+    }
+
+    @Test
+    public void cacheFolder_changesWhenCorpusChanges() throws Exception {
+        final File corpus = tempFolder.newFile("corpus.json");
+        Files.write(corpus.toPath(), CORPUS.getBytes(StandardCharsets.UTF_8));
+        final File before = CorpusUtils.cacheFolder(corpus);
+        assertEquals(before, CorpusUtils.cacheFolder(corpus));
+
+        Files.write(corpus.toPath(), CORPUS.replace("Jazz", "Precision").getBytes(StandardCharsets.UTF_8));
+
+        assertNotEquals(before, CorpusUtils.cacheFolder(corpus));
+        assertEquals(before.getParentFile(), CorpusUtils.cacheFolder(corpus).getParentFile());
+    }
+
+    @Test
+    public void checksum_isComputedOnce_whileCorpusIsNotModified() throws Exception {
+        final File corpus = tempFolder.newFile("corpus.json");
+        Files.write(corpus.toPath(), CORPUS.getBytes(StandardCharsets.UTF_8));
+        final FileTime lastModified = Files.getLastModifiedTime(corpus.toPath());
+        final String checksum = CorpusUtils.checksum(corpus);
+
+        // Same path, size and modification time: the memoized checksum is returned
+        Files.write(corpus.toPath(), CORPUS.replace("Jazz", "Fuzz").getBytes(StandardCharsets.UTF_8));
+        Files.setLastModifiedTime(corpus.toPath(), lastModified);
+        assertEquals(checksum, CorpusUtils.checksum(corpus));
+
+        Files.setLastModifiedTime(corpus.toPath(), FileTime.fromMillis(lastModified.toMillis() + 1000));
+        assertNotEquals(checksum, CorpusUtils.checksum(corpus));
+    }
+
+    @Test
+    public void prune_deletesTheCacheFoldersWhichHaveNotBeenUsedRecently() throws Exception {
+        final File cacheRoot = tempFolder.newFolder("rre-corpora");
+        final File stale = new File(cacheRoot, "stale");
+        final File recent = new File(cacheRoot, "recent");
+        stale.mkdirs();
+        recent.mkdirs();
+        Files.write(new File(stale, "corpus.json").toPath(), CORPUS.getBytes(StandardCharsets.UTF_8));
+        stale.setLastModified(1000);
+
+        CorpusUtils.prune(cacheRoot, 2000);
+
+        assertFalse(stale.exists());
+        assertTrue(recent.exists());
+    }
+
+    private String read(final File corpus) throws IOException {
+        try (final BufferedReader reader = CorpusUtils.reader(corpus)) {
+            return reader.readLine();
+        }
+    }
+}
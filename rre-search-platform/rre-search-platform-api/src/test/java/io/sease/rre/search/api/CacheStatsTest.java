@@ -0,0 +1,53 @@
+package io.sease.rre.search.api;
+
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class CacheStatsTest {
+
+    @Test
+    public void summary_reportsTheActivityBetweenTheTwoSnapshots() {
+        final Map<String, Number> summary =
+                CacheStats.summary(
+                        cache("filterCache", 10, 5, 1, 20),
+                        cache("filterCache", 30, 20, 3, 25));
+
+        assertEquals(new BigDecimal("0.7500"), summary.get("filterCache " + CacheStats.HIT_RATIO));
+        assertEquals(2L, summary.get("filterCache " + CacheStats.EVICTIONS));
+        assertEquals(25L, summary.get("filterCache " + CacheStats.SIZE));
+        assertFalse(summary.containsKey("filterCache " + CacheStats.MEMORY_IN_BYTES));
+    }
+
+    @Test
+    public void summary_usesTheSecondSnapshot_whenTheCacheHasBeenRecreated() {
+        final Map<String, Number> summary =
+                CacheStats.summary(
+                        cache("documentCache", 100, 50, 10, 50),
+                        cache("documentCache", 4, 1, 0, 3));
+
+        assertEquals(new BigDecimal("0.2500"), summary.get("documentCache " + CacheStats.HIT_RATIO));
+        assertEquals(0L, summary.get("documentCache " + CacheStats.EVICTIONS));
+    }
+
+    @Test
+    public void summary_reportsZeroHitRatio_whenThereAreNoLookups() {
+        final Map<String, Number> summary = CacheStats.summary(Collections.emptyMap(), cache("queryResultCache", 0, 0, 0, 0));
+
+        assertEquals(BigDecimal.ZERO, summary.get("queryResultCache " + CacheStats.HIT_RATIO));
+    }
+
+    private Map<String, Map<String, Number>> cache(final String name, final long lookups, final long hits, final long evictions, final long size) {
+        final Map<String, Number> stats = new HashMap<>();
+        stats.put(CacheStats.LOOKUPS, lookups);
+        stats.put(CacheStats.HITS, hits);
+        stats.put(CacheStats.EVICTIONS, evictions);
+        stats.put(CacheStats.SIZE, size);
+        return Collections.singletonMap(name, stats);
+    }
+}
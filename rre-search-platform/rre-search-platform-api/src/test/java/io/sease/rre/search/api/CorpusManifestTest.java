@@ -0,0 +1,77 @@
+package io.sease.rre.search.api;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.PrintWriter;
+
+import static java.util.Collections.singletonList;
+import static org.junit.Assert.*;
+
+public class CorpusManifestTest {
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    @Test
+    public void read_returnsIncompatibleManifest_whenFileDoesNotExist() {
+        final CorpusManifest manifest = CorpusManifest.read(new File(tempFolder.getRoot(), "noSuchFile"));
+
+        assertFalse(manifest.isCompatibleWith("checksum"));
+        assertEquals(0, manifest.size());
+    }
+
+    @Test
+    public void writeAndRead_preserveConfigurationChecksumAndDocuments() throws Exception {
+        final File file = new File(tempFolder.getRoot(), "index.manifest");
+        final CorpusManifest manifest = new CorpusManifest("checksum");
+        manifest.add("1", "{\"title\": \"a\"}");
+        manifest.add("2\twith tab", "{\"title\": \"b\"}");
+        manifest.write(file);
+
+        final CorpusManifest reloaded = CorpusManifest.read(file);
+
+        assertTrue(reloaded.isCompatibleWith("checksum"));
+        assertEquals(2, reloaded.size());
+        assertFalse(manifest.hasChanged(reloaded, "1"));
+        assertFalse(manifest.hasChanged(reloaded, "2\twith tab"));
+    }
+
+    @Test
+    public void delta_detectsAddedUpdatedAndDeletedDocuments() {
+        final CorpusManifest previous = new CorpusManifest("checksum");
+        previous.add("1", "{\"title\": \"a\"}");
+        previous.add("2", "{\"title\": \"b\"}");
+        previous.add("3", "{\"title\": \"c\"}");
+
+        final CorpusManifest current = new CorpusManifest("checksum");
+        current.add("1", "{\"title\": \"a\"}");
+        current.add("2", "{\"title\": \"B\"}");
+        current.add("4", "{\"title\": \"d\"}");
+
+        assertFalse(current.hasChanged(previous, "1"));
+        assertTrue(current.hasChanged(previous, "2"));
+        assertTrue(current.hasChanged(previous, "4"));
+        assertEquals(singletonList("3"), current.deletedSince(previous));
+    }
+
+    @Test
+    public void checksum_changesWhenConfigurationChanges() throws Exception {
+        final File folder = tempFolder.newFolder();
+        final File synonyms = new File(folder, "synonyms.txt");
+        try (final PrintWriter writer = new PrintWriter(new FileWriter(synonyms))) {
+            writer.println("bass,guitar");
+        }
+        final String before = CorpusManifest.checksum(folder);
+        assertEquals(before, CorpusManifest.checksum(folder));
+
+        try (final PrintWriter writer = new PrintWriter(new FileWriter(synonyms))) {
+            writer.println("bass,double bass");
+        }
+
+        assertNotEquals(before, CorpusManifest.checksum(folder));
+    }
+}
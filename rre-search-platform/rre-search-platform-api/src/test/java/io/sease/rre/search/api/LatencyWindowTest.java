@@ -0,0 +1,35 @@
+package io.sease.rre.search.api;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class LatencyWindowTest {
+
+    @Test
+    public void percentile_usesTheNearestRank() {
+        final LatencyWindow window = new LatencyWindow(100);
+        assertEquals(0, window.percentile(95));
+
+        for (int latency = 100; latency >= 1; latency--) {
+            window.record(latency);
+        }
+
+        assertEquals(100, window.size());
+        assertEquals(50, window.percentile(50));
+        assertEquals(95, window.percentile(95));
+        assertEquals(100, window.percentile(100));
+    }
+
+    @Test
+    public void record_evictsTheOldestLatencies() {
+        final LatencyWindow window = new LatencyWindow(3);
+        window.record(1000);
+        window.record(1);
+        window.record(2);
+        window.record(3);
+
+        assertEquals(3, window.size());
+        assertEquals(3, window.percentile(100));
+    }
+}
@@ -0,0 +1,89 @@
+package io.sease.rre.search.api;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class QueryThrottleTest {
+
+    @Test
+    public void acquire_limitsTheQueryRate() throws Exception {
+        final QueryThrottle throttle = new QueryThrottle(50, 0, 0);
+
+        final long start = System.nanoTime();
+        for (int i = 0; i < 26; i++) {
+            throttle.acquire();
+            throttle.release(0, false);
+        }
+
+        // 25 intervals of 20ms, after the first (immediate) query
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 450);
+    }
+
+    @Test
+    public void release_decreasesLimitsMultiplicatively_whenPlatformIsOverloaded() throws Exception {
+        final QueryThrottle throttle = new QueryThrottle(100, 8, 0);
+
+        throttle.acquire();
+        throttle.release(0, true);
+
+        assertEquals(50, throttle.getRate(), 0.001);
+        assertEquals(4, throttle.getConcurrencyLimit());
+    }
+
+    @Test
+    public void release_decreasesLimits_whenLatencyExceedsThreshold() throws Exception {
+        final QueryThrottle throttle = new QueryThrottle(100, 8, 100);
+
+        throttle.acquire();
+        throttle.release(TimeUnit.MILLISECONDS.toNanos(50), false);
+        assertEquals(8, throttle.getConcurrencyLimit());
+
+        throttle.acquire();
+        throttle.release(TimeUnit.MILLISECONDS.toNanos(150), false);
+        assertEquals(4, throttle.getConcurrencyLimit());
+    }
+
+    @Test
+    public void release_increasesLimitsAdditively_afterSuccessfulQueries() throws Exception {
+        final QueryThrottle throttle = new QueryThrottle(0, 8, 0);
+        throttle.acquire();
+        throttle.release(0, true);
+        throttle.acquire();
+        throttle.release(0, true);
+        assertEquals(2, throttle.getConcurrencyLimit());
+
+        // +1/limit per successful query, i.e. roughly +1 per window of "limit" queries
+        for (int i = 0; i < 3; i++) {
+            throttle.acquire();
+            throttle.release(0, false);
+        }
+
+        assertEquals(3, throttle.getConcurrencyLimit());
+        assertTrue(Double.isInfinite(throttle.getRate()));
+    }
+
+    @Test
+    public void acquire_blocks_whenConcurrencyLimitIsReached() throws Exception {
+        final QueryThrottle throttle = new QueryThrottle(0, 1, 0);
+        throttle.acquire();
+
+        final Thread waiting = new Thread(() -> {
+            try {
+                throttle.acquire();
+                throttle.release(0, false);
+            } catch (final InterruptedException exception) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        waiting.start();
+        waiting.join(200);
+        assertTrue(waiting.isAlive());
+
+        throttle.release(0, false);
+        waiting.join(1000);
+        assertFalse(waiting.isAlive());
+    }
+}
@@ -0,0 +1,147 @@
+package io.sease.rre.search.api;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static java.util.Collections.singletonList;
+import static org.junit.Assert.*;
+
+public class ReplaySearchPlatformTest {
+
+    private static final String[] FIELDS = {"*", "score"};
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    @Test
+    public void executeQuery_servesTheRecordedResponses() throws Exception {
+        final File recording = new File(tempFolder.getRoot(), "recordings/run.rec");
+        final StubPlatform stub = new StubPlatform();
+        try (final SearchPlatform platform = new RecordingSearchPlatform(stub, recording)) {
+            assertEquals(1, platform.executeQuery("core1_v1.0", "{\"q\": \"fender\"}", FIELDS, 10).totalHits());
+            assertTrue(platform.executeQuery("core1_v1.0", "{\"q\": \"fail\"}", FIELDS, 10).isFailed());
+        }
+        assertTrue(stub.closed);
+
+        try (final ReplaySearchPlatform replay = new ReplaySearchPlatform(recording)) {
+            assertEquals(2, replay.size());
+
+            final QueryOrSearchResponse response = replay.executeQuery("core1_v1.0", "{\"q\": \"fender\"}", FIELDS, 10);
+            assertFalse(response.isFailed());
+            assertEquals(1, response.totalHits());
+            assertEquals(7, response.serverLatencyMs());
+            assertEquals("Fender Jazz Bass", response.hits().get(0).get("title"));
+
+            // Hits must be mutable, since the evaluation decorates them
+            response.hits().get(0).put("_isRelevant", true);
+            assertNull(replay.executeQuery("core1_v1.0", "{\"q\": \"fender\"}", FIELDS, 10).hits().get(0).get("_isRelevant"));
+
+            assertEquals("Rejected", replay.executeQuery("core1_v1.0", "{\"q\": \"fail\"}", FIELDS, 10).failure());
+            assertTrue(replay.executeQuery("core1_v1.1", "{\"q\": \"fender\"}", FIELDS, 10).isFailed());
+            assertTrue(replay.executeQuery("core1_v1.0", "{\"q\": \"fender\"}", FIELDS, 20).isFailed());
+        }
+    }
+
+    @Test
+    public void recording_appendsToExistingFiles_andToleratesTruncatedRecords() throws Exception {
+        final File recording = tempFolder.newFile("run.rec");
+        try (final SearchPlatform platform = new RecordingSearchPlatform(new StubPlatform(), recording)) {
+            platform.executeQuery("core1_v1.0", "{\"q\": \"fender\"}", FIELDS, 10);
+        }
+        try (final SearchPlatform platform = new RecordingSearchPlatform(new StubPlatform(), recording)) {
+            platform.executeQuery("core1_v1.0", "{\"q\": \"jazz\"}", FIELDS, 10);
+        }
+
+        try (final RandomAccessFile file = new RandomAccessFile(recording, "rw")) {
+            file.setLength(file.length() - 3);
+        }
+
+        try (final ReplaySearchPlatform replay = new ReplaySearchPlatform(recording)) {
+            assertEquals(1, replay.size());
+            assertFalse(replay.executeQuery("core1_v1.0", "{\"q\": \"fender\"}", FIELDS, 10).isFailed());
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void recording_rejectsFilesWhichAreNotRecordings() throws Exception {
+        final File recording = tempFolder.newFile("run.rec");
+        try (final RandomAccessFile file = new RandomAccessFile(recording, "rw")) {
+            file.writeInt(0x52524531);
+        }
+
+        new RecordingSearchPlatform(new StubPlatform(), recording).close();
+    }
+
+    /**
+     * A platform which returns one hit for each query, except for those containing "fail".
+     */
+    private static class StubPlatform implements SearchPlatform {
+        private boolean closed;
+
+        @Override
+        public void beforeStart(final Map<String, Object> configuration) {
+        }
+
+        @Override
+        public void load(final File corpus, final File configFolder, final String targetIndexName) {
+        }
+
+        @Override
+        public void start() {
+        }
+
+        @Override
+        public void afterStart() {
+        }
+
+        @Override
+        public void beforeStop() {
+        }
+
+        @Override
+        public QueryOrSearchResponse executeQuery(final String indexName, final String query, final String[] fields, final int maxRows) {
+            if (query.contains("fail")) {
+                return QueryOrSearchResponse.failed("Rejected");
+            }
+            final Map<String, Object> hit = new HashMap<>();
+            hit.put("id", "1");
+            hit.put("title", "Fender Jazz Bass");
+            final List<Map<String, Object>> hits = new ArrayList<>(singletonList(hit));
+            return new QueryOrSearchResponse(1, hits, 7);
+        }
+
+        @Override
+        public String getName() {
+            return "Stub";
+        }
+
+        @Override
+        public boolean isRefreshRequired() {
+            return false;
+        }
+
+        @Override
+        public boolean isSearchPlatformFile(final String indexName, final File file) {
+            return false;
+        }
+
+        @Override
+        public boolean isCorporaRequired() {
+            return false;
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package io.sease.rre.search.api;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class RetryPolicyTest {
+
+    @Test
+    public void canRetry_isBoundedByMaxRetries() {
+        final RetryPolicy policy = new RetryPolicy(2, 100, 1000);
+
+        assertTrue(policy.canRetry(0));
+        assertTrue(policy.canRetry(1));
+        assertFalse(policy.canRetry(2));
+        assertFalse(new RetryPolicy(0, 100, 1000).canRetry(0));
+    }
+
+    @Test
+    public void backoffCeiling_growsExponentiallyUpToTheMaximum() {
+        final RetryPolicy policy = new RetryPolicy(10, 100, 1000);
+
+        assertEquals(100, policy.backoffCeiling(0));
+        assertEquals(200, policy.backoffCeiling(1));
+        assertEquals(800, policy.backoffCeiling(3));
+        assertEquals(1000, policy.backoffCeiling(4));
+        assertEquals(1000, policy.backoffCeiling(100));
+    }
+}
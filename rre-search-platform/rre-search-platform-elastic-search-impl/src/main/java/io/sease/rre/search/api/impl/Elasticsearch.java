@@ -3,7 +3,11 @@ package io.sease.rre.search.api.impl;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.sease.rre.CorpusUtils;
 import io.sease.rre.DirectoryUtils;
+import io.sease.rre.search.api.CacheStats;
+import io.sease.rre.search.api.CorpusManifest;
+import io.sease.rre.search.api.IndexStats;
 import io.sease.rre.search.api.QueryOrSearchResponse;
 import io.sease.rre.search.api.SearchPlatform;
 import io.sease.rre.search.api.UnableToLoadDataException;
@@ -11,24 +15,41 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.elasticsearch.ElasticsearchException;
 import org.elasticsearch.action.admin.indices.create.CreateIndexRequest;
+import org.elasticsearch.action.admin.indices.stats.CommonStats;
+import org.elasticsearch.action.DocWriteRequest;
 import org.elasticsearch.action.bulk.BulkRequest;
 import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.action.delete.DeleteRequest;
 import org.elasticsearch.action.index.IndexRequest;
 import org.elasticsearch.action.search.SearchRequest;
 import org.elasticsearch.action.search.SearchResponse;
 import org.elasticsearch.action.support.WriteRequest;
 import org.elasticsearch.analysis.common.CommonAnalysisPlugin;
 import org.elasticsearch.client.Client;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.hash.MessageDigests;
 import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.xcontent.DeprecationHandler;
+import org.elasticsearch.common.xcontent.NamedXContentRegistry;
+import org.elasticsearch.common.xcontent.XContentFactory;
+import org.elasticsearch.common.xcontent.XContentParser;
 import org.elasticsearch.common.xcontent.XContentType;
+import org.elasticsearch.index.cache.query.QueryCacheStats;
+import org.elasticsearch.index.cache.request.RequestCacheStats;
 import org.elasticsearch.index.query.QueryBuilders;
 import org.elasticsearch.node.Node;
 import org.elasticsearch.plugins.Plugin;
 import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.elasticsearch.search.profile.ProfileResult;
+import org.elasticsearch.search.profile.query.CollectorResult;
+import org.elasticsearch.snapshots.RestoreInfo;
+import org.elasticsearch.snapshots.SnapshotInfo;
+import org.elasticsearch.snapshots.SnapshotState;
 import org.elasticsearch.transport.Netty4Plugin;
 
-import java.io.File;
-import java.io.IOException;
+import java.io.*;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.StandardCopyOption;
 import java.util.*;
@@ -36,6 +57,7 @@ import java.util.*;
 import static java.util.Arrays.asList;
 import static java.util.Arrays.stream;
 import static java.util.Collections.emptyList;
+import static java.util.Collections.emptyMap;
 import static java.util.Optional.ofNullable;
 import static java.util.stream.Collectors.toList;
 import static org.elasticsearch.client.Requests.*;
@@ -49,6 +71,11 @@ import static org.elasticsearch.node.InternalSettingsPreparer.prepareEnvironment
  */
 public class Elasticsearch implements SearchPlatform {
     private static final Logger LOGGER = LogManager.getLogger(Elasticsearch.class);
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int BULK_SIZE = 5000;
+    private static final String SNAPSHOT_REPOSITORY = "rre-snapshots";
+    static final String QUERY_CACHE = "queryCache";
+    static final String REQUEST_CACHE = "requestCache";
 
     private static class RRENode extends Node {
         RRENode(final Settings settings, final Collection<Class<? extends Plugin>> plugins) {
@@ -61,7 +88,10 @@ public class Elasticsearch implements SearchPlatform {
     private final ObjectMapper mapper = new ObjectMapper();
 
     private File nodeConfigFolder;
+    private File manifestsFolder;
+    private File snapshotsFolder;
     private boolean mustRefresh = false;
+    private boolean incrementalLoad = false;
 
     @Override
     public void beforeStart(final Map<String, Object> configuration) {
@@ -84,6 +114,10 @@ public class Elasticsearch implements SearchPlatform {
             mustRefresh = true;
         }
 
+        incrementalLoad = (Boolean) configuration.getOrDefault("incrementalLoad", false);
+        manifestsFolder = new File(dataFolder, "rre-manifests");
+        snapshotsFolder = ofNullable((String) configuration.get("path.repo")).map(File::new).orElse(null);
+
         nodeConfigFolder = new File((String) configuration.get("path.home"), "config");
         nodeConfigFolder.mkdir();
 
@@ -96,6 +130,10 @@ public class Elasticsearch implements SearchPlatform {
                 .put("http.enabled", "true")
                 .put("path.logs", logsFolder.getAbsolutePath())
                 .put("path.data", dataFolder.getAbsolutePath());
+        ofNullable(snapshotsFolder).ifPresent(folder -> {
+            folder.mkdirs();
+            settings.put("path.repo", folder.getAbsolutePath());
+        });
         elasticsearch = new RRENode(settings.build(), plugins(configuration));
     }
 
@@ -109,41 +147,130 @@ public class Elasticsearch implements SearchPlatform {
             final ObjectMapper mapper = new ObjectMapper();
             final JsonNode esconfig = mapper.readTree(indexShapeFile);
 
-            if (proxy.admin().indices().exists(indicesExistsRequest(indexName)).actionGet().isExists()) {
-                proxy.admin().indices().delete(deleteIndexRequest(indexName)).actionGet();
+            final String configurationChecksum = incrementalLoad ? CorpusManifest.checksum(indexShapeFile.getParentFile()) : null;
+            final File manifestFile = new File(manifestsFolder, indexName + ".manifest");
+            final CorpusManifest previousManifest = CorpusManifest.read(manifestFile);
+            final CorpusManifest manifest = new CorpusManifest(configurationChecksum);
+
+            final boolean deltaLoad = incrementalLoad && indexExists(indexName) && previousManifest.isCompatibleWith(configurationChecksum);
+
+            // Snapshots are used for full loads only: incremental loads are already cheap when nothing has changed
+            final String snapshot = !incrementalLoad && snapshotsFolder != null ? snapshotName(data, indexShapeFile, indexName) : null;
+
+            if (deltaLoad) {
+                LOGGER.info("Index " + indexName + " configuration is unchanged: loading only the changed documents.");
+            } else {
+                // The previous manifest (if any) doesn't describe the index content anymore
+                manifestFile.delete();
+                namespaceConfigurationFiles(esconfig, indexShapeFile);
+
+                if (snapshot != null && restoreSnapshot(indexName, snapshot)) {
+                    LOGGER.info("Index " + indexName + " restored from snapshot " + snapshot);
+                    return;
+                }
+
+                createIndex(esconfig, indexName);
+            }
+
+            final BulkLoader loader = new BulkLoader(data, indexShapeFile, indexName);
+            if (incrementalLoad) {
+                readCorpus(data, (type, id, document) -> {
+                    manifest.add(id, document);
+                    if (!deltaLoad || manifest.hasChanged(previousManifest, id)) {
+                        loader.add(new IndexRequest(indexName).type(type).id(id).source(document, XContentType.JSON));
+                    }
+                });
+            } else {
+                readSmileCorpus(data, (type, id, document) ->
+                        loader.add(new IndexRequest(indexName).type(type).id(id).source(document, XContentType.SMILE)));
             }
 
-            List<JsonNode> protectedKeywordsPaths = esconfig.findParents("keywords_path");
-            List<JsonNode> synonymsPaths = esconfig.findParents("synonyms_path");
-            List<JsonNode> stopwordsPaths = esconfig.findParents("stopwords_path");
+            if (deltaLoad) {
+                manifest.deletedSince(previousManifest).forEach(id -> loader.add(new DeleteRequest(indexName, "doc", id)));
+                LOGGER.info("Index " + indexName + ": " + loader.actions() + " documents added, updated or deleted.");
+            }
+
+            loader.flush();
 
-            final File configurationFolder = indexShapeFile.getParentFile();
-            final String namespace = configurationFolder.getName();
+            if (incrementalLoad) {
+                manifest.write(manifestFile);
+            }
 
-            insertNamespaces(protectedKeywordsPaths, "keywords_path", configurationFolder, namespace);
-            insertNamespaces(synonymsPaths, "synonyms_path", configurationFolder, namespace);
-            insertNamespaces(stopwordsPaths, "stopwords_path", configurationFolder, namespace);
+            if (snapshot != null) {
+                createSnapshot(indexName, snapshot);
+            }
+        } catch (final Exception exception) {
+            throw new RuntimeException(exception);
+        }
+    }
 
-            final CreateIndexRequest request = createIndexRequest(indexName)
-                    .settings(Settings.builder().loadFromSource(mapper.writeValueAsString(esconfig.get("settings")), XContentType.JSON).build())
-                    .mapping("doc", mapper.writeValueAsString(esconfig.get("mappings")), XContentType.JSON);
+    /**
+     * Sends the index and delete requests of a load to Elasticsearch in bulks of {@link #BULK_SIZE} actions, so the
+     * documents of a (large) corpus are never held in memory all together.
+     * The last bulk makes the loaded documents visible to searches.
+     */
+    private class BulkLoader {
+        private final File data;
+        private final File indexShapeFile;
+        private final String indexName;
+
+        private BulkRequest bulkRequest = new BulkRequest();
+        private int actions;
+
+        /**
+         * Builds a new loader for the given corpus and index.
+         *
+         * @param data           the corpus file.
+         * @param indexShapeFile the index shape file.
+         * @param indexName      the index name.
+         */
+        private BulkLoader(final File data, final File indexShapeFile, final String indexName) {
+            this.data = data;
+            this.indexShapeFile = indexShapeFile;
+            this.indexName = indexName;
+        }
 
-            proxy.admin().indices().create(request).actionGet();
+        /**
+         * Adds the given request to the current bulk, which is sent once it is full.
+         *
+         * @param request the index or delete request.
+         */
+        private void add(final DocWriteRequest<?> request) {
+            bulkRequest.add(request);
+            actions++;
+            if (bulkRequest.numberOfActions() >= BULK_SIZE) {
+                send(WriteRequest.RefreshPolicy.NONE);
+            }
+        }
 
-            final BulkRequest bulkRequest = new BulkRequest();
-            final List<String> lines = Files.readAllLines(data.toPath());
+        /**
+         * Returns the number of requests added to this loader.
+         *
+         * @return the number of requests added to this loader.
+         */
+        private int actions() {
+            return actions;
+        }
 
-            for (int i = 0; i < lines.size(); i += 2) {
-                JsonNode metadata = mapper.readTree(lines.get(i)).get("index");
-                String document = lines.get(i + 1);
-                bulkRequest.add(
-                        new IndexRequest(indexName)
-                                .type(metadata.get("_type").asText())
-                                .id(metadata.get("_id").asText())
-                                .source(document, XContentType.JSON)).setRefreshPolicy(WriteRequest.RefreshPolicy.IMMEDIATE);
+        /**
+         * Sends the pending requests and refreshes the index.
+         */
+        private void flush() {
+            if (bulkRequest.numberOfActions() > 0) {
+                send(WriteRequest.RefreshPolicy.IMMEDIATE);
+            } else if (actions > 0) {
+                proxy.admin().indices().refresh(refreshRequest(indexName)).actionGet();
             }
+        }
 
-            final BulkResponse response = proxy.bulk(bulkRequest).actionGet();
+        /**
+         * Sends the current bulk, and starts a new one.
+         *
+         * @param refreshPolicy the refresh policy of the bulk.
+         */
+        private void send(final WriteRequest.RefreshPolicy refreshPolicy) {
+            final BulkResponse response = proxy.bulk(bulkRequest.setRefreshPolicy(refreshPolicy)).actionGet();
+            bulkRequest = new BulkRequest();
             if (response.hasFailures()) {
                 final String message =
                         "Unable to load datafile (" +
@@ -158,16 +285,339 @@ public class Elasticsearch implements SearchPlatform {
                                 response.buildFailureMessage();
                 throw new UnableToLoadDataException(message);
             }
-        } catch (final Exception exception) {
-            throw new RuntimeException(exception);
         }
     }
 
+    /**
+     * Returns true if the given index exists.
+     *
+     * @param indexName the index name.
+     * @return true if the given index exists.
+     */
+    private boolean indexExists(final String indexName) {
+        return proxy.admin().indices().exists(indicesExistsRequest(indexName)).actionGet().isExists();
+    }
+
+    /**
+     * Copies the configuration files (i.e. keywords, synonyms and stopwords) referred in the index shape in the node
+     * configuration folder, namespacing them with the configuration version, and rewrites the index shape accordingly.
+     *
+     * @param esconfig       the index shape (i.e. settings + mappings).
+     * @param indexShapeFile the index shape file.
+     */
+    private void namespaceConfigurationFiles(final JsonNode esconfig, final File indexShapeFile) {
+        List<JsonNode> protectedKeywordsPaths = esconfig.findParents("keywords_path");
+        List<JsonNode> synonymsPaths = esconfig.findParents("synonyms_path");
+        List<JsonNode> stopwordsPaths = esconfig.findParents("stopwords_path");
+
+        final File configurationFolder = indexShapeFile.getParentFile();
+        final String namespace = configurationFolder.getName();
+
+        insertNamespaces(protectedKeywordsPaths, "keywords_path", configurationFolder, namespace);
+        insertNamespaces(synonymsPaths, "synonyms_path", configurationFolder, namespace);
+        insertNamespaces(stopwordsPaths, "stopwords_path", configurationFolder, namespace);
+    }
+
+    /**
+     * Creates the given index, deleting the existing one (if any).
+     *
+     * @param esconfig  the (namespaced) index shape (i.e. settings + mappings).
+     * @param indexName the index name.
+     * @throws IOException in case of failure while dealing with the index shape.
+     */
+    private void createIndex(final JsonNode esconfig, final String indexName) throws IOException {
+        if (indexExists(indexName)) {
+            proxy.admin().indices().delete(deleteIndexRequest(indexName)).actionGet();
+        }
+
+        final CreateIndexRequest request = createIndexRequest(indexName)
+                .settings(Settings.builder().loadFromSource(mapper.writeValueAsString(esconfig.get("settings")), XContentType.JSON).build())
+                .mapping("doc", mapper.writeValueAsString(esconfig.get("mappings")), XContentType.JSON);
+
+        proxy.admin().indices().create(request).actionGet();
+    }
+
+    /**
+     * Returns the name of the snapshot which holds the given index, loaded with the given corpus and configuration.
+     * The name includes a checksum of both, so a snapshot is never restored once its inputs have changed.
+     *
+     * @param data           the corpus file.
+     * @param indexShapeFile the index shape file.
+     * @param indexName      the index name.
+     * @return the name of the snapshot which holds the given index.
+     * @throws IOException in case of I/O failure while computing the checksum.
+     */
+    private String snapshotName(final File data, final File indexShapeFile, final String indexName) throws IOException {
+        final String inputs = CorpusManifest.checksum(indexShapeFile.getParentFile()) + CorpusUtils.checksum(data);
+        return indexName + "-" + MessageDigests.toHexString(MessageDigests.md5().digest(inputs.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Returns true if the given snapshot has been taken by {@link #createSnapshot(String, String)} for the given
+     * index (whatever its inputs were).
+     *
+     * @param indexName the index name.
+     * @param snapshot  the snapshot name.
+     * @return true if the given snapshot holds the given index.
+     */
+    private boolean isSnapshotOf(final String indexName, final String snapshot) {
+        return snapshot.startsWith(indexName + "-") && snapshot.length() == indexName.length() + 33;
+    }
+
+    /**
+     * Restores the given index from the given snapshot, if it exists.
+     *
+     * @param indexName the index name.
+     * @param snapshot  the snapshot name.
+     * @return true if the index has been restored, false if the snapshot is not available or the restore failed.
+     */
+    private boolean restoreSnapshot(final String indexName, final String snapshot) {
+        try {
+            final boolean available =
+                    proxy.admin().cluster().prepareGetSnapshots(SNAPSHOT_REPOSITORY)
+                            .setSnapshots(snapshot)
+                            .setIgnoreUnavailable(true)
+                            .get()
+                            .getSnapshots()
+                            .stream()
+                            .anyMatch(info -> info.state() == SnapshotState.SUCCESS);
+            if (!available) {
+                return false;
+            }
+
+            if (indexExists(indexName)) {
+                proxy.admin().indices().delete(deleteIndexRequest(indexName)).actionGet();
+            }
+
+            final RestoreInfo restoreInfo =
+                    proxy.admin().cluster().prepareRestoreSnapshot(SNAPSHOT_REPOSITORY, snapshot)
+                            .setIndices(indexName)
+                            .setRestoreGlobalState(false)
+                            .setWaitForCompletion(true)
+                            .get()
+                            .getRestoreInfo();
+            if (restoreInfo == null || restoreInfo.failedShards() > 0) {
+                LOGGER.warn("Unable to restore the index " + indexName + " from snapshot " + snapshot + ": the index will be rebuilt.");
+                return false;
+            }
+            return true;
+        } catch (final ElasticsearchException exception) {
+            LOGGER.warn("Unable to restore the index " + indexName + " from snapshot " + snapshot + ": the index will be rebuilt. Reason: " + exception.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Takes a snapshot of the given (just loaded) index, and deletes the stale snapshots of the same index.
+     * A failure here is not fatal: the index has been loaded anyway, it will be rebuilt on the next run.
+     *
+     * @param indexName the index name.
+     * @param snapshot  the snapshot name.
+     */
+    private void createSnapshot(final String indexName, final String snapshot) {
+        try {
+            final SnapshotInfo snapshotInfo =
+                    proxy.admin().cluster().prepareCreateSnapshot(SNAPSHOT_REPOSITORY, snapshot)
+                            .setIndices(indexName)
+                            .setIncludeGlobalState(false)
+                            .setWaitForCompletion(true)
+                            .get()
+                            .getSnapshotInfo();
+            if (snapshotInfo == null || snapshotInfo.state() != SnapshotState.SUCCESS) {
+                LOGGER.warn("Unable to take a snapshot of the index " + indexName + ".");
+                return;
+            }
+
+            proxy.admin().cluster().prepareGetSnapshots(SNAPSHOT_REPOSITORY)
+                    .get()
+                    .getSnapshots()
+                    .stream()
+                    .map(info -> info.snapshotId().getName())
+                    .filter(name -> !name.equals(snapshot) && isSnapshotOf(indexName, name))
+                    .forEach(name -> proxy.admin().cluster().prepareDeleteSnapshot(SNAPSHOT_REPOSITORY, name).get());
+        } catch (final ElasticsearchException exception) {
+            LOGGER.warn("Unable to take a snapshot of the index " + indexName + ". Reason: " + exception.getMessage());
+        }
+    }
+
+    /**
+     * Streams the documents of a corpus file, which is expected to be in bulk format (i.e. an action/metadata line
+     * followed by the document source line).
+     *
+     * @param data     the corpus file.
+     * @param consumer the documents consumer.
+     * @throws IOException in case of I/O failure.
+     */
+    private void readCorpus(final File data, final DocumentConsumer<String> consumer) throws IOException {
+        try (final BufferedReader reader = CorpusUtils.reader(data)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.trim().isEmpty()) continue;
+
+                final JsonNode metadata = mapper.readTree(line).get("index");
+                consumer.accept(metadata.get("_type").asText(), metadata.get("_id").asText(), reader.readLine());
+            }
+        }
+    }
+
+    /**
+     * Streams the documents of a corpus file, using its Smile version.
+     * The Smile version is built on the first request and cached (see {@link CorpusUtils#cacheFolder(File)}), so
+     * subsequent runs skip the JSON parsing as long as the corpus doesn't change.
+     *
+     * @param data     the corpus file.
+     * @param consumer the documents consumer.
+     * @throws IOException in case of I/O failure.
+     */
+    private void readSmileCorpus(final File data, final DocumentConsumer<byte[]> consumer) throws IOException {
+        final File cacheFolder = CorpusUtils.cacheFolder(data);
+        final File smileCorpus = new File(cacheFolder, CorpusUtils.name(data) + ".smile");
+        if (!smileCorpus.canRead()) {
+            cacheFolder.mkdirs();
+            final File tmp = File.createTempFile(smileCorpus.getName(), ".part", cacheFolder);
+            try {
+                try (final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp), BUFFER_SIZE))) {
+                    readCorpus(data, (type, id, document) -> {
+                        final byte[] source = toSmile(document);
+                        out.writeBoolean(true);
+                        out.writeUTF(type);
+                        out.writeUTF(id);
+                        out.writeInt(source.length);
+                        out.write(source);
+                    });
+                    out.writeBoolean(false);
+                }
+                Files.move(tmp.toPath(), smileCorpus.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            } finally {
+                tmp.delete();
+            }
+        }
+
+        try (final DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(smileCorpus), BUFFER_SIZE))) {
+            while (in.readBoolean()) {
+                final String type = in.readUTF();
+                final String id = in.readUTF();
+                final byte[] source = new byte[in.readInt()];
+                in.readFully(source);
+                consumer.accept(type, id, source);
+            }
+        }
+    }
+
+    /**
+     * Converts the given JSON document in Smile format.
+     *
+     * @param document the JSON document.
+     * @return the Smile version of the given document.
+     * @throws IOException in case of conversion failure.
+     */
+    private static byte[] toSmile(final String document) throws IOException {
+        try (final XContentParser parser = XContentType.JSON.xContent().createParser(NamedXContentRegistry.EMPTY, DeprecationHandler.THROW_UNSUPPORTED_OPERATION, document)) {
+            return BytesReference.toBytes(BytesReference.bytes(XContentFactory.smileBuilder().copyCurrentStructure(parser)));
+        }
+    }
+
+    /**
+     * A consumer of corpus documents.
+     *
+     * @param <T> the document source type.
+     */
+    @FunctionalInterface
+    private interface DocumentConsumer<T> {
+        void accept(String type, String id, T document) throws IOException;
+    }
+
     @Override
     public String getName() {
         return "Elasticsearch";
     }
 
+    /**
+     * Returns the statistics of the given index (primary shards), through the indices stats API, plus the heap used
+     * by the (embedded) node.
+     * The indices stats API doesn't provide field and term counts, so those statistics are not available.
+     *
+     * @param indexName the index name.
+     * @return the statistics of the given index.
+     */
+    @Override
+    public Map<String, Number> indexStats(final String indexName) {
+        final Map<String, Number> stats = new LinkedHashMap<>();
+        try {
+            final CommonStats primaries =
+                    proxy.admin().indices()
+                            .prepareStats(indexName)
+                            .clear()
+                            .setDocs(true)
+                            .setStore(true)
+                            .setSegments(true)
+                            .get()
+                            .getPrimaries();
+            stats.put(IndexStats.DOCS, primaries.getDocs().getCount());
+            stats.put(IndexStats.DELETED_DOCS, primaries.getDocs().getDeleted());
+            stats.put(IndexStats.SEGMENTS, primaries.getSegments().getCount());
+            stats.put(IndexStats.SIZE_IN_BYTES, primaries.getStore().getSizeInBytes());
+            stats.put(
+                    IndexStats.HEAP_USED_BYTES,
+                    proxy.admin().cluster().prepareNodesStats().clear().setJvm(true).get().getNodes().stream()
+                            .mapToLong(node -> node.getJvm().getMem().getHeapUsed().getBytes())
+                            .sum());
+        } catch (final ElasticsearchException exception) {
+            LOGGER.error("Unable to read the statistics of " + indexName + " :: " + exception.getMessage());
+        }
+        return stats;
+    }
+
+    /**
+     * Returns the statistics of the query cache and of the shard request cache of the given index (all shards),
+     * through the indices stats API.
+     *
+     * @param indexName the index name.
+     * @return the statistics of the caches of the given index.
+     */
+    @Override
+    public Map<String, Map<String, Number>> cacheStats(final String indexName) {
+        final Map<String, Map<String, Number>> stats = new LinkedHashMap<>();
+        try {
+            final CommonStats total =
+                    proxy.admin().indices()
+                            .prepareStats(indexName)
+                            .clear()
+                            .setQueryCache(true)
+                            .setRequestCache(true)
+                            .get()
+                            .getTotal();
+
+            final QueryCacheStats queryCache = total.getQueryCache();
+            stats.put(QUERY_CACHE, cacheStats(queryCache.getTotalCount(), queryCache.getHitCount(), queryCache.getEvictions(), queryCache.getMemorySizeInBytes()));
+            stats.get(QUERY_CACHE).put(CacheStats.SIZE, queryCache.getCacheSize());
+
+            final RequestCacheStats requestCache = total.getRequestCache();
+            stats.put(REQUEST_CACHE, cacheStats(requestCache.getHitCount() + requestCache.getMissCount(), requestCache.getHitCount(), requestCache.getEvictions(), requestCache.getMemorySizeInBytes()));
+        } catch (final ElasticsearchException exception) {
+            LOGGER.error("Unable to read the cache statistics of " + indexName + " :: " + exception.getMessage());
+        }
+        return stats;
+    }
+
+    /**
+     * Builds the statistics of a cache from the given counters.
+     *
+     * @param lookups       the number of lookups.
+     * @param hits          the number of hits.
+     * @param evictions     the number of evictions.
+     * @param memoryInBytes the memory used by the cache, in bytes.
+     * @return the statistics of the cache.
+     */
+    static Map<String, Number> cacheStats(final long lookups, final long hits, final long evictions, final long memoryInBytes) {
+        final Map<String, Number> stats = new LinkedHashMap<>();
+        stats.put(CacheStats.LOOKUPS, lookups);
+        stats.put(CacheStats.HITS, hits);
+        stats.put(CacheStats.EVICTIONS, evictions);
+        stats.put(CacheStats.MEMORY_IN_BYTES, memoryInBytes);
+        return stats;
+    }
+
     @Override
     public void start() {
         try {
@@ -180,7 +630,17 @@ public class Elasticsearch implements SearchPlatform {
 
     @Override
     public void afterStart() {
-        // Nothing to be done here
+        ofNullable(snapshotsFolder).ifPresent(folder -> {
+            try {
+                proxy.admin().cluster().preparePutRepository(SNAPSHOT_REPOSITORY)
+                        .setType("fs")
+                        .setSettings(Settings.builder().put("location", folder.getAbsolutePath()))
+                        .get();
+            } catch (final ElasticsearchException exception) {
+                LOGGER.warn("Unable to register the snapshot repository " + folder.getAbsolutePath() + ": indexes will be always rebuilt. Reason: " + exception.getMessage());
+                snapshotsFolder = null;
+            }
+        });
     }
 
     @Override
@@ -205,12 +665,34 @@ public class Elasticsearch implements SearchPlatform {
             return convertResponse(qresponse);
         } catch (final ElasticsearchException e) {
             LOGGER.error("Caught ElasticsearchException :: " + e.getMessage());
-            return new QueryOrSearchResponse(0, Collections.emptyList());
+            return QueryOrSearchResponse.failed(e.getMessage());
         } catch (final IOException exception) {
             throw new RuntimeException(exception);
         }
     }
 
+    /**
+     * Executes the given query with the profile API enabled, and returns the execution time of each query clause,
+     * of the query rewriting and of each collector, summed over all shards.
+     *
+     * @param indexName the index name.
+     * @param query     the query.
+     * @param fields    the fields to return.
+     * @param maxRows   the maximum number of rows that will be returned.
+     * @return the execution time of each query clause and collector, in milliseconds.
+     */
+    @Override
+    public Map<String, Number> profile(final String indexName, final String query, final String[] fields, final int maxRows) {
+        try {
+            final SearchRequest request = buildSearchRequest(indexName, query, fields, maxRows);
+            request.source().profile(true);
+            return profileBreakdown(proxy.search(request).actionGet());
+        } catch (final ElasticsearchException | IOException exception) {
+            LOGGER.error("Unable to profile the query " + query + " on " + indexName + " :: " + exception.getMessage());
+            return emptyMap();
+        }
+    }
+
     SearchRequest buildSearchRequest(final String indexName, final String query, final String[] fields, final int maxRows) throws IOException {
         final String q = mapper.writeValueAsString(mapper.readTree(query).get("query"));
         final SearchSourceBuilder qBuilder = new SearchSourceBuilder()
@@ -220,6 +702,37 @@ public class Elasticsearch implements SearchPlatform {
         return new SearchRequest(indexName).source(qBuilder);
     }
 
+    /**
+     * Extracts the execution time of each query clause, of the query rewriting and of each collector from the given
+     * (profiled) search response. Nested clauses are named after their path (e.g. "query BooleanQuery [...] > TermQuery [...]").
+     *
+     * @param searchResponse the search response.
+     * @return the execution time of each query clause and collector, summed over all shards, in milliseconds.
+     */
+    Map<String, Number> profileBreakdown(final SearchResponse searchResponse) {
+        final Map<String, BigDecimal> breakdown = new LinkedHashMap<>();
+        ofNullable(searchResponse.getProfileResults()).orElse(emptyMap()).values().stream()
+                .flatMap(shard -> shard.getQueryProfileResults().stream())
+                .forEach(shard -> {
+                    shard.getQueryResults().forEach(result -> profile("query ", result, breakdown));
+                    breakdown.merge("rewrite", BigDecimal.valueOf(shard.getRewriteTime(), 6), BigDecimal::add);
+                    ofNullable(shard.getCollectorResult()).ifPresent(collector -> profile("collector ", collector, breakdown));
+                });
+        return new LinkedHashMap<>(breakdown);
+    }
+
+    private void profile(final String prefix, final ProfileResult result, final Map<String, BigDecimal> breakdown) {
+        final String name = prefix + result.getQueryName() + " [" + result.getLuceneDescription() + "]";
+        breakdown.merge(name, BigDecimal.valueOf(result.getTime(), 6), BigDecimal::add);
+        result.getProfiledChildren().forEach(child -> profile(name + " > ", child, breakdown));
+    }
+
+    private void profile(final String prefix, final CollectorResult result, final Map<String, BigDecimal> breakdown) {
+        final String name = prefix + result.getName();
+        breakdown.merge(name, BigDecimal.valueOf(result.getTime(), 6), BigDecimal::add);
+        result.getProfiledChildren().forEach(child -> profile(name + " > ", child, breakdown));
+    }
+
     QueryOrSearchResponse convertResponse(final SearchResponse searchResponse) {
         return new QueryOrSearchResponse(
                 searchResponse.getHits().totalHits,
@@ -229,7 +742,8 @@ public class Elasticsearch implements SearchPlatform {
                             result.put("_id", hit.getId());
                             return result;
                         })
-                        .collect(toList()));
+                        .collect(toList()),
+                searchResponse.getTook().millis());
     }
 
     @Override
@@ -290,4 +804,9 @@ public class Elasticsearch implements SearchPlatform {
     public boolean isCorporaRequired() {
         return true;
     }
+
+    @Override
+    public boolean isCompressedCorporaSupported() {
+        return true;
+    }
 }
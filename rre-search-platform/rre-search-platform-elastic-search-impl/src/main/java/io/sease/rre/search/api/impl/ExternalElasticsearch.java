@@ -2,23 +2,30 @@ package io.sease.rre.search.api.impl;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.sease.rre.search.api.CacheStats;
+import io.sease.rre.search.api.IndexStats;
 import io.sease.rre.search.api.QueryOrSearchResponse;
-import org.apache.http.HttpHost;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.elasticsearch.ElasticsearchException;
 import org.elasticsearch.action.search.SearchRequest;
 import org.elasticsearch.action.search.SearchResponse;
-import org.elasticsearch.client.RestClient;
-import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.client.Response;
+import org.elasticsearch.client.RestClientBuilder;
 
 import java.io.File;
 import java.io.IOException;
-import java.util.Collections;
+import java.io.InputStream;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+import static java.util.Optional.ofNullable;
 
 /**
  * SearchPlatform implementation for connecting to and reading from an external
@@ -33,7 +40,8 @@ public class ExternalElasticsearch extends Elasticsearch {
     static final String SETTINGS_FILE = "index-settings.json";
 
     private final Map<String, IndexSettings> indexSettingsMap = new HashMap<>();
-    private final Map<String, RestHighLevelClient> indexClients = new HashMap<>();
+    private final Map<String, PooledRestClient> indexClients = new HashMap<>();
+    private final Map<String, PooledRestClient> sharedClients = new HashMap<>();
 
     @Override
     public void beforeStart(Map<String, Object> configuration) {
@@ -55,19 +63,32 @@ public class ExternalElasticsearch extends Elasticsearch {
             // Load the index settings for this version of the search platform
             IndexSettings settings = mapper.readValue(settingsFile, IndexSettings.class);
             indexSettingsMap.put(targetIndexName, settings);
-            indexClients.put(targetIndexName, initialiseClient(settings.getHostUrls()));
+            indexClients.put(targetIndexName, sharedClient(settings));
         } catch (IOException e) {
             LOGGER.error("Could not read settings from " + settingsFile.getName() + " :: " + e.getMessage());
         }
     }
 
-    private RestHighLevelClient initialiseClient(List<String> hosts) {
-        // Convert hosts to HTTP host objects
-        HttpHost[] httpHosts = hosts.stream()
-                .map(HttpHost::create)
-                .toArray(HttpHost[]::new);
-
-        return new RestHighLevelClient(RestClient.builder(httpHosts));
+    /**
+     * Returns the client for the hosts declared in the given settings, creating it on the first request.
+     * Index versions hosted on the same set of nodes share the same client (and connection pool).
+     *
+     * @param settings the index settings.
+     * @return the client for the hosts declared in the given settings.
+     * @throws IOException if the client cannot be created.
+     */
+    private PooledRestClient sharedClient(IndexSettings settings) throws IOException {
+        final String hostsKey = settings.getHostUrls().stream().sorted().collect(Collectors.joining(","));
+        PooledRestClient client = sharedClients.get(hostsKey);
+        if (client == null) {
+            client = new PooledRestClient(settings.getHostUrls(), settings.getConnection(), settings.getThrottling(), settings.getRetries());
+            sharedClients.put(hostsKey, client);
+        } else if (!client.getSettings().equals(settings.getConnection())
+                || !client.getThrottlingSettings().equals(settings.getThrottling())
+                || !client.getRetrySettings().equals(settings.getRetries())) {
+            LOGGER.warn("Index " + settings.getIndex() + " declares different connection, throttling or retry settings for " + hostsKey + ": the settings of the first declaring version will be used.");
+        }
+        return client;
     }
 
     @Override
@@ -83,14 +104,41 @@ public class ExternalElasticsearch extends Elasticsearch {
             return convertResponse(response);
         } catch (final ElasticsearchException e) {
             LOGGER.error("Caught ElasticsearchException :: " + e.getMessage());
-            return new QueryOrSearchResponse(0, Collections.emptyList());
+            return QueryOrSearchResponse.failed(e.getMessage());
         } catch (IOException e) {
-            throw new RuntimeException(e);
+            LOGGER.error("Caught IOException executing query on " + indexName + " :: " + e);
+            return QueryOrSearchResponse.failed(e.toString());
+        }
+    }
+
+    /**
+     * Executes the given query with the profile API enabled, and returns the execution time of each query clause,
+     * of the query rewriting and of each collector, summed over all shards.
+     *
+     * @param indexName the index name.
+     * @param query     the query.
+     * @param fields    the fields to return.
+     * @param maxRows   the maximum number of rows that will be returned.
+     * @return the execution time of each query clause and collector, in milliseconds.
+     */
+    @Override
+    public Map<String, Number> profile(final String indexName, final String query, final String[] fields, final int maxRows) {
+        if (!indexSettingsMap.containsKey(indexName)) {
+            return new HashMap<>();
+        }
+
+        try {
+            final SearchRequest request = buildSearchRequest(indexSettingsMap.get(indexName).getIndex(), query, fields, maxRows);
+            request.source().profile(true);
+            return profileBreakdown(runQuery(indexName, request));
+        } catch (final ElasticsearchException | IOException exception) {
+            LOGGER.error("Unable to profile the query " + query + " on " + indexName + " :: " + exception.getMessage());
+            return new HashMap<>();
         }
     }
 
     private SearchResponse runQuery(final String indexKey, final SearchRequest request) throws IOException {
-        RestHighLevelClient client = indexClients.get(indexKey);
+        PooledRestClient client = indexClients.get(indexKey);
         if (client == null) {
             throw new RuntimeException("No HTTP client found for index " + indexKey);
         }
@@ -102,6 +150,91 @@ public class ExternalElasticsearch extends Elasticsearch {
         return NAME;
     }
 
+    /**
+     * Returns the statistics of the given index (primary shards), through the indices stats API, plus the heap used
+     * by the nodes of the cluster.
+     *
+     * @param indexName the index name.
+     * @return the statistics of the given index.
+     */
+    @Override
+    public Map<String, Number> indexStats(final String indexName) {
+        final Map<String, Number> stats = new LinkedHashMap<>();
+        final PooledRestClient client = indexClients.get(indexName);
+        if (client == null) {
+            return stats;
+        }
+
+        try {
+            final JsonNode primaries =
+                    json(client.get("/" + indexSettingsMap.get(indexName).getIndex() + "/_stats/docs,store,segments"))
+                            .path("_all")
+                            .path("primaries");
+            stats.put(IndexStats.DOCS, primaries.path("docs").path("count").asLong());
+            stats.put(IndexStats.DELETED_DOCS, primaries.path("docs").path("deleted").asLong());
+            stats.put(IndexStats.SEGMENTS, primaries.path("segments").path("count").asLong());
+            stats.put(IndexStats.SIZE_IN_BYTES, primaries.path("store").path("size_in_bytes").asLong());
+
+            long heapUsed = 0;
+            for (final JsonNode node : json(client.get("/_nodes/stats/jvm")).path("nodes")) {
+                heapUsed += node.path("jvm").path("mem").path("heap_used_in_bytes").asLong();
+            }
+            stats.put(IndexStats.HEAP_USED_BYTES, heapUsed);
+        } catch (final IOException exception) {
+            LOGGER.error("Unable to read the statistics of " + indexName + " :: " + exception.getMessage());
+        }
+        return stats;
+    }
+
+    /**
+     * Returns the statistics of the query cache and of the shard request cache of the given index (all shards),
+     * through the indices stats API.
+     *
+     * @param indexName the index name.
+     * @return the statistics of the caches of the given index.
+     */
+    @Override
+    public Map<String, Map<String, Number>> cacheStats(final String indexName) {
+        final Map<String, Map<String, Number>> stats = new LinkedHashMap<>();
+        final PooledRestClient client = indexClients.get(indexName);
+        if (client == null) {
+            return stats;
+        }
+
+        try {
+            final JsonNode total =
+                    json(client.get("/" + indexSettingsMap.get(indexName).getIndex() + "/_stats/query_cache,request_cache"))
+                            .path("_all")
+                            .path("total");
+
+            final JsonNode queryCache = total.path("query_cache");
+            stats.put(QUERY_CACHE,
+                    cacheStats(
+                            queryCache.path("total_count").asLong(),
+                            queryCache.path("hit_count").asLong(),
+                            queryCache.path("evictions").asLong(),
+                            queryCache.path("memory_size_in_bytes").asLong()));
+            stats.get(QUERY_CACHE).put(CacheStats.SIZE, queryCache.path("cache_size").asLong());
+
+            final JsonNode requestCache = total.path("request_cache");
+            stats.put(REQUEST_CACHE,
+                    cacheStats(
+                            requestCache.path("hit_count").asLong() + requestCache.path("miss_count").asLong(),
+                            requestCache.path("hit_count").asLong(),
+                            requestCache.path("evictions").asLong(),
+                            requestCache.path("memory_size_in_bytes").asLong()));
+        } catch (final IOException exception) {
+            LOGGER.error("Unable to read the cache statistics of " + indexName + " :: " + exception.getMessage());
+        }
+        return stats;
+    }
+
+    private JsonNode json(final Response response) throws IOException {
+        try (final InputStream content = response.getEntity().getContent()) {
+            return new ObjectMapper().readTree(content);
+        }
+    }
+
     @Override
     public boolean isSearchPlatformFile(String indexName, File file) {
         return file.isFile() && file.getName().equals(SETTINGS_FILE);
@@ -114,10 +247,15 @@ public class ExternalElasticsearch extends Elasticsearch {
 
     @Override
     public void close() {
-        indexClients.values().forEach(this::closeClient);
+        sharedClients.values().forEach(this::closeClient);
+    }
+
+    // Used by unit tests
+    PooledRestClient getClient(String indexName) {
+        return indexClients.get(indexName);
     }
 
-    private void closeClient(RestHighLevelClient client) {
+    private void closeClient(PooledRestClient client) {
         try {
             client.close();
         } catch (IOException e) {
@@ -132,11 +270,23 @@ public class ExternalElasticsearch extends Elasticsearch {
         private final String index;
         @JsonProperty("hostUrls")
         private final List<String> hostUrls;
+        @JsonProperty("connection")
+        private final ConnectionSettings connection;
+        @JsonProperty("throttling")
+        private final ThrottlingSettings throttling;
+        @JsonProperty("retries")
+        private final RetrySettings retries;
 
         public IndexSettings(@JsonProperty("index") String index,
-                             @JsonProperty("hostUrls") List<String> hostUrls) {
+                             @JsonProperty("hostUrls") List<String> hostUrls,
+                             @JsonProperty("connection") ConnectionSettings connection,
+                             @JsonProperty("throttling") ThrottlingSettings throttling,
+                             @JsonProperty("retries") RetrySettings retries) {
             this.index = index;
             this.hostUrls = hostUrls;
+            this.connection = connection == null ? new ConnectionSettings(null, null, null, null, null, null) : connection;
+            this.throttling = throttling == null ? new ThrottlingSettings(null, null, null) : throttling;
+            this.retries = retries == null ? new RetrySettings(null, null, null, null, null) : retries;
         }
 
         String getIndex() {
@@ -146,5 +296,208 @@ public class ExternalElasticsearch extends Elasticsearch {
         List<String> getHostUrls() {
             return hostUrls;
         }
+
+        ConnectionSettings getConnection() {
+            return connection;
+        }
+
+        ThrottlingSettings getThrottling() {
+            return throttling;
+        }
+
+        RetrySettings getRetries() {
+            return retries;
+        }
+    }
+
+    /**
+     * The (optional) timeout, retry and hedging settings of an index version.
+     * An unset request timeout falls back to the socket timeout of the connection.
+     */
+    public static class RetrySettings {
+
+        @JsonProperty("requestTimeoutMs")
+        private final Long requestTimeout;
+        @JsonProperty("maxRetries")
+        private final int maxRetries;
+        @JsonProperty("initialBackoffMs")
+        private final long initialBackoff;
+        @JsonProperty("maxBackoffMs")
+        private final long maxBackoff;
+        @JsonProperty("hedging")
+        private final boolean hedging;
+
+        public RetrySettings(@JsonProperty("requestTimeoutMs") Long requestTimeout,
+                             @JsonProperty("maxRetries") Integer maxRetries,
+                             @JsonProperty("initialBackoffMs") Long initialBackoff,
+                             @JsonProperty("maxBackoffMs") Long maxBackoff,
+                             @JsonProperty("hedging") Boolean hedging) {
+            this.requestTimeout = requestTimeout;
+            this.maxRetries = ofNullable(maxRetries).orElse(2);
+            this.initialBackoff = ofNullable(initialBackoff).orElse(100L);
+            this.maxBackoff = ofNullable(maxBackoff).orElse(5000L);
+            this.hedging = ofNullable(hedging).orElse(false);
+        }
+
+        Long getRequestTimeout() {
+            return requestTimeout;
+        }
+
+        int getMaxRetries() {
+            return maxRetries;
+        }
+
+        long getInitialBackoff() {
+            return initialBackoff;
+        }
+
+        long getMaxBackoff() {
+            return maxBackoff;
+        }
+
+        boolean isHedging() {
+            return hedging;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            RetrySettings that = (RetrySettings) o;
+            return maxRetries == that.maxRetries &&
+                    initialBackoff == that.initialBackoff &&
+                    maxBackoff == that.maxBackoff &&
+                    hedging == that.hedging &&
+                    Objects.equals(requestTimeout, that.requestTimeout);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(requestTimeout, maxRetries, initialBackoff, maxBackoff, hedging);
+        }
+    }
+
+    /**
+     * The (optional) query throttling settings of an index version. Unset values mean no limit.
+     */
+    public static class ThrottlingSettings {
+
+        @JsonProperty("maxQps")
+        private final double maxQps;
+        @JsonProperty("maxConcurrentQueries")
+        private final int maxConcurrentQueries;
+        @JsonProperty("latencyThresholdMs")
+        private final long latencyThreshold;
+
+        public ThrottlingSettings(@JsonProperty("maxQps") Double maxQps,
+                                  @JsonProperty("maxConcurrentQueries") Integer maxConcurrentQueries,
+                                  @JsonProperty("latencyThresholdMs") Long latencyThreshold) {
+            this.maxQps = ofNullable(maxQps).orElse(0d);
+            this.maxConcurrentQueries = ofNullable(maxConcurrentQueries).orElse(0);
+            this.latencyThreshold = ofNullable(latencyThreshold).orElse(0L);
+        }
+
+        double getMaxQps() {
+            return maxQps;
+        }
+
+        int getMaxConcurrentQueries() {
+            return maxConcurrentQueries;
+        }
+
+        long getLatencyThreshold() {
+            return latencyThreshold;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            ThrottlingSettings that = (ThrottlingSettings) o;
+            return Double.compare(that.maxQps, maxQps) == 0 &&
+                    maxConcurrentQueries == that.maxConcurrentQueries &&
+                    latencyThreshold == that.latencyThreshold;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(maxQps, maxConcurrentQueries, latencyThreshold);
+        }
+    }
+
+    /**
+     * The (optional) HTTP connection settings of an index version. Unset values fall back to the Elasticsearch
+     * REST client defaults.
+     */
+    public static class ConnectionSettings {
+
+        @JsonProperty("maxConnections")
+        private final int maxConnections;
+        @JsonProperty("maxConnectionsPerRoute")
+        private final int maxConnectionsPerRoute;
+        @JsonProperty("keepAliveMs")
+        private final Long keepAlive;
+        @JsonProperty("connectTimeoutMs")
+        private final int connectTimeout;
+        @JsonProperty("socketTimeoutMs")
+        private final int socketTimeout;
+        @JsonProperty("compression")
+        private final boolean compression;
+
+        public ConnectionSettings(@JsonProperty("maxConnections") Integer maxConnections,
+                                  @JsonProperty("maxConnectionsPerRoute") Integer maxConnectionsPerRoute,
+                                  @JsonProperty("keepAliveMs") Long keepAlive,
+                                  @JsonProperty("connectTimeoutMs") Integer connectTimeout,
+                                  @JsonProperty("socketTimeoutMs") Integer socketTimeout,
+                                  @JsonProperty("compression") Boolean compression) {
+            this.maxConnections = ofNullable(maxConnections).orElse(RestClientBuilder.DEFAULT_MAX_CONN_TOTAL);
+            this.maxConnectionsPerRoute = ofNullable(maxConnectionsPerRoute).orElse(RestClientBuilder.DEFAULT_MAX_CONN_PER_ROUTE);
+            this.keepAlive = keepAlive;
+            this.connectTimeout = ofNullable(connectTimeout).orElse(RestClientBuilder.DEFAULT_CONNECT_TIMEOUT_MILLIS);
+            this.socketTimeout = ofNullable(socketTimeout).orElse(RestClientBuilder.DEFAULT_SOCKET_TIMEOUT_MILLIS);
+            this.compression = ofNullable(compression).orElse(false);
+        }
+
+        int getMaxConnections() {
+            return maxConnections;
+        }
+
+        int getMaxConnectionsPerRoute() {
+            return maxConnectionsPerRoute;
+        }
+
+        Long getKeepAlive() {
+            return keepAlive;
+        }
+
+        int getConnectTimeout() {
+            return connectTimeout;
+        }
+
+        int getSocketTimeout() {
+            return socketTimeout;
+        }
+
+        boolean isCompression() {
+            return compression;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            ConnectionSettings that = (ConnectionSettings) o;
+            return maxConnections == that.maxConnections &&
+                    maxConnectionsPerRoute == that.maxConnectionsPerRoute &&
+                    connectTimeout == that.connectTimeout &&
+                    socketTimeout == that.socketTimeout &&
+                    compression == that.compression &&
+                    Objects.equals(keepAlive, that.keepAlive);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(maxConnections, maxConnectionsPerRoute, keepAlive, connectTimeout, socketTimeout, compression);
+        }
     }
 }
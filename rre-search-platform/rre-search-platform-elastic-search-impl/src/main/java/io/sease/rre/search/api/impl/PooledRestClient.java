@@ -0,0 +1,571 @@
+package io.sease.rre.search.api.impl;
+
+import org.apache.http.ConnectionClosedException;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpHost;
+import org.apache.http.HttpResponse;
+import org.apache.http.NoHttpResponseException;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.entity.GzipDecompressingEntity;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.conn.ConnectTimeoutException;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.client.HttpAsyncClients;
+import org.apache.http.impl.nio.conn.PoolingNHttpClientConnectionManager;
+import org.apache.http.impl.nio.reactor.DefaultConnectingIOReactor;
+import org.apache.http.impl.nio.reactor.IOReactorConfig;
+import org.apache.http.message.BasicHeader;
+import org.apache.http.nio.client.methods.HttpAsyncMethods;
+import org.apache.http.nio.protocol.BasicAsyncResponseConsumer;
+import org.apache.http.nio.reactor.IOReactorException;
+import org.apache.http.pool.PoolStats;
+import org.apache.http.util.EntityUtils;
+import io.sease.rre.search.api.LatencyWindow;
+import io.sease.rre.search.api.QueryThrottle;
+import io.sease.rre.search.api.RetryPolicy;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.elasticsearch.ElasticsearchStatusException;
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.client.Response;
+import org.elasticsearch.client.RestClient;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.xcontent.DeprecationHandler;
+import org.elasticsearch.common.xcontent.NamedXContentRegistry;
+import org.elasticsearch.common.xcontent.XContentHelper;
+import org.elasticsearch.common.xcontent.XContentParser;
+import org.elasticsearch.common.xcontent.XContentType;
+import org.elasticsearch.rest.RestStatus;
+import org.elasticsearch.search.SearchModule;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.zip.GZIPOutputStream;
+
+import static java.util.Collections.emptyList;
+import static java.util.Optional.ofNullable;
+
+/**
+ * An Elasticsearch REST client backed by a tunable connection pool, which can be shared by all the index versions
+ * hosted on the same set of nodes.
+ * The client optionally gzips the request bodies and asks for gzipped responses, throttles the queries (see
+ * {@link QueryThrottle}), bounds each query with a timeout, retries transient failures (see {@link RetryPolicy}),
+ * optionally hedges slow queries and keeps track of the pool utilisation, which is reported when the client is closed.
+ *
+ * @author Matt Pearce (matt@flax.co.uk)
+ */
+class PooledRestClient implements Closeable {
+
+    private static final Logger LOGGER = LogManager.getLogger(PooledRestClient.class);
+    private static final String GZIP = "gzip";
+    private static final int LATENCY_WINDOW_SIZE = 1000;
+    private static final int MIN_HEDGING_SAMPLES = 20;
+    private static final double HEDGING_PERCENTILE = 95;
+
+    private static volatile NamedXContentRegistry registry;
+
+    private final List<String> hosts;
+    private final ExternalElasticsearch.ConnectionSettings settings;
+    private final ExternalElasticsearch.ThrottlingSettings throttlingSettings;
+    private final ExternalElasticsearch.RetrySettings retrySettings;
+    private final QueryThrottle throttle;
+    private final RetryPolicy retryPolicy;
+    private final long requestTimeout;
+    private final LatencyWindow latencies = new LatencyWindow(LATENCY_WINDOW_SIZE);
+    private final PoolingNHttpClientConnectionManager connectionManager;
+    private final HttpHost[] httpHosts;
+    private final CloseableHttpAsyncClient searchClient;
+    private final RestClient client;
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger peakInFlight = new AtomicInteger();
+    private final AtomicInteger peakLeased = new AtomicInteger();
+    private final AtomicInteger peakPending = new AtomicInteger();
+    private final AtomicLong retries = new AtomicLong();
+    private final AtomicLong hedges = new AtomicLong();
+    private final AtomicLong timeouts = new AtomicLong();
+
+    /**
+     * Builds a new client for the given hosts.
+     *
+     * @param hosts    the URLs of the Elasticsearch nodes.
+     * @param settings           the connection settings.
+     * @param throttlingSettings the throttling settings.
+     * @param retrySettings      the timeout, retry and hedging settings.
+     * @throws IOReactorException if the connection pool cannot be created.
+     */
+    PooledRestClient(final List<String> hosts,
+                     final ExternalElasticsearch.ConnectionSettings settings,
+                     final ExternalElasticsearch.ThrottlingSettings throttlingSettings,
+                     final ExternalElasticsearch.RetrySettings retrySettings) throws IOReactorException {
+        this.hosts = hosts;
+        this.settings = settings;
+        this.throttlingSettings = throttlingSettings;
+        this.retrySettings = retrySettings;
+        this.retryPolicy = new RetryPolicy(retrySettings.getMaxRetries(), retrySettings.getInitialBackoff(), retrySettings.getMaxBackoff());
+        this.requestTimeout = ofNullable(retrySettings.getRequestTimeout()).orElse((long) settings.getSocketTimeout());
+        this.throttle = new QueryThrottle(
+                throttlingSettings.getMaxQps(),
+                throttlingSettings.getMaxConcurrentQueries(),
+                throttlingSettings.getLatencyThreshold());
+
+        connectionManager = new PoolingNHttpClientConnectionManager(new DefaultConnectingIOReactor(IOReactorConfig.DEFAULT));
+        connectionManager.setMaxTotal(settings.getMaxConnections());
+        connectionManager.setDefaultMaxPerRoute(settings.getMaxConnectionsPerRoute());
+
+        httpHosts = hosts.stream()
+                .map(HttpHost::create)
+                .toArray(HttpHost[]::new);
+
+        // Search requests go through their own HTTP client (and the tuned pool), so a request which is no longer
+        // needed (e.g. a hedged request which lost) can be cancelled, releasing its connection
+        searchClient = HttpAsyncClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(
+                        RequestConfig.custom()
+                                .setConnectTimeout(settings.getConnectTimeout())
+                                .setSocketTimeout(settings.getSocketTimeout())
+                                .build())
+                .setKeepAliveStrategy((response, context) ->
+                        ofNullable(settings.getKeepAlive())
+                                .orElseGet(() -> DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context)))
+                .build();
+        searchClient.start();
+
+        client = RestClient.builder(httpHosts)
+                .setMaxRetryTimeoutMillis(settings.getSocketTimeout())
+                .setRequestConfigCallback(requestConfig ->
+                        requestConfig
+                                .setConnectTimeout(settings.getConnectTimeout())
+                                .setSocketTimeout(settings.getSocketTimeout()))
+                .build();
+    }
+
+    /**
+     * Returns the connection settings of this client.
+     *
+     * @return the connection settings of this client.
+     */
+    ExternalElasticsearch.ConnectionSettings getSettings() {
+        return settings;
+    }
+
+    /**
+     * Returns the throttling settings of this client.
+     *
+     * @return the throttling settings of this client.
+     */
+    ExternalElasticsearch.ThrottlingSettings getThrottlingSettings() {
+        return throttlingSettings;
+    }
+
+    /**
+     * Returns the retry settings of this client.
+     *
+     * @return the retry settings of this client.
+     */
+    ExternalElasticsearch.RetrySettings getRetrySettings() {
+        return retrySettings;
+    }
+
+    /**
+     * Executes the given search request.
+     * Each attempt is bounded by the request timeout, and it is sent to the next node (round robin); transient
+     * failures (timeouts, connection failures, rejected requests) are retried with a jittered exponential backoff,
+     * according to the retry settings.
+     *
+     * @param request the search request.
+     * @return the search response.
+     * @throws IOException in case of communication failure (once the retries have been exhausted).
+     */
+    SearchResponse search(final SearchRequest request) throws IOException {
+        for (int attempt = 0; ; attempt++) {
+            try {
+                return hedgedSearch(request);
+            } catch (final IOException | ElasticsearchStatusException exception) {
+                if (!isTransient(exception) || !retryPolicy.canRetry(attempt)) {
+                    throw exception;
+                }
+                retries.incrementAndGet();
+                LOGGER.debug("ES HTTP client " + hosts + ": retrying query after " + exception);
+                try {
+                    retryPolicy.backoff(attempt);
+                } catch (final InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted while waiting for retrying a query.");
+                }
+            }
+        }
+    }
+
+    /**
+     * Executes a single attempt of the given search request.
+     * If hedging is enabled and the request is slower than the 95th percentile of the recent requests, a second
+     * (hedge) request is sent, and the first successful response wins: the other request is cancelled.
+     * The pending requests are cancelled as well once the request timeout expires.
+     *
+     * @param request the search request.
+     * @return the search response.
+     * @throws IOException in case of communication failure or timeout.
+     */
+    private SearchResponse hedgedSearch(final SearchRequest request) throws IOException {
+        final long start = System.nanoTime();
+        final CompletableFuture<SearchResponse> primary = send(request);
+
+        CompletableFuture<SearchResponse> response = primary;
+        final long hedgeDelay = hedgeDelay();
+        if (hedgeDelay > 0 && (requestTimeout <= 0 || hedgeDelay < requestTimeout)) {
+            try {
+                primary.get(hedgeDelay, TimeUnit.MILLISECONDS);
+            } catch (final TimeoutException exception) {
+                hedges.incrementAndGet();
+                response = firstSuccessful(primary, send(request));
+            } catch (final InterruptedException exception) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for a query response.");
+            } catch (final ExecutionException exception) {
+                // The failure is reported below
+            }
+        }
+
+        return await(response, requestTimeout <= 0 ? 0 : requestTimeout - TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    /**
+     * Waits for the given response.
+     *
+     * @param response the response future.
+     * @param timeout  how long (in milliseconds) to wait, 0 for waiting until the response is available.
+     * @return the search response.
+     * @throws IOException in case of communication failure or timeout.
+     */
+    private SearchResponse await(final CompletableFuture<SearchResponse> response, final long timeout) throws IOException {
+        try {
+            return requestTimeout <= 0 ? response.get() : response.get(Math.max(1, timeout), TimeUnit.MILLISECONDS);
+        } catch (final TimeoutException exception) {
+            timeouts.incrementAndGet();
+            response.cancel(true);
+            throw new SocketTimeoutException("No response within " + requestTimeout + " ms");
+        } catch (final InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a query response.");
+        } catch (final ExecutionException exception) {
+            final Throwable cause = unwrap(exception.getCause());
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    /**
+     * Sends the given search request (once the throttle allows it), without waiting for the response.
+     *
+     * @param request the search request.
+     * @return the response future.
+     * @throws IOException if the calling thread is interrupted while waiting for the query throttle.
+     */
+    private CompletableFuture<SearchResponse> send(final SearchRequest request) throws IOException {
+        try {
+            throttle.acquire();
+        } catch (final InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for the query throttle.");
+        }
+
+        requests.incrementAndGet();
+        peakInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+        sampleUtilisation();
+
+        final long start = System.nanoTime();
+        final SearchFuture response = new SearchFuture();
+        try {
+            response.exchange = execute(request, response);
+        } catch (final IOException | RuntimeException exception) {
+            response.completeExceptionally(exception);
+        }
+
+        response.whenComplete((result, failure) -> {
+            inFlight.decrementAndGet();
+            sampleUtilisation();
+            final long latency = System.nanoTime() - start;
+            if (failure == null) {
+                latencies.record(latency);
+            }
+            throttle.release(latency, failure != null && isOverload(unwrap(failure)));
+        });
+        return response;
+    }
+
+    /**
+     * Returns how long (in milliseconds) to wait before hedging a request: the 95th percentile of the recent
+     * request latencies, or 0 if hedging is disabled (or there aren't enough samples yet).
+     *
+     * @return how long (in milliseconds) to wait before hedging a request, 0 for no hedging.
+     */
+    private long hedgeDelay() {
+        if (!retrySettings.isHedging() || latencies.size() < MIN_HEDGING_SAMPLES) {
+            return 0;
+        }
+        return Math.max(1, TimeUnit.NANOSECONDS.toMillis(latencies.percentile(HEDGING_PERCENTILE)));
+    }
+
+    /**
+     * Returns a future which completes with the first successful response, or with the last failure if both the
+     * given requests fail. Once the returned future completes (or it is cancelled), the pending request is cancelled.
+     *
+     * @param first  the first response future.
+     * @param second the second response future.
+     * @return a future which completes with the first successful response.
+     */
+    private static <T> CompletableFuture<T> firstSuccessful(final CompletableFuture<T> first, final CompletableFuture<T> second) {
+        final CompletableFuture<T> result = new CompletableFuture<>();
+        final AtomicInteger failures = new AtomicInteger();
+        final BiConsumer<T, Throwable> handler = (value, failure) -> {
+            if (failure == null) {
+                result.complete(value);
+            } else if (failures.incrementAndGet() == 2) {
+                result.completeExceptionally(unwrap(failure));
+            }
+        };
+        first.whenComplete(handler);
+        second.whenComplete(handler);
+        result.whenComplete((value, failure) -> {
+            first.cancel(true);
+            second.cancel(true);
+        });
+        return result;
+    }
+
+    private static Throwable unwrap(final Throwable failure) {
+        return failure instanceof CompletionException && failure.getCause() != null ? failure.getCause() : failure;
+    }
+
+    /**
+     * Returns true if the given failure is (likely) transient, so the request can be retried: rejected requests,
+     * timeouts and connection failures. Any other failure (e.g. a response which cannot be parsed) is not retried.
+     *
+     * @param failure the request failure.
+     * @return true if the given failure is (likely) transient.
+     */
+    private static boolean isTransient(final Exception failure) {
+        if (failure instanceof ElasticsearchStatusException) {
+            final RestStatus status = ((ElasticsearchStatusException) failure).status();
+            return isOverload(status) || status == RestStatus.BAD_GATEWAY || status == RestStatus.GATEWAY_TIMEOUT;
+        }
+        return !Thread.currentThread().isInterrupted()
+                && (failure instanceof SocketException
+                || failure instanceof SocketTimeoutException
+                || failure instanceof ConnectTimeoutException
+                || failure instanceof NoHttpResponseException
+                || failure instanceof ConnectionClosedException);
+    }
+
+    /**
+     * Returns true if the given failure means the cluster is overloaded (rejected executions or timeouts).
+     *
+     * @param failure the request failure.
+     * @return true if the given failure means the cluster is overloaded.
+     */
+    private static boolean isOverload(final Throwable failure) {
+        return failure instanceof SocketTimeoutException
+                || (failure instanceof ElasticsearchStatusException && isOverload(((ElasticsearchStatusException) failure).status()));
+    }
+
+    /**
+     * Returns true if the given status means the cluster is overloaded (e.g. rejected executions).
+     *
+     * @param status the response status.
+     * @return true if the given status means the cluster is overloaded.
+     */
+    private static boolean isOverload(final RestStatus status) {
+        return status == RestStatus.TOO_MANY_REQUESTS || status == RestStatus.SERVICE_UNAVAILABLE;
+    }
+
+    /**
+     * Records the current pool utilisation, if it is higher than the peak observed so far.
+     */
+    private void sampleUtilisation() {
+        final PoolStats stats = connectionManager.getTotalStats();
+        peakLeased.accumulateAndGet(stats.getLeased(), Math::max);
+        peakPending.accumulateAndGet(stats.getPending(), Math::max);
+    }
+
+    /**
+     * Sends the given search request to the next node, completing the given future with the search response.
+     * If compression is enabled, the request body is gzipped and a gzipped response is requested.
+     *
+     * @param request  the search request.
+     * @param response the future which will be completed with the search response.
+     * @return the HTTP exchange, which can be cancelled.
+     * @throws IOException if the request body cannot be serialized.
+     */
+    private Future<HttpResponse> execute(final SearchRequest request, final CompletableFuture<SearchResponse> response) throws IOException {
+        final ByteArrayOutputStream body = new ByteArrayOutputStream();
+        try (final OutputStream out = settings.isCompression() ? new GZIPOutputStream(body) : body) {
+            XContentHelper.toXContent(request.source(), XContentType.JSON, false).writeTo(out);
+        }
+
+        final ByteArrayEntity entity = new ByteArrayEntity(body.toByteArray(), ContentType.APPLICATION_JSON);
+        final HttpPost post = new HttpPost("/" + String.join(",", request.indices()) + "/_search?typed_keys=true");
+        if (settings.isCompression()) {
+            entity.setContentEncoding(GZIP);
+            post.addHeader(new BasicHeader("Accept-Encoding", GZIP));
+        }
+        post.setEntity(entity);
+
+        final HttpHost host = httpHosts[(int) ((requests.get() & Long.MAX_VALUE) % httpHosts.length)];
+        return searchClient.execute(
+                HttpAsyncMethods.create(host, post),
+                new BasicAsyncResponseConsumer(),
+                new FutureCallback<HttpResponse>() {
+                    @Override
+                    public void completed(final HttpResponse result) {
+                        try {
+                            final int status = result.getStatusLine().getStatusCode();
+                            if (status >= 300) {
+                                response.completeExceptionally(new ElasticsearchStatusException(
+                                        "POST " + host + post.getURI() + " returned " + result.getStatusLine() + ": " + EntityUtils.toString(result.getEntity()),
+                                        RestStatus.fromCode(status)));
+                            } else {
+                                response.complete(parse(result));
+                            }
+                        } catch (final IOException | RuntimeException exception) {
+                            response.completeExceptionally(exception);
+                        }
+                    }
+
+                    @Override
+                    public void failed(final Exception exception) {
+                        response.completeExceptionally(exception);
+                    }
+
+                    @Override
+                    public void cancelled() {
+                        response.cancel(true);
+                    }
+                });
+    }
+
+    /**
+     * Executes a GET request against the given endpoint (e.g. the stats API).
+     * Differently from the search requests, the request is neither throttled nor retried.
+     *
+     * @param endpoint the endpoint.
+     * @return the response.
+     * @throws IOException in case of failure.
+     */
+    Response get(final String endpoint) throws IOException {
+        return client.performRequest("GET", endpoint);
+    }
+
+    /**
+     * Parses the given (possibly gzipped) search response.
+     *
+     * @param response the HTTP response.
+     * @return the search response.
+     * @throws IOException in case of parsing failure.
+     */
+    private static SearchResponse parse(final HttpResponse response) throws IOException {
+        final HttpEntity responseEntity =
+                ofNullable(response.getFirstHeader("Content-Encoding")).filter(header -> GZIP.equalsIgnoreCase(header.getValue())).isPresent()
+                        ? new GzipDecompressingEntity(response.getEntity())
+                        : response.getEntity();
+
+        try (final InputStream stream = responseEntity.getContent();
+             final XContentParser parser = XContentType.JSON.xContent().createParser(registry(), DeprecationHandler.THROW_UNSUPPORTED_OPERATION, stream)) {
+            return SearchResponse.fromXContent(parser);
+        }
+    }
+
+    /**
+     * Returns the registry used for parsing the search responses (e.g. aggregations and suggestions).
+     *
+     * @return the registry used for parsing the search responses.
+     */
+    private static NamedXContentRegistry registry() {
+        if (registry == null) {
+            registry = new NamedXContentRegistry(new SearchModule(Settings.EMPTY, false, emptyList()).getNamedXContents());
+        }
+        return registry;
+    }
+
+    /**
+     * Returns a short description of the connection pool utilisation.
+     *
+     * @return a short description of the connection pool utilisation.
+     */
+    String utilisation() {
+        return "ES HTTP client " + hosts + ": " +
+                requests.get() + " requests, " +
+                "peak " + peakInFlight.get() + " concurrent requests, " +
+                "peak " + peakLeased.get() + "/" + connectionManager.getMaxTotal() + " leased connections, " +
+                "peak " + peakPending.get() + " pending connection requests, " +
+                retries.get() + " retries, " +
+                hedges.get() + " hedged requests, " +
+                timeouts.get() + " timeouts";
+    }
+
+    @Override
+    public void close() throws IOException {
+        LOGGER.info(utilisation());
+        LOGGER.info("ES HTTP client " + hosts + ": " + throttle);
+        if (peakPending.get() > 0 || peakInFlight.get() > settings.getMaxConnectionsPerRoute()) {
+            LOGGER.warn("ES HTTP client " + hosts + ": requests have been waiting for a free connection, consider increasing maxConnections / maxConnectionsPerRoute in " + ExternalElasticsearch.SETTINGS_FILE);
+        }
+        try {
+            searchClient.close();
+        } finally {
+            client.close();
+        }
+    }
+
+    /**
+     * Returns the number of search requests which are currently in flight.
+     *
+     * @return the number of search requests which are currently in flight.
+     */
+    int inFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * A search response future which cancels its HTTP exchange when it is cancelled.
+     */
+    private static class SearchFuture extends CompletableFuture<SearchResponse> {
+        private volatile Future<HttpResponse> exchange;
+
+        @Override
+        public boolean cancel(final boolean mayInterruptIfRunning) {
+            final boolean cancelled = super.cancel(mayInterruptIfRunning);
+            if (cancelled) {
+                ofNullable(exchange).ifPresent(pending -> pending.cancel(true));
+            }
+            return cancelled;
+        }
+    }
+}
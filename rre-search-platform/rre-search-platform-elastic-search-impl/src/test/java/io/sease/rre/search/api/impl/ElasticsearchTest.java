@@ -1,30 +1,58 @@
 package io.sease.rre.search.api.impl;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.sease.rre.search.api.QueryOrSearchResponse;
 import io.sease.rre.search.api.SearchPlatform;
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
 
 import java.io.File;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.ServerSocket;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 public class ElasticsearchTest {
 
     private static final String INDEX_NAME = "test";
+    private static final String INDEX_SHAPE =
+            "{\"settings\":{\"number_of_shards\":1,\"number_of_replicas\":0}," +
+                    "\"mappings\":{\"doc\":{\"properties\":{\"title\":{\"type\":\"keyword\"}}}}}";
 
     @Rule
     public TemporaryFolder tempFolder = new TemporaryFolder();
 
     private SearchPlatform platform;
+    private boolean started;
+    private int port;
 
     @Before
     public void setupPlatform() {
         platform = new Elasticsearch();
     }
 
+    @After
+    public void closePlatform() throws Exception {
+        if (started) {
+            platform.close();
+        }
+    }
+
     @Test
     public void isSearchPlatformFile_returnsFalseWhenDirectory() throws Exception {
         File dummyFile = tempFolder.newFolder();
@@ -42,4 +70,172 @@ public class ElasticsearchTest {
         File configFile = tempFolder.newFile("index-shape.json");
         assertTrue(platform.isSearchPlatformFile(INDEX_NAME, configFile));
     }
+
+    @Test
+    public void load_indexesOnlyTheChangedDocuments_whenTheIndexHasBeenLoadedBefore() throws Exception {
+        final File indexShape = indexShape();
+
+        start(configuration(true));
+        platform.load(corpus("1", "first", "2", "second", "3", "third"), indexShape, INDEX_NAME);
+        assertEquals(titles("1", "first", "2", "second", "3", "third"), titles());
+        platform.close();
+
+        // A new run, on the same data folder: 1 is updated, 2 is deleted, 3 is unchanged and 4 is added
+        platform = new Elasticsearch();
+        start(configuration(true));
+        platform.load(corpus("1", "first, updated", "3", "third", "4", "fourth"), indexShape, INDEX_NAME);
+
+        assertEquals(titles("1", "first, updated", "3", "third", "4", "fourth"), titles());
+    }
+
+    @Test
+    public void load_deletesAllDocuments_whenTheCorpusBecomesEmpty() throws Exception {
+        final File indexShape = indexShape();
+
+        start(configuration(true));
+        platform.load(corpus("1", "first", "2", "second"), indexShape, INDEX_NAME);
+        platform.load(corpus(), indexShape, INDEX_NAME);
+
+        assertEquals(0, platform.executeQuery(INDEX_NAME, "{\"query\":{\"match_all\":{}}}", new String[]{"title"}, 10).totalHits());
+    }
+
+    @Test
+    public void load_indexesTheCorpusAndTakesASnapshot_whenThereIsNoSnapshot() throws Exception {
+        start(snapshotConfiguration());
+        platform.load(corpus("1", "first", "2", "second"), indexShape(), INDEX_NAME);
+
+        assertEquals(titles("1", "first", "2", "second"), titles());
+        assertEquals("EMPTY_STORE", recoveryType());
+        assertEquals(1, snapshots().size());
+        assertTrue(snapshots().get(0).startsWith(INDEX_NAME + "-"));
+    }
+
+    @Test
+    public void load_restoresTheIndexFromItsSnapshot_whenCorpusAndConfigurationAreUnchanged() throws Exception {
+        final File indexShape = indexShape();
+        final File corpus = corpus("1", "first", "2", "second");
+
+        start(snapshotConfiguration());
+        platform.load(corpus, indexShape, INDEX_NAME);
+        final List<String> snapshots = snapshots();
+        platform.close();
+
+        platform = new Elasticsearch();
+        start(snapshotConfiguration());
+        platform.load(corpus, indexShape, INDEX_NAME);
+
+        assertEquals(titles("1", "first", "2", "second"), titles());
+        assertEquals("SNAPSHOT", recoveryType());
+        assertEquals(snapshots, snapshots());
+    }
+
+    @Test
+    public void load_indexesTheCorpus_whenTheSnapshotIsStale() throws Exception {
+        final File indexShape = indexShape();
+
+        start(snapshotConfiguration());
+        platform.load(corpus("1", "first", "2", "second"), indexShape, INDEX_NAME);
+        final List<String> staleSnapshots = snapshots();
+        platform.close();
+
+        // A new run, with a changed corpus: the snapshot of the previous one must not be restored
+        platform = new Elasticsearch();
+        start(snapshotConfiguration());
+        platform.load(corpus("1", "first, updated", "3", "third"), indexShape, INDEX_NAME);
+
+        assertEquals(titles("1", "first, updated", "3", "third"), titles());
+        assertEquals("EMPTY_STORE", recoveryType());
+
+        final List<String> snapshots = snapshots();
+        assertEquals(1, snapshots.size());
+        assertFalse(staleSnapshots.contains(snapshots.get(0)));
+    }
+
+    private void start(final Map<String, Object> configuration) {
+        platform.beforeStart(configuration);
+        platform.start();
+        platform.afterStart();
+        started = true;
+    }
+
+    private Map<String, Object> configuration(final boolean incrementalLoad) throws Exception {
+        final File home = new File(tempFolder.getRoot(), "home");
+        home.mkdirs();
+
+        final Map<String, Object> configuration = new HashMap<>();
+        configuration.put("path.home", home.getAbsolutePath());
+        configuration.put("path.data", new File(tempFolder.getRoot(), "data").getAbsolutePath());
+        configuration.put("network.host", port = freePort());
+        configuration.put("forceRefresh", false);
+        configuration.put("incrementalLoad", incrementalLoad);
+        return configuration;
+    }
+
+    private Map<String, Object> snapshotConfiguration() throws Exception {
+        final Map<String, Object> configuration = configuration(false);
+        configuration.put("path.repo", new File(tempFolder.getRoot(), "snapshots").getAbsolutePath());
+        return configuration;
+    }
+
+    private int freePort() throws Exception {
+        try (final ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private File indexShape() throws Exception {
+        final File folder = new File(tempFolder.getRoot(), "v1.0");
+        folder.mkdirs();
+        final File indexShape = new File(folder, "index-shape.json");
+        Files.write(indexShape.toPath(), INDEX_SHAPE.getBytes(StandardCharsets.UTF_8));
+        return indexShape;
+    }
+
+    private File corpus(final String... idsAndTitles) throws Exception {
+        final StringBuilder documents = new StringBuilder();
+        for (int i = 0; i < idsAndTitles.length; i += 2) {
+            documents.append("{\"index\":{\"_index\":\"").append(INDEX_NAME).append("\",\"_type\":\"doc\",\"_id\":\"").append(idsAndTitles[i]).append("\"}}\n")
+                    .append("{\"title\":\"").append(idsAndTitles[i + 1]).append("\"}\n");
+        }
+        final File corpus = tempFolder.newFile();
+        Files.write(corpus.toPath(), documents.toString().getBytes(StandardCharsets.UTF_8));
+        return corpus;
+    }
+
+    private Map<String, String> titles() {
+        final QueryOrSearchResponse response = platform.executeQuery(INDEX_NAME, "{\"query\":{\"match_all\":{}}}", new String[]{"title"}, 10);
+        final Map<String, String> titles = new TreeMap<>();
+        response.hits().forEach(hit -> titles.put(String.valueOf(hit.get("_id")), String.valueOf(hit.get("title"))));
+        return titles;
+    }
+
+    /**
+     * Returns the recovery type (e.g. EMPTY_STORE for a new index, SNAPSHOT for a restored index) of the test index.
+     */
+    private String recoveryType() throws Exception {
+        return get("/" + INDEX_NAME + "/_recovery").path(INDEX_NAME).path("shards").path(0).path("type").asText();
+    }
+
+    private List<String> snapshots() throws Exception {
+        final List<String> snapshots = new ArrayList<>();
+        get("/_snapshot/rre-snapshots/_all").path("snapshots").forEach(snapshot -> snapshots.add(snapshot.get("snapshot").asText()));
+        return snapshots;
+    }
+
+    private JsonNode get(final String path) throws Exception {
+        final HttpURLConnection connection = (HttpURLConnection) new URL("http://127.0.0.1:" + port + path).openConnection();
+        try (final InputStream response = connection.getInputStream()) {
+            return new ObjectMapper().readTree(response);
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    private Map<String, String> titles(final String... idsAndTitles) {
+        final Map<String, String> titles = new TreeMap<>();
+        for (int i = 0; i < idsAndTitles.length; i += 2) {
+            titles.put(idsAndTitles[i], idsAndTitles[i + 1]);
+        }
+        return titles;
+    }
 }
@@ -1,5 +1,9 @@
 package io.sease.rre.search.api.impl;
 
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import io.sease.rre.search.api.QueryOrSearchResponse;
 import io.sease.rre.search.api.SearchPlatform;
 import org.junit.Before;
 import org.junit.Rule;
@@ -7,13 +11,25 @@ import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
 
 import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 
-import static org.junit.Assert.assertFalse;
-import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.*;
 
 public class ExternalElasticsearchTest {
 
     private static final String INDEX_NAME = "test";
+    private static final String QUERY = "{\"query\": {\"match_all\": {}}}";
+    private static final String EMPTY_RESPONSE =
+            "{\"took\": 1, \"timed_out\": false, " +
+                    "\"_shards\": {\"total\": 1, \"successful\": 1, \"skipped\": 0, \"failed\": 0}, " +
+                    "\"hits\": {\"total\": 0, \"max_score\": null, \"hits\": []}}";
 
     @Rule
     public TemporaryFolder tempFolder = new TemporaryFolder();
@@ -42,4 +58,184 @@ public class ExternalElasticsearchTest {
         File configFile = tempFolder.newFile(ExternalElasticsearch.SETTINGS_FILE);
         assertTrue(platform.isSearchPlatformFile(INDEX_NAME, configFile));
     }
+
+    @Test
+    public void load_sharesClientsBetweenVersionsOnTheSameHosts() throws Exception {
+        final ExternalElasticsearch external = new ExternalElasticsearch();
+        try {
+            external.load(null, settingsFile("v1.0", "{\"hostUrls\": [\"http://localhost:9200\"], \"index\": \"a\"}"), "a_v1.0");
+            external.load(null, settingsFile("v1.1", "{\"hostUrls\": [\"http://localhost:9200\"], \"index\": \"b\"}"), "a_v1.1");
+            external.load(null, settingsFile("v1.2", "{\"hostUrls\": [\"http://localhost:9201\"], \"index\": \"a\"}"), "a_v1.2");
+
+            assertSame(external.getClient("a_v1.0"), external.getClient("a_v1.1"));
+            assertNotSame(external.getClient("a_v1.0"), external.getClient("a_v1.2"));
+        } finally {
+            external.close();
+        }
+    }
+
+    @Test
+    public void load_readsConnectionSettings() throws Exception {
+        final ExternalElasticsearch external = new ExternalElasticsearch();
+        try {
+            external.load(null, settingsFile("v1.0", "{\"hostUrls\": [\"http://localhost:9200\"], \"index\": \"a\", " +
+                    "\"connection\": {\"maxConnections\": 64, \"keepAliveMs\": 30000, \"compression\": true}}"), "a_v1.0");
+            external.load(null, settingsFile("v1.1", "{\"hostUrls\": [\"http://localhost:9201\"], \"index\": \"a\"}"), "a_v1.1");
+
+            final ExternalElasticsearch.ConnectionSettings configured = external.getClient("a_v1.0").getSettings();
+            assertEquals(64, configured.getMaxConnections());
+            assertEquals(Long.valueOf(30000), configured.getKeepAlive());
+            assertTrue(configured.isCompression());
+
+            final ExternalElasticsearch.ConnectionSettings defaults = external.getClient("a_v1.1").getSettings();
+            assertNull(defaults.getKeepAlive());
+            assertFalse(defaults.isCompression());
+            assertEquals(0, external.getClient("a_v1.1").getThrottlingSettings().getMaxQps(), 0);
+        } finally {
+            external.close();
+        }
+    }
+
+    @Test
+    public void load_readsThrottlingSettings() throws Exception {
+        final ExternalElasticsearch external = new ExternalElasticsearch();
+        try {
+            external.load(null, settingsFile("v1.0", "{\"hostUrls\": [\"http://localhost:9200\"], \"index\": \"a\", " +
+                    "\"throttling\": {\"maxQps\": 20, \"maxConcurrentQueries\": 4, \"latencyThresholdMs\": 500}}"), "a_v1.0");
+
+            final ExternalElasticsearch.ThrottlingSettings throttling = external.getClient("a_v1.0").getThrottlingSettings();
+            assertEquals(20, throttling.getMaxQps(), 0);
+            assertEquals(4, throttling.getMaxConcurrentQueries());
+            assertEquals(500, throttling.getLatencyThreshold());
+        } finally {
+            external.close();
+        }
+    }
+
+    @Test
+    public void load_readsRetrySettings() throws Exception {
+        final ExternalElasticsearch external = new ExternalElasticsearch();
+        try {
+            external.load(null, settingsFile("v1.0", "{\"hostUrls\": [\"http://localhost:9200\"], \"index\": \"a\", " +
+                    "\"retries\": {\"requestTimeoutMs\": 2000, \"maxRetries\": 3, \"hedging\": true}}"), "a_v1.0");
+            external.load(null, settingsFile("v1.1", "{\"hostUrls\": [\"http://localhost:9201\"], \"index\": \"a\"}"), "a_v1.1");
+
+            final ExternalElasticsearch.RetrySettings configured = external.getClient("a_v1.0").getRetrySettings();
+            assertEquals(Long.valueOf(2000), configured.getRequestTimeout());
+            assertEquals(3, configured.getMaxRetries());
+            assertTrue(configured.isHedging());
+
+            final ExternalElasticsearch.RetrySettings defaults = external.getClient("a_v1.1").getRetrySettings();
+            assertNull(defaults.getRequestTimeout());
+            assertEquals(2, defaults.getMaxRetries());
+            assertFalse(defaults.isHedging());
+        } finally {
+            external.close();
+        }
+    }
+
+    @Test
+    public void executeQuery_returnsFailedResponse_whenRetriesAreExhausted() throws Exception {
+        final ExternalElasticsearch external = new ExternalElasticsearch();
+        try {
+            // Nothing listens on port 1
+            external.load(null, settingsFile("v1.0", "{\"hostUrls\": [\"http://localhost:1\"], \"index\": \"a\", " +
+                    "\"retries\": {\"requestTimeoutMs\": 2000, \"maxRetries\": 2, \"initialBackoffMs\": 1}}"), "a_v1.0");
+
+            final QueryOrSearchResponse response = external.executeQuery("a_v1.0", "{\"query\": {\"match_all\": {}}}", new String[]{"*"}, 10);
+
+            assertTrue(response.isFailed());
+            assertEquals(0, response.hits().size());
+            assertTrue(external.getClient("a_v1.0").utilisation().contains("3 requests, "));
+            assertTrue(external.getClient("a_v1.0").utilisation().contains("2 retries"));
+        } finally {
+            external.close();
+        }
+    }
+
+    @Test
+    public void executeQuery_doesNotRetry_whenTheResponseCannotBeParsed() throws Exception {
+        final HttpServer server = server(exchange -> respond(exchange, "Not a search response"));
+        final ExternalElasticsearch external = new ExternalElasticsearch();
+        try {
+            external.load(null, settingsFile("v1.0", "{\"hostUrls\": [\"http://localhost:" + server.getAddress().getPort() + "\"], \"index\": \"a\", " +
+                    "\"retries\": {\"requestTimeoutMs\": 2000, \"maxRetries\": 2, \"initialBackoffMs\": 1}}"), "a_v1.0");
+
+            final QueryOrSearchResponse response = external.executeQuery("a_v1.0", QUERY, new String[]{"*"}, 10);
+
+            assertTrue(response.isFailed());
+            assertTrue(external.getClient("a_v1.0").utilisation().contains("1 requests, "));
+            assertTrue(external.getClient("a_v1.0").utilisation().contains("0 retries"));
+        } finally {
+            external.close();
+            server.stop(0);
+        }
+    }
+
+    @Test
+    public void executeQuery_cancelsTheLosingRequest_whenAHedgedRequestWins() throws Exception {
+        final int warmUpQueries = 20;
+        final AtomicInteger received = new AtomicInteger();
+        final HttpServer server = server(exchange -> {
+            if (received.incrementAndGet() == warmUpQueries + 1) {
+                try {
+                    Thread.sleep(5000);
+                } catch (final InterruptedException exception) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            respond(exchange, EMPTY_RESPONSE);
+        });
+        final ExternalElasticsearch external = new ExternalElasticsearch();
+        try {
+            external.load(null, settingsFile("v1.0", "{\"hostUrls\": [\"http://localhost:" + server.getAddress().getPort() + "\"], \"index\": \"a\", " +
+                    "\"throttling\": {\"maxConcurrentQueries\": 2}, " +
+                    "\"retries\": {\"requestTimeoutMs\": 10000, \"hedging\": true}}"), "a_v1.0");
+            for (int i = 0; i < warmUpQueries; i++) {
+                assertFalse(external.executeQuery("a_v1.0", QUERY, new String[]{"*"}, 10).isFailed());
+            }
+
+            final long start = System.currentTimeMillis();
+            final QueryOrSearchResponse response = external.executeQuery("a_v1.0", QUERY, new String[]{"*"}, 10);
+
+            assertFalse(response.isFailed());
+            assertTrue(System.currentTimeMillis() - start < 5000);
+
+            final PooledRestClient client = external.getClient("a_v1.0");
+            assertTrue(client.utilisation().contains("1 hedged requests"));
+            final long deadline = System.currentTimeMillis() + 1000;
+            while (client.inFlight() > 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertEquals(0, client.inFlight());
+        } finally {
+            external.close();
+            server.stop(0);
+        }
+    }
+
+    private HttpServer server(final HttpHandler handler) throws IOException {
+        final HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", handler);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+        return server;
+    }
+
+    private void respond(final HttpExchange exchange, final String body) throws IOException {
+        final byte[] content = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, content.length);
+        try (final OutputStream out = exchange.getResponseBody()) {
+            out.write(content);
+        }
+    }
+
+    private File settingsFile(String version, String content) throws IOException {
+        File settingsFile = new File(tempFolder.newFolder(version), ExternalElasticsearch.SETTINGS_FILE);
+        try (PrintWriter writer = new PrintWriter(new FileWriter(settingsFile))) {
+            writer.println(content);
+        }
+        return settingsFile;
+    }
 }
@@ -0,0 +1,419 @@
+package io.sease.rre.search.api.impl;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.sease.rre.search.api.CacheStats;
+import io.sease.rre.search.api.IndexStats;
+import io.sease.rre.search.api.QueryOrSearchResponse;
+import io.sease.rre.search.api.SearchPlatform;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.solr.client.solrj.SolrQuery;
+import org.apache.solr.client.solrj.SolrServerException;
+import org.apache.solr.client.solrj.response.LukeResponse;
+import org.apache.solr.client.solrj.response.QueryResponse;
+import org.apache.solr.common.SolrException;
+import org.apache.solr.common.util.NamedList;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Stream;
+import java.util.stream.Collectors;
+
+import static java.util.Optional.ofNullable;
+
+/**
+ * SearchPlatform implementation for connecting to and reading from external (i.e. already running and populated)
+ * Apache Solr collections. Since nothing is indexed locally, the corpora files are not required.
+ *
+ * @author agazzarini
+ * @since 1.0
+ */
+public class ExternalApacheSolr implements SearchPlatform {
+
+    private static final Logger LOGGER = LogManager.getLogger(ExternalApacheSolr.class);
+    private static final String NAME = "External Apache Solr";
+    static final String SETTINGS_FILE = "solr-settings.json";
+    private static final String[] CACHES = {"filterCache", "queryResultCache", "documentCache"};
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private final Map<String, CollectionSettings> collectionSettingsMap = new HashMap<>();
+    private final Map<String, PooledSolrClient> collectionClients = new HashMap<>();
+    private final Map<String, PooledSolrClient> sharedClients = new HashMap<>();
+
+    public ExternalApacheSolr() {
+        mapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    }
+
+    @Override
+    public void beforeStart(final Map<String, Object> configuration) {
+        // No-op for this implementation
+    }
+
+    @Override
+    public void load(final File corpus, final File settingsFile, final String targetIndexName) {
+        // Corpus file is not used for this implementation
+        try {
+            // Load the collection settings for this version of the search platform
+            final CollectionSettings settings = mapper.readValue(settingsFile, CollectionSettings.class);
+            collectionSettingsMap.put(targetIndexName, settings);
+            collectionClients.put(targetIndexName, sharedClient(settings));
+        } catch (final IOException exception) {
+            LOGGER.error("Could not read settings from " + settingsFile.getName() + " :: " + exception.getMessage());
+        }
+    }
+
+    /**
+     * Returns the client for the nodes declared in the given settings, creating it on the first request.
+     * Collection versions hosted on the same set of nodes share the same client (and connection pool).
+     *
+     * @param settings the collection settings.
+     * @return the client for the nodes declared in the given settings.
+     */
+    private PooledSolrClient sharedClient(final CollectionSettings settings) {
+        final String nodesKey = settings.getBaseUrls().stream().sorted().collect(Collectors.joining(","));
+        PooledSolrClient client = sharedClients.get(nodesKey);
+        if (client == null) {
+            client = new PooledSolrClient(settings.getBaseUrls(), settings.getConnection());
+            sharedClients.put(nodesKey, client);
+        } else if (!client.getSettings().equals(settings.getConnection())) {
+            LOGGER.warn("Collection " + settings.getCollection() + " declares different connection settings for " + nodesKey + ": the settings of the first declaring version will be used.");
+        }
+        return client;
+    }
+
+    @Override
+    public void start() {
+        // No-op for this implementation
+    }
+
+    @Override
+    public void afterStart() {
+        // No-op for this implementation
+    }
+
+    @Override
+    public void beforeStop() {
+        // No-op for this implementation
+    }
+
+    @Override
+    public QueryOrSearchResponse executeQuery(final String indexName, final String queryString, final String[] fields, final int maxRows) {
+        // Find the actual collection to search
+        if (!collectionSettingsMap.containsKey(indexName)) {
+            throw new IllegalArgumentException("Cannot find settings for collection " + indexName);
+        }
+
+        try {
+            final QueryResponse response =
+                    collectionClients.get(indexName).query(
+                            collectionSettingsMap.get(indexName).getCollection(),
+                            solrQuery(queryString, fields, maxRows));
+            return new QueryOrSearchResponse(
+                    response.getResults().getNumFound(),
+                    new ArrayList<Map<String, Object>>(response.getResults()),
+                    response.getQTime());
+        } catch (final SolrException | SolrServerException | IOException exception) {
+            LOGGER.error("Caught exception executing query on " + indexName + " :: " + exception.getMessage());
+            return QueryOrSearchResponse.failed(exception.getMessage());
+        }
+    }
+
+    /**
+     * Executes the given query with debug=timing, and returns the preparation and processing time of each search
+     * component (e.g. "process.query", "prepare.facet").
+     *
+     * @param indexName   the index name.
+     * @param queryString the query.
+     * @param fields      the fields to return.
+     * @param maxRows     the maximum number of rows that will be returned.
+     * @return the execution time of each search component, in milliseconds.
+     */
+    @Override
+    public Map<String, Number> profile(final String indexName, final String queryString, final String[] fields, final int maxRows) {
+        final Map<String, Number> profile = new LinkedHashMap<>();
+        if (!collectionSettingsMap.containsKey(indexName)) {
+            return profile;
+        }
+
+        try {
+            final SolrQuery query = solrQuery(queryString, fields, maxRows);
+            query.set("debug", "timing");
+            ofNullable(collectionClients.get(indexName).query(collectionSettingsMap.get(indexName).getCollection(), query).getDebugMap())
+                    .map(debug -> debug.get("timing"))
+                    .ifPresent(timing -> timing("", asMap(timing), profile));
+        } catch (final SolrException | SolrServerException | IOException exception) {
+            LOGGER.error("Unable to profile the query " + queryString + " on " + indexName + " :: " + exception.getMessage());
+        }
+        return profile;
+    }
+
+    /**
+     * Flattens the given Solr timing section.
+     *
+     * @param prefix  the name of the enclosing section (empty for the top level section).
+     * @param timing  the timing section.
+     * @param profile the flattened timings.
+     */
+    private void timing(final String prefix, final Map<String, Object> timing, final Map<String, Number> profile) {
+        timing.forEach((name, value) -> {
+            if ("time".equals(name) && value instanceof Number) {
+                profile.put(prefix.isEmpty() ? "total" : prefix, (Number) value);
+            } else if (value instanceof NamedList || value instanceof Map) {
+                timing(prefix.isEmpty() ? name : prefix + "." + name, asMap(value), profile);
+            }
+        });
+    }
+
+    /**
+     * Builds a Solr query from the given (JSON) query definition.
+     *
+     * @param queryString the query definition, i.e. a JSON object with the request parameters.
+     * @param fields      the fields to return.
+     * @param maxRows     the maximum number of rows that will be returned.
+     * @return the Solr query.
+     * @throws IOException if the query definition cannot be parsed.
+     */
+    private SolrQuery solrQuery(final String queryString, final String[] fields, final int maxRows) throws IOException {
+        final SolrQuery query =
+                new SolrQuery()
+                        .setRows(maxRows)
+                        .setFields(fields);
+        final JsonNode queryDef = mapper.readTree(queryString);
+
+        for (final Iterator<Map.Entry<String, JsonNode>> iterator = queryDef.fields(); iterator.hasNext(); ) {
+            final Map.Entry<String, JsonNode> field = iterator.next();
+            query.add(field.getKey(), field.getValue().asText());
+        }
+        return query;
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    /**
+     * Returns the statistics of the given collection, through the Luke request handler.
+     * Segments, size and heap usage are included only if the remote Solr reports them.
+     *
+     * @param indexName the index name.
+     * @return the statistics of the given collection.
+     */
+    @Override
+    public Map<String, Number> indexStats(final String indexName) {
+        final Map<String, Number> stats = new LinkedHashMap<>();
+        if (!collectionSettingsMap.containsKey(indexName)) {
+            return stats;
+        }
+
+        try {
+            final LukeResponse response = collectionClients.get(indexName).luke(collectionSettingsMap.get(indexName).getCollection());
+            stats.put(IndexStats.DOCS, response.getNumDocs());
+            stats.put(IndexStats.DELETED_DOCS, response.getMaxDoc() - response.getNumDocs());
+            ofNullable(response.getIndexInfo().get("segmentCount")).ifPresent(value -> stats.put(IndexStats.SEGMENTS, (Number) value));
+            ofNullable(response.getIndexInfo().get("sizeInBytes")).ifPresent(value -> stats.put(IndexStats.SIZE_IN_BYTES, (Number) value));
+            ofNullable(response.getFieldInfo()).ifPresent(fields -> stats.put(IndexStats.FIELDS, fields.size()));
+            ofNullable(response.getNumTerms()).ifPresent(terms -> stats.put(IndexStats.TERMS, terms));
+            ofNullable(response.getIndexInfo().get("indexHeapUsageBytes")).ifPresent(value -> stats.put(IndexStats.HEAP_USED_BYTES, (Number) value));
+        } catch (final SolrException | SolrServerException | IOException exception) {
+            LOGGER.error("Unable to read the statistics of " + indexName + " :: " + exception.getMessage());
+        }
+        return stats;
+    }
+
+    /**
+     * Returns the statistics of the filterCache, queryResultCache and documentCache of the given collection,
+     * through the MBeans request handler.
+     *
+     * @param indexName the index name.
+     * @return the statistics of the caches of the given collection.
+     */
+    @Override
+    public Map<String, Map<String, Number>> cacheStats(final String indexName) {
+        final Map<String, Map<String, Number>> stats = new LinkedHashMap<>();
+        if (!collectionSettingsMap.containsKey(indexName)) {
+            return stats;
+        }
+
+        try {
+            final NamedList<Object> response = collectionClients.get(indexName).cacheMBeans(collectionSettingsMap.get(indexName).getCollection());
+            for (final String cache : CACHES) {
+                ofNullable(response.findRecursive("solr-mbeans", "CACHE", cache, "stats"))
+                        .map(this::asMap)
+                        .ifPresent(metrics -> stats.put(cache, cacheStats(metrics)));
+            }
+        } catch (final SolrException | SolrServerException | IOException exception) {
+            LOGGER.error("Unable to read the cache statistics of " + indexName + " :: " + exception.getMessage());
+        }
+        return stats;
+    }
+
+    /**
+     * Extracts the RRE cache statistics from the given MBean statistics. Depending on the Solr version, the
+     * statistic names are either plain (e.g. "lookups") or qualified (e.g. "CACHE.searcher.filterCache.lookups").
+     *
+     * @param metrics the MBean statistics.
+     * @return the cache statistics.
+     */
+    private Map<String, Number> cacheStats(final Map<String, Object> metrics) {
+        final Map<String, Number> stats = new LinkedHashMap<>();
+        metrics.forEach((name, value) -> {
+            final String shortName = name.substring(name.lastIndexOf('.') + 1);
+            if (value instanceof Number && Stream.of(CacheStats.LOOKUPS, CacheStats.HITS, CacheStats.EVICTIONS, CacheStats.SIZE).anyMatch(shortName::equals)) {
+                stats.put(shortName, (Number) value);
+            }
+        });
+        return stats;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> asMap(final Object value) {
+        if (value instanceof NamedList) {
+            return ((NamedList<Object>) value).asShallowMap();
+        }
+        return value instanceof Map ? (Map<String, Object>) value : new HashMap<>();
+    }
+
+    @Override
+    public boolean isRefreshRequired() {
+        return false;
+    }
+
+    @Override
+    public boolean isSearchPlatformFile(final String indexName, final File file) {
+        return file.isFile() && file.getName().equals(SETTINGS_FILE);
+    }
+
+    @Override
+    public boolean isCorporaRequired() {
+        return false;
+    }
+
+    @Override
+    public void close() {
+        sharedClients.values().forEach(this::closeClient);
+    }
+
+    // Used by unit tests
+    PooledSolrClient getClient(final String indexName) {
+        return collectionClients.get(indexName);
+    }
+
+    private void closeClient(final PooledSolrClient client) {
+        try {
+            client.close();
+        } catch (final IOException exception) {
+            LOGGER.error("Caught IOException closing Solr HTTP Client :: " + exception.getMessage());
+        }
+    }
+
+    /**
+     * The settings of a collection version.
+     */
+    public static class CollectionSettings {
+
+        @JsonProperty("collection")
+        private final String collection;
+        @JsonProperty("baseUrls")
+        private final List<String> baseUrls;
+        @JsonProperty("connection")
+        private final ConnectionSettings connection;
+
+        public CollectionSettings(@JsonProperty("collection") final String collection,
+                                  @JsonProperty("baseUrls") final List<String> baseUrls,
+                                  @JsonProperty("connection") final ConnectionSettings connection) {
+            this.collection = collection;
+            this.baseUrls = baseUrls;
+            this.connection = connection == null ? new ConnectionSettings(null, null, null, null, null) : connection;
+        }
+
+        String getCollection() {
+            return collection;
+        }
+
+        List<String> getBaseUrls() {
+            return baseUrls;
+        }
+
+        ConnectionSettings getConnection() {
+            return connection;
+        }
+    }
+
+    /**
+     * The (optional) HTTP connection settings of a collection version.
+     */
+    public static class ConnectionSettings {
+
+        @JsonProperty("maxConnections")
+        private final int maxConnections;
+        @JsonProperty("maxConnectionsPerHost")
+        private final int maxConnectionsPerHost;
+        @JsonProperty("connectTimeoutMs")
+        private final int connectTimeout;
+        @JsonProperty("socketTimeoutMs")
+        private final int socketTimeout;
+        @JsonProperty("compression")
+        private final boolean compression;
+
+        public ConnectionSettings(@JsonProperty("maxConnections") final Integer maxConnections,
+                                  @JsonProperty("maxConnectionsPerHost") final Integer maxConnectionsPerHost,
+                                  @JsonProperty("connectTimeoutMs") final Integer connectTimeout,
+                                  @JsonProperty("socketTimeoutMs") final Integer socketTimeout,
+                                  @JsonProperty("compression") final Boolean compression) {
+            this.maxConnections = ofNullable(maxConnections).orElse(30);
+            this.maxConnectionsPerHost = ofNullable(maxConnectionsPerHost).orElse(10);
+            this.connectTimeout = ofNullable(connectTimeout).orElse(1000);
+            this.socketTimeout = ofNullable(socketTimeout).orElse(30000);
+            this.compression = ofNullable(compression).orElse(false);
+        }
+
+        int getMaxConnections() {
+            return maxConnections;
+        }
+
+        int getMaxConnectionsPerHost() {
+            return maxConnectionsPerHost;
+        }
+
+        int getConnectTimeout() {
+            return connectTimeout;
+        }
+
+        int getSocketTimeout() {
+            return socketTimeout;
+        }
+
+        boolean isCompression() {
+            return compression;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            final ConnectionSettings that = (ConnectionSettings) o;
+            return maxConnections == that.maxConnections &&
+                    maxConnectionsPerHost == that.maxConnectionsPerHost &&
+                    connectTimeout == that.connectTimeout &&
+                    socketTimeout == that.socketTimeout &&
+                    compression == that.compression;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(maxConnections, maxConnectionsPerHost, connectTimeout, socketTimeout, compression);
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package io.sease.rre.search.api.impl;
+
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.solr.client.solrj.SolrQuery;
+import org.apache.solr.client.solrj.SolrRequest;
+import org.apache.solr.client.solrj.SolrServerException;
+import org.apache.solr.client.solrj.impl.BinaryResponseParser;
+import org.apache.solr.client.solrj.impl.HttpClientUtil;
+import org.apache.solr.client.solrj.impl.LBHttpSolrClient;
+import org.apache.solr.client.solrj.request.GenericSolrRequest;
+import org.apache.solr.client.solrj.request.LukeRequest;
+import org.apache.solr.client.solrj.response.LukeResponse;
+import org.apache.solr.client.solrj.response.QueryResponse;
+import org.apache.solr.common.params.ModifiableSolrParams;
+import org.apache.solr.common.util.NamedList;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A Solr client backed by a tunable connection pool, which can be shared by all the collection versions hosted on
+ * the same set of nodes. Queries are load balanced across the nodes, and the responses are in the (binary) javabin
+ * format, which is considerably cheaper to parse than XML or JSON.
+ * The client keeps track of the pool utilisation, which is reported when the client is closed.
+ *
+ * @author agazzarini
+ * @since 1.0
+ */
+class PooledSolrClient implements Closeable {
+
+    private static final Logger LOGGER = LogManager.getLogger(PooledSolrClient.class);
+
+    private final List<String> baseUrls;
+    private final ExternalApacheSolr.ConnectionSettings settings;
+    private final PoolingHttpClientConnectionManager connectionManager;
+    private final CloseableHttpClient httpClient;
+    private final LBHttpSolrClient client;
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicInteger peakLeased = new AtomicInteger();
+    private final AtomicInteger peakPending = new AtomicInteger();
+
+    /**
+     * Builds a new client for the given Solr nodes.
+     *
+     * @param baseUrls the base URLs of the Solr nodes (e.g. http://localhost:8983/solr).
+     * @param settings the connection settings.
+     */
+    PooledSolrClient(final List<String> baseUrls, final ExternalApacheSolr.ConnectionSettings settings) {
+        this.baseUrls = baseUrls;
+        this.settings = settings;
+
+        final ModifiableSolrParams params = new ModifiableSolrParams();
+        params.set(HttpClientUtil.PROP_MAX_CONNECTIONS, settings.getMaxConnections());
+        params.set(HttpClientUtil.PROP_MAX_CONNECTIONS_PER_HOST, settings.getMaxConnectionsPerHost());
+        params.set(HttpClientUtil.PROP_CONNECTION_TIMEOUT, settings.getConnectTimeout());
+        params.set(HttpClientUtil.PROP_SO_TIMEOUT, settings.getSocketTimeout());
+        params.set(HttpClientUtil.PROP_ALLOW_COMPRESSION, settings.isCompression());
+
+        connectionManager = new PoolingHttpClientConnectionManager();
+        httpClient = HttpClientUtil.createClient(params, connectionManager);
+        client = new LBHttpSolrClient.Builder()
+                .withBaseSolrUrls(baseUrls.toArray(new String[0]))
+                .withHttpClient(httpClient)
+                .withResponseParser(new BinaryResponseParser())
+                .withConnectionTimeout(settings.getConnectTimeout())
+                .withSocketTimeout(settings.getSocketTimeout())
+                .build();
+    }
+
+    /**
+     * Returns the connection settings of this client.
+     *
+     * @return the connection settings of this client.
+     */
+    ExternalApacheSolr.ConnectionSettings getSettings() {
+        return settings;
+    }
+
+    /**
+     * Executes the given query against the given collection.
+     *
+     * @param collection the collection name.
+     * @param query      the query.
+     * @return the query response.
+     * @throws IOException         in case of communication failure.
+     * @throws SolrServerException in case of Solr failure.
+     */
+    QueryResponse query(final String collection, final SolrQuery query) throws IOException, SolrServerException {
+        requests.incrementAndGet();
+        sampleUtilisation();
+        try {
+            return client.query(collection, query);
+        } finally {
+            sampleUtilisation();
+        }
+    }
+
+    /**
+     * Retrieves the index information (i.e. the Luke handler response, without terms) of the given collection.
+     *
+     * @param collection the collection name.
+     * @return the index information of the given collection.
+     * @throws IOException         in case of communication failure.
+     * @throws SolrServerException in case of Solr failure.
+     */
+    LukeResponse luke(final String collection) throws IOException, SolrServerException {
+        final LukeRequest request = new LukeRequest();
+        request.setNumTerms(0);
+        return request.process(client, collection);
+    }
+
+    /**
+     * Retrieves the statistics of the caches (i.e. the CACHE category of the MBeans handler) of the given collection.
+     *
+     * @param collection the collection name.
+     * @return the MBeans handler response.
+     * @throws IOException         in case of communication failure.
+     * @throws SolrServerException in case of Solr failure.
+     */
+    NamedList<Object> cacheMBeans(final String collection) throws IOException, SolrServerException {
+        final ModifiableSolrParams params = new ModifiableSolrParams();
+        params.set("cat", "CACHE");
+        params.set("stats", true);
+        return new GenericSolrRequest(SolrRequest.METHOD.GET, "/admin/mbeans", params).process(client, collection).getResponse();
+    }
+
+    /**
+     * Records the current pool utilisation, if it is higher than the peak observed so far.
+     */
+    private void sampleUtilisation() {
+        final PoolStats stats = connectionManager.getTotalStats();
+        peakLeased.accumulateAndGet(stats.getLeased(), Math::max);
+        peakPending.accumulateAndGet(stats.getPending(), Math::max);
+    }
+
+    /**
+     * Returns a short description of the connection pool utilisation.
+     *
+     * @return a short description of the connection pool utilisation.
+     */
+    String utilisation() {
+        return "Solr HTTP client " + baseUrls + ": " +
+                requests.get() + " requests, " +
+                "peak " + peakLeased.get() + "/" + connectionManager.getMaxTotal() + " leased connections, " +
+                "peak " + peakPending.get() + " pending connection requests";
+    }
+
+    @Override
+    public void close() throws IOException {
+        LOGGER.info(utilisation());
+        if (peakPending.get() > 0) {
+            LOGGER.warn("Solr HTTP client " + baseUrls + ": requests have been waiting for a free connection, consider increasing maxConnections / maxConnectionsPerHost in " + ExternalApacheSolr.SETTINGS_FILE);
+        }
+        client.close();
+        HttpClientUtil.close(httpClient);
+    }
+}
@@ -0,0 +1,146 @@
+package io.sease.rre.search.api.impl;
+
+import com.sun.net.httpserver.HttpServer;
+import io.sease.rre.search.api.QueryOrSearchResponse;
+import org.apache.solr.common.SolrDocument;
+import org.apache.solr.common.SolrDocumentList;
+import org.apache.solr.common.util.JavaBinCodec;
+import org.apache.solr.common.util.NamedList;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ExternalApacheSolrTest {
+
+    private static final String INDEX_NAME = "test";
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    private ExternalApacheSolr platform;
+    private HttpServer solr;
+    private final List<String> requests = new ArrayList<>();
+
+    @Before
+    public void setUp() throws Exception {
+        platform = new ExternalApacheSolr();
+
+        // A minimal stand-in for a running Solr node, answering every query with the same (javabin) response
+        solr = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        solr.createContext("/solr", exchange -> {
+            requests.add(exchange.getRequestURI().toString());
+            final byte[] response = javabinResponse();
+            exchange.getResponseHeaders().add("Content-Type", "application/octet-stream");
+            exchange.sendResponseHeaders(200, response.length);
+            try (final OutputStream out = exchange.getResponseBody()) {
+                out.write(response);
+            }
+        });
+        solr.start();
+    }
+
+    @After
+    public void tearDown() {
+        platform.close();
+        solr.stop(0);
+    }
+
+    @Test
+    public void isSearchPlatformFile_returnsTrueOnlyForSettingsFile() throws Exception {
+        assertFalse(platform.isSearchPlatformFile(INDEX_NAME, tempFolder.newFolder()));
+        assertFalse(platform.isSearchPlatformFile(INDEX_NAME, tempFolder.newFile()));
+        assertTrue(platform.isSearchPlatformFile(INDEX_NAME, tempFolder.newFile(ExternalApacheSolr.SETTINGS_FILE)));
+        assertFalse(platform.isCorporaRequired());
+    }
+
+    @Test
+    public void load_sharesClientsBetweenVersionsOnTheSameNodes() throws Exception {
+        platform.load(null, settingsFile("v1.0", "{\"baseUrls\": [\"http://localhost:8983/solr\"], \"collection\": \"a\"}"), "a_v1.0");
+        platform.load(null, settingsFile("v1.1", "{\"baseUrls\": [\"http://localhost:8983/solr\"], \"collection\": \"b\"}"), "a_v1.1");
+        platform.load(null, settingsFile("v1.2", "{\"baseUrls\": [\"http://localhost:8984/solr\"], \"collection\": \"a\", " +
+                "\"connection\": {\"maxConnections\": 64, \"compression\": true}}"), "a_v1.2");
+
+        assertSame(platform.getClient("a_v1.0"), platform.getClient("a_v1.1"));
+        assertNotSame(platform.getClient("a_v1.0"), platform.getClient("a_v1.2"));
+        assertEquals(64, platform.getClient("a_v1.2").getSettings().getMaxConnections());
+        assertTrue(platform.getClient("a_v1.2").getSettings().isCompression());
+        assertFalse(platform.getClient("a_v1.0").getSettings().isCompression());
+    }
+
+    @Test
+    public void executeQuery_readsJavabinResponses() throws Exception {
+        platform.load(null, settingsFile("v1.0", "{\"baseUrls\": [\"" + solrUrl() + "\"], \"collection\": \"music\"}"), "music_v1.0");
+
+        final QueryOrSearchResponse response = platform.executeQuery("music_v1.0", "{\"q\": \"fender\", \"fq\": \"strings:4\"}", new String[]{"id", "title"}, 10);
+
+        assertFalse(response.isFailed());
+        assertEquals(42, response.totalHits());
+        assertEquals(1, response.hits().size());
+        assertEquals("1", response.hits().get(0).get("id"));
+        assertEquals("Fender Jazz Bass", response.hits().get(0).get("title"));
+
+        assertEquals(1, requests.size());
+        assertTrue(requests.get(0).startsWith("/solr/music/select?"));
+        assertTrue(requests.get(0).contains("wt=javabin"));
+        assertTrue(requests.get(0).contains("fq=strings%3A4"));
+    }
+
+    @Test
+    public void executeQuery_returnsFailedResponse_whenNodeIsUnreachable() throws Exception {
+        // Nothing listens on port 1
+        platform.load(null, settingsFile("v1.0", "{\"baseUrls\": [\"http://localhost:1/solr\"], \"collection\": \"music\"}"), "music_v1.0");
+
+        final QueryOrSearchResponse response = platform.executeQuery("music_v1.0", "{\"q\": \"fender\"}", new String[]{"id"}, 10);
+
+        assertTrue(response.isFailed());
+        assertEquals(0, response.hits().size());
+    }
+
+    private String solrUrl() {
+        return "http://localhost:" + solr.getAddress().getPort() + "/solr";
+    }
+
+    private byte[] javabinResponse() throws IOException {
+        final SolrDocument document = new SolrDocument();
+        document.setField("id", "1");
+        document.setField("title", "Fender Jazz Bass");
+
+        final SolrDocumentList results = new SolrDocumentList();
+        results.setNumFound(42);
+        results.add(document);
+
+        final NamedList<Object> header = new NamedList<>();
+        header.add("status", 0);
+        header.add("QTime", 1);
+
+        final NamedList<Object> response = new NamedList<>();
+        response.add("responseHeader", header);
+        response.add("response", results);
+
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new JavaBinCodec().marshal(response, out);
+        return out.toByteArray();
+    }
+
+    private File settingsFile(final String version, final String content) throws IOException {
+        final File settingsFile = new File(tempFolder.newFolder(version), ExternalApacheSolr.SETTINGS_FILE);
+        try (final PrintWriter writer = new PrintWriter(new FileWriter(settingsFile))) {
+            writer.println(content);
+        }
+        return settingsFile;
+    }
+}
@@ -0,0 +1,428 @@
+package io.sease.rre.search.api.impl;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.sease.rre.CorpusUtils;
+import io.sease.rre.DirectoryUtils;
+import io.sease.rre.search.api.CorpusManifest;
+import io.sease.rre.search.api.IndexStats;
+import io.sease.rre.search.api.QueryOrSearchResponse;
+import io.sease.rre.search.api.SearchPlatform;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.FieldInfo;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.IndexableField;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.MultiFields;
+import org.apache.lucene.index.Terms;
+import org.apache.lucene.queryparser.flexible.core.QueryNodeException;
+import org.apache.lucene.queryparser.flexible.standard.StandardQueryParser;
+import org.apache.lucene.queryparser.flexible.standard.config.StandardQueryConfigHandler;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.store.MMapDirectory;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.util.Optional.ofNullable;
+
+/**
+ * Apache Lucene search platform API implementation.
+ * Each index version is a plain Lucene index (on a memory-mapped directory) built according to the schema.json file
+ * of the version folder (see {@link LuceneSchema}), so evaluations which only tune analyzers, similarity and query
+ * parsing don't pay the startup cost of a full search server.
+ *
+ * Query templates are JSON objects with the following attributes:
+ *
+ * <ul>
+ *     <li>q: the query, in the Lucene (standard) query parser syntax;</li>
+ *     <li>df: the default field (optional, it defaults to the schema default field);</li>
+ *     <li>qf: the (space separated) query fields, with optional boosts, e.g. "title^2 description" (optional);</li>
+ *     <li>fq: one or more filter queries, which don't contribute to the score (optional);</li>
+ *     <li>q.op: the default operator, AND or OR (optional, it defaults to OR).</li>
+ * </ul>
+ *
+ * @author agazzarini
+ * @since 1.0
+ */
+public class ApacheLucene implements SearchPlatform {
+    private final static Logger LOGGER = LogManager.getLogger(ApacheLucene.class);
+    private static final String CHECKSUM = "rre.checksum";
+    private static final String SCORE = "score";
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final Map<String, LuceneIndex> indexes = new ConcurrentHashMap<>();
+
+    private File dataFolder;
+    private boolean defaultDataFolder;
+    private ExecutorService searchExecutor;
+
+    @Override
+    public void beforeStart(final Map<String, Object> configuration) {
+        if (configuration.containsKey("path.data")) {
+            dataFolder = new File((String) configuration.get("path.data"));
+        } else {
+            // Use tmp directory (will be deleted after processing)
+            dataFolder = new File(System.getProperty("java.io.tmpdir"), "rre-lucene-" + System.currentTimeMillis());
+            defaultDataFolder = true;
+        }
+
+        if ((Boolean) configuration.getOrDefault("forceRefresh", false) && dataFolder.exists()) {
+            try {
+                DirectoryUtils.deleteDirectory(dataFolder);
+            } catch (final IOException exception) {
+                LOGGER.error("Could not delete data directory - expect data to be stale!", exception);
+            }
+        }
+        dataFolder.mkdirs();
+
+        // Segments of the same index are searched concurrently
+        final int searchThreads = (Integer) configuration.getOrDefault("searchThreads", Runtime.getRuntime().availableProcessors());
+        if (searchThreads > 1) {
+            final AtomicInteger threads = new AtomicInteger();
+            searchExecutor = Executors.newFixedThreadPool(searchThreads, runnable -> {
+                final Thread thread = new Thread(runnable, "rre-lucene-search-" + threads.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    /**
+     * Builds the index of the given version, unless an index built from the same corpus and schema already exists.
+     */
+    @Override
+    public void load(final File corpus, final File configFolder, final String targetIndexName) {
+        try {
+            final LuceneSchema schema = new LuceneSchema(configFolder, mapper);
+            final String checksum = CorpusManifest.checksum(configFolder) + "-" + CorpusUtils.checksum(corpus);
+            final MMapDirectory directory = new MMapDirectory(new File(dataFolder, targetIndexName).toPath());
+
+            if (DirectoryReader.indexExists(directory) && checksum.equals(commitChecksum(directory))) {
+                LOGGER.info("RRE: Lucene index " + targetIndexName + " is up to date, skipping the corpus indexing.");
+            } else {
+                final long start = System.currentTimeMillis();
+                final IndexWriterConfig config =
+                        new IndexWriterConfig(schema.getAnalyzer())
+                                .setSimilarity(schema.getSimilarity())
+                                .setOpenMode(IndexWriterConfig.OpenMode.CREATE)
+                                .setRAMBufferSizeMB(64);
+                try (final IndexWriter writer = new IndexWriter(directory, config)) {
+                    final int count = index(corpus, schema, writer);
+                    writer.setLiveCommitData(Collections.singletonMap(CHECKSUM, checksum).entrySet());
+                    writer.commit();
+                    LOGGER.info("RRE: Lucene index " + targetIndexName + " built with " + count + " documents in " + (System.currentTimeMillis() - start) + " ms.");
+                }
+            }
+
+            ofNullable(indexes.put(targetIndexName, new LuceneIndex(schema, directory, searchExecutor))).ifPresent(this::closeQuietly);
+        } catch (final IOException exception) {
+            throw new RuntimeException(exception);
+        }
+    }
+
+    /**
+     * Returns the checksum (of corpus and configuration) recorded in the last commit of the given index.
+     */
+    private String commitChecksum(final MMapDirectory directory) throws IOException {
+        try (final DirectoryReader reader = DirectoryReader.open(directory)) {
+            return reader.getIndexCommit().getUserData().get(CHECKSUM);
+        }
+    }
+
+    /**
+     * Streams the given (JSON array) corpus into the given index writer.
+     *
+     * @return the number of indexed documents.
+     */
+    private int index(final File corpus, final LuceneSchema schema, final IndexWriter writer) throws IOException {
+        int count = 0;
+        try (final InputStream input = CorpusUtils.open(corpus);
+             final JsonParser parser = mapper.getFactory().createParser(input)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IOException("The corpus " + corpus.getName() + " must be a JSON array of documents.");
+            }
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                final JsonNode source = parser.readValueAsTree();
+                final Document document = new Document();
+                source.fields().forEachRemaining(field -> schema.addField(document, field.getKey(), field.getValue()));
+                writer.addDocument(document);
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public void start() {
+        // No-op for this implementation
+    }
+
+    @Override
+    public void afterStart() {
+        // No-op for this implementation
+    }
+
+    @Override
+    public void beforeStop() {
+        indexes.values().forEach(this::closeQuietly);
+        indexes.clear();
+        ofNullable(searchExecutor).ifPresent(ExecutorService::shutdownNow);
+
+        if (defaultDataFolder) {
+            try {
+                DirectoryUtils.deleteDirectory(dataFolder);
+            } catch (final IOException exception) {
+                LOGGER.error("Could not delete the Lucene data directory " + dataFolder.getAbsolutePath(), exception);
+            }
+        }
+    }
+
+    @Override
+    public QueryOrSearchResponse executeQuery(final String indexName, final String queryString, final String[] fields, final int maxRows) {
+        final LuceneIndex index = indexes.get(indexName);
+        if (index == null) {
+            throw new IllegalArgumentException("Cannot find the Lucene index " + indexName);
+        }
+
+        try {
+            final JsonNode queryDef = mapper.readTree(queryString);
+            final Query query = index.query(queryDef);
+            final long start = System.nanoTime();
+            final TopDocs topDocs = index.searcher.search(query, maxRows);
+            final long searchTimeMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+            final Set<String> requestedFields = new HashSet<>(Arrays.asList(fields));
+            final boolean allFields = requestedFields.contains("*");
+            final List<Map<String, Object>> hits = new ArrayList<>(topDocs.scoreDocs.length);
+            for (final ScoreDoc scoreDoc : topDocs.scoreDocs) {
+                final Map<String, Object> hit = new LinkedHashMap<>();
+                for (final IndexableField field : index.searcher.doc(scoreDoc.doc)) {
+                    if (allFields || requestedFields.contains(field.name())) {
+                        final Object value = ofNullable((Object) field.numericValue()).orElse(field.stringValue());
+                        hit.merge(field.name(), value, ApacheLucene::multiValued);
+                    }
+                }
+                if (requestedFields.contains(SCORE)) {
+                    hit.put(SCORE, scoreDoc.score);
+                }
+                hits.add(hit);
+            }
+            return new QueryOrSearchResponse(topDocs.totalHits, hits, searchTimeMs);
+        } catch (final QueryNodeException exception) {
+            LOGGER.error("Caught Lucene query parsing exception :: " + exception.getMessage());
+            return QueryOrSearchResponse.failed(exception.getMessage());
+        } catch (final IOException exception) {
+            LOGGER.error("Caught IOException executing query on " + indexName + " :: " + exception.getMessage());
+            return QueryOrSearchResponse.failed(exception.toString());
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Object multiValued(final Object current, final Object value) {
+        final List<Object> values;
+        if (current instanceof List) {
+            values = (List<Object>) current;
+        } else {
+            values = new ArrayList<>();
+            values.add(current);
+        }
+        values.add(value);
+        return values;
+    }
+
+    @Override
+    public String getName() {
+        return "Apache Lucene";
+    }
+
+    /**
+     * Returns the statistics of the given index, read from its (open) reader and directory.
+     * Since the index lives in the RRE JVM, the heap usage is the one of the whole JVM.
+     *
+     * @param indexName the index name.
+     * @return the statistics of the given index.
+     */
+    @Override
+    public Map<String, Number> indexStats(final String indexName) {
+        final Map<String, Number> stats = new LinkedHashMap<>();
+        final LuceneIndex index = indexes.get(indexName);
+        if (index == null) {
+            return stats;
+        }
+
+        try {
+            stats.put(IndexStats.DOCS, index.reader.numDocs());
+            stats.put(IndexStats.DELETED_DOCS, index.reader.numDeletedDocs());
+            stats.put(IndexStats.SEGMENTS, index.reader.leaves().size());
+            stats.put(IndexStats.SIZE_IN_BYTES, index.sizeInBytes());
+            stats.put(IndexStats.FIELDS, MultiFields.getMergedFieldInfos(index.reader).size());
+            stats.put(IndexStats.TERMS, index.terms());
+        } catch (final IOException exception) {
+            LOGGER.error("Unable to read the statistics of " + indexName, exception);
+        }
+        stats.put(IndexStats.HEAP_USED_BYTES, Runtime.getRuntime().totalMemory() - Runtime.getRuntime().freeMemory());
+        return stats;
+    }
+
+    /**
+     * The load is always requested: it only (re)builds the index when the checksum of the corpus and the
+     * configuration differs from the one recorded in the index. The corpus checksum is memoized (by file path, size
+     * and modification time), so the check doesn't read the corpus again when it hasn't changed.
+     */
+    @Override
+    public boolean isRefreshRequired() {
+        return true;
+    }
+
+    @Override
+    public boolean isSearchPlatformFile(final String indexName, final File file) {
+        return file.isDirectory() && file.getName().equals(indexName) && new File(file, LuceneSchema.SCHEMA_FILE).canRead();
+    }
+
+    @Override
+    public boolean isCorporaRequired() {
+        return true;
+    }
+
+    @Override
+    public boolean isCompressedCorporaSupported() {
+        return true;
+    }
+
+    @Override
+    public void close() {
+        // Nothing to be done here, resources are released in beforeStop
+    }
+
+    private void closeQuietly(final Closeable closeable) {
+        try {
+            closeable.close();
+        } catch (final IOException exception) {
+            LOGGER.error("Caught IOException closing a Lucene index :: " + exception.getMessage());
+        }
+    }
+
+    /**
+     * An open (i.e. searchable) index version.
+     */
+    static class LuceneIndex implements Closeable {
+        private final LuceneSchema schema;
+        private final MMapDirectory directory;
+        private final DirectoryReader reader;
+        private final IndexSearcher searcher;
+
+        LuceneIndex(final LuceneSchema schema, final MMapDirectory directory, final ExecutorService executor) throws IOException {
+            this.schema = schema;
+            this.directory = directory;
+            this.reader = DirectoryReader.open(directory);
+            this.searcher = new IndexSearcher(reader, executor);
+            this.searcher.setSimilarity(schema.getSimilarity());
+        }
+
+        /**
+         * Builds the Lucene query described by the given (JSON) query definition.
+         * A new parser is created for each query, since parsers are not thread-safe.
+         */
+        Query query(final JsonNode queryDef) throws QueryNodeException {
+            final StandardQueryParser parser = new StandardQueryParser(schema.getAnalyzer());
+            parser.setPointsConfigMap(schema.pointsConfig());
+            parser.setAllowLeadingWildcard(true);
+            if ("AND".equalsIgnoreCase(queryDef.path("q.op").asText())) {
+                parser.setDefaultOperator(StandardQueryConfigHandler.Operator.AND);
+            }
+
+            if (queryDef.hasNonNull("qf")) {
+                final Map<String, Float> boosts = new HashMap<>();
+                final List<String> queryFields = new ArrayList<>();
+                for (final String queryField : queryDef.get("qf").asText().trim().split("\\s+")) {
+                    final String[] nameAndBoost = queryField.split("\\^");
+                    queryFields.add(nameAndBoost[0]);
+                    if (nameAndBoost.length > 1) {
+                        boosts.put(nameAndBoost[0], Float.parseFloat(nameAndBoost[1]));
+                    }
+                }
+                parser.setMultiFields(queryFields.toArray(new String[0]));
+                parser.setFieldsBoost(boosts);
+            }
+
+            final String defaultField = queryDef.path("df").asText(schema.getDefaultField());
+            final Query main = parser.parse(queryDef.path("q").asText("*:*"), defaultField);
+
+            final JsonNode filters = queryDef.path("fq");
+            if (filters.isMissingNode() || filters.isNull()) {
+                return main;
+            }
+
+            final BooleanQuery.Builder builder = new BooleanQuery.Builder().add(main, BooleanClause.Occur.MUST);
+            if (filters.isArray()) {
+                for (final JsonNode filter : filters) {
+                    builder.add(parser.parse(filter.asText(), defaultField), BooleanClause.Occur.FILTER);
+                }
+            } else {
+                builder.add(parser.parse(filters.asText(), defaultField), BooleanClause.Occur.FILTER);
+            }
+            return builder.build();
+        }
+
+        /**
+         * Returns the size of the index files, in bytes.
+         */
+        long sizeInBytes() throws IOException {
+            long size = 0;
+            for (final String file : directory.listAll()) {
+                size += directory.fileLength(file);
+            }
+            return size;
+        }
+
+        /**
+         * Returns the number of distinct terms of the index, summed over its segments.
+         */
+        long terms() throws IOException {
+            long count = 0;
+            for (final LeafReaderContext leaf : reader.leaves()) {
+                for (final FieldInfo field : leaf.reader().getFieldInfos()) {
+                    final Terms terms = leaf.reader().terms(field.name);
+                    if (terms != null && terms.size() > 0) {
+                        count += terms.size();
+                    }
+                }
+            }
+            return count;
+        }
+
+        @Override
+        public void close() throws IOException {
+            reader.close();
+            directory.close();
+        }
+    }
+}
@@ -0,0 +1,250 @@
+package io.sease.rre.search.api.impl;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.core.KeywordAnalyzer;
+import org.apache.lucene.analysis.custom.CustomAnalyzer;
+import org.apache.lucene.analysis.miscellaneous.PerFieldAnalyzerWrapper;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.DoublePoint;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.queryparser.flexible.standard.config.PointsConfig;
+import org.apache.lucene.search.similarities.BM25Similarity;
+import org.apache.lucene.search.similarities.BooleanSimilarity;
+import org.apache.lucene.search.similarities.ClassicSimilarity;
+import org.apache.lucene.search.similarities.Similarity;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.text.NumberFormat;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+
+import static java.util.Optional.ofNullable;
+
+/**
+ * The (JSON) schema of a Lucene index version: fields, analyzers and similarity.
+ *
+ * <pre>
+ * {
+ *   "id_field": "id",
+ *   "default_field": "title",
+ *   "similarity": {"type": "BM25", "k1": 1.2, "b": 0.75},
+ *   "analyzers": {
+ *     "text_en": {
+ *       "tokenizer": "standard",
+ *       "filters": ["lowercase", {"type": "synonymGraph", "synonyms": "synonyms.txt"}, "porterStem"]
+ *     }
+ *   },
+ *   "fields": {
+ *     "title": {"type": "text", "analyzer": "text_en"},
+ *     "brand": {"type": "string"},
+ *     "number_of_strings": {"type": "long"}
+ *   }
+ * }
+ * </pre>
+ *
+ * Analyzers are built with the Lucene analysis factories (tokenizers, token filters and char filters are referred
+ * by their SPI name), and their resources (e.g. synonyms files) are loaded from the version folder.
+ * Field types are "text" (analyzed), "string" (not analyzed), "long" and "double". Fields which are not declared
+ * in the schema are indexed as "text", using the standard analyzer.
+ *
+ * @author agazzarini
+ * @since 1.0
+ */
+class LuceneSchema {
+    static final String SCHEMA_FILE = "schema.json";
+
+    private static final String TEXT = "text";
+    private static final String STRING = "string";
+    private static final String LONG = "long";
+    private static final String DOUBLE = "double";
+
+    private final String idField;
+    private final String defaultField;
+    private final Similarity similarity;
+    private final Map<String, String> fieldTypes = new HashMap<>();
+    private final Analyzer analyzer;
+
+    /**
+     * Reads the schema from the given version folder.
+     *
+     * @param configFolder the version folder, which contains the schema file and the analyzers resources.
+     * @param mapper       the object mapper used for reading the schema file.
+     * @throws IOException in case of I/O failure or if the schema is not valid.
+     */
+    LuceneSchema(final File configFolder, final ObjectMapper mapper) throws IOException {
+        final JsonNode schema = mapper.readTree(new File(configFolder, SCHEMA_FILE));
+
+        idField = schema.path("id_field").asText("id");
+        defaultField = schema.path("default_field").asText("text");
+        similarity = similarity(schema.path("similarity"));
+
+        final Map<String, Analyzer> analyzers = new HashMap<>();
+        for (final Iterator<Map.Entry<String, JsonNode>> iterator = schema.path("analyzers").fields(); iterator.hasNext(); ) {
+            final Map.Entry<String, JsonNode> entry = iterator.next();
+            analyzers.put(entry.getKey(), analyzer(configFolder.toPath(), entry.getValue()));
+        }
+
+        final Map<String, Analyzer> fieldAnalyzers = new HashMap<>();
+        fieldTypes.put(idField, STRING);
+        for (final Iterator<Map.Entry<String, JsonNode>> iterator = schema.path("fields").fields(); iterator.hasNext(); ) {
+            final Map.Entry<String, JsonNode> entry = iterator.next();
+            final String type = entry.getValue().path("type").asText(TEXT);
+            if (!type.equals(TEXT) && !type.equals(STRING) && !type.equals(LONG) && !type.equals(DOUBLE)) {
+                throw new IOException("Unknown type " + type + " for field " + entry.getKey());
+            }
+            fieldTypes.put(entry.getKey(), type);
+
+            if (entry.getValue().has("analyzer")) {
+                final String name = entry.getValue().get("analyzer").asText();
+                fieldAnalyzers.put(
+                        entry.getKey(),
+                        ofNullable(analyzers.get(name)).orElseThrow(() -> new IOException("Unknown analyzer " + name + " for field " + entry.getKey())));
+            }
+        }
+        fieldTypes.forEach((name, type) -> {
+            if (!type.equals(TEXT)) {
+                fieldAnalyzers.put(name, new KeywordAnalyzer());
+            }
+        });
+
+        analyzer = new PerFieldAnalyzerWrapper(new StandardAnalyzer(), fieldAnalyzers);
+    }
+
+    /**
+     * Builds the analyzer described by the given definition.
+     *
+     * @param resources  the folder which contains the analyzer resources (e.g. synonyms files).
+     * @param definition the analyzer definition.
+     * @return the analyzer described by the given definition.
+     * @throws IOException in case of I/O failure or if the definition is not valid.
+     */
+    private Analyzer analyzer(final Path resources, final JsonNode definition) throws IOException {
+        try {
+            final CustomAnalyzer.Builder builder = CustomAnalyzer.builder(resources);
+            for (final JsonNode charFilter : definition.path("char_filters")) {
+                builder.addCharFilter(name(charFilter), params(charFilter));
+            }
+            builder.withTokenizer(name(definition.path("tokenizer")), params(definition.path("tokenizer")));
+            for (final JsonNode filter : definition.path("filters")) {
+                builder.addTokenFilter(name(filter), params(filter));
+            }
+            return builder.build();
+        } catch (final IllegalArgumentException exception) {
+            throw new IOException("Invalid analyzer definition " + definition + ": " + exception.getMessage(), exception);
+        }
+    }
+
+    /**
+     * Returns the SPI name of the given analysis component (e.g. "standard" or {"type": "standard"}).
+     */
+    private String name(final JsonNode component) {
+        return component.isTextual() ? component.asText() : component.path("type").asText("standard");
+    }
+
+    /**
+     * Returns the parameters of the given analysis component (i.e. all its attributes but the type).
+     */
+    private Map<String, String> params(final JsonNode component) {
+        final Map<String, String> params = new HashMap<>();
+        for (final Iterator<Map.Entry<String, JsonNode>> iterator = component.fields(); iterator.hasNext(); ) {
+            final Map.Entry<String, JsonNode> entry = iterator.next();
+            if (!entry.getKey().equals("type")) {
+                params.put(entry.getKey(), entry.getValue().asText());
+            }
+        }
+        return params;
+    }
+
+    private Similarity similarity(final JsonNode definition) throws IOException {
+        final String type = definition.isTextual() ? definition.asText() : definition.path("type").asText("BM25");
+        switch (type.toLowerCase(Locale.ROOT)) {
+            case "bm25":
+                return new BM25Similarity((float) definition.path("k1").asDouble(1.2), (float) definition.path("b").asDouble(0.75));
+            case "classic":
+                return new ClassicSimilarity();
+            case "boolean":
+                return new BooleanSimilarity();
+            default:
+                throw new IOException("Unknown similarity " + type);
+        }
+    }
+
+    /**
+     * Adds the given (JSON) value to the given document, according to the field type.
+     *
+     * @param document the target document.
+     * @param name     the field name.
+     * @param value    the field value (or values, in case of arrays).
+     */
+    void addField(final Document document, final String name, final JsonNode value) {
+        if (value.isArray()) {
+            value.forEach(item -> addField(document, name, item));
+            return;
+        }
+        if (value.isNull() || value.isContainerNode()) {
+            return;
+        }
+
+        switch (fieldTypes.getOrDefault(name, TEXT)) {
+            case STRING:
+                document.add(new StringField(name, value.asText(), Field.Store.YES));
+                break;
+            case LONG:
+                document.add(new LongPoint(name, value.asLong()));
+                document.add(new StoredField(name, value.asLong()));
+                break;
+            case DOUBLE:
+                document.add(new DoublePoint(name, value.asDouble()));
+                document.add(new StoredField(name, value.asDouble()));
+                break;
+            default:
+                document.add(new TextField(name, value.asText(), Field.Store.YES));
+        }
+    }
+
+    /**
+     * Returns the points configuration of the numeric fields, used by the query parser for range queries.
+     *
+     * @return the points configuration of the numeric fields.
+     */
+    Map<String, PointsConfig> pointsConfig() {
+        final Map<String, PointsConfig> config = new HashMap<>();
+        fieldTypes.forEach((name, type) -> {
+            if (type.equals(LONG)) {
+                config.put(name, new PointsConfig(NumberFormat.getIntegerInstance(Locale.ROOT), Long.class));
+            } else if (type.equals(DOUBLE)) {
+                config.put(name, new PointsConfig(new DecimalFormat("0.#", new DecimalFormatSymbols(Locale.ROOT)), Double.class));
+            }
+        });
+        return config;
+    }
+
+    String getIdField() {
+        return idField;
+    }
+
+    String getDefaultField() {
+        return defaultField;
+    }
+
+    Similarity getSimilarity() {
+        return similarity;
+    }
+
+    Analyzer getAnalyzer() {
+        return analyzer;
+    }
+}
@@ -0,0 +1,163 @@
+package io.sease.rre.search.api.impl;
+
+import io.sease.rre.search.api.IndexStats;
+import io.sease.rre.search.api.QueryOrSearchResponse;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class ApacheLuceneTest {
+
+    private static final String INDEX_NAME = "basses";
+    private static final String[] FIELDS = {"*", "score"};
+
+    private static final String SCHEMA = "{" +
+            "\"id_field\": \"id\"," +
+            "\"default_field\": \"title\"," +
+            "\"analyzers\": {" +
+            "  \"text_en\": {\"tokenizer\": \"standard\", \"filters\": [\"lowercase\", {\"type\": \"synonymGraph\", \"synonyms\": \"synonyms.txt\"}]}" +
+            "}," +
+            "\"fields\": {" +
+            "  \"title\": {\"type\": \"text\", \"analyzer\": \"text_en\"}," +
+            "  \"brand\": {\"type\": \"string\"}," +
+            "  \"number_of_strings\": {\"type\": \"long\"}" +
+            "}" +
+            "}";
+
+    private static final String CORPUS = "[" +
+            "{\"id\": \"1\", \"title\": \"Fender Jazz Bass\", \"brand\": \"Fender\", \"number_of_strings\": 4}," +
+            "{\"id\": \"2\", \"title\": \"Fender Precision Bass\", \"brand\": \"Fender\", \"number_of_strings\": 4}," +
+            "{\"id\": \"3\", \"title\": \"Music Man Stingray 5\", \"brand\": \"Music Man\", \"number_of_strings\": 5, \"tags\": [\"active\", \"five strings\"]}" +
+            "]";
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    private ApacheLucene platform;
+    private File configFolder;
+    private File corpus;
+    private Map<String, Object> configuration;
+
+    @Before
+    public void setUp() throws Exception {
+        configFolder = tempFolder.newFolder("v1.0", INDEX_NAME);
+        write(new File(configFolder, LuceneSchema.SCHEMA_FILE), SCHEMA);
+        write(new File(configFolder, "synonyms.txt"), "stingray, musicman");
+        corpus = tempFolder.newFile("corpus.json");
+        write(corpus, CORPUS);
+
+        configuration = new HashMap<>();
+        configuration.put("path.data", new File(tempFolder.getRoot(), "data").getAbsolutePath());
+        configuration.put("forceRefresh", false);
+
+        platform = new ApacheLucene();
+        platform.beforeStart(configuration);
+        platform.load(corpus, configFolder, INDEX_NAME + "_v1.0");
+    }
+
+    @After
+    public void tearDown() {
+        platform.beforeStop();
+        platform.close();
+    }
+
+    @Test
+    public void isSearchPlatformFile_returnsTrueOnlyForIndexFolderWithSchema() throws Exception {
+        assertTrue(platform.isSearchPlatformFile(INDEX_NAME, configFolder));
+        assertFalse(platform.isSearchPlatformFile(INDEX_NAME, tempFolder.newFolder(INDEX_NAME)));
+        assertFalse(platform.isSearchPlatformFile("another_index", configFolder));
+    }
+
+    @Test
+    public void executeQuery_usesTheSchemaAnalyzers() {
+        final QueryOrSearchResponse response = platform.executeQuery(INDEX_NAME + "_v1.0", "{\"q\": \"MUSICMAN\"}", FIELDS, 10);
+
+        assertEquals(1, response.totalHits());
+        final Map<String, Object> hit = response.hits().get(0);
+        assertEquals("3", hit.get("id"));
+        assertEquals(5L, hit.get("number_of_strings"));
+        assertEquals(2, ((List<?>) hit.get("tags")).size());
+        assertTrue(hit.containsKey("score"));
+    }
+
+    @Test
+    public void executeQuery_appliesFiltersAndNumericRanges() {
+        final QueryOrSearchResponse response = platform.executeQuery(
+                INDEX_NAME + "_v1.0",
+                "{\"q\": \"bass\", \"qf\": \"title^2 brand\", \"fq\": [\"brand:Fender\", \"number_of_strings:[4 TO 4]\"]}",
+                new String[]{"id"},
+                10);
+
+        assertEquals(2, response.totalHits());
+        assertEquals(1, response.hits().get(0).size());
+    }
+
+    @Test
+    public void executeQuery_returnsFailedResponse_whenQueryCannotBeParsed() {
+        final QueryOrSearchResponse response = platform.executeQuery(INDEX_NAME + "_v1.0", "{\"q\": \"title:(fender\"}", FIELDS, 10);
+
+        assertTrue(response.isFailed());
+    }
+
+    @Test
+    public void executeQuery_returnsFailedResponse_whenQueryIsNotValidJson() {
+        final QueryOrSearchResponse response = platform.executeQuery(INDEX_NAME + "_v1.0", "{\"q\": ", FIELDS, 10);
+
+        assertTrue(response.isFailed());
+        assertEquals(0, response.hits().size());
+    }
+
+    @Test
+    public void indexStats_describesTheLoadedIndex() {
+        final Map<String, Number> stats = platform.indexStats(INDEX_NAME + "_v1.0");
+
+        assertEquals(3, stats.get(IndexStats.DOCS).intValue());
+        assertEquals(0, stats.get(IndexStats.DELETED_DOCS).intValue());
+        assertTrue(stats.get(IndexStats.SEGMENTS).intValue() > 0);
+        assertTrue(stats.get(IndexStats.SIZE_IN_BYTES).longValue() > 0);
+        assertTrue(stats.get(IndexStats.TERMS).longValue() > 0);
+        assertTrue(platform.indexStats("unknown").isEmpty());
+    }
+
+    @Test
+    public void load_reusesTheIndex_whenCorpusAndSchemaDidNotChange() throws Exception {
+        platform.beforeStop();
+        final File segments = new File(configuration.get("path.data") + "/" + INDEX_NAME + "_v1.0");
+        final long lastModified = newestFile(segments);
+
+        platform = new ApacheLucene();
+        platform.beforeStart(configuration);
+        platform.load(corpus, configFolder, INDEX_NAME + "_v1.0");
+        assertEquals(lastModified, newestFile(segments));
+
+        write(corpus, CORPUS.replace("Jazz", "Jazz Deluxe"));
+        platform.load(corpus, configFolder, INDEX_NAME + "_v1.0");
+        assertEquals(1, platform.executeQuery(INDEX_NAME + "_v1.0", "{\"q\": \"deluxe\"}", FIELDS, 10).totalHits());
+    }
+
+    private long newestFile(final File folder) {
+        long newest = 0;
+        for (final File file : folder.listFiles()) {
+            newest = Math.max(newest, file.lastModified());
+        }
+        return newest;
+    }
+
+    private void write(final File file, final String content) throws IOException {
+        try (final PrintWriter writer = new PrintWriter(new FileWriter(file))) {
+            writer.println(content);
+        }
+    }
+}
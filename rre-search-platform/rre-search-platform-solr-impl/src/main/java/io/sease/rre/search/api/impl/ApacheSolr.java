@@ -1,17 +1,42 @@
 package io.sease.rre.search.api.impl;
 
+import com.codahale.metrics.Gauge;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.sease.rre.CorpusUtils;
 import io.sease.rre.DirectoryUtils;
+import io.sease.rre.search.api.CacheStats;
+import io.sease.rre.search.api.CorpusManifest;
+import io.sease.rre.search.api.IndexStats;
 import io.sease.rre.search.api.QueryOrSearchResponse;
 import io.sease.rre.search.api.SearchPlatform;
-import org.apache.htrace.fasterxml.jackson.databind.JsonNode;
-import org.apache.htrace.fasterxml.jackson.databind.ObjectMapper;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.apache.lucene.index.FieldInfo;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.MultiFields;
+import org.apache.lucene.index.Terms;
 import org.apache.solr.client.solrj.SolrQuery;
+import org.apache.solr.client.solrj.SolrServerException;
 import org.apache.solr.client.solrj.embedded.EmbeddedSolrServer;
+import org.apache.solr.client.solrj.request.ContentStreamUpdateRequest;
+import org.apache.solr.client.solrj.request.JavaBinUpdateRequestCodec;
+import org.apache.solr.client.solrj.request.UpdateRequest;
 import org.apache.solr.client.solrj.response.UpdateResponse;
 import org.apache.solr.common.SolrException;
+import org.apache.solr.common.SolrInputDocument;
+import org.apache.solr.common.util.ContentStream;
+import org.apache.solr.common.util.NamedList;
 import org.apache.solr.core.CoreContainer;
+import org.apache.solr.core.SolrCore;
+import org.apache.solr.schema.IndexSchema;
+import org.apache.solr.schema.SchemaField;
+import org.apache.solr.search.SolrIndexSearcher;
+import org.apache.solr.util.RefCounted;
 
 import java.io.*;
 import java.nio.file.Files;
@@ -19,7 +44,12 @@ import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
 
 import static java.util.Collections.emptyMap;
 import static java.util.Optional.of;
@@ -33,6 +63,8 @@ import static java.util.Optional.ofNullable;
  */
 public class ApacheSolr implements SearchPlatform {
     private final static Logger LOGGER = LogManager.getLogger(ApacheSolr.class);
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final String[] CACHES = {"filterCache", "queryResultCache", "documentCache"};
 
     private EmbeddedSolrServer proxy;
     private File solrHome;
@@ -41,6 +73,9 @@ public class ApacheSolr implements SearchPlatform {
 
     private boolean refreshRequired = false;
     private boolean defaultSolrHome = false;
+    private boolean incrementalLoad = false;
+
+    private final ObjectMapper mapper = new ObjectMapper();
 
     @Override
     public void beforeStart(final Map<String, Object> configuration) {
@@ -53,6 +88,8 @@ public class ApacheSolr implements SearchPlatform {
             defaultSolrHome = true;
         }
 
+        incrementalLoad = (Boolean) configuration.getOrDefault("incrementalLoad", false);
+
         if ((Boolean) configuration.get("forceRefresh") && solrHome.exists()) {
             try {
                 DirectoryUtils.deleteDirectory(solrHome);
@@ -77,6 +114,84 @@ public class ApacheSolr implements SearchPlatform {
             coreProperties.renameTo(renamedCoreProperties);
         }
 
+        final String configurationChecksum = incrementalLoad ? CorpusManifest.checksum(configFolder) : null;
+        final File manifestFile = new File(solrHome, targetIndexName + ".manifest");
+        final CorpusManifest previousManifest = CorpusManifest.read(manifestFile);
+
+        final boolean deltaLoad =
+                incrementalLoad
+                        && proxy.getCoreContainer().getAllCoreNames().contains(targetIndexName)
+                        && previousManifest.isCompatibleWith(configurationChecksum);
+
+        if (deltaLoad) {
+            LOGGER.info("Core " + targetIndexName + " configuration is unchanged: loading only the changed documents.");
+        } else {
+            // The previous manifest (if any) doesn't describe the index content anymore
+            manifestFile.delete();
+            createCore(configFolder, targetIndexName);
+        }
+
+        try {
+            if (incrementalLoad) {
+                final CorpusManifest manifest = new CorpusManifest(configurationChecksum);
+                final String uniqueKey = uniqueKeyField(targetIndexName);
+
+                // The changed documents are streamed to a temporary file, so they are never held in memory all together
+                final File changedDocuments = File.createTempFile("rre-" + targetIndexName + "-", ".json");
+                try {
+                    final AtomicInteger changed = new AtomicInteger();
+                    try (final JsonGenerator generator =
+                                 mapper.getFactory().createGenerator(new BufferedOutputStream(new FileOutputStream(changedDocuments), BUFFER_SIZE))) {
+                        generator.writeStartArray();
+                        readCorpus(data, document -> {
+                            final String id = document.get(uniqueKey).asText();
+                            manifest.add(id, mapper.writeValueAsBytes(document));
+                            if (!deltaLoad || manifest.hasChanged(previousManifest, id)) {
+                                mapper.writeTree(generator, document);
+                                changed.incrementAndGet();
+                            }
+                        });
+                        generator.writeEndArray();
+                    }
+
+                    if (deltaLoad) {
+                        final List<String> deletedDocuments = manifest.deletedSince(previousManifest);
+                        LOGGER.info("Core " + targetIndexName + ": " + changed.get() + " documents added or updated, " + deletedDocuments.size() + " deleted.");
+                        if (!deletedDocuments.isEmpty()) {
+                            proxy.deleteById(targetIndexName, deletedDocuments);
+                        }
+                    }
+
+                    if (changed.get() > 0) {
+                        index(new JsonUpdateRequest(new BufferedInputStream(new FileInputStream(changedDocuments), BUFFER_SIZE)), targetIndexName);
+                    } else {
+                        proxy.commit(targetIndexName);
+                    }
+                } finally {
+                    changedDocuments.delete();
+                }
+
+                manifest.write(manifestFile);
+            } else {
+                final File javabinCorpus = javabinCorpus(data);
+                index(javabinCorpus != null
+                                ? new JavabinUpdateRequest(new BufferedInputStream(new FileInputStream(javabinCorpus), BUFFER_SIZE))
+                                : new JsonUpdateRequest(CorpusUtils.open(data)),
+                        targetIndexName);
+            }
+        } catch (final Exception exception) {
+            throw new RuntimeException(exception);
+        }
+    }
+
+    /**
+     * Creates a new core, using the given configuration folder.
+     * An existing core directory with the same name is deleted.
+     *
+     * @param configFolder    the folder that contains the core configuration.
+     * @param targetIndexName the core name.
+     */
+    private void createCore(final File configFolder, final String targetIndexName) {
         // Copy files from configFolder into solrHome/targetIndexName
         File targetIndexDir = new File(solrHome, targetIndexName);
         try {
@@ -98,15 +213,191 @@ public class ApacheSolr implements SearchPlatform {
                 LOGGER.error("Caught Solr exception creating core :: " + e.getMessage());
             }
         }
+    }
 
+    /**
+     * Sends the given update request (which carries the payload stream) to the target core, and commits.
+     * The payload stream is closed once the request has been processed.
+     *
+     * @param request         the update request.
+     * @param targetIndexName the core name.
+     * @throws Exception in case of indexing failure.
+     */
+    private void index(final ContentStreamUpdateRequest request, final String targetIndexName) throws Exception {
         try {
-            UpdateResponse response = new JsonUpdateRequest(new FileInputStream(data)).process(proxy, targetIndexName);
+            UpdateResponse response = request.process(proxy, targetIndexName);
             if (response.getStatus() != 0) {
                 throw new IllegalArgumentException("Received an error status from Solr: " + response.getStatus());
             }
-        } catch (final Exception exception) {
-            throw new RuntimeException(exception);
+        } finally {
+            for (final ContentStream stream : request.getContentStreams()) {
+                stream.getStream().close();
+            }
+        }
+    }
+
+    /**
+     * Returns the javabin version of the given corpus, converting it on the first request.
+     * The converted corpus is cached (see {@link CorpusUtils#cacheFolder(File)}) and reused as long as the corpus
+     * doesn't change, so subsequent runs skip the JSON parsing on the Solr side.
+     * Only plain JSON arrays of (flat or nested through _childDocuments_) documents can be converted: in any other
+     * case, null is returned and the corpus is loaded as it is.
+     *
+     * @param data the corpus file.
+     * @return the javabin version of the given corpus, or null if the corpus cannot be converted.
+     */
+    private File javabinCorpus(final File data) {
+        try {
+            final File cacheFolder = CorpusUtils.cacheFolder(data);
+            final File javabinCorpus = new File(cacheFolder, CorpusUtils.name(data) + ".javabin");
+            if (javabinCorpus.canRead()) {
+                return javabinCorpus;
+            }
+
+            cacheFolder.mkdirs();
+            final File tmp = File.createTempFile(javabinCorpus.getName(), ".part", cacheFolder);
+            try {
+                try (final JsonParser parser = mapper.getFactory().createParser(CorpusUtils.open(data));
+                     final OutputStream out = new BufferedOutputStream(new FileOutputStream(tmp), BUFFER_SIZE)) {
+                    if (parser.nextToken() != JsonToken.START_ARRAY) {
+                        LOGGER.info("Corpus " + data.getAbsolutePath() + " is not a JSON array of documents: it will be loaded as it is.");
+                        return null;
+                    }
+
+                    final UpdateRequest request = new UpdateRequest();
+                    request.setDocIterator(new DocumentIterator(parser));
+                    new JavaBinUpdateRequestCodec().marshal(request, out);
+
+                    if (parser.currentToken() != JsonToken.END_ARRAY) {
+                        throw new IOException("Unexpected token " + parser.currentToken() + " in the documents array.");
+                    }
+                }
+                Files.move(tmp.toPath(), javabinCorpus.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                return javabinCorpus;
+            } finally {
+                tmp.delete();
+            }
+        } catch (final IOException | RuntimeException exception) {
+            LOGGER.warn("Unable to convert the corpus " + data.getAbsolutePath() + " in javabin format: it will be loaded as it is. Reason: " + exception.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Converts a corpus document in a {@link SolrInputDocument}.
+     *
+     * @param node the JSON document.
+     * @return the corresponding {@link SolrInputDocument}.
+     * @throws IllegalArgumentException if the document contains values which have no javabin equivalent (e.g. nulls
+     *                                  or nested objects).
+     */
+    private SolrInputDocument toSolrDocument(final JsonNode node) {
+        final SolrInputDocument document = new SolrInputDocument();
+        node.fields().forEachRemaining(field -> {
+            if ("_childDocuments_".equals(field.getKey())) {
+                field.getValue().forEach(child -> document.addChildDocument(toSolrDocument(child)));
+            } else if (field.getValue().isArray()) {
+                field.getValue().forEach(value -> document.addField(field.getKey(), toFieldValue(field.getKey(), value)));
+            } else {
+                document.addField(field.getKey(), toFieldValue(field.getKey(), field.getValue()));
+            }
+        });
+        return document;
+    }
+
+    /**
+     * Converts a JSON value in a field value, using the same types the Solr JSON loader would use.
+     *
+     * @param name  the field name.
+     * @param value the JSON value.
+     * @return the field value.
+     */
+    private Object toFieldValue(final String name, final JsonNode value) {
+        if (value.isTextual()) {
+            return value.textValue();
+        } else if (value.isBoolean()) {
+            return value.booleanValue();
+        } else if (value.isIntegralNumber()) {
+            return value.canConvertToLong() ? (Object) value.longValue() : value.asText();
+        } else if (value.isNumber()) {
+            return value.doubleValue();
         }
+        throw new IllegalArgumentException("Unsupported value for field " + name + ": " + value);
+    }
+
+    /**
+     * Lazily iterates over the documents of a JSON array, so the whole corpus never needs to be held in memory.
+     */
+    private class DocumentIterator implements Iterator<SolrInputDocument> {
+        private final JsonParser parser;
+
+        DocumentIterator(final JsonParser parser) throws IOException {
+            this.parser = parser;
+            parser.nextToken();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return parser.currentToken() == JsonToken.START_OBJECT;
+        }
+
+        @Override
+        public SolrInputDocument next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+
+            try {
+                final SolrInputDocument document = toSolrDocument(mapper.readTree(parser));
+                parser.nextToken();
+                return document;
+            } catch (final IOException exception) {
+                throw new UncheckedIOException(exception);
+            }
+        }
+    }
+
+    /**
+     * Streams the documents of a corpus file, which is expected to be a JSON array of documents.
+     *
+     * @param data     the corpus file.
+     * @param consumer the documents consumer.
+     * @throws IOException in case of I/O failure, or if the corpus is not a JSON array.
+     */
+    private void readCorpus(final File data, final DocumentConsumer consumer) throws IOException {
+        try (final JsonParser parser = mapper.getFactory().createParser(CorpusUtils.open(data))) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IOException("Incremental load requires the corpus " + data.getAbsolutePath() + " to be a JSON array of documents.");
+            }
+
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                consumer.accept(mapper.readTree(parser));
+            }
+        }
+    }
+
+    /**
+     * Returns the name of the unique key field declared in the schema of the given core.
+     *
+     * @param coreName the core name.
+     * @return the name of the unique key field declared in the schema of the given core.
+     */
+    private String uniqueKeyField(final String coreName) {
+        try (final SolrCore core = proxy.getCoreContainer().getCore(coreName)) {
+            return ofNullable(core)
+                    .map(SolrCore::getLatestSchema)
+                    .map(IndexSchema::getUniqueKeyField)
+                    .map(SchemaField::getName)
+                    .orElse("id");
+        }
+    }
+
+    /**
+     * A consumer of corpus documents.
+     */
+    @FunctionalInterface
+    private interface DocumentConsumer {
+        void accept(JsonNode document) throws IOException;
     }
 
     @Override
@@ -163,37 +454,189 @@ public class ApacheSolr implements SearchPlatform {
     @Override
     public QueryOrSearchResponse executeQuery(final String coreName, final String queryString, final String[] fields, final int maxRows) {
         try {
-            final SolrQuery query =
-                    new SolrQuery()
-                            .setRows(maxRows)
-                            .setFields(fields);
-            final ObjectMapper mapper = new ObjectMapper();
-            final JsonNode queryDef = mapper.readTree(queryString);
-
-            for (final Iterator<Map.Entry<String, JsonNode>> iterator = queryDef.fields(); iterator.hasNext(); ) {
-                final Map.Entry<String, JsonNode> field = iterator.next();
-                query.add(field.getKey(), field.getValue().asText());
-            }
-
-            return of(proxy.query(coreName, query))
+            return of(proxy.query(coreName, solrQuery(queryString, fields, maxRows)))
                     .map(response ->
                             new QueryOrSearchResponse(
                                     response.getResults().getNumFound(),
-                                    new ArrayList<Map<String, Object>>(response.getResults())))
+                                    new ArrayList<Map<String, Object>>(response.getResults()),
+                                    response.getQTime()))
                     .get();
         } catch (SolrException e) {
             LOGGER.error("Caught Solr exception :: " + e.getMessage());
-            return new QueryOrSearchResponse(0, Collections.emptyList());
+            return QueryOrSearchResponse.failed(e.getMessage());
         } catch (final Exception exception) {
             throw new RuntimeException(exception);
         }
     }
 
+    /**
+     * Executes the given query with debug=timing, and returns the preparation and processing time of each search
+     * component (e.g. "process.query", "prepare.facet").
+     *
+     * @param coreName    the core name.
+     * @param queryString the query.
+     * @param fields      the fields to return.
+     * @param maxRows     the maximum number of rows that will be returned.
+     * @return the execution time of each search component, in milliseconds.
+     */
+    @Override
+    public Map<String, Number> profile(final String coreName, final String queryString, final String[] fields, final int maxRows) {
+        final Map<String, Number> profile = new LinkedHashMap<>();
+        try {
+            final SolrQuery query = solrQuery(queryString, fields, maxRows);
+            query.set("debug", "timing");
+            ofNullable(proxy.query(coreName, query).getDebugMap())
+                    .map(debug -> debug.get("timing"))
+                    .filter(NamedList.class::isInstance)
+                    .ifPresent(timing -> timing("", (NamedList<?>) timing, profile));
+        } catch (final SolrException | SolrServerException | IOException exception) {
+            LOGGER.error("Unable to profile the query " + queryString + " on " + coreName + " :: " + exception.getMessage());
+        }
+        return profile;
+    }
+
+    /**
+     * Flattens the given Solr timing section.
+     *
+     * @param prefix  the name of the enclosing section (empty for the top level section).
+     * @param timing  the timing section.
+     * @param profile the flattened timings.
+     */
+    private void timing(final String prefix, final NamedList<?> timing, final Map<String, Number> profile) {
+        timing.forEach(entry -> {
+            if ("time".equals(entry.getKey()) && entry.getValue() instanceof Number) {
+                profile.put(prefix.isEmpty() ? "total" : prefix, (Number) entry.getValue());
+            } else if (entry.getValue() instanceof NamedList) {
+                timing(prefix.isEmpty() ? entry.getKey() : prefix + "." + entry.getKey(), (NamedList<?>) entry.getValue(), profile);
+            }
+        });
+    }
+
+    /**
+     * Builds a Solr query from the given (JSON) query definition.
+     *
+     * @param queryString the query definition, i.e. a JSON object with the request parameters.
+     * @param fields      the fields to return.
+     * @param maxRows     the maximum number of rows that will be returned.
+     * @return the Solr query.
+     * @throws IOException if the query definition cannot be parsed.
+     */
+    private SolrQuery solrQuery(final String queryString, final String[] fields, final int maxRows) throws IOException {
+        final SolrQuery query =
+                new SolrQuery()
+                        .setRows(maxRows)
+                        .setFields(fields);
+        final JsonNode queryDef = mapper.readTree(queryString);
+
+        for (final Iterator<Map.Entry<String, JsonNode>> iterator = queryDef.fields(); iterator.hasNext(); ) {
+            final Map.Entry<String, JsonNode> field = iterator.next();
+            query.add(field.getKey(), field.getValue().asText());
+        }
+        return query;
+    }
+
     @Override
     public String getName() {
         return "Apache Solr";
     }
 
+    /**
+     * Returns the statistics of the given core, read from its current searcher.
+     * Since Solr runs embedded, the heap usage is the one of the whole JVM.
+     *
+     * @param indexName the index (i.e. core) name.
+     * @return the statistics of the given core.
+     */
+    @Override
+    public Map<String, Number> indexStats(final String indexName) {
+        final Map<String, Number> stats = new LinkedHashMap<>();
+        try (final SolrCore core = proxy.getCoreContainer().getCore(indexName)) {
+            if (core == null) {
+                return stats;
+            }
+
+            final RefCounted<SolrIndexSearcher> searcher = core.getSearcher();
+            try {
+                final IndexReader reader = searcher.get().getIndexReader();
+                stats.put(IndexStats.DOCS, reader.numDocs());
+                stats.put(IndexStats.DELETED_DOCS, reader.numDeletedDocs());
+                stats.put(IndexStats.SEGMENTS, reader.leaves().size());
+                stats.put(IndexStats.SIZE_IN_BYTES, core.getIndexSize());
+                stats.put(IndexStats.FIELDS, MultiFields.getMergedFieldInfos(reader).size());
+                stats.put(IndexStats.TERMS, terms(reader));
+            } finally {
+                searcher.decref();
+            }
+        } catch (final IOException exception) {
+            LOGGER.error("Unable to read the statistics of " + indexName, exception);
+        }
+        stats.put(IndexStats.HEAP_USED_BYTES, Runtime.getRuntime().totalMemory() - Runtime.getRuntime().freeMemory());
+        return stats;
+    }
+
+    /**
+     * Returns the statistics of the filterCache, queryResultCache and documentCache of the given core, read from
+     * the core metrics registry.
+     *
+     * @param indexName the index (i.e. core) name.
+     * @return the statistics of the caches of the given core.
+     */
+    @Override
+    public Map<String, Map<String, Number>> cacheStats(final String indexName) {
+        final Map<String, Map<String, Number>> stats = new LinkedHashMap<>();
+        try (final SolrCore core = proxy.getCoreContainer().getCore(indexName)) {
+            if (core == null) {
+                return stats;
+            }
+
+            for (final String cache : CACHES) {
+                core.getCoreMetricManager().getRegistry().getGauges((name, metric) -> name.endsWith("." + cache))
+                        .values()
+                        .stream()
+                        .map(gauge -> ((Gauge<?>) gauge).getValue())
+                        .filter(Map.class::isInstance)
+                        .findFirst()
+                        .ifPresent(value -> stats.put(cache, cacheStats((Map<?, ?>) value)));
+            }
+        }
+        return stats;
+    }
+
+    /**
+     * Extracts the RRE cache statistics from the given Solr cache metrics.
+     *
+     * @param metrics the Solr cache metrics.
+     * @return the cache statistics.
+     */
+    private Map<String, Number> cacheStats(final Map<?, ?> metrics) {
+        final Map<String, Number> stats = new LinkedHashMap<>();
+        Stream.of(CacheStats.LOOKUPS, CacheStats.HITS, CacheStats.EVICTIONS, CacheStats.SIZE)
+                .forEach(name -> ofNullable(metrics.get(name))
+                        .filter(Number.class::isInstance)
+                        .ifPresent(value -> stats.put(name, (Number) value)));
+        return stats;
+    }
+
+    /**
+     * Returns the number of distinct terms of the given index, summed over its segments.
+     *
+     * @param reader the index reader.
+     * @return the number of distinct terms of the given index, summed over its segments.
+     * @throws IOException in case of I/O failure.
+     */
+    private long terms(final IndexReader reader) throws IOException {
+        long count = 0;
+        for (final LeafReaderContext leaf : reader.leaves()) {
+            for (final FieldInfo field : leaf.reader().getFieldInfos()) {
+                final Terms terms = leaf.reader().terms(field.name);
+                if (terms != null && terms.size() > 0) {
+                    count += terms.size();
+                }
+            }
+        }
+        return count;
+    }
+
     @Override
     public boolean isRefreshRequired() {
         return refreshRequired;
@@ -232,4 +675,9 @@ public class ApacheSolr implements SearchPlatform {
     public boolean isCorporaRequired() {
         return true;
     }
+
+    @Override
+    public boolean isCompressedCorporaSupported() {
+        return true;
+    }
 }
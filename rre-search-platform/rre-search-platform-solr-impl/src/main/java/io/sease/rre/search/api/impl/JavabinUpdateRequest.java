@@ -0,0 +1,40 @@
+package io.sease.rre.search.api.impl;
+
+import org.apache.solr.client.solrj.request.ContentStreamUpdateRequest;
+import org.apache.solr.common.util.ContentStream;
+import org.apache.solr.common.util.ContentStreamBase;
+
+import java.io.InputStream;
+import java.util.Collection;
+
+import static java.util.Collections.singletonList;
+
+public class JavabinUpdateRequest extends ContentStreamUpdateRequest {
+    private final InputStream stream;
+
+    /**
+     * Builds a new Update request with the given (javabin) payload stream.
+     *
+     * @param stream the data stream.
+     */
+    public JavabinUpdateRequest(final InputStream stream) {
+        super("/update");
+        this.stream = stream;
+        this.setAction(ACTION.COMMIT, true, true);
+    }
+
+    @Override
+    public Collection<ContentStream> getContentStreams() {
+        return singletonList(new ContentStreamBase() {
+            @Override
+            public String getContentType() {
+                return "application/javabin";
+            }
+
+            @Override
+            public InputStream getStream() {
+                return stream;
+            }
+        });
+    }
+}
@@ -1,13 +1,21 @@
 package io.sease.rre.search.api.impl;
 
+import io.sease.rre.search.api.QueryOrSearchResponse;
 import io.sease.rre.search.api.SearchPlatform;
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
 
 import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
@@ -25,6 +33,11 @@ public class ApacheSolrTest {
         platform = new ApacheSolr();
     }
 
+    @After
+    public void closePlatform() throws Exception {
+        platform.close();
+    }
+
     @Test
     public void isSearchPlatformFile_returnsFalseWhenNotDirectory() throws Exception {
         File dummyFile = tempFolder.newFile();
@@ -41,4 +54,69 @@ public class ApacheSolrTest {
         File configFile = tempFolder.newFolder(INDEX_NAME);
         assertTrue(platform.isSearchPlatformFile(INDEX_NAME, configFile));
     }
+
+    @Test
+    public void load_indexesOnlyTheChangedDocuments_whenTheCoreHasBeenLoadedBefore() throws Exception {
+        final File solrHome = new File(tempFolder.getRoot(), "solr");
+        final File configFolder = new File(getClass().getResource("/core1").toURI());
+
+        platform.beforeStart(configuration(solrHome));
+        platform.load(
+                corpus("[{\"id\":\"1\",\"title\":\"first\"},{\"id\":\"2\",\"title\":\"second\"},{\"id\":\"3\",\"title\":\"third\"}]"),
+                configFolder,
+                INDEX_NAME);
+        assertEquals(titles("1", "first", "2", "second", "3", "third"), titles());
+        platform.close();
+
+        // A new run, on the same Solr home: 1 is updated, 2 is deleted, 3 is unchanged and 4 is added
+        platform = new ApacheSolr();
+        platform.beforeStart(configuration(solrHome));
+        platform.load(
+                corpus("[{\"id\":\"1\",\"title\":\"first, updated\"},{\"id\":\"3\",\"title\":\"third\"},{\"id\":\"4\",\"title\":\"fourth\"}]"),
+                configFolder,
+                INDEX_NAME);
+
+        assertEquals(titles("1", "first, updated", "3", "third", "4", "fourth"), titles());
+    }
+
+    @Test
+    public void load_deletesAllDocuments_whenTheCorpusBecomesEmpty() throws Exception {
+        final File solrHome = new File(tempFolder.getRoot(), "solr");
+        final File configFolder = new File(getClass().getResource("/core1").toURI());
+
+        platform.beforeStart(configuration(solrHome));
+        platform.load(corpus("[{\"id\":\"1\",\"title\":\"first\"},{\"id\":\"2\",\"title\":\"second\"}]"), configFolder, INDEX_NAME);
+        platform.load(corpus("[]"), configFolder, INDEX_NAME);
+
+        assertEquals(0, platform.executeQuery(INDEX_NAME, "{\"q\":\"*:*\"}", new String[]{"id"}, 10).totalHits());
+    }
+
+    private Map<String, Object> configuration(final File solrHome) {
+        final Map<String, Object> configuration = new HashMap<>();
+        configuration.put("solr.home", solrHome.getAbsolutePath());
+        configuration.put("forceRefresh", false);
+        configuration.put("incrementalLoad", true);
+        return configuration;
+    }
+
+    private File corpus(final String documents) throws Exception {
+        final File corpus = tempFolder.newFile();
+        Files.write(corpus.toPath(), documents.getBytes(StandardCharsets.UTF_8));
+        return corpus;
+    }
+
+    private Map<String, String> titles() {
+        final QueryOrSearchResponse response = platform.executeQuery(INDEX_NAME, "{\"q\":\"*:*\"}", new String[]{"id", "title"}, 10);
+        final Map<String, String> titles = new TreeMap<>();
+        response.hits().forEach(hit -> titles.put(String.valueOf(hit.get("id")), String.valueOf(hit.get("title"))));
+        return titles;
+    }
+
+    private Map<String, String> titles(final String... idsAndTitles) {
+        final Map<String, String> titles = new TreeMap<>();
+        for (int i = 0; i < idsAndTitles.length; i += 2) {
+            titles.put(idsAndTitles[i], idsAndTitles[i + 1]);
+        }
+        return titles;
+    }
 }
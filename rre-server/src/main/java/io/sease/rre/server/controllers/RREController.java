@@ -133,7 +133,7 @@ public class RREController {
             entry.getValue().get("versions").fields().forEachRemaining(vEntry -> {
                 metric.collect(vEntry.getKey(), new BigDecimal(vEntry.getValue().get("value").asDouble()).setScale(4, RoundingMode.CEILING));
             });
-            parent.getMetrics().put(metric.getName(), metric);
+            parent.addMetric(metric);
         });
     }
 }